@@ -2,17 +2,21 @@ package cz.muni.fi.pa165.restapi.controllers;
 
 import cz.fi.muni.pa165.dto.CategoryCreateDTO;
 import cz.fi.muni.pa165.dto.CategoryDTO;
-import cz.fi.muni.pa165.dto.ProductDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryPageDTO;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
 import cz.fi.muni.pa165.facade.CategoryFacade;
 import cz.fi.muni.pa165.facade.ProductFacade;
 import cz.muni.fi.pa165.restapi.exceptions.InvalidRequestException;
 import cz.muni.fi.pa165.restapi.exceptions.ResourceNotFoundException;
 import cz.muni.fi.pa165.restapi.hateoas.CategoryRepresentationModelAssembler;
-import cz.muni.fi.pa165.restapi.hateoas.ProductRepresentationModelAssembler;
+import cz.muni.fi.pa165.restapi.hateoas.ProductSummaryRepresentationModelAssembler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.server.LinkBuilder;
 import org.springframework.hateoas.server.EntityLinks;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.server.ExposesResourceFor;
@@ -44,14 +48,14 @@ public class CategoriesRestController {
             @Autowired ProductFacade productFacade,
             @Autowired CategoryFacade categoryFacade,
             @Autowired CategoryRepresentationModelAssembler categoryRepresentationModelAssembler,
-            @Autowired ProductRepresentationModelAssembler productRepresentationModelAssembler,
+            @Autowired ProductSummaryRepresentationModelAssembler productSummaryRepresentationModelAssembler,
             @SuppressWarnings("SpringJavaAutowiringInspection")
             @Autowired EntityLinks entityLinks
     ) {
         this.productFacade = productFacade;
         this.categoryFacade = categoryFacade;
         this.categoryRepresentationModelAssembler = categoryRepresentationModelAssembler;
-        this.productRepresentationModelAssembler = productRepresentationModelAssembler;
+        this.productSummaryRepresentationModelAssembler = productSummaryRepresentationModelAssembler;
         this.entityLinks = entityLinks;
     }
 
@@ -61,7 +65,7 @@ public class CategoriesRestController {
 
     private CategoryRepresentationModelAssembler categoryRepresentationModelAssembler;
 
-    private ProductRepresentationModelAssembler productRepresentationModelAssembler;
+    private ProductSummaryRepresentationModelAssembler productSummaryRepresentationModelAssembler;
 
     private EntityLinks entityLinks;
 
@@ -97,19 +101,34 @@ public class CategoriesRestController {
     }
 
     /**
-     * Produces a list of products in the given category.
+     * Produces a page of products in the given category, with a next link if there are more products.
      *
      * @param id category identifier
-     * @return list of products in the category
+     * @param cursor cursor from the next link of the previous page, omitted for the first page
+     * @param size number of products in the page
+     * @return page of products in the category
      */
     @RequestMapping(value = "/{id}/products", method = RequestMethod.GET)
-    public HttpEntity<CollectionModel<EntityModel<ProductDTO>>> products(@PathVariable("id") long id) {
-        log.debug("rest category/{}/products()", id);
+    public HttpEntity<CollectionModel<EntityModel<ProductSummaryDTO>>> products(@PathVariable("id") long id,
+            @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "50") int size) {
+        log.debug("rest category/{}/products({}, {})", id, cursor, size);
+        if (size < 1 || size > ProductFacade.MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("page size must be from 1 to " + ProductFacade.MAX_PAGE_SIZE);
+        }
         CategoryDTO categoryDTO = categoryFacade.getCategoryById(id);
         if (categoryDTO == null) throw new ResourceNotFoundException("category " + id + " not found");
-        List<ProductDTO> products = productFacade.getProductsByCategory(categoryDTO.getName());
-        CollectionModel<EntityModel<ProductDTO>> productsCollectionModel = productRepresentationModelAssembler.toCollectionModel(products);
-        productsCollectionModel.add(entityLinks.linkForItemResource(CategoryDTO.class, id).slash("/products").withSelfRel());
+        ProductSummaryPageDTO page;
+        try {
+            page = productFacade.getProductSummaryPageByCategory(categoryDTO.getName(), cursor, size);
+        } catch (EshopServiceException ex) {
+            throw new InvalidRequestException(ex.getMessage());
+        }
+        CollectionModel<EntityModel<ProductSummaryDTO>> productsCollectionModel = productSummaryRepresentationModelAssembler.toCollectionModel(page.getProducts());
+        LinkBuilder listing = entityLinks.linkForItemResource(CategoryDTO.class, id).slash("/products");
+        productsCollectionModel.add(ProductsRestController.pageLink(listing, cursor, size, IanaLinkRelations.SELF));
+        if (page.getNext() != null) {
+            productsCollectionModel.add(ProductsRestController.pageLink(listing, page.getNext(), size, IanaLinkRelations.NEXT));
+        }
         return new ResponseEntity<>(productsCollectionModel, HttpStatus.OK);
     }
 
@@ -2,16 +2,25 @@ package cz.muni.fi.pa165.restapi.controllers;
 
 import cz.fi.muni.pa165.dto.ProductCreateDTO;
 import cz.fi.muni.pa165.dto.ProductDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryPageDTO;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
 import cz.fi.muni.pa165.facade.ProductFacade;
+import cz.fi.muni.pa165.utils.ProductImageResponses;
 import cz.muni.fi.pa165.restapi.exceptions.InvalidRequestException;
 import cz.muni.fi.pa165.restapi.exceptions.ResourceNotFoundException;
 import cz.muni.fi.pa165.restapi.exceptions.ServerProblemException;
 import cz.muni.fi.pa165.restapi.hateoas.ProductRepresentationModelAssembler;
+import cz.muni.fi.pa165.restapi.hateoas.ProductSummaryRepresentationModelAssembler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.server.LinkBuilder;
 import org.springframework.hateoas.server.ExposesResourceFor;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpStatus;
@@ -19,13 +28,12 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
 
-import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.io.IOException;
-import java.util.List;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 
@@ -41,26 +49,60 @@ public class ProductsRestController {
 
     private final static Logger log = LoggerFactory.getLogger(ProductsRestController.class);
 
-    public ProductsRestController(@Autowired ProductFacade productFacade,@Autowired ProductRepresentationModelAssembler productRepresentationModelAssembler) {
+    public ProductsRestController(@Autowired ProductFacade productFacade,@Autowired ProductRepresentationModelAssembler productRepresentationModelAssembler,
+                                  @Autowired ProductSummaryRepresentationModelAssembler productSummaryRepresentationModelAssembler) {
         this.productFacade = productFacade;
         this.productRepresentationModelAssembler = productRepresentationModelAssembler;
+        this.productSummaryRepresentationModelAssembler = productSummaryRepresentationModelAssembler;
     }
 
     private ProductFacade productFacade;
 
     private ProductRepresentationModelAssembler productRepresentationModelAssembler;
 
+    private ProductSummaryRepresentationModelAssembler productSummaryRepresentationModelAssembler;
 
+
+    /**
+     * Produces a page of products ordered by name, with a next link if there are more products.
+     *
+     * @param cursor cursor from the next link of the previous page, omitted for the first page
+     * @param size number of products in the page
+     */
     @RequestMapping(method = RequestMethod.GET)
-    public final HttpEntity<CollectionModel<EntityModel<ProductDTO>>> getProducts() {
-        log.debug("rest getProducts()");
-        CollectionModel<EntityModel<ProductDTO>> productsCollectionModel = productRepresentationModelAssembler.toCollectionModel(productFacade.getAllProducts());
-        productsCollectionModel.add(linkTo(ProductsRestController.class).withSelfRel());
+    public final HttpEntity<CollectionModel<EntityModel<ProductSummaryDTO>>> getProducts(
+            @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "50") int size) {
+        log.debug("rest getProducts({}, {})", cursor, size);
+        if (size < 1 || size > ProductFacade.MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("page size must be from 1 to " + ProductFacade.MAX_PAGE_SIZE);
+        }
+        ProductSummaryPageDTO page;
+        try {
+            page = productFacade.getProductSummaryPage(cursor, size);
+        } catch (EshopServiceException ex) {
+            throw new InvalidRequestException(ex.getMessage());
+        }
+        CollectionModel<EntityModel<ProductSummaryDTO>> productsCollectionModel = productSummaryRepresentationModelAssembler.toCollectionModel(page.getProducts());
+        productsCollectionModel.add(pageLink(linkTo(ProductsRestController.class), cursor, size, IanaLinkRelations.SELF));
+        if (page.getNext() != null) {
+            productsCollectionModel.add(pageLink(linkTo(ProductsRestController.class), page.getNext(), size, IanaLinkRelations.NEXT));
+        }
         productsCollectionModel.add(linkTo(ProductsRestController.class).slash("/create").withRel("create"));
         return new ResponseEntity<>(productsCollectionModel, HttpStatus.OK);
 
     }
 
+    /**
+     * Creates a link to a page of the listing at the given URI.
+     */
+    static Link pageLink(LinkBuilder listing, String cursor, int size, LinkRelation rel) {
+        UriComponentsBuilder uri = UriComponentsBuilder.fromUri(listing.toUri());
+        if (cursor != null) {
+            uri.queryParam("cursor", cursor);
+        }
+        return Link.of(uri.queryParam("size", size).toUriString(), rel);
+    }
+
     @RequestMapping(value = "/{id}", method = RequestMethod.GET)
     public final HttpEntity<EntityModel<ProductDTO>> getProduct(@PathVariable("id") long id) throws Exception {
         log.debug("rest getProduct({})", id);
@@ -70,18 +112,14 @@ public class ProductsRestController {
         return new ResponseEntity<>(productModel, HttpStatus.OK);
     }
 
+    /**
+     * Sends the product image with validators for caching (ETag, Last-Modified) and support for a single byte range.
+     * With the size parameter, a thumbnail at least that large is sent instead of the original.
+     */
     @RequestMapping(value = "/{id}/image", method = RequestMethod.GET)
-    public void productImage(@PathVariable long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
-        ProductDTO productDTO = productFacade.getProductWithId(id);
-        byte[] image = productDTO.getImage();
-        if (image == null) {
-            response.sendRedirect(request.getContextPath() + "/no-image.png");
-        } else {
-            response.setContentType(productDTO.getImageMimeType());
-            ServletOutputStream out = response.getOutputStream();
-            out.write(image);
-            out.flush();
-        }
+    public void productImage(@PathVariable long id, @RequestParam(required = false) Integer size,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ProductImageResponses.send(productFacade, id, size, request, response);
     }
 
     @RequestMapping(value = "/{id}", method = RequestMethod.DELETE)
@@ -26,19 +26,28 @@ public class ProductRepresentationModelAssembler implements RepresentationModelA
 
     private final static Logger log = LoggerFactory.getLogger(ProductRepresentationModelAssembler.class);
 
+    private final static int THUMBNAIL_SIZE = 256;
+
     @Override
     public EntityModel<ProductDTO> toModel(ProductDTO productDTO) {
-        long id = productDTO.getId();
-        EntityModel<ProductDTO> productResource = new EntityModel<>(productDTO);
+        return addLinks(EntityModel.of(productDTO), productDTO.getId());
+    }
+
+    /**
+     * Adds the links of the product with the given id, shared by full products and product summaries.
+     */
+    static <T> EntityModel<T> addLinks(EntityModel<T> productResource, long id) {
         try {
-            productResource.add(linkTo(ProductsRestController.class).slash(productDTO.getId()).withSelfRel());
+            productResource.add(linkTo(ProductsRestController.class).slash(id).withSelfRel());
 
             Method deleteProduct = ProductsRestController.class.getMethod("deleteProduct", long.class);
             productResource.add(linkTo(deleteProduct.getDeclaringClass(),deleteProduct, id).withRel("delete"));
 
-            Method productImage = ProductsRestController.class.getMethod("productImage", long.class, HttpServletRequest.class, HttpServletResponse.class);
-            Link imageLink = linkTo(productImage.getDeclaringClass(), productImage, id).withRel("image");
+            Method productImage = ProductsRestController.class.getMethod("productImage", long.class, Integer.class, HttpServletRequest.class, HttpServletResponse.class);
+            Link imageLink = linkTo(productImage.getDeclaringClass(), productImage, id, null, null, null).withRel("image");
             productResource.add(imageLink);
+            Link thumbnailLink = linkTo(productImage.getDeclaringClass(), productImage, id, THUMBNAIL_SIZE, null, null).withRel("thumbnail");
+            productResource.add(thumbnailLink);
         } catch (Exception ex) {
             log.error("cannot link HATEOAS", ex);
         }
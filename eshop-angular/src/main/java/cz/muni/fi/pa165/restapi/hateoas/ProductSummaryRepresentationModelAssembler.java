@@ -0,0 +1,19 @@
+package cz.muni.fi.pa165.restapi.hateoas;
+
+import cz.fi.muni.pa165.dto.ProductSummaryDTO;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.server.RepresentationModelAssembler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts ProductSummaryDTO instance used in product listings into a resource with the same _links as a full product.
+ *
+ */
+@Component
+public class ProductSummaryRepresentationModelAssembler implements RepresentationModelAssembler<ProductSummaryDTO, EntityModel<ProductSummaryDTO>> {
+
+    @Override
+    public EntityModel<ProductSummaryDTO> toModel(ProductSummaryDTO productSummaryDTO) {
+        return ProductRepresentationModelAssembler.addLinks(EntityModel.of(productSummaryDTO), productSummaryDTO.getId());
+    }
+}
@@ -45,10 +45,23 @@ pa165eshopApp.run(function ($rootScope,$http) {
  * Public eshop interface
  */
 
-// helper procedure loading products to category
+// helper procedure returning products in a page of a product listing, the page has no _embedded when empty
+function pageProducts(response) {
+    var embedded = response.data['_embedded'];
+    return embedded ? embedded['productSummaryDTOList'] : [];
+}
+
+// helper procedure returning the link to the next page of a product listing or null on the last page
+function nextPageLink(response) {
+    var next = response.data['_links'].next;
+    return next ? next.href : null;
+}
+
+// helper procedure loading products to category, a page after another when called with the next link
 function loadCategoryProducts($http, category, prodLink) {
     $http.get(prodLink).then(function (response) {
-        category.products = response.data['_embedded']['productDTOList'];
+        category.products = (category.products || []).concat(pageProducts(response));
+        category.nextProductsLink = nextPageLink(response);
         console.log('AJAX loaded ' + category.products.length + ' products to category ' + category.name);
     });
 }
@@ -104,6 +117,10 @@ eshopControllers.controller('CategoryDetailCtrl', ['$scope', '$routeParams', '$h
             console.log('AJAX loaded detail of category ' + category.name);
             loadCategoryProducts($http, category, category['_links'].products.href);
         });
+        // function called when More button is clicked
+        $scope.loadMoreProducts = function () {
+            loadCategoryProducts($http, $scope.category, $scope.category.nextProductsLink);
+        };
     }]);
 
 /*
@@ -113,16 +130,21 @@ eshopControllers.controller('CategoryDetailCtrl', ['$scope', '$routeParams', '$h
 /*
  * Admin Products page
  */
-function loadAdminProducts($http, $scope) {
-    $http.get('/eshop/api/v1/products').then(function (response) {
-        $scope.products = response.data['_embedded']['productDTOList'];
-        console.log('AJAX loaded all products ');
+function loadAdminProducts($http, $scope, pageLink) {
+    $http.get(pageLink || '/eshop/api/v1/products').then(function (response) {
+        $scope.products = (pageLink ? $scope.products : []).concat(pageProducts(response));
+        $scope.nextProductsLink = nextPageLink(response);
+        console.log('AJAX loaded ' + $scope.products.length + ' products');
     });
 }
 eshopControllers.controller('AdminProductsCtrl',
     function ($scope, $rootScope, $routeParams, $http) {
-        //initial load of all products
+        //initial load of the first page of products
         loadAdminProducts($http, $scope);
+        // function called when More button is clicked
+        $scope.loadMoreProducts = function () {
+            loadAdminProducts($http, $scope, $scope.nextProductsLink);
+        };
         // function called when Delete button is clicked
         $scope.deleteProduct = function (product) {
             console.log("deleting product with id=" + product.id + ' (' + product.name + ')');
@@ -131,7 +153,7 @@ eshopControllers.controller('AdminProductsCtrl',
                     console.log('deleted product ' + product.id + ' on server');
                     //display confirmation alert
                     $rootScope.successAlert = 'Deleted product "' + product.name + '"';
-                    //load new list of all products
+                    //load the first page of products again
                     loadAdminProducts($http, $scope);
                 },
                 function error(response) {
@@ -0,0 +1,62 @@
+package cz.fi.muni.pa165.dto;
+
+import cz.fi.muni.pa165.enums.Currency;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Revenue of the orders created on one day in one currency.
+ */
+public class DailyRevenueDTO
+{
+    private Date day;
+
+    private Currency currency;
+
+    private long orderCount;
+
+    private BigDecimal revenue;
+
+    public Date getDay() {
+        return day;
+    }
+
+    public void setDay(Date day) {
+        this.day = day;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(Currency currency) {
+        this.currency = currency;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    @Override
+    public String toString() {
+        return "DailyRevenueDTO{" +
+                "day=" + day +
+                ", currency=" + currency +
+                ", orderCount=" + orderCount +
+                ", revenue=" + revenue +
+                '}';
+    }
+}
@@ -0,0 +1,119 @@
+package cz.fi.muni.pa165.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counters of the second-level cache of entities, collections, natural ids and queries,
+ * together with the number of SQL statements they are meant to save.
+ */
+public class EntityCacheStatisticsDTO
+{
+    private long statementCount;
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long putCount;
+
+    private long naturalIdHitCount;
+
+    private long naturalIdMissCount;
+
+    private long queryHitCount;
+
+    private long queryMissCount;
+
+    private List<CacheRegionStatisticsDTO> regions = new ArrayList<>();
+
+    /**
+     * Number of SQL statements prepared since the start of the application.
+     */
+    public long getStatementCount() {
+        return statementCount;
+    }
+
+    public void setStatementCount(long statementCount) {
+        this.statementCount = statementCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public void setHitCount(long hitCount) {
+        this.hitCount = hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public void setMissCount(long missCount) {
+        this.missCount = missCount;
+    }
+
+    public long getPutCount() {
+        return putCount;
+    }
+
+    public void setPutCount(long putCount) {
+        this.putCount = putCount;
+    }
+
+    public long getNaturalIdHitCount() {
+        return naturalIdHitCount;
+    }
+
+    public void setNaturalIdHitCount(long naturalIdHitCount) {
+        this.naturalIdHitCount = naturalIdHitCount;
+    }
+
+    public long getNaturalIdMissCount() {
+        return naturalIdMissCount;
+    }
+
+    public void setNaturalIdMissCount(long naturalIdMissCount) {
+        this.naturalIdMissCount = naturalIdMissCount;
+    }
+
+    public long getQueryHitCount() {
+        return queryHitCount;
+    }
+
+    public void setQueryHitCount(long queryHitCount) {
+        this.queryHitCount = queryHitCount;
+    }
+
+    public long getQueryMissCount() {
+        return queryMissCount;
+    }
+
+    public void setQueryMissCount(long queryMissCount) {
+        this.queryMissCount = queryMissCount;
+    }
+
+    public List<CacheRegionStatisticsDTO> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(List<CacheRegionStatisticsDTO> regions) {
+        this.regions = regions;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityCacheStatisticsDTO{" +
+                "statementCount=" + statementCount +
+                ", hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", putCount=" + putCount +
+                ", naturalIdHitCount=" + naturalIdHitCount +
+                ", naturalIdMissCount=" + naturalIdMissCount +
+                ", queryHitCount=" + queryHitCount +
+                ", queryMissCount=" + queryMissCount +
+                ", regions=" + regions +
+                '}';
+    }
+}
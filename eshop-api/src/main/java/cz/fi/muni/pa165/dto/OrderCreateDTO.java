@@ -0,0 +1,44 @@
+package cz.fi.muni.pa165.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * Order placed by a user, the products are ordered for their current prices.
+ */
+public class OrderCreateDTO
+{
+    @NotNull
+    private Long userId;
+
+    @NotNull
+    @Size(min = 1)
+    private List<OrderItemCreateDTO> items = new ArrayList<>();
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public List<OrderItemCreateDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<OrderItemCreateDTO> items) {
+        this.items = items;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderCreateDTO{" +
+                "userId=" + userId +
+                ", items=" + items +
+                '}';
+    }
+}
@@ -0,0 +1,86 @@
+package cz.fi.muni.pa165.dto;
+
+import cz.fi.muni.pa165.enums.OrderState;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * An order as exported for accounting. Unlike {@link OrderDTO} it contains only the columns accounting needs,
+ * so that exporting does not load the categories and price histories of the products.
+ */
+public class OrderExportDTO
+{
+    private Long id;
+
+    private Date created;
+
+    private OrderState state;
+
+    private Long userId;
+
+    private String userEmail;
+
+    private List<OrderExportItemDTO> items = new ArrayList<>();
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public void setCreated(Date created) {
+        this.created = created;
+    }
+
+    public OrderState getState() {
+        return state;
+    }
+
+    public void setState(OrderState state) {
+        this.state = state;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public void setUserEmail(String userEmail) {
+        this.userEmail = userEmail;
+    }
+
+    public List<OrderExportItemDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<OrderExportItemDTO> items) {
+        this.items = items;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderExportDTO{" +
+                "id=" + id +
+                ", created=" + created +
+                ", state=" + state +
+                ", userId=" + userId +
+                ", userEmail='" + userEmail + '\'' +
+                ", items=" + items +
+                '}';
+    }
+}
@@ -0,0 +1,72 @@
+package cz.fi.muni.pa165.dto;
+
+import cz.fi.muni.pa165.enums.Currency;
+
+import java.math.BigDecimal;
+
+/**
+ * One item of an exported order.
+ */
+public class OrderExportItemDTO
+{
+    private Long productId;
+
+    private String productName;
+
+    private Integer amount;
+
+    private BigDecimal pricePerItem;
+
+    private Currency currency;
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+
+    public BigDecimal getPricePerItem() {
+        return pricePerItem;
+    }
+
+    public void setPricePerItem(BigDecimal pricePerItem) {
+        this.pricePerItem = pricePerItem;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(Currency currency) {
+        this.currency = currency;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderExportItemDTO{" +
+                "productId=" + productId +
+                ", productName='" + productName + '\'' +
+                ", amount=" + amount +
+                ", pricePerItem=" + pricePerItem +
+                ", currency=" + currency +
+                '}';
+    }
+}
@@ -0,0 +1,65 @@
+package cz.fi.muni.pa165.dto;
+
+import cz.fi.muni.pa165.enums.OrderIntakeState;
+
+/**
+ * Status of an order submitted to the order intake, looked up by its acknowledgement id.
+ */
+public class OrderIntakeStatusDTO
+{
+    private String ackId;
+
+    private OrderIntakeState state;
+
+    private Long orderId;
+
+    private String message;
+
+    public String getAckId() {
+        return ackId;
+    }
+
+    public void setAckId(String ackId) {
+        this.ackId = ackId;
+    }
+
+    public OrderIntakeState getState() {
+        return state;
+    }
+
+    public void setState(OrderIntakeState state) {
+        this.state = state;
+    }
+
+    /**
+     * Id of the created order, null until the order is created.
+     */
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    /**
+     * Why the order was not created, null unless it failed.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderIntakeStatusDTO{" +
+                "ackId='" + ackId + '\'' +
+                ", state=" + state +
+                ", orderId=" + orderId +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
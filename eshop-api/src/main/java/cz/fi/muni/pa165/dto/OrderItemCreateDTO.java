@@ -0,0 +1,38 @@
+package cz.fi.muni.pa165.dto;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+public class OrderItemCreateDTO
+{
+    @NotNull
+    private Long productId;
+
+    @NotNull
+    @Min(1)
+    private Integer amount;
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderItemCreateDTO{" +
+                "productId=" + productId +
+                ", amount=" + amount +
+                '}';
+    }
+}
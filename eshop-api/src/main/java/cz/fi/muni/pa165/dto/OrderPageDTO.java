@@ -0,0 +1,40 @@
+package cz.fi.muni.pa165.dto;
+
+import java.util.List;
+
+/**
+ * One page of the orders found by a search.
+ */
+public class OrderPageDTO
+{
+    private List<OrderDTO> orders;
+
+    private String next;
+
+    public List<OrderDTO> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<OrderDTO> orders) {
+        this.orders = orders;
+    }
+
+    /**
+     * Opaque cursor of the next page, or null if this is the last page.
+     */
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderPageDTO{" +
+                "orders=" + orders +
+                ", next='" + next + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,125 @@
+package cz.fi.muni.pa165.dto;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Set;
+
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.enums.OrderSort;
+import cz.fi.muni.pa165.enums.OrderState;
+
+/**
+ * Conditions of an order search, the orders found meet all the conditions which are set.
+ */
+public class OrderSearchDTO
+{
+    private Set<OrderState> states = EnumSet.noneOf(OrderState.class);
+
+    private Date createdFrom;
+
+    private Date createdTo;
+
+    private Long userId;
+
+    private Long productId;
+
+    private BigDecimal minTotal;
+
+    private Currency totalCurrency = Currency.CZK;
+
+    private OrderSort sort = OrderSort.NEWEST;
+
+    /**
+     * States the orders are in, all states if empty.
+     */
+    public Set<OrderState> getStates() {
+        return states;
+    }
+
+    public void setStates(Set<OrderState> states) {
+        this.states = states;
+    }
+
+    /**
+     * Time the orders were created at or after.
+     */
+    public Date getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public void setCreatedFrom(Date createdFrom) {
+        this.createdFrom = createdFrom;
+    }
+
+    /**
+     * Time the orders were created before.
+     */
+    public Date getCreatedTo() {
+        return createdTo;
+    }
+
+    public void setCreatedTo(Date createdTo) {
+        this.createdTo = createdTo;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Id of a product the orders contain.
+     */
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    /**
+     * The least total price of the orders in the total currency.
+     */
+    public BigDecimal getMinTotal() {
+        return minTotal;
+    }
+
+    public void setMinTotal(BigDecimal minTotal) {
+        this.minTotal = minTotal;
+    }
+
+    public Currency getTotalCurrency() {
+        return totalCurrency;
+    }
+
+    public void setTotalCurrency(Currency totalCurrency) {
+        this.totalCurrency = totalCurrency;
+    }
+
+    public OrderSort getSort() {
+        return sort;
+    }
+
+    public void setSort(OrderSort sort) {
+        this.sort = sort;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderSearchDTO{" +
+                "states=" + states +
+                ", createdFrom=" + createdFrom +
+                ", createdTo=" + createdTo +
+                ", userId=" + userId +
+                ", productId=" + productId +
+                ", minTotal=" + minTotal +
+                ", totalCurrency=" + totalCurrency +
+                ", sort=" + sort +
+                '}';
+    }
+}
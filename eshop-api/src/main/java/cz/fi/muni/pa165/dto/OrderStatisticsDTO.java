@@ -0,0 +1,60 @@
+package cz.fi.muni.pa165.dto;
+
+import cz.fi.muni.pa165.enums.OrderState;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Order statistics for the admin dashboard. Canceled orders are counted in {@link #getOrderCounts()} only.
+ */
+public class OrderStatisticsDTO
+{
+    private Map<OrderState, Long> orderCounts;
+
+    private List<DailyRevenueDTO> dailyRevenue;
+
+    private List<ProductSalesDTO> productSales;
+
+    /**
+     * Number of orders in every state, including states without orders.
+     */
+    public Map<OrderState, Long> getOrderCounts() {
+        return orderCounts;
+    }
+
+    public void setOrderCounts(Map<OrderState, Long> orderCounts) {
+        this.orderCounts = orderCounts;
+    }
+
+    /**
+     * Revenue in the requested period by day and currency, ordered by day and currency.
+     */
+    public List<DailyRevenueDTO> getDailyRevenue() {
+        return dailyRevenue;
+    }
+
+    public void setDailyRevenue(List<DailyRevenueDTO> dailyRevenue) {
+        this.dailyRevenue = dailyRevenue;
+    }
+
+    /**
+     * Pieces sold of every product ever sold, best-selling first.
+     */
+    public List<ProductSalesDTO> getProductSales() {
+        return productSales;
+    }
+
+    public void setProductSales(List<ProductSalesDTO> productSales) {
+        this.productSales = productSales;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderStatisticsDTO{" +
+                "orderCounts=" + orderCounts +
+                ", dailyRevenue=" + dailyRevenue +
+                ", productSales=" + productSales +
+                '}';
+    }
+}
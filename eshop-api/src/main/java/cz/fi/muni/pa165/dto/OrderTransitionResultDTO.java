@@ -0,0 +1,52 @@
+package cz.fi.muni.pa165.dto;
+
+import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.enums.OrderTransitionOutcome;
+
+/**
+ * Result of changing the state of one order in a bulk operation.
+ */
+public class OrderTransitionResultDTO
+{
+    private Long orderId;
+
+    private OrderTransitionOutcome outcome;
+
+    private OrderState state;
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public OrderTransitionOutcome getOutcome() {
+        return outcome;
+    }
+
+    public void setOutcome(OrderTransitionOutcome outcome) {
+        this.outcome = outcome;
+    }
+
+    /**
+     * State of the order after the operation, null if the order was not found.
+     */
+    public OrderState getState() {
+        return state;
+    }
+
+    public void setState(OrderState state) {
+        this.state = state;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderTransitionResultDTO{" +
+                "orderId=" + orderId +
+                ", outcome=" + outcome +
+                ", state=" + state +
+                '}';
+    }
+}
@@ -0,0 +1,81 @@
+package cz.fi.muni.pa165.dto;
+
+import java.math.BigDecimal;
+
+import cz.fi.muni.pa165.enums.Currency;
+
+/**
+ * Price range used to filter products, with the number of products priced in it.
+ */
+public class PriceBandDTO
+{
+    private int band;
+
+    private BigDecimal from;
+
+    private BigDecimal to;
+
+    private Currency currency;
+
+    private int count;
+
+    /**
+     * Index of the band, used to select it in a filter.
+     */
+    public int getBand() {
+        return band;
+    }
+
+    public void setBand(int band) {
+        this.band = band;
+    }
+
+    /**
+     * Lowest price in the band, inclusive.
+     */
+    public BigDecimal getFrom() {
+        return from;
+    }
+
+    public void setFrom(BigDecimal from) {
+        this.from = from;
+    }
+
+    /**
+     * Upper limit of the band, exclusive, or null if the band has no upper limit.
+     */
+    public BigDecimal getTo() {
+        return to;
+    }
+
+    public void setTo(BigDecimal to) {
+        this.to = to;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(Currency currency) {
+        this.currency = currency;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    @Override
+    public String toString() {
+        return "PriceBandDTO{" +
+                "band=" + band +
+                ", from=" + from +
+                ", to=" + to +
+                ", currency=" + currency +
+                ", count=" + count +
+                '}';
+    }
+}
@@ -0,0 +1,81 @@
+package cz.fi.muni.pa165.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Products matching a filter by color, category and price band, with the number of products for every
+ * value of these facets. The count of a value is the number of products that would match if the value was
+ * the only one selected in its facet.
+ */
+public class ProductFacetsDTO
+{
+    private List<ProductSummaryDTO> products;
+
+    private int totalCount;
+
+    private Map<Color, Integer> colorCounts;
+
+    private Map<Long, Integer> categoryCounts;
+
+    private List<PriceBandDTO> priceBands;
+
+    /**
+     * First matching products, at most as many as requested.
+     */
+    public List<ProductSummaryDTO> getProducts() {
+        return products;
+    }
+
+    public void setProducts(List<ProductSummaryDTO> products) {
+        this.products = products;
+    }
+
+    /**
+     * Number of all matching products.
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(int totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    public Map<Color, Integer> getColorCounts() {
+        return colorCounts;
+    }
+
+    public void setColorCounts(Map<Color, Integer> colorCounts) {
+        this.colorCounts = colorCounts;
+    }
+
+    /**
+     * Counts by category id.
+     */
+    public Map<Long, Integer> getCategoryCounts() {
+        return categoryCounts;
+    }
+
+    public void setCategoryCounts(Map<Long, Integer> categoryCounts) {
+        this.categoryCounts = categoryCounts;
+    }
+
+    public List<PriceBandDTO> getPriceBands() {
+        return priceBands;
+    }
+
+    public void setPriceBands(List<PriceBandDTO> priceBands) {
+        this.priceBands = priceBands;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductFacetsDTO{" +
+                "totalCount=" + totalCount +
+                ", colorCounts=" + colorCounts +
+                ", categoryCounts=" + categoryCounts +
+                ", priceBands=" + priceBands +
+                '}';
+    }
+}
@@ -0,0 +1,71 @@
+package cz.fi.muni.pa165.dto;
+
+import java.util.Date;
+
+/**
+ * Metadata of a product image. The content itself is written by
+ * {@link cz.fi.muni.pa165.facade.ProductFacade#writeProductImage}.
+ */
+public class ProductImageDTO
+{
+    private Long productId;
+
+    private String mimeType;
+
+    private long length;
+
+    private String contentHash;
+
+    private Date lastModified;
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public void setLength(long length) {
+        this.length = length;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Date lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductImageDTO{" +
+                "productId=" + productId +
+                ", mimeType='" + mimeType + '\'' +
+                ", length=" + length +
+                ", contentHash='" + contentHash + '\'' +
+                ", lastModified=" + lastModified +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+package cz.fi.muni.pa165.dto;
+
+/**
+ * Number of pieces of a product sold and of the orders they were sold in.
+ */
+public class ProductSalesDTO
+{
+    private Long productId;
+
+    private String productName;
+
+    private long itemsSold;
+
+    private long orderCount;
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public long getItemsSold() {
+        return itemsSold;
+    }
+
+    public void setItemsSold(long itemsSold) {
+        this.itemsSold = itemsSold;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductSalesDTO{" +
+                "productId=" + productId +
+                ", productName='" + productName + '\'' +
+                ", itemsSold=" + itemsSold +
+                ", orderCount=" + orderCount +
+                '}';
+    }
+}
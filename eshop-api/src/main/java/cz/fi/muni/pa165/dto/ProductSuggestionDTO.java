@@ -0,0 +1,49 @@
+package cz.fi.muni.pa165.dto;
+
+/**
+ * Product suggested while its name is being typed.
+ */
+public class ProductSuggestionDTO
+{
+    private Long id;
+
+    private String name;
+
+    private long orderCount;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Number of orders containing the product.
+     */
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductSuggestionDTO{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", orderCount=" + orderCount +
+                '}';
+    }
+}
@@ -0,0 +1,109 @@
+package cz.fi.muni.pa165.dto;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Lightweight product for listings. Unlike {@link ProductDTO} it carries neither
+ * the image nor the price history, and it refers to categories by id only.
+ */
+public class ProductSummaryDTO
+{
+    private Long id;
+
+    private String name;
+
+    private Color color;
+
+    private Date addedDate;
+
+    private PriceDTO currentPrice;
+
+    private Set<Long> categoryIds = new HashSet<>();
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
+    public void setColor(Color color) {
+        this.color = color;
+    }
+
+    public Date getAddedDate() {
+        return addedDate;
+    }
+
+    public void setAddedDate(Date addedDate) {
+        this.addedDate = addedDate;
+    }
+
+    public PriceDTO getCurrentPrice() {
+        return currentPrice;
+    }
+
+    public void setCurrentPrice(PriceDTO currentPrice) {
+        this.currentPrice = currentPrice;
+    }
+
+    public Set<Long> getCategoryIds() {
+        return categoryIds;
+    }
+
+    public void setCategoryIds(Set<Long> categoryIds) {
+        this.categoryIds = categoryIds;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((name == null) ? 0 : name.hashCode());
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        ProductSummaryDTO other = (ProductSummaryDTO) obj;
+        if (name == null) {
+            if (other.name != null)
+                return false;
+        } else if (!name.equals(other.name))
+            return false;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductSummaryDTO{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", color=" + color +
+                ", addedDate=" + addedDate +
+                ", currentPrice=" + currentPrice +
+                ", categoryIds=" + categoryIds +
+                '}';
+    }
+}
@@ -0,0 +1,40 @@
+package cz.fi.muni.pa165.dto;
+
+import java.util.List;
+
+/**
+ * One page of a product listing ordered by name.
+ */
+public class ProductSummaryPageDTO
+{
+    private List<ProductSummaryDTO> products;
+
+    private String next;
+
+    public List<ProductSummaryDTO> getProducts() {
+        return products;
+    }
+
+    public void setProducts(List<ProductSummaryDTO> products) {
+        this.products = products;
+    }
+
+    /**
+     * Opaque cursor of the next page, or null if this is the last page.
+     */
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductSummaryPageDTO{" +
+                "products=" + products +
+                ", next='" + next + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,19 @@
+package cz.fi.muni.pa165.enums;
+
+/**
+ * State of an order submitted to the asynchronous order intake.
+ */
+public enum OrderIntakeState {
+	/**
+	 * The order waits in the queue, it is not in the database yet.
+	 */
+	QUEUED,
+	/**
+	 * The order was committed to the database.
+	 */
+	CREATED,
+	/**
+	 * The order was not created, e.g. because its user or one of its products does not exist.
+	 */
+	FAILED
+}
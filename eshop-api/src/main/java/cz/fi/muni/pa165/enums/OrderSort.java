@@ -0,0 +1,16 @@
+package cz.fi.muni.pa165.enums;
+
+/**
+ * Order of the orders found by a search. Orders created at the same time are ordered by id,
+ * so every order has a unique position and the pages of a search do not overlap.
+ */
+public enum OrderSort {
+	/**
+	 * The last created orders first.
+	 */
+	NEWEST,
+	/**
+	 * The first created orders first.
+	 */
+	OLDEST
+}
@@ -0,0 +1,19 @@
+package cz.fi.muni.pa165.enums;
+
+/**
+ * Outcome of changing the state of one order in a bulk operation.
+ */
+public enum OrderTransitionOutcome {
+	/**
+	 * The state was changed.
+	 */
+	CHANGED,
+	/**
+	 * There is no order with the id.
+	 */
+	NOT_FOUND,
+	/**
+	 * The order is in a state from which the transition is not allowed, it was left unchanged.
+	 */
+	NOT_ALLOWED
+}
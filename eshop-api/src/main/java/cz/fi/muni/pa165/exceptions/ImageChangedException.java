@@ -0,0 +1,13 @@
+package cz.fi.muni.pa165.exceptions;
+
+/**
+ * Thrown when a product image is written while it is not the image described to the client anymore,
+ * the client should read the metadata of the image again.
+ */
+public class ImageChangedException extends EshopServiceException {
+
+	public ImageChangedException(String message) {
+		super(message);
+	}
+
+}
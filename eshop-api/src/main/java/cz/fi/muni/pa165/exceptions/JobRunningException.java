@@ -0,0 +1,13 @@
+package cz.fi.muni.pa165.exceptions;
+
+/**
+ * Thrown when a background job is started while it is running already,
+ * the client should try again later.
+ */
+public class JobRunningException extends EshopServiceException {
+
+	public JobRunningException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,13 @@
+package cz.fi.muni.pa165.exceptions;
+
+/**
+ * Thrown when an order cannot be submitted because the order intake queue stays full,
+ * the client should try again later.
+ */
+public class OrderIntakeFullException extends EshopServiceException {
+
+	public OrderIntakeFullException(String message) {
+		super(message);
+	}
+
+}
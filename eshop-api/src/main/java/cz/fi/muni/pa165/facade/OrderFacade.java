@@ -1,8 +1,19 @@
 package cz.fi.muni.pa165.facade;
 
+import java.math.BigDecimal;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import cz.fi.muni.pa165.dto.OrderCreateDTO;
 import cz.fi.muni.pa165.dto.OrderDTO;
+import cz.fi.muni.pa165.dto.OrderExportDTO;
+import cz.fi.muni.pa165.dto.OrderIntakeStatusDTO;
+import cz.fi.muni.pa165.dto.OrderPageDTO;
+import cz.fi.muni.pa165.dto.OrderSearchDTO;
+import cz.fi.muni.pa165.dto.OrderStatisticsDTO;
+import cz.fi.muni.pa165.dto.OrderTransitionResultDTO;
 import cz.fi.muni.pa165.dto.OrderTotalPriceDTO;
 import cz.fi.muni.pa165.enums.Currency;
 import cz.fi.muni.pa165.enums.OrderState;
@@ -13,8 +24,102 @@ public interface OrderFacade {
 	public List<OrderDTO> getOrdersByUser(Long userId);
 	public List<OrderDTO> getOrdersByState(OrderState state);
 	public OrderDTO getOrderById(Long id);
+
+	/**
+	 * Largest page size of {@link #searchOrders(OrderSearchDTO, String, int)} the web APIs accept.
+	 */
+	public static final int MAX_PAGE_SIZE = 500;
+
+	/**
+	 * Returns a page of the orders meeting the conditions of the search. Only the orders of the page are read,
+	 * however far the page is, with a single query.
+	 *
+	 * @param cursor {@link OrderPageDTO#getNext()} of the previous page of the same search, null for the first page
+	 * @throws cz.fi.muni.pa165.exceptions.EshopServiceException if the cursor is not valid
+	 */
+	public OrderPageDTO searchOrders(OrderSearchDTO search, String cursor, int pageSize);
+
+	/**
+	 * Submits the order to the order intake, which creates it in the background together with other submitted orders.
+	 * Waits a moment when the intake queue is full.
+	 *
+	 * @return status of the order with the acknowledgement id to look it up by
+	 * @throws cz.fi.muni.pa165.exceptions.OrderIntakeFullException when the queue stays full
+	 * @throws cz.fi.muni.pa165.exceptions.EshopServiceException when the order has no user, no items
+	 * or an invalid item
+	 */
+	public OrderIntakeStatusDTO submitOrder(OrderCreateDTO order);
+
+	/**
+	 * @return status of the submitted order, null if the acknowledgement id is unknown or its status expired
+	 */
+	public OrderIntakeStatusDTO getOrderIntakeStatus(String ackId);
 	public void shipOrder(Long id);
 	public void finishOrder(Long id);
 	public void cancelOrder(Long id);
+
+	/**
+	 * Ships the orders which are received, without loading them. Thousands of orders are changed in chunks,
+	 * each in its own transaction.
+	 *
+	 * @return result for every distinct id, in the order of the ids
+	 */
+	public List<OrderTransitionResultDTO> shipOrders(List<Long> ids);
+
+	/**
+	 * Finishes the orders which are shipped, see {@link #shipOrders(List)}.
+	 */
+	public List<OrderTransitionResultDTO> finishOrders(List<Long> ids);
+
+	/**
+	 * Cancels the orders which are received, see {@link #shipOrders(List)}.
+	 */
+	public List<OrderTransitionResultDTO> cancelOrders(List<Long> ids);
+
+	/**
+	 * Moves the DONE and CANCELED orders older than the configured age to the archive now, instead of waiting
+	 * for the background archiving. Archived orders are still found by id and by user. A run of the archiving
+	 * stopped before is continued.
+	 *
+	 * @return number of orders archived
+	 * @throws cz.fi.muni.pa165.exceptions.JobRunningException when the archiving is running already
+	 */
+	public int archiveOldOrders();
+
+	/**
+	 * Cancels the orders which stay RECEIVED longer than the configured time now, instead of waiting for
+	 * the background job. A run of the job stopped before is continued.
+	 *
+	 * @return number of orders canceled
+	 */
+	public long cancelStaleOrders();
 	public OrderTotalPriceDTO getOrderTotalPrice(long id, Currency currency);
+
+	/**
+	 * Total prices of the orders in the currency, as stored when the orders were created. The orders are not loaded,
+	 * so lists of orders can show them.
+	 *
+	 * @return totals by order id, orders without stored totals are missing
+	 */
+	public Map<Long, BigDecimal> getOrderTotalPrices(List<Long> ids, Currency currency);
+
+	/**
+	 * Passes all orders ordered by id to the consumer one by one, within one read-only transaction.
+	 * The orders are not collected, so the memory used does not depend on their number.
+	 */
+	public void exportOrders(Consumer<OrderExportDTO> consumer);
+
+	/**
+	 * Computes the order statistics, the revenue by day for orders created from the day of start (inclusive)
+	 * to the day of end (exclusive).
+	 */
+	public OrderStatisticsDTO getOrderStatistics(Date start, Date end);
+
+	/**
+	 * Recomputes the daily sales the statistics are read from, e.g. after orders were imported
+	 * into the database directly.
+	 *
+	 * @throws cz.fi.muni.pa165.exceptions.JobRunningException when the rebuild is running already
+	 */
+	public void rebuildDailySales();
 }
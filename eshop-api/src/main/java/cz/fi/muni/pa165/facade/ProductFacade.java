@@ -1,12 +1,22 @@
 package cz.fi.muni.pa165.facade;
 
 import cz.fi.muni.pa165.dto.CategoryDTO;
+import cz.fi.muni.pa165.dto.Color;
+import cz.fi.muni.pa165.dto.EntityCacheStatisticsDTO;
+import cz.fi.muni.pa165.dto.ImageCacheStatisticsDTO;
 import cz.fi.muni.pa165.dto.NewPriceDTO;
 import cz.fi.muni.pa165.dto.ProductChangeImageDTO;
 import cz.fi.muni.pa165.dto.ProductCreateDTO;
 import cz.fi.muni.pa165.dto.ProductDTO;
+import cz.fi.muni.pa165.dto.ProductFacetsDTO;
+import cz.fi.muni.pa165.dto.ProductImageDTO;
+import cz.fi.muni.pa165.dto.ProductSuggestionDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryPageDTO;
 
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
+import java.util.Set;
 
 public interface ProductFacade {
 	public Long createProduct(ProductCreateDTO p);
@@ -19,4 +29,103 @@ public interface ProductFacade {
 	public ProductDTO getProductWithId(Long id);
 	public void changeImage(ProductChangeImageDTO productChange);
 
+	/**
+	 * Lists all products ordered by name, without images and price history.
+	 */
+	public List<ProductSummaryDTO> getAllProductSummaries();
+
+	/**
+	 * Largest page size of {@link #getProductSummaryPage(String, int)} the web APIs accept.
+	 */
+	public static final int MAX_PAGE_SIZE = 500;
+
+	/**
+	 * Returns a page of products ordered by name, read from the in-memory catalog snapshot.
+	 * The cost of a page depends on the page size only, not on how far the page is.
+	 *
+	 * @param cursor {@link ProductSummaryPageDTO#getNext()} of the previous page, null for the first page
+	 * @throws cz.fi.muni.pa165.exceptions.EshopServiceException if the cursor is not valid
+	 */
+	public ProductSummaryPageDTO getProductSummaryPage(String cursor, int pageSize);
+
+	/**
+	 * Returns a page of products in the given category ordered by name, see {@link #getProductSummaryPage(String, int)}.
+	 */
+	public ProductSummaryPageDTO getProductSummaryPageByCategory(String categoryName, String cursor, int pageSize);
+
+	/**
+	 * Returns the image metadata without reading the image content. The metadata of a cached image
+	 * are taken from the cache, only its current content hash is read from the database.
+	 *
+	 * @return the metadata or null if the product has no image
+	 */
+	public ProductImageDTO getProductImage(Long productId);
+
+	/**
+	 * Writes a part of the product image to the target channel, without loading the whole image into memory.
+	 * Cached images are kept in direct buffers, a channel wrapping an OutputStream (such as the one
+	 * of a servlet response) copies them to a heap array before writing, only file and socket channels
+	 * write them without the copy. No database connection is held while the target is written,
+	 * an image which is not cached is copied to the cache or to a temporary file first.
+	 *
+	 * @param contentHash content hash of the image described by {@link #getProductImage(Long)}
+	 * @param offset index of the first byte to write, starting at 0
+	 * @param length number of bytes to write
+	 * @throws cz.fi.muni.pa165.exceptions.ImageChangedException when the image with the content hash
+	 * is neither cached nor stored anymore, nothing is written then
+	 * @throws cz.fi.muni.pa165.exceptions.EshopServiceException when the range is not within the image
+	 */
+	public void writeProductImage(Long productId, String contentHash, long offset, long length,
+			WritableByteChannel target);
+
+	/**
+	 * Returns metadata of a resized variant of the product image. The smallest variant at least as large
+	 * as the requested size is used, it is generated when it is needed for the first time. If the size is larger
+	 * than all variants or the image cannot be resized, the original image is described instead.
+	 *
+	 * @param size requested width or height in pixels
+	 * @return the metadata or null if the product has no image
+	 */
+	public ProductImageDTO getProductThumbnail(Long productId, int size);
+
+	/**
+	 * Writes a part of the variant of the product image described by {@link #getProductThumbnail(Long, int)}.
+	 * No database connection is held while the target is written.
+	 *
+	 * @param contentHash content hash of the variant described by {@link #getProductThumbnail(Long, int)}
+	 * @throws cz.fi.muni.pa165.exceptions.ImageChangedException when the variant has another content hash now,
+	 * nothing is written then
+	 * @throws cz.fi.muni.pa165.exceptions.EshopServiceException when the range is not within the variant
+	 */
+	public void writeProductThumbnail(Long productId, int size, String contentHash, long offset, long length,
+			WritableByteChannel target);
+
+	/**
+	 * Returns the counters of the in-memory cache used by {@link #writeProductImage}.
+	 */
+	public ImageCacheStatisticsDTO getImageCacheStatistics();
+
+	/**
+	 * Returns the counters of the second-level cache which keeps categories, products and their prices
+	 * between transactions, with the number of SQL statements run so far.
+	 */
+	public EntityCacheStatisticsDTO getEntityCacheStatistics();
+
+	/**
+	 * Suggests products whose name starts with the prefix, ignoring case, the most often ordered first.
+	 * Suggestions are answered from memory, so this can be called on every keystroke.
+	 *
+	 * @param maxResults maximum number of suggestions, at most 10 are returned
+	 */
+	public List<ProductSuggestionDTO> suggestProducts(String prefix, int maxResults);
+
+	/**
+	 * Finds products having one of the colors, one of the categories and a price in one of the price bands,
+	 * and counts the products for every color, category and price band. An empty set does not filter by that facet.
+	 *
+	 * @param priceBands indexes of the price bands returned in {@link ProductFacetsDTO#getPriceBands()}
+	 * @param maxResults maximum number of returned products, all matching products are counted
+	 */
+	public ProductFacetsDTO searchProductFacets(Set<Color> colors, Set<Long> categoryIds, Set<Integer> priceBands,
+			int maxResults);
 }
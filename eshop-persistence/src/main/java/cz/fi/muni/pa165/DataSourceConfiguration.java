@@ -0,0 +1,122 @@
+package cz.fi.muni.pa165;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Pool of connections to the database configured in database.properties. The pool publishes its meters
+ * (hikaricp.connections.active, .idle, .pending, .timeout, and the .acquire, .usage and .creation timers
+ * with histograms) to the {@link MeterRegistry} of the application when it defines one, otherwise
+ * to {@link Metrics#globalRegistry}, which the registries of the application can be added to.
+ * A Derby database in memory is dropped when the pool is closed.
+ */
+@Configuration
+@PropertySource("classpath:database.properties")
+public class DataSourceConfiguration {
+
+    public static final String POOL_NAME = "eshop";
+
+    private final static Logger log = LoggerFactory.getLogger(DataSourceConfiguration.class);
+
+    private static final String DERBY_MEMORY_URL = "jdbc:derby:memory:";
+
+    @Autowired
+    private Environment env;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistries;
+
+    private MeterRegistry meterRegistry() {
+        MeterRegistry registry = meterRegistries.getIfAvailable(() -> Metrics.globalRegistry);
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().startsWith("hikaricp.")) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .percentiles(0.5, 0.95, 0.99)
+                        .build()
+                        .merge(config);
+            }
+        });
+        return registry;
+    }
+
+    @Bean(destroyMethod = "close")
+    public DataSource db() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(POOL_NAME);
+        config.setJdbcUrl(env.getRequiredProperty("eshop.db.url"));
+        String username = env.getProperty("eshop.db.username", "");
+        if (!username.isEmpty()) {
+            config.setUsername(username);
+            config.setPassword(env.getProperty("eshop.db.password", ""));
+        }
+        config.setMaximumPoolSize(env.getRequiredProperty("eshop.db.pool.max-size", Integer.class));
+        config.setMinimumIdle(env.getRequiredProperty("eshop.db.pool.min-idle", Integer.class));
+        config.setConnectionTimeout(env.getRequiredProperty("eshop.db.pool.connection-timeout-ms", Long.class));
+        config.setValidationTimeout(env.getRequiredProperty("eshop.db.pool.validation-timeout-ms", Long.class));
+        String testQuery = env.getProperty("eshop.db.pool.test-query", "");
+        if (!testQuery.isEmpty()) {
+            config.setConnectionTestQuery(testQuery);
+        }
+        config.setLeakDetectionThreshold(env.getRequiredProperty("eshop.db.pool.leak-detection-ms", Long.class));
+        config.setIdleTimeout(env.getRequiredProperty("eshop.db.pool.idle-timeout-ms", Long.class));
+        config.setMaxLifetime(env.getRequiredProperty("eshop.db.pool.max-lifetime-ms", Long.class));
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry()));
+        return new PoolDataSource(config);
+    }
+
+    /**
+     * Drops the database in memory after closing the connections to it, as the embedded Derby does not drop it
+     * by itself until the JVM ends.
+     */
+    private static class PoolDataSource extends HikariDataSource {
+
+        PoolDataSource(HikariConfig config) {
+            super(config);
+        }
+
+        @Override
+        public void close() {
+            if (isClosed()) {
+                return;
+            }
+            super.close();
+            String url = getJdbcUrl();
+            if (!url.startsWith(DERBY_MEMORY_URL)) {
+                return;
+            }
+            int attributes = url.indexOf(';');
+            String database = (attributes < 0) ? url : url.substring(0, attributes);
+            try {
+                DriverManager.getConnection(database + ";drop=true").close();
+            } catch (SQLException ex) {
+                //Derby reports a successful drop by the 08006 state
+                if (!"08006".equals(ex.getSQLState())) {
+                    log.warn("cannot drop database " + database, ex);
+                }
+            }
+        }
+    }
+}
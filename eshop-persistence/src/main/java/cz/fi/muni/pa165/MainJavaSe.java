@@ -20,7 +20,7 @@ public class MainJavaSe {
 
 	public static void main(String[] args) throws SQLException {
 		// The following line is here just to start up a in-memory database
-		AnnotationConfigApplicationContext appContext = new AnnotationConfigApplicationContext(InMemoryDatabaseSpring.class);
+		AnnotationConfigApplicationContext appContext = new AnnotationConfigApplicationContext(DataSourceConfiguration.class);
 
 		emf = Persistence.createEntityManagerFactory("default");
 		try {
@@ -1,30 +1,50 @@
 package cz.fi.muni.pa165;
 
 import cz.fi.muni.pa165.dao.UserDao;
+import cz.fi.muni.pa165.entity.Category;
+import cz.fi.muni.pa165.entity.Price;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.entity.User;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
 import org.hibernate.jpa.HibernatePersistenceProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.instrument.classloading.InstrumentationLoadTimeWeaver;
 import org.springframework.instrument.classloading.LoadTimeWeaver;
-import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
-import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
+import javax.cache.CacheManager;
+import javax.cache.Caching;
 import javax.sql.DataSource;
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
 
 
 @Configuration
 @EnableTransactionManagement
 @EnableJpaRepositories
+@Import(DataSourceConfiguration.class)
 @ComponentScan(basePackageClasses = {UserDao.class}, basePackages = "cz.fi.muni.pa165")
 public class PersistenceSampleApplicationContext {
 
+    @Autowired
+    private DataSource db;
+
     /**
      * Enables automatic translation of exceptions to DataAccessExceptions.
      */
@@ -44,12 +64,50 @@ public class PersistenceSampleApplicationContext {
     @Bean
     public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
         LocalContainerEntityManagerFactoryBean jpaFactoryBean = new LocalContainerEntityManagerFactoryBean();
-        jpaFactoryBean.setDataSource(db());
+        jpaFactoryBean.setDataSource(db);
         jpaFactoryBean.setLoadTimeWeaver(instrumentationLoadTimeWeaver());
         jpaFactoryBean.setPersistenceProviderClass(HibernatePersistenceProvider.class);
+        jpaFactoryBean.getJpaPropertyMap().put(ConfigSettings.CACHE_MANAGER, entityCacheManager());
         return jpaFactoryBean;
     }
 
+    /**
+     * Local second-level cache of Hibernate. Every region is bounded by a number of entries and entries expire,
+     * so changes made outside of this application are seen eventually. Hibernate refuses to start
+     * when a cached entity, collection or natural id has no region here.
+     */
+    @Bean
+    public CacheManager entityCacheManager() {
+        ConfigurationBuilder regions = ConfigurationBuilder.newConfigurationBuilder();
+        regions = region(regions, Category.class.getName(), 1_000, Duration.ofHours(1));
+        regions = region(regions, Category.class.getName() + "##NaturalId", 1_000, Duration.ofHours(1));
+        regions = region(regions, Product.class.getName(), 10_000, Duration.ofMinutes(10));
+        regions = region(regions, Product.class.getName() + "##NaturalId", 10_000, Duration.ofMinutes(10));
+        regions = region(regions, Product.class.getName() + ".categories", 10_000, Duration.ofMinutes(10));
+        regions = region(regions, Product.class.getName() + ".priceHistory", 10_000, Duration.ofMinutes(10));
+        regions = region(regions, Price.class.getName(), 50_000, Duration.ofMinutes(10));
+        regions = region(regions, User.class.getName(), 10_000, Duration.ofMinutes(10));
+        regions = region(regions, User.class.getName() + "##NaturalId", 10_000, Duration.ofMinutes(10));
+        regions = region(regions, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, 1_000,
+                Duration.ofMinutes(10));
+        //query results are valid only while they are newer than the timestamps of their tables, these must not expire
+        regions = region(regions, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, 1_000, null);
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching
+                .getCachingProvider(EhcacheCachingProvider.class.getName());
+        //every application context gets its own cache manager, as it gets its own entity manager factory
+        return provider.getCacheManager(URI.create("urn:eshop:entity-cache:" + UUID.randomUUID()), regions.build());
+    }
+
+    private static ConfigurationBuilder region(ConfigurationBuilder regions, String name, long maxEntries,
+            Duration timeToLive) {
+        CacheConfigurationBuilder<Object, Object> region = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries));
+        if (timeToLive != null) {
+            region = region.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive));
+        }
+        return regions.withCache(name, region);
+    }
+
     @Bean
     public LocalValidatorFactoryBean localValidatorFactoryBean() {
         return new LocalValidatorFactoryBean();
@@ -59,10 +117,4 @@ public class PersistenceSampleApplicationContext {
     public LoadTimeWeaver instrumentationLoadTimeWeaver() {
         return new InstrumentationLoadTimeWeaver();
     }
-
-    @Bean
-    public DataSource db() {
-        EmbeddedDatabaseBuilder builder = new EmbeddedDatabaseBuilder();
-        return builder.setType(EmbeddedDatabaseType.DERBY).build();
-    }
 }
@@ -3,11 +3,10 @@ package cz.fi.muni.pa165.dao;
 import java.util.List;
 
 import javax.persistence.EntityManager;
-import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
 
+import org.hibernate.Session;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import cz.fi.muni.pa165.entity.Category;
@@ -23,9 +22,13 @@ public class CategoryDaoImpl implements CategoryDao {
 		return em.find(Category.class, id);
 	}
 
+	/**
+	 * The result is kept in the query cache until a category is changed.
+	 */
 	@Override
 	public List<Category> findAll() {
 		return em.createQuery("select c from Category c", Category.class)
+				.setHint(QueryHints.CACHEABLE, true)
 				.getResultList();
 	}
 
@@ -39,15 +42,14 @@ public class CategoryDaoImpl implements CategoryDao {
 		em.remove(c);
 	}
 
+	/**
+	 * Looks the category up by its natural id, repeated lookups are answered from the natural-id and entity cache.
+	 */
 	@Override
 	public Category findByName(String name) {
-		try {
-			return em
-					.createQuery("select c from Category c where name = :name",
-							Category.class).setParameter("name", name)
-					.getSingleResult();
-		} catch (NoResultException nrf) {
+		if (name == null) {
 			return null;
 		}
+		return em.unwrap(Session.class).bySimpleNaturalId(Category.class).load(name);
 	}
 }
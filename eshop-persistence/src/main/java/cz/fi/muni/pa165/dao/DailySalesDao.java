@@ -0,0 +1,64 @@
+package cz.fi.muni.pa165.dao;
+
+import java.util.Date;
+import java.util.List;
+
+import cz.fi.muni.pa165.entity.DailySales;
+import cz.fi.muni.pa165.entity.DailySalesTotal;
+import cz.fi.muni.pa165.projection.DailyProductSales;
+import cz.fi.muni.pa165.projection.DailyRevenue;
+import cz.fi.muni.pa165.projection.ProductSales;
+
+/**
+ * Access to the {@link DailySales} rollup and its {@link DailySalesTotal}s. Reports read one row per day, product
+ * and currency instead of all orders and their items.
+ */
+public interface DailySalesDao {
+
+	/**
+	 * Adds the sales to the row of the day, product and currency, creating the row if there is none.
+	 * The row is changed by a single UPDATE, so concurrent transactions do not overwrite each other.
+	 * When concurrent transactions both create the row, the later one adds to the row of the earlier one.
+	 *
+	 * @param sales sales to add, negative to subtract; a null product id adds to the {@link DailySalesTotal}
+	 * of the day
+	 */
+	public void add(DailyProductSales sales);
+
+	/**
+	 * Inserts a new row, there must not be a row of the same day, product and currency yet.
+	 */
+	public void create(DailyProductSales sales);
+
+	/**
+	 * Deletes all rows, the rows are never deleted otherwise.
+	 */
+	public void deleteAll();
+
+	public List<DailySales> findAll();
+
+	public List<DailySalesTotal> findAllTotals();
+
+	/**
+	 * Rows and totals of the days from start (inclusive) to end (exclusive), the totals with a null product id.
+	 */
+	public List<DailyProductSales> findSales(Date start, Date end);
+
+	/**
+	 * Number of the rows and totals of the days from start (inclusive) to end (exclusive) plus the number
+	 * of their updates. Every change committed to the rows of the days makes it grow; transactions changing
+	 * the rows are waited for.
+	 */
+	public long countChanges(Date start, Date end);
+
+	/**
+	 * Revenue by day and currency for the days from start (inclusive) to end (exclusive),
+	 * ordered by day and currency.
+	 */
+	public List<DailyRevenue> getDailyRevenue(Date start, Date end);
+
+	/**
+	 * Pieces sold of every product, best-selling products first.
+	 */
+	public List<ProductSales> getProductSales();
+}
@@ -0,0 +1,181 @@
+package cz.fi.muni.pa165.dao;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.stereotype.Repository;
+
+import cz.fi.muni.pa165.entity.DailySales;
+import cz.fi.muni.pa165.entity.DailySalesTotal;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.projection.DailyProductSales;
+import cz.fi.muni.pa165.projection.DailyRevenue;
+import cz.fi.muni.pa165.projection.ProductSales;
+
+@Repository
+public class DailySalesDaoImpl implements DailySalesDao {
+
+	@PersistenceContext
+	private EntityManager em;
+
+	/**
+	 * SQL state of a violated unique constraint.
+	 */
+	private static final String DUPLICATE_KEY = "23505";
+
+	@Override
+	public void add(DailyProductSales sales) {
+		if (update(sales) == 0 && !insert(sales)) {
+			//a concurrent transaction inserted the row first and committed it meanwhile
+			update(sales);
+		}
+	}
+
+	/**
+	 * @return number of rows updated, 0 when there is no row of the day, product and currency yet
+	 */
+	int update(DailyProductSales sales) {
+		String set = "SET s.itemsSold = s.itemsSold + :itemsSold, s.orderCount = s.orderCount + :orderCount, "
+				+ "s.revenue = s.revenue + :revenue, s.version = s.version + 1 "
+				+ "WHERE s.day = :day AND s.currency = :currency";
+		Query update = (sales.getProductId() == null)
+				? em.createQuery("UPDATE DailySalesTotal s " + set)
+				: em.createQuery("UPDATE DailySales s " + set + " AND s.product.id = :productId")
+						.setParameter("productId", sales.getProductId());
+		return update.setParameter("itemsSold", sales.getItemsSold())
+				.setParameter("orderCount", sales.getOrderCount())
+				.setParameter("revenue", sales.getRevenue())
+				.setParameter("day", sales.getDay())
+				.setParameter("currency", sales.getCurrency())
+				.executeUpdate();
+	}
+
+	/**
+	 * Inserts the row with a plain JDBC statement. When the row was inserted by a concurrent transaction,
+	 * Derby waits until that transaction ends and fails only the statement, the current transaction goes on.
+	 * A failed insert through the entity manager would mark the transaction for rollback. The id is taken
+	 * from the generator of the entity and pending changes are flushed first, the product of the row may have
+	 * been created in the same transaction.
+	 *
+	 * @return false when the row of the day, product and currency exists already
+	 */
+	boolean insert(DailyProductSales sales) {
+		em.flush();
+		boolean total = sales.getProductId() == null;
+		SessionImplementor session = em.unwrap(SessionImplementor.class);
+		Serializable id = session.getFactory().getMetamodel()
+				.entityPersister(total ? DailySalesTotal.class : DailySales.class)
+				.getIdentifierGenerator().generate(session, null);
+		return session.doReturningWork(connection -> {
+			try (PreparedStatement insert = connection.prepareStatement(total
+					? "INSERT INTO DAILY_SALES_TOTAL (id, SALES_DAY, currency, itemsSold, orderCount, revenue, "
+							+ "version) VALUES (?, ?, ?, ?, ?, ?, 0)"
+					: "INSERT INTO DAILY_SALES (id, SALES_DAY, currency, itemsSold, orderCount, revenue, "
+							+ "version, product_id) VALUES (?, ?, ?, ?, ?, ?, 0, ?)")) {
+				insert.setLong(1, (Long) id);
+				insert.setDate(2, new java.sql.Date(sales.getDay().getTime()));
+				insert.setInt(3, sales.getCurrency().ordinal());
+				insert.setLong(4, sales.getItemsSold());
+				insert.setLong(5, sales.getOrderCount());
+				insert.setBigDecimal(6, sales.getRevenue());
+				if (!total) {
+					insert.setLong(7, sales.getProductId());
+				}
+				insert.executeUpdate();
+				return true;
+			} catch (SQLException e) {
+				if (DUPLICATE_KEY.equals(e.getSQLState())) {
+					return false;
+				}
+				throw e;
+			}
+		});
+	}
+
+	@Override
+	public void create(DailyProductSales sales) {
+		if (sales.getProductId() == null) {
+			em.persist(new DailySalesTotal(sales.getDay(), sales.getCurrency(), sales.getItemsSold(),
+					sales.getOrderCount(), sales.getRevenue()));
+		} else {
+			em.persist(new DailySales(sales.getDay(), em.getReference(Product.class, sales.getProductId()),
+					sales.getCurrency(), sales.getItemsSold(), sales.getOrderCount(), sales.getRevenue()));
+		}
+	}
+
+	@Override
+	public void deleteAll() {
+		em.createQuery("DELETE FROM DailySales").executeUpdate();
+		em.createQuery("DELETE FROM DailySalesTotal").executeUpdate();
+	}
+
+	@Override
+	public List<DailySales> findAll() {
+		return em.createQuery("SELECT s FROM DailySales s", DailySales.class).getResultList();
+	}
+
+	@Override
+	public List<DailySalesTotal> findAllTotals() {
+		return em.createQuery("SELECT s FROM DailySalesTotal s", DailySalesTotal.class).getResultList();
+	}
+
+	@Override
+	public List<DailyProductSales> findSales(Date start, Date end) {
+		List<DailyProductSales> sales = em.createQuery("SELECT NEW cz.fi.muni.pa165.projection.DailyProductSales("
+				+ "s.day, s.product.id, s.currency, s.itemsSold, s.orderCount, s.revenue) "
+				+ "FROM DailySales s WHERE s.day >= :start AND s.day < :end", DailyProductSales.class)
+				.setParameter("start", start)
+				.setParameter("end", end)
+				.getResultList();
+		sales.addAll(em.createQuery("SELECT NEW cz.fi.muni.pa165.projection.DailyProductSales("
+				+ "s.day, s.currency, s.itemsSold, s.orderCount, s.revenue) "
+				+ "FROM DailySalesTotal s WHERE s.day >= :start AND s.day < :end", DailyProductSales.class)
+				.setParameter("start", start)
+				.setParameter("end", end)
+				.getResultList());
+		return sales;
+	}
+
+	@Override
+	public long countChanges(Date start, Date end) {
+		long changes = 0;
+		for (String entity : new String[] {"DailySales", "DailySalesTotal"}) {
+			changes += em.createQuery("SELECT COALESCE(SUM(s.version + 1), 0) FROM " + entity + " s "
+					+ "WHERE s.day >= :start AND s.day < :end", Long.class)
+					.setParameter("start", start)
+					.setParameter("end", end)
+					.getSingleResult();
+		}
+		return changes;
+	}
+
+	@Override
+	public List<DailyRevenue> getDailyRevenue(Date start, Date end) {
+		return em.createQuery("SELECT NEW cz.fi.muni.pa165.projection.DailyRevenue("
+				+ "s.day, s.currency, s.orderCount, s.revenue) "
+				+ "FROM DailySalesTotal s WHERE s.day >= :start AND s.day < :end "
+				+ "AND (s.orderCount <> 0 OR s.revenue <> 0) "
+				+ "ORDER BY s.day, s.currency", DailyRevenue.class)
+				.setParameter("start", start)
+				.setParameter("end", end)
+				.getResultList();
+	}
+
+	@Override
+	public List<ProductSales> getProductSales() {
+		return em.createQuery("SELECT NEW cz.fi.muni.pa165.projection.ProductSales("
+				+ "p.id, p.name, SUM(s.itemsSold), SUM(s.orderCount)) "
+				+ "FROM DailySales s JOIN s.product p "
+				+ "GROUP BY p.id, p.name HAVING SUM(s.orderCount) > 0 "
+				+ "ORDER BY SUM(s.itemsSold) DESC, p.id", ProductSales.class)
+				.getResultList();
+	}
+}
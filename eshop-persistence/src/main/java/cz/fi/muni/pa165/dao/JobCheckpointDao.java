@@ -0,0 +1,34 @@
+package cz.fi.muni.pa165.dao;
+
+import java.util.List;
+
+import cz.fi.muni.pa165.entity.JobCheckpoint;
+
+/**
+ * Access to the {@link JobCheckpoint}s of the runs of background jobs.
+ */
+public interface JobCheckpointDao {
+
+	public void create(JobCheckpoint checkpoint);
+
+	/**
+	 * Saves the progress of the checkpoint, which does not have to be managed any more.
+	 *
+	 * @return the managed checkpoint
+	 */
+	public JobCheckpoint update(JobCheckpoint checkpoint);
+
+	/**
+	 * Checkpoints of all partitions of the current run of the job, ordered by partition.
+	 */
+	public List<JobCheckpoint> findByJob(String jobName);
+
+	public JobCheckpoint findByJobAndPartition(String jobName, int partitionNo);
+
+	/**
+	 * Deletes the checkpoints of the job with a single DELETE, the next run starts from the beginning.
+	 *
+	 * @return number of checkpoints deleted
+	 */
+	public int deleteByJob(String jobName);
+}
@@ -0,0 +1,56 @@
+package cz.fi.muni.pa165.dao;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.NoResultException;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.stereotype.Repository;
+
+import cz.fi.muni.pa165.entity.JobCheckpoint;
+
+@Repository
+public class JobCheckpointDaoImpl implements JobCheckpointDao {
+
+	@PersistenceContext
+	private EntityManager em;
+
+	@Override
+	public void create(JobCheckpoint checkpoint) {
+		em.persist(checkpoint);
+	}
+
+	@Override
+	public JobCheckpoint update(JobCheckpoint checkpoint) {
+		return em.merge(checkpoint);
+	}
+
+	@Override
+	public List<JobCheckpoint> findByJob(String jobName) {
+		return em.createQuery("SELECT c FROM JobCheckpoint c WHERE c.jobName = :jobName ORDER BY c.partitionNo",
+				JobCheckpoint.class)
+				.setParameter("jobName", jobName)
+				.getResultList();
+	}
+
+	@Override
+	public JobCheckpoint findByJobAndPartition(String jobName, int partitionNo) {
+		try {
+			return em.createQuery("SELECT c FROM JobCheckpoint c WHERE c.jobName = :jobName "
+					+ "AND c.partitionNo = :partitionNo", JobCheckpoint.class)
+					.setParameter("jobName", jobName)
+					.setParameter("partitionNo", partitionNo)
+					.getSingleResult();
+		} catch (NoResultException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public int deleteByJob(String jobName) {
+		return em.createQuery("DELETE FROM JobCheckpoint c WHERE c.jobName = :jobName")
+				.setParameter("jobName", jobName)
+				.executeUpdate();
+	}
+}
@@ -0,0 +1,45 @@
+package cz.fi.muni.pa165.dao;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import cz.fi.muni.pa165.entity.ArchivedOrder;
+import cz.fi.muni.pa165.projection.IdRange;
+
+/**
+ * Moves finished orders to the {@link ArchivedOrder} table. The orders are read from both tables
+ * by the methods of {@link OrderDao} which include archived orders.
+ */
+public interface OrderArchiveDao {
+
+	/**
+	 * Lowest and highest id of the DONE and CANCELED orders created before the time.
+	 */
+	public IdRange findArchivableIdRange(Date createdBefore);
+
+	/**
+	 * Ids of the DONE and CANCELED orders created before the time with ids greater than afterId and at most toId,
+	 * the lowest first.
+	 */
+	public List<Long> findArchivableIds(Date createdBefore, long afterId, long toId, int maxResults);
+
+	/**
+	 * Moves the orders with the ids to the archive: copies them with their totals and deletes them and their totals
+	 * with bulk statements. The items are not copied, the archived orders refer to the same items.
+	 * The persistence context is cleared, so loaded orders become detached.
+	 *
+	 * @return number of orders archived
+	 */
+	public int archive(Collection<Long> ids, Date archived);
+
+	public ArchivedOrder findById(Long id);
+
+	public long count();
+
+	/**
+	 * Number of the archived orders created from start (inclusive) to end (exclusive). Archived orders are never
+	 * deleted, so it grows with every chunk of these orders archived.
+	 */
+	public long countCreated(Date start, Date end);
+}
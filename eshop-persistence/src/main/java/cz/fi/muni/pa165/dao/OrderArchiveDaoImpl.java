@@ -0,0 +1,112 @@
+package cz.fi.muni.pa165.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import cz.fi.muni.pa165.entity.ArchivedOrder;
+import cz.fi.muni.pa165.entity.Order;
+import cz.fi.muni.pa165.entity.OrderTotal;
+import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.projection.IdRange;
+
+@Repository
+public class OrderArchiveDaoImpl implements OrderArchiveDao {
+
+	/**
+	 * States in which orders do not change any more.
+	 */
+	static final List<OrderState> ARCHIVABLE_STATES = Arrays.asList(OrderState.DONE, OrderState.CANCELED);
+
+	@PersistenceContext
+	private EntityManager em;
+
+	@Override
+	public IdRange findArchivableIdRange(Date createdBefore) {
+		return em.createQuery("SELECT NEW cz.fi.muni.pa165.projection.IdRange(MIN(o.id), MAX(o.id)) FROM Order o "
+				+ "WHERE o.state IN :states AND o.created < :createdBefore", IdRange.class)
+				.setParameter("states", ARCHIVABLE_STATES)
+				.setParameter("createdBefore", createdBefore)
+				.getSingleResult();
+	}
+
+	@Override
+	public List<Long> findArchivableIds(Date createdBefore, long afterId, long toId, int maxResults) {
+		return em.createQuery("SELECT o.id FROM Order o WHERE o.state IN :states AND o.created < :createdBefore "
+				+ "AND o.id > :afterId AND o.id <= :toId ORDER BY o.id", Long.class)
+				.setParameter("states", ARCHIVABLE_STATES)
+				.setParameter("createdBefore", createdBefore)
+				.setParameter("afterId", afterId)
+				.setParameter("toId", toId)
+				.setMaxResults(maxResults)
+				.getResultList();
+	}
+
+	@Override
+	public int archive(Collection<Long> ids, Date archived) {
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		List<Order> orders = em.createQuery("SELECT DISTINCT o FROM Order o WHERE o.id IN :ids", Order.class)
+				.setHint(QueryHints.HINT_LOADGRAPH, em.getEntityGraph(Order.GRAPH_DETAIL))
+				.setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+				.setParameter("ids", ids)
+				.getResultList();
+		Map<Long, List<OrderTotal>> totals = new HashMap<>();
+		for (OrderTotal total : em.createQuery("SELECT DISTINCT t FROM OrderTotal t LEFT JOIN FETCH t.rates "
+				+ "WHERE t.order.id IN :ids", OrderTotal.class)
+				.setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+				.setParameter("ids", ids)
+				.getResultList()) {
+			totals.computeIfAbsent(total.getOrder().getId(), id -> new ArrayList<>()).add(total);
+		}
+		for (Order order : orders) {
+			em.persist(new ArchivedOrder(order, totals.getOrDefault(order.getId(), new ArrayList<>()), archived));
+		}
+		em.flush();
+		em.clear();
+		//bulk JPQL deletes do not remove the rows of element collections
+		em.createNativeQuery("DELETE FROM ORDER_TOTAL_RATE WHERE order_total_id IN "
+				+ "(SELECT id FROM ORDER_TOTAL WHERE order_id IN (:ids))")
+				.unwrap(NativeQuery.class)
+				.addSynchronizedEntityClass(OrderTotal.class)
+				.setParameter("ids", ids)
+				.executeUpdate();
+		em.createQuery("DELETE FROM OrderTotal t WHERE t.order.id IN :ids")
+				.setParameter("ids", ids)
+				.executeUpdate();
+		return em.createQuery("DELETE FROM Order o WHERE o.id IN :ids")
+				.setParameter("ids", ids)
+				.executeUpdate();
+	}
+
+	@Override
+	public ArchivedOrder findById(Long id) {
+		return em.find(ArchivedOrder.class, id);
+	}
+
+	@Override
+	public long count() {
+		return em.createQuery("SELECT COUNT(a) FROM ArchivedOrder a", Long.class).getSingleResult();
+	}
+
+	@Override
+	public long countCreated(Date start, Date end) {
+		return em.createQuery("SELECT COUNT(a) FROM ArchivedOrder a WHERE a.created >= :start AND a.created < :end",
+				Long.class)
+				.setParameter("start", start)
+				.setParameter("end", end)
+				.getSingleResult();
+	}
+}
@@ -1,19 +1,88 @@
 package cz.fi.muni.pa165.dao;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import cz.fi.muni.pa165.entity.Order;
 import cz.fi.muni.pa165.entity.User;
 import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.projection.IdRange;
+import cz.fi.muni.pa165.projection.ProductOrderCount;
 
+/**
+ * The methods returning lists of orders load them with the {@link OrderFetchPlan#DETAIL} plan unless
+ * a plan is given, so the number of statements needed to read the orders does not grow with their number.
+ * <p>
+ * Only the live orders are read unless archived orders are included, see {@link OrderArchiveDao}. Archived orders
+ * are returned as copies which are not managed, after the live orders, and changes to them are not saved.
+ */
 public interface OrderDao  {
 	public void create(Order order);
 	public List<Order> findAll();
+	public List<Order> findAll(OrderFetchPlan plan);
 	public List<Order> findByUser(User u);
+	public List<Order> findByUser(User u, OrderFetchPlan plan);
+	public List<Order> findByUser(User u, OrderFetchPlan plan, boolean includeArchived);
 	public Order findById(Long id);
+	public Order findById(Long id, boolean includeArchived);
+	public List<Order> findByIds(Collection<Long> ids, OrderFetchPlan plan);
 	public void remove(Order o)  throws IllegalArgumentException;
 	public List<Order> getOrdersWithState(OrderState state);
+	public List<Order> getOrdersWithState(OrderState state, OrderFetchPlan plan);
+	public List<Order> getOrdersWithState(OrderState state, OrderFetchPlan plan, boolean includeArchived);
 	public List<Order> getOrdersCreatedBetween(Date start, Date end, OrderState state);
+	public List<Order> getOrdersCreatedBetween(Date start, Date end, OrderState state, OrderFetchPlan plan);
+	public List<Order> getOrdersCreatedBetween(Date start, Date end, OrderState state, OrderFetchPlan plan,
+			boolean includeArchived);
+
+	/**
+	 * Finds a page of the live orders meeting the conditions of the search, sorted as the search says, starting
+	 * after the order the search names. The conditions, the sorting and the page limit are applied by the database
+	 * in a single query, which loads the orders with the {@link OrderFetchPlan#SUMMARY} plan. Their items
+	 * are loaded in batches when first used.
+	 */
+	public List<Order> search(OrderSearch search, int maxResults);
+
+	/**
+	 * Counts the live and archived orders containing each product. Products that were never ordered are omitted.
+	 */
+	public List<ProductOrderCount> countOrdersByProduct();
+
+	/**
+	 * Streams all orders by id with the {@link OrderFetchPlan#DETAIL} plan, the archived orders included.
+	 * The ids are read with forward-only cursors and the orders are loaded read-only in chunks,
+	 * the persistence context is cleared before every chunk, so the memory used does not grow with the number of orders.
+	 * Orders of earlier chunks become detached, unflushed changes are lost. The stream must be consumed
+	 * within a transaction and closed.
+	 */
+	public Stream<Order> streamAll();
+
+	/**
+	 * Locks the orders with the ids for the rest of the transaction and reads their states,
+	 * without loading the orders. Ids of missing orders are omitted.
+	 */
+	public Map<Long, OrderState> lockStates(Collection<Long> ids);
+
+	/**
+	 * Changes the state of the orders with the ids that are in state from, with a single UPDATE.
+	 * Orders already loaded in the persistence context keep the old state.
+	 *
+	 * @return number of orders changed
+	 */
+	public int updateStates(Collection<Long> ids, OrderState from, OrderState to);
+
+	/**
+	 * Lowest and highest id of the live orders in the state created before the time.
+	 */
+	public IdRange findIdRangeWithState(OrderState state, Date createdBefore);
+
+	/**
+	 * Ids of the live orders in the state created before the time with ids greater than afterId and at most toId,
+	 * the lowest first.
+	 */
+	public List<Long> findIdsWithState(OrderState state, Date createdBefore, long afterId, long toId, int maxResults);
 	
 }
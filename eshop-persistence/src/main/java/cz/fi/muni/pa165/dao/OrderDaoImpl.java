@@ -1,21 +1,55 @@
 package cz.fi.muni.pa165.dao;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import cz.fi.muni.pa165.entity.ArchivedOrder;
 import cz.fi.muni.pa165.entity.Order;
+import cz.fi.muni.pa165.entity.OrderItem;
+import cz.fi.muni.pa165.entity.OrderTotal;
 import cz.fi.muni.pa165.entity.User;
+import cz.fi.muni.pa165.enums.OrderSort;
 import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.projection.IdRange;
+import cz.fi.muni.pa165.projection.ProductOrderCount;
 
 @Repository
 public class OrderDaoImpl implements OrderDao {
 
+	/**
+	 * Number of orders {@link #streamAll()} loads at once.
+	 */
+	static final int STREAM_CHUNK_SIZE = 500;
+
 	@PersistenceContext
 	private EntityManager em;
 
@@ -24,21 +58,66 @@ public class OrderDaoImpl implements OrderDao {
 		em.persist(order);
 	}
 
+	/**
+	 * Creates a query which fetches what the plan says. The query must select DISTINCT orders, as fetching
+	 * the items repeats every order once per item. The duplicates are removed in memory, not by the database.
+	 */
+	private TypedQuery<Order> createQuery(String jpql, OrderFetchPlan plan) {
+		return em.createQuery(jpql, Order.class)
+				.setHint(QueryHints.HINT_LOADGRAPH, em.getEntityGraph(plan.getGraphName()))
+				.setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false);
+	}
+
+	/**
+	 * Runs the query, which selects DISTINCT orders FROM %s, against the live orders and, if asked,
+	 * against the archived orders too.
+	 */
+	private List<Order> query(String jpql, OrderFetchPlan plan, boolean includeArchived, Object... parameters) {
+		TypedQuery<Order> query = createQuery(String.format(jpql, "Order"), plan);
+		for (int i = 0; i < parameters.length; i += 2) {
+			query.setParameter((String) parameters[i], parameters[i + 1]);
+		}
+		List<Order> orders = query.getResultList();
+		if (!includeArchived) {
+			return orders;
+		}
+		TypedQuery<ArchivedOrder> archivedQuery = em.createQuery(String.format(jpql, "ArchivedOrder"), ArchivedOrder.class)
+				.setHint(QueryHints.HINT_LOADGRAPH, em.getEntityGraph(plan.getArchivedGraphName()))
+				.setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false);
+		for (int i = 0; i < parameters.length; i += 2) {
+			archivedQuery.setParameter((String) parameters[i], parameters[i + 1]);
+		}
+		orders = new ArrayList<>(orders);
+		for (ArchivedOrder archived : archivedQuery.getResultList()) {
+			orders.add(archived.toOrder());
+		}
+		return orders;
+	}
+
 	@Override
 	public List<Order> findAll() {
-		TypedQuery<Order> query = em.createQuery("SELECT q FROM Order q",
-				Order.class);
+		return findAll(OrderFetchPlan.DETAIL);
+	}
+
+	@Override
+	public List<Order> findAll(OrderFetchPlan plan) {
+		TypedQuery<Order> query = createQuery("SELECT DISTINCT q FROM Order q", plan);
 		return query.getResultList();
 	}
 
 	@Override
 	public List<Order> findByUser(User u) {
-		TypedQuery<Order> query = em.createQuery(
-				"Select o from Order o where o.user = :userid",
-				Order.class);
-		
-		query.setParameter("userid", u);
-		return query.getResultList();
+		return findByUser(u, OrderFetchPlan.DETAIL);
+	}
+
+	@Override
+	public List<Order> findByUser(User u, OrderFetchPlan plan) {
+		return findByUser(u, plan, false);
+	}
+
+	@Override
+	public List<Order> findByUser(User u, OrderFetchPlan plan, boolean includeArchived) {
+		return query("Select distinct o from %s o where o.user = :userid", plan, includeArchived, "userid", u);
 	}
 
 	@Override
@@ -46,6 +125,26 @@ public class OrderDaoImpl implements OrderDao {
 		return em.find(Order.class, id);
 	}
 
+	@Override
+	public Order findById(Long id, boolean includeArchived) {
+		Order order = em.find(Order.class, id);
+		if (order != null || !includeArchived) {
+			return order;
+		}
+		ArchivedOrder archived = em.find(ArchivedOrder.class, id);
+		return archived == null ? null : archived.toOrder();
+	}
+
+	@Override
+	public List<Order> findByIds(Collection<Long> ids, OrderFetchPlan plan) {
+		if (ids.isEmpty()) {
+			return new ArrayList<>();
+		}
+		return createQuery("SELECT DISTINCT o FROM Order o WHERE o.id IN :ids ORDER BY o.id", plan)
+				.setParameter("ids", ids)
+				.getResultList();
+	}
+
 	@Override
 	public void remove(Order o) {
 		em.remove(o);
@@ -53,23 +152,270 @@ public class OrderDaoImpl implements OrderDao {
 
 	@Override
 	public List<Order> getOrdersWithState(OrderState state) {
-		TypedQuery<Order> query = em.createQuery(
-				"SELECT o FROM Order o WHERE o.state = :state", Order.class);
-		query.setParameter("state", state);
-		return query.getResultList();
+		return getOrdersWithState(state, OrderFetchPlan.DETAIL);
+	}
+
+	@Override
+	public List<Order> getOrdersWithState(OrderState state, OrderFetchPlan plan) {
+		return getOrdersWithState(state, plan, false);
+	}
+
+	@Override
+	public List<Order> getOrdersWithState(OrderState state, OrderFetchPlan plan, boolean includeArchived) {
+		return query("SELECT DISTINCT o FROM %s o WHERE o.state = :state", plan, includeArchived, "state", state);
 	}
 
 	@Override
 	public List<Order> getOrdersCreatedBetween(Date start, Date end,
 			OrderState state) {
-		TypedQuery<Order> query = em
-				.createQuery(
-						"SELECT o FROM Order o WHERE o.state = :state AND  o.created BETWEEN :startDate AND :endDate ",
-						Order.class);
-		query.setParameter("startDate", start);
-		query.setParameter("endDate", end);
-		query.setParameter("state", state);
-		return query.getResultList();
+		return getOrdersCreatedBetween(start, end, state, OrderFetchPlan.DETAIL);
+	}
+
+	@Override
+	public List<Order> getOrdersCreatedBetween(Date start, Date end,
+			OrderState state, OrderFetchPlan plan) {
+		return getOrdersCreatedBetween(start, end, state, plan, false);
 	}
 
+	@Override
+	public List<Order> getOrdersCreatedBetween(Date start, Date end,
+			OrderState state, OrderFetchPlan plan, boolean includeArchived) {
+		return query("SELECT DISTINCT o FROM %s o WHERE o.state = :state AND  o.created BETWEEN :startDate AND :endDate ",
+				plan, includeArchived, "startDate", start, "endDate", end, "state", state);
+	}
+
+	@Override
+	public List<Order> search(OrderSearch search, int maxResults) {
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<Order> query = cb.createQuery(Order.class);
+		Root<Order> order = query.from(Order.class);
+		Path<Date> created = order.get("created");
+		Path<Long> id = order.get("id");
+		List<Predicate> conditions = new ArrayList<>();
+		if (!search.getStates().isEmpty()) {
+			conditions.add(order.get("state").in(search.getStates()));
+		}
+		if (search.getCreatedFrom() != null) {
+			conditions.add(cb.greaterThanOrEqualTo(created, search.getCreatedFrom()));
+		}
+		if (search.getCreatedTo() != null) {
+			conditions.add(cb.lessThan(created, search.getCreatedTo()));
+		}
+		if (search.getUserId() != null) {
+			conditions.add(cb.equal(order.get("user").get("id"), search.getUserId()));
+		}
+		if (search.getProductId() != null) {
+			Subquery<Long> items = query.subquery(Long.class);
+			Join<Order, OrderItem> item = items.correlate(order).join("orderItems");
+			items.select(item.get("id")).where(cb.equal(item.get("product").get("id"), search.getProductId()));
+			conditions.add(cb.exists(items));
+		}
+		if (search.getMinTotal() != null) {
+			Subquery<Long> totals = query.subquery(Long.class);
+			Root<OrderTotal> total = totals.from(OrderTotal.class);
+			totals.select(total.get("id")).where(
+					cb.equal(total.get("order"), order),
+					cb.equal(total.get("currency"), search.getTotalCurrency()),
+					cb.greaterThanOrEqualTo(total.get("total"), search.getMinTotal()));
+			conditions.add(cb.exists(totals));
+		}
+		boolean newest = search.getSort() == OrderSort.NEWEST;
+		if (search.getAfterId() != null) {
+			//keyset condition: the orders after the last one of the previous page in the order of (created, id)
+			Date afterCreated = search.getAfterCreated();
+			Long afterId = search.getAfterId();
+			conditions.add(newest
+					? cb.or(cb.lessThan(created, afterCreated),
+							cb.and(cb.equal(created, afterCreated), cb.lessThan(id, afterId)))
+					: cb.or(cb.greaterThan(created, afterCreated),
+							cb.and(cb.equal(created, afterCreated), cb.greaterThan(id, afterId))));
+		}
+		query.select(order)
+				.where(conditions.toArray(new Predicate[0]))
+				.orderBy(newest
+						? Arrays.asList(cb.desc(created), cb.desc(id))
+						: Arrays.asList(cb.asc(created), cb.asc(id)));
+		return em.createQuery(query)
+				.setHint(QueryHints.HINT_LOADGRAPH, em.getEntityGraph(OrderFetchPlan.SUMMARY.getGraphName()))
+				.setMaxResults(maxResults)
+				.getResultList();
+	}
+
+	@Override
+	public List<ProductOrderCount> countOrdersByProduct() {
+		Map<Long, Long> counts = new HashMap<>();
+		for (String entity : Arrays.asList("Order", "ArchivedOrder")) {
+			for (ProductOrderCount count : em.createQuery(String.format("SELECT NEW cz.fi.muni.pa165.projection."
+					+ "ProductOrderCount(i.product.id, COUNT(DISTINCT o)) FROM %s o JOIN o.orderItems i "
+					+ "GROUP BY i.product.id", entity), ProductOrderCount.class)
+					.getResultList()) {
+				counts.merge(count.getProductId(), count.getOrderCount(), Long::sum);
+			}
+		}
+		List<ProductOrderCount> result = new ArrayList<>(counts.size());
+		counts.forEach((productId, count) -> result.add(new ProductOrderCount(productId, count)));
+		return result;
+	}
+
+	/**
+	 * Merges the ids scrolled from the live and from the archived orders, an order is in only one of them.
+	 */
+	@Override
+	public Stream<Order> streamAll() {
+		IdCursor live = new IdCursor(scrollIds("Order"));
+		IdCursor archived;
+		try {
+			archived = new IdCursor(scrollIds("ArchivedOrder"));
+		} catch (RuntimeException e) {
+			live.close();
+			throw e;
+		}
+		Spliterator<List<Order>> chunks = new Spliterators.AbstractSpliterator<List<Order>>(
+				Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+			@Override
+			public boolean tryAdvance(Consumer<? super List<Order>> action) {
+				List<Long> liveChunk = new ArrayList<>();
+				List<Long> archivedChunk = new ArrayList<>();
+				while (liveChunk.size() + archivedChunk.size() < STREAM_CHUNK_SIZE
+						&& (live.peek() != null || archived.peek() != null)) {
+					if (archived.peek() == null || (live.peek() != null && live.peek() < archived.peek())) {
+						liveChunk.add(live.next());
+					} else {
+						archivedChunk.add(archived.next());
+					}
+				}
+				if (liveChunk.isEmpty() && archivedChunk.isEmpty()) {
+					return false;
+				}
+				em.clear();
+				List<Order> orders = new ArrayList<>(liveChunk.size() + archivedChunk.size());
+				if (!liveChunk.isEmpty()) {
+					orders.addAll(createQuery("SELECT DISTINCT o FROM Order o WHERE o.id IN :ids",
+							OrderFetchPlan.DETAIL)
+							.setParameter("ids", liveChunk)
+							.setHint(QueryHints.HINT_READONLY, true)
+							.setHint(QueryHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+							.getResultList());
+				}
+				if (!archivedChunk.isEmpty()) {
+					for (ArchivedOrder order : em.createQuery("SELECT DISTINCT o FROM ArchivedOrder o "
+							+ "WHERE o.id IN :ids", ArchivedOrder.class)
+							.setHint(QueryHints.HINT_LOADGRAPH,
+									em.getEntityGraph(OrderFetchPlan.DETAIL.getArchivedGraphName()))
+							.setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+							.setParameter("ids", archivedChunk)
+							.setHint(QueryHints.HINT_READONLY, true)
+							.setHint(QueryHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+							.getResultList()) {
+						orders.add(order.toOrder());
+					}
+				}
+				orders.sort(Comparator.comparing(Order::getId));
+				action.accept(orders);
+				return true;
+			}
+		};
+		return StreamSupport.stream(chunks, false)
+				.onClose(() -> {
+					try {
+						live.close();
+					} finally {
+						archived.close();
+					}
+				})
+				.flatMap(List::stream);
+	}
+
+	private ScrollableResults scrollIds(String entity) {
+		return em.unwrap(Session.class)
+				.createQuery("SELECT o.id FROM " + entity + " o ORDER BY o.id")
+				.setReadOnly(true)
+				.setFetchSize(STREAM_CHUNK_SIZE)
+				.scroll(ScrollMode.FORWARD_ONLY);
+	}
+
+	/**
+	 * Ids scrolled in ascending order, with a look at the next one.
+	 */
+	private static class IdCursor {
+		private final ScrollableResults ids;
+		private Long next;
+
+		IdCursor(ScrollableResults ids) {
+			this.ids = ids;
+			advance();
+		}
+
+		private void advance() {
+			next = ids.next() ? ids.getLong(0) : null;
+		}
+
+		Long peek() {
+			return next;
+		}
+
+		Long next() {
+			Long current = next;
+			advance();
+			return current;
+		}
+
+		void close() {
+			ids.close();
+		}
+	}
+
+	/**
+	 * JPA cannot lock the rows of a query selecting only columns, so the orders are locked by an UPDATE
+	 * which does not change them.
+	 */
+	@Override
+	public Map<Long, OrderState> lockStates(Collection<Long> ids) {
+		Map<Long, OrderState> states = new HashMap<>();
+		if (ids.isEmpty()) {
+			return states;
+		}
+		em.createQuery("UPDATE Order o SET o.state = o.state WHERE o.id IN :ids")
+				.setParameter("ids", ids)
+				.executeUpdate();
+		for (Object[] row : em.createQuery("SELECT o.id, o.state FROM Order o WHERE o.id IN :ids", Object[].class)
+				.setParameter("ids", ids)
+				.getResultList()) {
+			states.put((Long) row[0], (OrderState) row[1]);
+		}
+		return states;
+	}
+
+	@Override
+	public int updateStates(Collection<Long> ids, OrderState from, OrderState to) {
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		return em.createQuery("UPDATE Order o SET o.state = :to WHERE o.id IN :ids AND o.state = :from")
+				.setParameter("to", to)
+				.setParameter("ids", ids)
+				.setParameter("from", from)
+				.executeUpdate();
+	}
+
+	@Override
+	public IdRange findIdRangeWithState(OrderState state, Date createdBefore) {
+		return em.createQuery("SELECT NEW cz.fi.muni.pa165.projection.IdRange(MIN(o.id), MAX(o.id)) FROM Order o "
+				+ "WHERE o.state = :state AND o.created < :createdBefore", IdRange.class)
+				.setParameter("state", state)
+				.setParameter("createdBefore", createdBefore)
+				.getSingleResult();
+	}
+
+	@Override
+	public List<Long> findIdsWithState(OrderState state, Date createdBefore, long afterId, long toId, int maxResults) {
+		return em.createQuery("SELECT o.id FROM Order o WHERE o.state = :state AND o.created < :createdBefore "
+				+ "AND o.id > :afterId AND o.id <= :toId ORDER BY o.id", Long.class)
+				.setParameter("state", state)
+				.setParameter("createdBefore", createdBefore)
+				.setParameter("afterId", afterId)
+				.setParameter("toId", toId)
+				.setMaxResults(maxResults)
+				.getResultList();
+	}
 }
@@ -0,0 +1,45 @@
+package cz.fi.muni.pa165.dao;
+
+import cz.fi.muni.pa165.entity.ArchivedOrder;
+import cz.fi.muni.pa165.entity.Order;
+
+/**
+ * What is loaded together with the orders returned by {@link OrderDao}, so that reading the loaded part
+ * of N orders does not need further statements per order.
+ */
+public enum OrderFetchPlan {
+
+	/**
+	 * The orders with their users.
+	 */
+	SUMMARY(Order.GRAPH_SUMMARY, ArchivedOrder.GRAPH_SUMMARY),
+
+	/**
+	 * The orders with everything an order detail shows: users, items, products with their current prices and
+	 * prices per item. Categories and price histories of the products are loaded in batches when first used.
+	 */
+	DETAIL(Order.GRAPH_DETAIL, ArchivedOrder.GRAPH_DETAIL);
+
+	private final String graphName;
+
+	private final String archivedGraphName;
+
+	OrderFetchPlan(String graphName, String archivedGraphName) {
+		this.graphName = graphName;
+		this.archivedGraphName = archivedGraphName;
+	}
+
+	/**
+	 * Name of the entity graph of {@link Order} which implements the plan.
+	 */
+	public String getGraphName() {
+		return graphName;
+	}
+
+	/**
+	 * Name of the entity graph of {@link ArchivedOrder} which implements the plan.
+	 */
+	public String getArchivedGraphName() {
+		return archivedGraphName;
+	}
+}
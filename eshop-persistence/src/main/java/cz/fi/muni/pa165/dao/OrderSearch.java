@@ -0,0 +1,133 @@
+package cz.fi.muni.pa165.dao;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Set;
+
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.enums.OrderSort;
+import cz.fi.muni.pa165.enums.OrderState;
+
+/**
+ * Conditions of {@link OrderDao#search(OrderSearch, int)}. Conditions which are not set do not restrict the orders,
+ * the orders found must meet all the conditions which are set.
+ */
+public class OrderSearch {
+
+	private Set<OrderState> states = EnumSet.noneOf(OrderState.class);
+
+	private Date createdFrom;
+
+	private Date createdTo;
+
+	private Long userId;
+
+	private Long productId;
+
+	private BigDecimal minTotal;
+
+	private Currency totalCurrency = Currency.CZK;
+
+	private OrderSort sort = OrderSort.NEWEST;
+
+	private Date afterCreated;
+
+	private Long afterId;
+
+	/**
+	 * @return states the orders are in, all states if empty
+	 */
+	public Set<OrderState> getStates() {
+		return states;
+	}
+
+	public void setStates(Set<OrderState> states) {
+		this.states = states.isEmpty() ? EnumSet.noneOf(OrderState.class) : EnumSet.copyOf(states);
+	}
+
+	/**
+	 * @return time the orders were created at or after
+	 */
+	public Date getCreatedFrom() {
+		return createdFrom;
+	}
+
+	public void setCreatedFrom(Date createdFrom) {
+		this.createdFrom = createdFrom;
+	}
+
+	/**
+	 * @return time the orders were created before
+	 */
+	public Date getCreatedTo() {
+		return createdTo;
+	}
+
+	public void setCreatedTo(Date createdTo) {
+		this.createdTo = createdTo;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public void setUserId(Long userId) {
+		this.userId = userId;
+	}
+
+	/**
+	 * @return id of a product the orders contain
+	 */
+	public Long getProductId() {
+		return productId;
+	}
+
+	public void setProductId(Long productId) {
+		this.productId = productId;
+	}
+
+	/**
+	 * @return the least total price of the orders in the {@link #getTotalCurrency() total currency}. Only orders with
+	 * a stored total are found, see {@link cz.fi.muni.pa165.entity.OrderTotal}.
+	 */
+	public BigDecimal getMinTotal() {
+		return minTotal;
+	}
+
+	public void setMinTotal(BigDecimal minTotal) {
+		this.minTotal = minTotal;
+	}
+
+	public Currency getTotalCurrency() {
+		return totalCurrency;
+	}
+
+	public void setTotalCurrency(Currency totalCurrency) {
+		this.totalCurrency = totalCurrency;
+	}
+
+	public OrderSort getSort() {
+		return sort;
+	}
+
+	public void setSort(OrderSort sort) {
+		this.sort = sort;
+	}
+
+	public Date getAfterCreated() {
+		return afterCreated;
+	}
+
+	public Long getAfterId() {
+		return afterId;
+	}
+
+	/**
+	 * Starts the search after the order with the creation time and id, the last order of the previous page.
+	 */
+	public void setAfter(Date created, Long id) {
+		this.afterCreated = created;
+		this.afterId = id;
+	}
+}
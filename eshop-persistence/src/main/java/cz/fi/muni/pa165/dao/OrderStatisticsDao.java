@@ -0,0 +1,55 @@
+package cz.fi.muni.pa165.dao;
+
+import java.util.Date;
+import java.util.List;
+
+import cz.fi.muni.pa165.projection.DailyProductSales;
+import cz.fi.muni.pa165.projection.DailyRevenue;
+import cz.fi.muni.pa165.projection.OrderStateCount;
+import cz.fi.muni.pa165.projection.ProductSales;
+
+/**
+ * Aggregates of orders computed by the database. No entities are loaded, every method runs one query
+ * on the live and one on the archived orders returning one row per group. Canceled orders are counted
+ * in {@link #countOrdersByState()} only.
+ */
+public interface OrderStatisticsDao {
+
+	/**
+	 * Counts the orders in every state. States without orders are omitted.
+	 */
+	public List<OrderStateCount> countOrdersByState();
+
+	/**
+	 * Sums the items of orders created from start (inclusive) to end (exclusive) by day and currency
+	 * of the price per item, ordered by day and currency. Items without a price are omitted.
+	 */
+	public List<DailyRevenue> getDailyRevenue(Date start, Date end);
+
+	/**
+	 * Sums the pieces sold of every product, best-selling products first. Products never sold are omitted.
+	 */
+	public List<ProductSales> getProductSales();
+
+	/**
+	 * Sums the items of orders created from start (inclusive) to end (exclusive) by day, product and currency
+	 * of the price per item. Items without a price are omitted.
+	 */
+	public List<DailyProductSales> getDailyProductSales(Date start, Date end);
+
+	/**
+	 * Sums the items of orders created from start (inclusive) to end (exclusive) by day and currency
+	 * of the price per item. Items without a price are omitted.
+	 */
+	public List<DailyProductSales> getDailyTotalSales(Date start, Date end);
+
+	/**
+	 * @return creation time of the first order or null if there are no orders
+	 */
+	public Date getFirstCreated();
+
+	/**
+	 * @return creation time of the last order or null if there are no orders
+	 */
+	public Date getLastCreated();
+}
@@ -0,0 +1,151 @@
+package cz.fi.muni.pa165.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+
+import org.springframework.stereotype.Repository;
+
+import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.projection.DailyProductSales;
+import cz.fi.muni.pa165.projection.DailyRevenue;
+import cz.fi.muni.pa165.projection.OrderStateCount;
+import cz.fi.muni.pa165.projection.ProductSales;
+
+/**
+ * Every query runs once against the live orders and once against the archived orders, which have the same
+ * attributes. An order is in one of the tables only, so the rows of the same group are merged by adding them up.
+ */
+@Repository
+public class OrderStatisticsDaoImpl implements OrderStatisticsDao {
+
+	private static final List<String> ORDER_ENTITIES = Arrays.asList("Order", "ArchivedOrder");
+
+	@PersistenceContext
+	private EntityManager em;
+
+	/**
+	 * Runs the query selecting FROM %s against both entities.
+	 *
+	 * @param parameters names and values of the parameters
+	 */
+	private <R> List<R> query(String jpql, Class<R> resultClass, Object... parameters) {
+		List<R> rows = new ArrayList<>();
+		for (String entity : ORDER_ENTITIES) {
+			TypedQuery<R> query = em.createQuery(String.format(jpql, entity), resultClass);
+			for (int i = 0; i < parameters.length; i += 2) {
+				query.setParameter((String) parameters[i], parameters[i + 1]);
+			}
+			rows.addAll(query.getResultList());
+		}
+		return rows;
+	}
+
+	private static <R> List<R> merge(List<R> rows, Function<R, List<?>> key, BinaryOperator<R> sum) {
+		Map<List<?>, R> merged = new LinkedHashMap<>();
+		for (R row : rows) {
+			merged.merge(key.apply(row), row, sum);
+		}
+		return new ArrayList<>(merged.values());
+	}
+
+	private static Long add(Long a, Long b) {
+		return a + b;
+	}
+
+	@Override
+	public List<OrderStateCount> countOrdersByState() {
+		List<OrderStateCount> counts = merge(query("SELECT NEW cz.fi.muni.pa165.projection.OrderStateCount(o.state, COUNT(o)) "
+				+ "FROM %s o GROUP BY o.state", OrderStateCount.class),
+				c -> Arrays.asList(c.getState()),
+				(a, b) -> new OrderStateCount(a.getState(), add(a.getOrderCount(), b.getOrderCount())));
+		counts.sort(Comparator.comparing(OrderStateCount::getState));
+		return counts;
+	}
+
+	@Override
+	public List<DailyRevenue> getDailyRevenue(Date start, Date end) {
+		List<DailyRevenue> revenue = merge(query("SELECT NEW cz.fi.muni.pa165.projection.DailyRevenue("
+				+ "CAST(o.created AS date), p.currency, COUNT(DISTINCT o), SUM(p.value * i.amount)) "
+				+ "FROM %s o JOIN o.orderItems i JOIN i.pricePerItem p "
+				+ "WHERE o.state <> :canceled AND o.created >= :start AND o.created < :end "
+				+ "GROUP BY CAST(o.created AS date), p.currency", DailyRevenue.class,
+				"canceled", OrderState.CANCELED, "start", start, "end", end),
+				r -> Arrays.asList(r.getDay(), r.getCurrency()),
+				(a, b) -> new DailyRevenue(a.getDay(), a.getCurrency(), add(a.getOrderCount(), b.getOrderCount()),
+						a.getRevenue().add(b.getRevenue())));
+		revenue.sort(Comparator.comparing(DailyRevenue::getDay).thenComparing(DailyRevenue::getCurrency));
+		return revenue;
+	}
+
+	@Override
+	public List<ProductSales> getProductSales() {
+		List<ProductSales> sales = merge(query("SELECT NEW cz.fi.muni.pa165.projection.ProductSales("
+				+ "p.id, p.name, SUM(i.amount), COUNT(DISTINCT o)) "
+				+ "FROM %s o JOIN o.orderItems i JOIN i.product p "
+				+ "WHERE o.state <> :canceled "
+				+ "GROUP BY p.id, p.name", ProductSales.class, "canceled", OrderState.CANCELED),
+				s -> Arrays.asList(s.getProductId()),
+				(a, b) -> new ProductSales(a.getProductId(), a.getProductName(), add(a.getItemsSold(), b.getItemsSold()),
+						add(a.getOrderCount(), b.getOrderCount())));
+		sales.sort(Comparator.comparing(ProductSales::getItemsSold).reversed().thenComparing(ProductSales::getProductId));
+		return sales;
+	}
+
+	private static DailyProductSales add(DailyProductSales a, DailyProductSales b) {
+		return new DailyProductSales(a.getDay(), a.getProductId(), a.getCurrency(), add(a.getItemsSold(), b.getItemsSold()),
+				add(a.getOrderCount(), b.getOrderCount()), a.getRevenue().add(b.getRevenue()));
+	}
+
+	@Override
+	public List<DailyProductSales> getDailyProductSales(Date start, Date end) {
+		return merge(query("SELECT NEW cz.fi.muni.pa165.projection.DailyProductSales("
+				+ "CAST(o.created AS date), i.product.id, p.currency, SUM(i.amount), COUNT(DISTINCT o), "
+				+ "SUM(p.value * i.amount)) "
+				+ "FROM %s o JOIN o.orderItems i JOIN i.pricePerItem p "
+				+ "WHERE o.state <> :canceled AND o.created >= :start AND o.created < :end "
+				+ "GROUP BY CAST(o.created AS date), i.product.id, p.currency", DailyProductSales.class,
+				"canceled", OrderState.CANCELED, "start", start, "end", end),
+				s -> Arrays.asList(s.getDay(), s.getProductId(), s.getCurrency()),
+				OrderStatisticsDaoImpl::add);
+	}
+
+	@Override
+	public List<DailyProductSales> getDailyTotalSales(Date start, Date end) {
+		return merge(query("SELECT NEW cz.fi.muni.pa165.projection.DailyProductSales("
+				+ "CAST(o.created AS date), p.currency, SUM(i.amount), COUNT(DISTINCT o), SUM(p.value * i.amount)) "
+				+ "FROM %s o JOIN o.orderItems i JOIN i.pricePerItem p "
+				+ "WHERE o.state <> :canceled AND o.created >= :start AND o.created < :end "
+				+ "GROUP BY CAST(o.created AS date), p.currency", DailyProductSales.class,
+				"canceled", OrderState.CANCELED, "start", start, "end", end),
+				s -> Arrays.asList(s.getDay(), s.getCurrency()),
+				OrderStatisticsDaoImpl::add);
+	}
+
+	@Override
+	public Date getFirstCreated() {
+		return query("SELECT MIN(o.created) FROM %s o", Date.class).stream()
+				.filter(Objects::nonNull)
+				.min(Comparator.naturalOrder())
+				.orElse(null);
+	}
+
+	@Override
+	public Date getLastCreated() {
+		return query("SELECT MAX(o.created) FROM %s o", Date.class).stream()
+				.filter(Objects::nonNull)
+				.max(Comparator.naturalOrder())
+				.orElse(null);
+	}
+}
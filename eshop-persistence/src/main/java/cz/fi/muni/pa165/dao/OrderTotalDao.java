@@ -0,0 +1,28 @@
+package cz.fi.muni.pa165.dao;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+
+import cz.fi.muni.pa165.entity.OrderTotal;
+import cz.fi.muni.pa165.enums.Currency;
+
+/**
+ * Reads the {@link OrderTotal}s stored with the orders. The totals are created and removed together
+ * with their orders, see {@link cz.fi.muni.pa165.entity.Order#addTotal}. Totals not found among the live orders
+ * are looked up among the archived orders.
+ */
+public interface OrderTotalDao {
+
+	/**
+	 * @return total price of the order in the currency, null if it was not computed for the order
+	 */
+	public BigDecimal findTotal(Long orderId, Currency currency);
+
+	/**
+	 * Total prices of many orders in the currency, read without loading the orders.
+	 *
+	 * @return totals by order id, orders without a computed total are missing
+	 */
+	public Map<Long, BigDecimal> findTotals(Collection<Long> orderIds, Currency currency);
+}
@@ -0,0 +1,68 @@
+package cz.fi.muni.pa165.dao;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.stereotype.Repository;
+
+import cz.fi.muni.pa165.enums.Currency;
+
+@Repository
+public class OrderTotalDaoImpl implements OrderTotalDao {
+
+	@PersistenceContext
+	private EntityManager em;
+
+	@Override
+	public BigDecimal findTotal(Long orderId, Currency currency) {
+		List<BigDecimal> totals = em.createQuery("SELECT t.total FROM OrderTotal t "
+				+ "WHERE t.order.id = :orderId AND t.currency = :currency", BigDecimal.class)
+				.setParameter("orderId", orderId)
+				.setParameter("currency", currency)
+				.getResultList();
+		if (totals.isEmpty()) {
+			totals = em.createQuery("SELECT VALUE(t) FROM ArchivedOrder a JOIN a.totals t "
+					+ "WHERE a.id = :orderId AND KEY(t) = :currency", BigDecimal.class)
+					.setParameter("orderId", orderId)
+					.setParameter("currency", currency)
+					.getResultList();
+		}
+		return totals.isEmpty() ? null : totals.get(0);
+	}
+
+	@Override
+	public Map<Long, BigDecimal> findTotals(Collection<Long> orderIds, Currency currency) {
+		Map<Long, BigDecimal> totals = new HashMap<>();
+		if (orderIds.isEmpty()) {
+			return totals;
+		}
+		List<Object[]> rows = em.createQuery("SELECT t.order.id, t.total FROM OrderTotal t "
+				+ "WHERE t.order.id IN :orderIds AND t.currency = :currency", Object[].class)
+				.setParameter("orderIds", orderIds)
+				.setParameter("currency", currency)
+				.getResultList();
+		for (Object[] row : rows) {
+			totals.put((Long) row[0], (BigDecimal) row[1]);
+		}
+		if (totals.size() < orderIds.size()) {
+			List<Long> archivedIds = new ArrayList<>(orderIds);
+			archivedIds.removeAll(totals.keySet());
+			rows = em.createQuery("SELECT a.id, VALUE(t) FROM ArchivedOrder a JOIN a.totals t "
+					+ "WHERE a.id IN :orderIds AND KEY(t) = :currency", Object[].class)
+					.setParameter("orderIds", archivedIds)
+					.setParameter("currency", currency)
+					.getResultList();
+			for (Object[] row : rows) {
+				totals.put((Long) row[0], (BigDecimal) row[1]);
+			}
+		}
+		return totals;
+	}
+}
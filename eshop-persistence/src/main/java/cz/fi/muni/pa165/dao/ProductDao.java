@@ -3,11 +3,58 @@ package cz.fi.muni.pa165.dao;
 import java.util.List;
 
 import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.projection.ProductSummary;
 
 public interface ProductDao {
 	public void create(Product p);
 	public Product findById(Long id);
 	public List<Product> findAll();
 	public void remove(Product p) throws IllegalArgumentException;
+
+	/**
+	 * Finds products whose name contains the text, case sensitive like the SQL LIKE operator, ordered by id.
+	 */
 	public List<Product> findByName(String namePattern);
+
+	/**
+	 * Finds the product with exactly the given name, or returns null. Product names are unique.
+	 */
+	public Product findByExactName(String name);
+
+	/**
+	 * Finds products whose name or description contains the text, ignoring case, ordered by id.
+	 */
+	public List<Product> findByText(String text);
+
+	/**
+	 * Finds products whose name or description is similar to the text, the most similar first.
+	 * Unlike {@link #findByName(String)} this finds products even for misspelled queries.
+	 */
+	public List<Product> findSimilar(String text, int maxResults);
+
+	/**
+	 * Returns summaries of all products ordered by name, without loading the entities.
+	 */
+	public List<ProductSummary> findAllSummaries();
+
+	/**
+	 * Returns summaries of the products in the category with the given name, ordered by name.
+	 */
+	public List<ProductSummary> findSummariesByCategory(String categoryName);
+
+	/**
+	 * Returns a page of product summaries ordered by name and id, starting after the product with the given
+	 * name and id. Only the products of the page are read, however far the page is.
+	 *
+	 * @param afterName name of the last product of the previous page, null for the first page
+	 * @param afterId id of the last product of the previous page
+	 */
+	public List<ProductSummary> findSummariesAfter(String afterName, Long afterId, int maxResults);
+
+	/**
+	 * Returns a page of summaries of the products in the category with the given name,
+	 * see {@link #findSummariesAfter(String, Long, int)}.
+	 */
+	public List<ProductSummary> findSummariesByCategoryAfter(String categoryName, String afterName, Long afterId,
+			int maxResults);
 }
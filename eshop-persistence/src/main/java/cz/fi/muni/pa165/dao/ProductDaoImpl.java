@@ -1,21 +1,46 @@
 package cz.fi.muni.pa165.dao;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
 
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import cz.fi.muni.pa165.entity.Product;
-import org.springframework.transaction.annotation.Transactional;
+import cz.fi.muni.pa165.projection.ProductSummary;
 
 @Repository
 public class ProductDaoImpl implements ProductDao {
 
+	private static final String SUMMARY_SELECT = "SELECT NEW cz.fi.muni.pa165.projection.ProductSummary("
+			+ "p.id, p.name, p.color, p.addedDate, cp.value, cp.currency, cp.priceStart) ";
+
+	/**
+	 * Products ordered after the product with the given name and id, when ordered by name and id.
+	 */
+	private static final String KEYSET_CONDITION = "(p.name > :afterName OR (p.name = :afterName AND p.id > :afterId)) ";
+
+	/**
+	 * Maximum number of ids in one IN clause.
+	 */
+	private static final int ID_CHUNK_SIZE = 500;
+
 	@PersistenceContext
 	private EntityManager em;
 
+	@Autowired
+	private ProductSearchIndex searchIndex;
+
+	@Autowired
+	private ProductImageDao productImageDao;
+
 	@Override
 	public void create(Product p) {
 		em.persist(p);
@@ -32,16 +57,157 @@ public class ProductDaoImpl implements ProductDao {
 		return em.find(Product.class, id);
 	}
 
+	/**
+	 * Looks the product up by its natural id, repeated lookups are answered from the natural-id and entity cache.
+	 */
+	@Override
+	public Product findByExactName(String name) {
+		if (name == null) {
+			return null;
+		}
+		return em.unwrap(Session.class).bySimpleNaturalId(Product.class).load(name);
+	}
+
 	@Override
 	public void remove(Product p) throws IllegalArgumentException {
-		
+		productImageDao.remove(p.getId());
 		em.remove(findById(p.getId()));
 	}
 
 	@Override
 	public List<Product> findByName(String name) {
-		return em.createQuery("SELECT p FROM Product p WHERE p.name like :name ",
-				Product.class).setParameter("name", "%"+name+"%").getResultList();
+		flushForIndex();
+		List<Product> found = findByIds(searchIndex.searchName(name));
+		//the index may already contain changes of transactions that are not committed yet
+		found.removeIf(p -> p.getName() == null || !p.getName().contains(name));
+		return found;
+	}
+
+	@Override
+	public List<Product> findByText(String text) {
+		flushForIndex();
+		return findByIds(searchIndex.search(text));
+	}
+
+	@Override
+	public List<Product> findSimilar(String text, int maxResults) {
+		flushForIndex();
+		return findByIds(searchIndex.searchSimilar(text, maxResults));
+	}
+
+	/**
+	 * The search index sees products when they are flushed and new products are inserted only at flush,
+	 * so pending changes are flushed first, the same way a query flushes them.
+	 */
+	private void flushForIndex() {
+		if (em.isJoinedToTransaction()) {
+			em.flush();
+		}
+	}
+
+	/**
+	 * Loads the products with the given ids in the order of the ids, skipping ids that do not exist.
+	 */
+	private List<Product> findByIds(int[] ids) {
+		Map<Long, Product> byId = new HashMap<>();
+		for (int from = 0; from < ids.length; from += ID_CHUNK_SIZE) {
+			List<Long> chunk = new ArrayList<>();
+			for (int i = from; i < Math.min(ids.length, from + ID_CHUNK_SIZE); i++) {
+				chunk.add((long) ids[i]);
+			}
+			for (Product p : em.createQuery("SELECT p FROM Product p WHERE p.id IN :ids", Product.class)
+					.setParameter("ids", chunk).getResultList()) {
+				byId.put(p.getId(), p);
+			}
+		}
+		List<Product> found = new ArrayList<>(byId.size());
+		for (int id : ids) {
+			Product p = byId.get((long) id);
+			if (p != null) {
+				found.add(p);
+			}
+		}
+		return found;
 	}
 
+	@Override
+	public List<ProductSummary> findAllSummaries() {
+		List<ProductSummary> summaries = em.createQuery(SUMMARY_SELECT
+				+ "FROM Product p LEFT JOIN p.currentPrice cp ORDER BY p.name", ProductSummary.class)
+				.getResultList();
+		List<Object[]> categoryIds = em.createQuery(
+				"SELECT p.id, c.id FROM Product p JOIN p.categories c", Object[].class)
+				.getResultList();
+		return withCategoryIds(summaries, categoryIds);
+	}
+
+	@Override
+	public List<ProductSummary> findSummariesByCategory(String categoryName) {
+		List<ProductSummary> summaries = em.createQuery(SUMMARY_SELECT
+				+ "FROM Product p JOIN p.categories c LEFT JOIN p.currentPrice cp "
+				+ "WHERE c.name = :name ORDER BY p.name", ProductSummary.class)
+				.setParameter("name", categoryName).getResultList();
+		List<Object[]> categoryIds = em.createQuery(
+				"SELECT p.id, pc.id FROM Product p JOIN p.categories c JOIN p.categories pc "
+				+ "WHERE c.name = :name", Object[].class)
+				.setParameter("name", categoryName).getResultList();
+		return withCategoryIds(summaries, categoryIds);
+	}
+
+	@Override
+	public List<ProductSummary> findSummariesAfter(String afterName, Long afterId, int maxResults) {
+		TypedQuery<ProductSummary> query = em.createQuery(SUMMARY_SELECT
+				+ "FROM Product p LEFT JOIN p.currentPrice cp "
+				+ ((afterName == null) ? "" : "WHERE " + KEYSET_CONDITION)
+				+ "ORDER BY p.name, p.id", ProductSummary.class);
+		if (afterName != null) {
+			query.setParameter("afterName", afterName).setParameter("afterId", afterId);
+		}
+		return withPageCategoryIds(query.setMaxResults(maxResults).getResultList());
+	}
+
+	@Override
+	public List<ProductSummary> findSummariesByCategoryAfter(String categoryName, String afterName, Long afterId,
+			int maxResults) {
+		TypedQuery<ProductSummary> query = em.createQuery(SUMMARY_SELECT
+				+ "FROM Product p JOIN p.categories c LEFT JOIN p.currentPrice cp WHERE c.name = :name "
+				+ ((afterName == null) ? "" : "AND " + KEYSET_CONDITION)
+				+ "ORDER BY p.name, p.id", ProductSummary.class)
+				.setParameter("name", categoryName);
+		if (afterName != null) {
+			query.setParameter("afterName", afterName).setParameter("afterId", afterId);
+		}
+		return withPageCategoryIds(query.setMaxResults(maxResults).getResultList());
+	}
+
+	/**
+	 * Adds category ids to a page of summaries, reading the categories of these products only.
+	 */
+	private List<ProductSummary> withPageCategoryIds(List<ProductSummary> summaries) {
+		List<Object[]> categoryIds = new ArrayList<>();
+		for (int from = 0; from < summaries.size(); from += ID_CHUNK_SIZE) {
+			List<Long> chunk = new ArrayList<>();
+			for (ProductSummary summary : summaries.subList(from, Math.min(summaries.size(), from + ID_CHUNK_SIZE))) {
+				chunk.add(summary.getId());
+			}
+			categoryIds.addAll(em.createQuery(
+					"SELECT p.id, c.id FROM Product p JOIN p.categories c WHERE p.id IN :ids", Object[].class)
+					.setParameter("ids", chunk).getResultList());
+		}
+		return withCategoryIds(summaries, categoryIds);
+	}
+
+	private static List<ProductSummary> withCategoryIds(List<ProductSummary> summaries, List<Object[]> categoryIds) {
+		Map<Long, ProductSummary> byId = new HashMap<>();
+		for (ProductSummary summary : summaries) {
+			byId.put(summary.getId(), summary);
+		}
+		for (Object[] row : categoryIds) {
+			ProductSummary summary = byId.get((Long) row[0]);
+			if (summary != null) {
+				summary.addCategoryId((Long) row[1]);
+			}
+		}
+		return summaries;
+	}
 }
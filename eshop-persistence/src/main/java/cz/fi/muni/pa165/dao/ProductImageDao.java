@@ -0,0 +1,49 @@
+package cz.fi.muni.pa165.dao;
+
+import java.io.InputStream;
+
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.entity.ProductImage;
+
+/**
+ * Stores product images separately from products. Image content is written and read as a stream,
+ * so it never has to be held in memory as a whole.
+ */
+public interface ProductImageDao {
+
+	/**
+	 * Creates or replaces the image of the given product. The stream is fully consumed before this method returns,
+	 * so the caller may close it afterwards. The content hash and the modification time are set while storing.
+	 */
+	public ProductImage store(Product product, String mimeType, InputStream data, long length);
+
+	/**
+	 * Finds the image metadata (mime type, length, content hash and modification time) without reading the content.
+	 */
+	public ProductImage findByProductId(Long productId);
+
+	/**
+	 * Finds only the content hash of the image, without loading the image entity.
+	 *
+	 * @return the hash or null if the product has no image
+	 */
+	public String findContentHash(Long productId);
+
+	/**
+	 * Opens the image content for reading. The stream is valid only within the current transaction.
+	 *
+	 * @return the stream or null if the product has no image
+	 */
+	public InputStream openStream(Long productId);
+
+	/**
+	 * Opens a part of the image content for reading. The stream is valid only within the current transaction.
+	 *
+	 * @param offset index of the first byte, starting at 0
+	 * @param length number of bytes to read
+	 * @return the stream or null if the product has no image
+	 */
+	public InputStream openStream(Long productId, long offset, long length);
+
+	public void remove(Long productId);
+}
@@ -0,0 +1,108 @@
+package cz.fi.muni.pa165.dao;
+
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.entity.ProductImage;
+
+@Repository
+public class ProductImageDaoImpl implements ProductImageDao {
+
+	@PersistenceContext
+	private EntityManager em;
+
+	@Override
+	public ProductImage store(Product product, String mimeType, InputStream data, long length) {
+		ProductImage image = em.find(ProductImage.class, product.getId());
+		boolean created = image == null;
+		if (created) {
+			image = new ProductImage(product);
+		}
+		MessageDigest digest = sha256();
+		image.setMimeType(mimeType);
+		image.setLength(length);
+		image.setLastModified(new Date());
+		image.setData(em.unwrap(Session.class).getLobHelper().createBlob(new DigestInputStream(data, digest), length));
+		if (created) {
+			em.persist(image);
+		}
+		//the blob reads the stream when the row is written, so write it while the stream is still open
+		em.flush();
+		//the stream has been read through the digest now
+		image.setContentHash(String.format("%064x", new BigInteger(1, digest.digest())));
+		em.flush();
+		return image;
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 is not available", ex);
+		}
+	}
+
+	@Override
+	public ProductImage findByProductId(Long productId) {
+		return em.find(ProductImage.class, productId);
+	}
+
+	@Override
+	public String findContentHash(Long productId) {
+		List<String> hashes = em.createQuery("select i.contentHash from ProductImage i where i.id = :id", String.class)
+				.setParameter("id", productId)
+				.getResultList();
+		return hashes.isEmpty() ? null : hashes.get(0);
+	}
+
+	@Override
+	public InputStream openStream(Long productId) {
+		ProductImage image = findByProductId(productId);
+		if (image == null) {
+			return null;
+		}
+		try {
+			return image.getData().getBinaryStream();
+		} catch (SQLException ex) {
+			throw new PersistenceException("Cannot read image of product " + productId, ex);
+		}
+	}
+
+	@Override
+	public InputStream openStream(Long productId, long offset, long length) {
+		ProductImage image = findByProductId(productId);
+		if (image == null) {
+			return null;
+		}
+		try {
+			Blob data = image.getData();
+			//positions in a blob start at 1
+			return data.getBinaryStream(offset + 1, length);
+		} catch (SQLException ex) {
+			throw new PersistenceException("Cannot read image of product " + productId, ex);
+		}
+	}
+
+	@Override
+	public void remove(Long productId) {
+		ProductImage image = findByProductId(productId);
+		if (image != null) {
+			em.remove(image);
+		}
+	}
+}
@@ -0,0 +1,467 @@
+package cz.fi.muni.pa165.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import cz.fi.muni.pa165.entity.Product;
+
+/**
+ * In-memory trigram index over product names and descriptions. Every lower-cased trigram maps to a sorted
+ * array of the ids of the products containing it. A substring query intersects the arrays of its trigrams
+ * and checks the remaining candidates against the indexed text, a fuzzy query ranks products by the number
+ * of trigrams they share with the query.
+ * <p>
+ * The index follows Hibernate events, so it sees products when they are flushed and forgets them when they
+ * are deleted and committed. Changes of rolled back transactions are reverted. A product may therefore be found
+ * shortly before its transaction commits, so callers load the found products from the database and check them.
+ * Product ids must fit into an int.
+ * <p>
+ * Texts shorter than three characters have no trigrams, such queries check the indexed texts of all products
+ * in the order of their ids, so they find the same products as the SQL LIKE operator.
+ */
+@Component
+public class ProductSearchIndex {
+
+	@PersistenceUnit
+	private EntityManagerFactory emf;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Map<Long, Postings> postings = new HashMap<>();
+
+	private final Map<Integer, Document> documents = new HashMap<>();
+
+	private final Postings allIds = new Postings();
+
+	/**
+	 * Registers the Hibernate event listeners and indexes the products already stored in the database.
+	 */
+	@PostConstruct
+	public void init() {
+		EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry().getService(EventListenerRegistry.class);
+		FlushListener flushListener = new FlushListener();
+		registry.appendListeners(EventType.POST_INSERT, flushListener);
+		registry.appendListeners(EventType.POST_UPDATE, flushListener);
+		CommitListener commitListener = new CommitListener();
+		registry.appendListeners(EventType.POST_COMMIT_INSERT, commitListener);
+		registry.appendListeners(EventType.POST_COMMIT_UPDATE, commitListener);
+		registry.appendListeners(EventType.POST_COMMIT_DELETE, commitListener);
+
+		EntityManager em = emf.createEntityManager();
+		try {
+			for (Object[] row : em.createQuery("SELECT p.id, p.name, p.description FROM Product p", Object[].class)
+					.getResultList()) {
+				put((Long) row[0], (String) row[1], (String) row[2]);
+			}
+		} finally {
+			em.close();
+		}
+	}
+
+	/**
+	 * Adds the product to the index or replaces its indexed text.
+	 */
+	public void put(Long productId, String name, String description) {
+		int id = Math.toIntExact(productId);
+		Document document = new Document(name, description);
+		lock.writeLock().lock();
+		try {
+			Document previous = documents.put(id, document);
+			allIds.add(id);
+			if (previous != null) {
+				for (long trigram : previous.trigrams) {
+					if (Arrays.binarySearch(document.trigrams, trigram) < 0) {
+						removePosting(trigram, id);
+					}
+				}
+			}
+			for (long trigram : document.trigrams) {
+				postings.computeIfAbsent(trigram, t -> new Postings()).add(id);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long productId) {
+		int id = Math.toIntExact(productId);
+		lock.writeLock().lock();
+		try {
+			Document previous = documents.remove(id);
+			allIds.remove(id);
+			if (previous != null) {
+				for (long trigram : previous.trigrams) {
+					removePosting(trigram, id);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Indexes the product as it is committed in the database, or removes it when it is not there.
+	 */
+	private void reindex(Long productId) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			List<Object[]> rows = em.createQuery("SELECT p.name, p.description FROM Product p WHERE p.id = :id",
+					Object[].class)
+					.setParameter("id", productId)
+					.getResultList();
+			if (rows.isEmpty()) {
+				remove(productId);
+			} else {
+				put(productId, (String) rows.get(0)[0], (String) rows.get(0)[1]);
+			}
+		} finally {
+			em.close();
+		}
+	}
+
+	private void removePosting(long trigram, int id) {
+		Postings list = postings.get(trigram);
+		if (list != null && list.remove(id) && list.size == 0) {
+			postings.remove(trigram);
+		}
+	}
+
+	/**
+	 * Finds products whose name contains the text, case sensitive like the SQL LIKE operator.
+	 *
+	 * @return sorted product ids
+	 */
+	public int[] searchName(String text) {
+		return find(text, document -> document.name != null && document.name.contains(text));
+	}
+
+	/**
+	 * Finds products whose name or description contains the text, ignoring case.
+	 *
+	 * @return sorted product ids
+	 */
+	public int[] search(String text) {
+		String lowerCase = text.toLowerCase(Locale.ROOT);
+		return find(text, document -> document.lowerCaseText.contains(lowerCase));
+	}
+
+	/**
+	 * Checks the products containing all trigrams of the text, or all products when the text is too short
+	 * to have trigrams.
+	 */
+	private int[] find(String text, Predicate<Document> matches) {
+		long[] queryTrigrams = trigrams(text.toLowerCase(Locale.ROOT));
+		lock.readLock().lock();
+		try {
+			if (queryTrigrams.length == 0) {
+				int[] found = new int[allIds.size];
+				int count = 0;
+				for (int i = 0; i < allIds.size; i++) {
+					if (matches.test(documents.get(allIds.ids[i]))) {
+						found[count++] = allIds.ids[i];
+					}
+				}
+				return Arrays.copyOf(found, count);
+			}
+			int[] candidates = candidates(queryTrigrams);
+			int count = 0;
+			for (int id : candidates) {
+				if (matches.test(documents.get(id))) {
+					candidates[count++] = id;
+				}
+			}
+			return Arrays.copyOf(candidates, count);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds products whose name or description share at least a third of the trigrams of the text,
+	 * so that misspelled queries still find something.
+	 *
+	 * @return product ids, the most similar first
+	 */
+	public int[] searchSimilar(String text, int maxResults) {
+		long[] queryTrigrams = trigrams(text.toLowerCase(Locale.ROOT));
+		if (queryTrigrams.length == 0) {
+			int[] found = search(text);
+			return Arrays.copyOf(found, Math.min(found.length, maxResults));
+		}
+		int minShared = (queryTrigrams.length + 2) / 3;
+		int[] all;
+		lock.readLock().lock();
+		try {
+			int total = 0;
+			for (long trigram : queryTrigrams) {
+				Postings list = postings.get(trigram);
+				total += (list == null) ? 0 : list.size;
+			}
+			all = new int[total];
+			int position = 0;
+			for (long trigram : queryTrigrams) {
+				Postings list = postings.get(trigram);
+				if (list != null) {
+					System.arraycopy(list.ids, 0, all, position, list.size);
+					position += list.size;
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		Arrays.sort(all);
+		//each match packed as (inverted count, id), so that sorting puts the best matches first
+		long[] matches = new long[all.length];
+		int count = 0;
+		for (int i = 0; i < all.length; ) {
+			int j = i;
+			while (j < all.length && all[j] == all[i]) {
+				j++;
+			}
+			if (j - i >= minShared) {
+				matches[count++] = ((long) (Integer.MAX_VALUE - (j - i)) << 32) | all[i];
+			}
+			i = j;
+		}
+		Arrays.sort(matches, 0, count);
+		int[] result = new int[Math.min(count, maxResults)];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = (int) matches[i];
+		}
+		return result;
+	}
+
+	/**
+	 * Returns sorted ids of the products containing all the trigrams.
+	 */
+	private int[] candidates(long[] queryTrigrams) {
+		List<Postings> lists = new ArrayList<>(queryTrigrams.length);
+		for (long trigram : queryTrigrams) {
+			Postings list = postings.get(trigram);
+			if (list == null) {
+				return new int[0];
+			}
+			lists.add(list);
+		}
+		lists.sort((a, b) -> Integer.compare(a.size, b.size));
+		int[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+		int count = result.length;
+		for (int l = 1; l < lists.size() && count > 0; l++) {
+			Postings list = lists.get(l);
+			int kept = 0;
+			for (int i = 0; i < count; i++) {
+				if (Arrays.binarySearch(list.ids, 0, list.size, result[i]) >= 0) {
+					result[kept++] = result[i];
+				}
+			}
+			count = kept;
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	/**
+	 * Returns the sorted distinct trigrams of the text, each packed into a long.
+	 */
+	private static long[] trigrams(String text) {
+		if (text.length() < 3) {
+			return new long[0];
+		}
+		long[] trigrams = new long[text.length() - 2];
+		for (int i = 0; i < trigrams.length; i++) {
+			trigrams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+		}
+		return distinct(trigrams, trigrams.length);
+	}
+
+	private static long[] distinct(long[] values, int length) {
+		Arrays.sort(values, 0, length);
+		int count = 0;
+		for (int i = 0; i < length; i++) {
+			if (count == 0 || values[count - 1] != values[i]) {
+				values[count++] = values[i];
+			}
+		}
+		return Arrays.copyOf(values, count);
+	}
+
+	private static class Document {
+		private final String name;
+		private final String lowerCaseText;
+		private final long[] trigrams;
+
+		Document(String name, String description) {
+			this.name = name;
+			String lowerCaseName = (name == null) ? "" : name.toLowerCase(Locale.ROOT);
+			String lowerCaseDescription = (description == null) ? "" : description.toLowerCase(Locale.ROOT);
+			//separated, so that a query cannot match across the end of the name
+			this.lowerCaseText = lowerCaseName + '\n' + lowerCaseDescription;
+			long[] nameTrigrams = trigrams(lowerCaseName);
+			long[] descriptionTrigrams = trigrams(lowerCaseDescription);
+			long[] all = Arrays.copyOf(nameTrigrams, nameTrigrams.length + descriptionTrigrams.length);
+			System.arraycopy(descriptionTrigrams, 0, all, nameTrigrams.length, descriptionTrigrams.length);
+			this.trigrams = distinct(all, all.length);
+		}
+	}
+
+	/**
+	 * Sorted set of product ids.
+	 */
+	private static class Postings {
+		private int[] ids = new int[4];
+		private int size;
+
+		void add(int id) {
+			//ids mostly grow, so new ids are usually appended
+			if (size > 0 && ids[size - 1] >= id) {
+				int index = Arrays.binarySearch(ids, 0, size, id);
+				if (index >= 0) {
+					return;
+				}
+				insertAt(-index - 1, id);
+			} else {
+				insertAt(size, id);
+			}
+		}
+
+		private void insertAt(int index, int id) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			System.arraycopy(ids, index, ids, index + 1, size - index);
+			ids[index] = id;
+			size++;
+		}
+
+		boolean remove(int id) {
+			int index = Arrays.binarySearch(ids, 0, size, id);
+			if (index < 0) {
+				return false;
+			}
+			System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+			size--;
+			return true;
+		}
+	}
+
+	private static boolean isProduct(EntityPersister persister) {
+		return Product.class.equals(persister.getMappedClass());
+	}
+
+	/**
+	 * Indexes products when they are written, so that they can be found within the transaction writing them.
+	 */
+	private class FlushListener implements PostInsertEventListener, PostUpdateEventListener {
+
+		@Override
+		public void onPostInsert(PostInsertEvent event) {
+			if (isProduct(event.getPersister())) {
+				Product product = (Product) event.getEntity();
+				put(product.getId(), product.getName(), product.getDescription());
+			}
+		}
+
+		@Override
+		public void onPostUpdate(PostUpdateEvent event) {
+			if (isProduct(event.getPersister())) {
+				Product product = (Product) event.getEntity();
+				put(product.getId(), product.getName(), product.getDescription());
+			}
+		}
+
+		@Override
+		public boolean requiresPostCommitHandling(EntityPersister persister) {
+			return false;
+		}
+
+		@Override
+		@Deprecated
+		public boolean requiresPostCommitHanding(EntityPersister persister) {
+			//still abstract in Hibernate 5.4
+			return requiresPostCommitHandling(persister);
+		}
+	}
+
+	/**
+	 * Removes deleted products after the deletion is committed. When a transaction which changed a product
+	 * is rolled back, the product is indexed again as it is stored in the database, which is not necessarily
+	 * the state it had before the transaction, another transaction may have changed it meanwhile.
+	 */
+	private class CommitListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+			PostCommitDeleteEventListener {
+
+		@Override
+		public void onPostInsert(PostInsertEvent event) {
+			//already indexed when flushed
+		}
+
+		@Override
+		public void onPostInsertCommitFailed(PostInsertEvent event) {
+			if (isProduct(event.getPersister())) {
+				reindex((Long) event.getId());
+			}
+		}
+
+		@Override
+		public void onPostUpdate(PostUpdateEvent event) {
+			//already indexed when flushed
+		}
+
+		@Override
+		public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+			if (isProduct(event.getPersister())) {
+				reindex((Long) event.getId());
+			}
+		}
+
+		@Override
+		public void onPostDelete(PostDeleteEvent event) {
+			if (isProduct(event.getPersister())) {
+				remove((Long) event.getId());
+			}
+		}
+
+		@Override
+		public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+			//deleted products are removed only after commit
+		}
+
+		@Override
+		public boolean requiresPostCommitHandling(EntityPersister persister) {
+			return isProduct(persister);
+		}
+
+		@Override
+		@Deprecated
+		public boolean requiresPostCommitHanding(EntityPersister persister) {
+			//still abstract in Hibernate 5.4
+			return requiresPostCommitHandling(persister);
+		}
+	}
+}
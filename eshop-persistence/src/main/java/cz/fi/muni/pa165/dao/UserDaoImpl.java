@@ -3,10 +3,10 @@ package cz.fi.muni.pa165.dao;
 import java.util.List;
 
 import javax.persistence.EntityManager;
-import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
 
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
 
 import cz.fi.muni.pa165.entity.User;
@@ -22,19 +22,16 @@ public class UserDaoImpl implements UserDao {
 		em.persist(u);
 	}
 
+	/**
+	 * Looks the user up by the e-mail, which is the natural id, so repeated lookups
+	 * are answered from the natural-id and entity cache.
+	 */
 	@Override
 	public User findUserByEmail(String email) {
 		if (email == null || email.isEmpty())
 			throw new IllegalArgumentException("Cannot search for null e-mail");
 
-		try {
-			return em
-					.createQuery("select u from User u where email=:email",
-							User.class).setParameter("email", email)
-					.getSingleResult();
-		} catch (NoResultException nre) {
-			return null;
-		}
+		return em.unwrap(Session.class).bySimpleNaturalId(User.class).load(email);
 	}
 
 	@Override
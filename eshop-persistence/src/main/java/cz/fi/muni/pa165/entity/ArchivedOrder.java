@@ -0,0 +1,178 @@
+package cz.fi.muni.pa165.entity;
+
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.enums.OrderState;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.JoinTable;
+import javax.persistence.ManyToOne;
+import javax.persistence.MapKeyColumn;
+import javax.persistence.MapKeyEnumerated;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedEntityGraphs;
+import javax.persistence.NamedSubgraph;
+import javax.persistence.OneToMany;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.validation.constraints.NotNull;
+
+import org.hibernate.annotations.BatchSize;
+
+/**
+ * Finished order moved out of {@link Order}'s table, so the queries of the orders being processed do not read
+ * the whole history. The order keeps its id, its items stay where they were and its totals are copied
+ * with the exchange rates used. Archived orders are never changed.
+ */
+@Entity
+@Table(name="ARCHIVED_ORDER", indexes={
+	@Index(name="IDX_ARCHIVED_ORDER_STATE_CREATED", columnList="state, created"),
+	@Index(name="IDX_ARCHIVED_ORDER_USER_CREATED", columnList="user_id, created")})
+@NamedEntityGraphs({
+	@NamedEntityGraph(name=ArchivedOrder.GRAPH_SUMMARY, attributeNodes=@NamedAttributeNode("user")),
+	@NamedEntityGraph(name=ArchivedOrder.GRAPH_DETAIL,
+		attributeNodes={
+			@NamedAttributeNode("user"),
+			@NamedAttributeNode(value="orderItems", subgraph="items")},
+		subgraphs={
+			@NamedSubgraph(name="items", attributeNodes={
+				@NamedAttributeNode(value="product", subgraph="product"),
+				@NamedAttributeNode("pricePerItem")}),
+			@NamedSubgraph(name="product", attributeNodes=@NamedAttributeNode("currentPrice"))})
+})
+public class ArchivedOrder {
+
+	/**
+	 * Fetches the order with its user, like {@link Order#GRAPH_SUMMARY}.
+	 */
+	public static final String GRAPH_SUMMARY = "ArchivedOrder.summary";
+
+	/**
+	 * Fetches the order with its user and items, like {@link Order#GRAPH_DETAIL}.
+	 */
+	public static final String GRAPH_DETAIL = "ArchivedOrder.detail";
+
+	@Id
+	private Long id;
+
+	@ManyToOne(optional=false)
+	@NotNull
+	private User user;
+
+	@OneToMany
+	@JoinTable(name="ARCHIVED_ORDER_ITEM", joinColumns=@JoinColumn(name="order_id"))
+	@BatchSize(size=100)
+	private List<OrderItem> orderItems = new ArrayList<OrderItem>();
+
+	@NotNull
+	@Temporal(TemporalType.TIMESTAMP)
+	private Date created;
+
+	@Enumerated
+	@NotNull
+	private OrderState state;
+
+	@NotNull
+	@Temporal(TemporalType.TIMESTAMP)
+	private Date archived;
+
+	@ElementCollection
+	@CollectionTable(name="ARCHIVED_ORDER_TOTAL", joinColumns=@JoinColumn(name="order_id"))
+	@MapKeyEnumerated(EnumType.ORDINAL)
+	@MapKeyColumn(name="currency")
+	@Column(name="total", nullable=false, precision=19, scale=4)
+	private Map<Currency, BigDecimal> totals = new EnumMap<>(Currency.class);
+
+	@ElementCollection
+	@CollectionTable(name="ARCHIVED_ORDER_RATE", joinColumns=@JoinColumn(name="order_id"))
+	private List<ArchivedOrderRate> rates = new ArrayList<>();
+
+	public ArchivedOrder() {
+	}
+
+	/**
+	 * Copies the order with its totals.
+	 */
+	public ArchivedOrder(Order order, Collection<OrderTotal> orderTotals, Date archived) {
+		this.id = order.getId();
+		this.user = order.getUser();
+		this.orderItems.addAll(order.getOrderItems());
+		this.created = order.getCreated();
+		this.state = order.getState();
+		this.archived = archived;
+		for (OrderTotal total : orderTotals) {
+			totals.put(total.getCurrency(), total.getTotal());
+			for (Map.Entry<Currency, BigDecimal> rate : total.getRates().entrySet()) {
+				rates.add(new ArchivedOrderRate(rate.getKey(), total.getCurrency(), rate.getValue()));
+			}
+		}
+	}
+
+	/**
+	 * Copies the archived order to a new {@link Order} which is not managed, for reading it together with
+	 * the live orders. The copy has no totals, they are read by {@link cz.fi.muni.pa165.dao.OrderTotalDao}.
+	 */
+	public Order toOrder() {
+		Order order = new Order(id);
+		order.setUser(user);
+		order.setCreated(created);
+		order.setState(state);
+		for (OrderItem item : orderItems) {
+			order.addOrderItem(item);
+		}
+		return order;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public User getUser() {
+		return user;
+	}
+
+	public List<OrderItem> getOrderItems() {
+		return Collections.unmodifiableList(orderItems);
+	}
+
+	public Date getCreated() {
+		return created;
+	}
+
+	public OrderState getState() {
+		return state;
+	}
+
+	/**
+	 * @return time the order was moved to the archive
+	 */
+	public Date getArchived() {
+		return archived;
+	}
+
+	public Map<Currency, BigDecimal> getTotals() {
+		return Collections.unmodifiableMap(totals);
+	}
+
+	public List<ArchivedOrderRate> getRates() {
+		return Collections.unmodifiableList(rates);
+	}
+}
@@ -0,0 +1,48 @@
+package cz.fi.muni.pa165.entity;
+
+import cz.fi.muni.pa165.enums.Currency;
+
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.Enumerated;
+
+/**
+ * Exchange rate used to compute a total of an {@link ArchivedOrder}, see {@link OrderTotal#getRates()}.
+ */
+@Embeddable
+public class ArchivedOrderRate {
+
+	@Enumerated
+	@Column(nullable=false)
+	private Currency fromCurrency;
+
+	@Enumerated
+	@Column(nullable=false)
+	private Currency toCurrency;
+
+	@Column(nullable=false, precision=19, scale=6)
+	private BigDecimal rate;
+
+	public ArchivedOrderRate() {
+	}
+
+	public ArchivedOrderRate(Currency fromCurrency, Currency toCurrency, BigDecimal rate) {
+		this.fromCurrency = fromCurrency;
+		this.toCurrency = toCurrency;
+		this.rate = rate;
+	}
+
+	public Currency getFromCurrency() {
+		return fromCurrency;
+	}
+
+	public Currency getToCurrency() {
+		return toCurrency;
+	}
+
+	public BigDecimal getRate() {
+		return rate;
+	}
+}
@@ -0,0 +1,119 @@
+package cz.fi.muni.pa165.entity;
+
+import cz.fi.muni.pa165.enums.Currency;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.persistence.UniqueConstraint;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Sales of a product in one currency on one day, kept up to date as orders are created and canceled.
+ * The totals of all products of the day are kept in {@link DailySalesTotal}. Canceled orders are not included.
+ */
+@Entity
+@Table(name="DAILY_SALES", uniqueConstraints=@UniqueConstraint(columnNames={"SALES_DAY", "product_id", "currency"}))
+public class DailySales {
+
+	@Id
+	@GeneratedValue(strategy=GenerationType.SEQUENCE, generator="dailySalesIds")
+	@SequenceGenerator(name="dailySalesIds", sequenceName="DAILY_SALES_SEQ", allocationSize=50)
+	private Long id;
+
+	@NotNull
+	@Temporal(TemporalType.DATE)
+	@Column(name="SALES_DAY", nullable=false)
+	private Date day;
+
+	@NotNull
+	@ManyToOne(optional=false)
+	@JoinColumn(nullable=false)
+	private Product product;
+
+	@Enumerated
+	@NotNull
+	@Column(nullable=false)
+	private Currency currency;
+
+	private long itemsSold;
+
+	private long orderCount;
+
+	@NotNull
+	@Column(nullable=false)
+	private BigDecimal revenue;
+
+	/**
+	 * Number of updates of the row, a rebuild compares the rows before and after reading the orders.
+	 */
+	private long version;
+
+	public DailySales() {
+	}
+
+	public DailySales(Date day, Product product, Currency currency, long itemsSold, long orderCount, BigDecimal revenue) {
+		this.day = day;
+		this.product = product;
+		this.currency = currency;
+		this.itemsSold = itemsSold;
+		this.orderCount = orderCount;
+		this.revenue = revenue;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Date getDay() {
+		return day;
+	}
+
+	public Product getProduct() {
+		return product;
+	}
+
+	public Currency getCurrency() {
+		return currency;
+	}
+
+	public long getItemsSold() {
+		return itemsSold;
+	}
+
+	public long getOrderCount() {
+		return orderCount;
+	}
+
+	public BigDecimal getRevenue() {
+		return revenue;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	@Override
+	public String toString() {
+		return "DailySales{" +
+				"day=" + day +
+				", product=" + product.getId() +
+				", currency=" + currency +
+				", itemsSold=" + itemsSold +
+				", orderCount=" + orderCount +
+				", revenue=" + revenue +
+				'}';
+	}
+}
@@ -0,0 +1,107 @@
+package cz.fi.muni.pa165.entity;
+
+import cz.fi.muni.pa165.enums.Currency;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.persistence.UniqueConstraint;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Sales of all products in one currency on one day, kept up to date with the {@link DailySales} of the products.
+ * The totals have a table of their own, so every column of the unique key is set and concurrent transactions
+ * cannot both insert the first row of a day. Canceled orders are not included.
+ */
+@Entity
+@Table(name="DAILY_SALES_TOTAL", uniqueConstraints=@UniqueConstraint(columnNames={"SALES_DAY", "currency"}))
+public class DailySalesTotal {
+
+	@Id
+	@GeneratedValue(strategy=GenerationType.SEQUENCE, generator="dailySalesTotalIds")
+	@SequenceGenerator(name="dailySalesTotalIds", sequenceName="DAILY_SALES_TOTAL_SEQ", allocationSize=50)
+	private Long id;
+
+	@NotNull
+	@Temporal(TemporalType.DATE)
+	@Column(name="SALES_DAY", nullable=false)
+	private Date day;
+
+	@Enumerated
+	@NotNull
+	@Column(nullable=false)
+	private Currency currency;
+
+	private long itemsSold;
+
+	private long orderCount;
+
+	@NotNull
+	@Column(nullable=false)
+	private BigDecimal revenue;
+
+	/**
+	 * Number of updates of the row, a rebuild compares the rows before and after reading the orders.
+	 */
+	private long version;
+
+	public DailySalesTotal() {
+	}
+
+	public DailySalesTotal(Date day, Currency currency, long itemsSold, long orderCount, BigDecimal revenue) {
+		this.day = day;
+		this.currency = currency;
+		this.itemsSold = itemsSold;
+		this.orderCount = orderCount;
+		this.revenue = revenue;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Date getDay() {
+		return day;
+	}
+
+	public Currency getCurrency() {
+		return currency;
+	}
+
+	public long getItemsSold() {
+		return itemsSold;
+	}
+
+	public long getOrderCount() {
+		return orderCount;
+	}
+
+	public BigDecimal getRevenue() {
+		return revenue;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	@Override
+	public String toString() {
+		return "DailySalesTotal{" +
+				"day=" + day +
+				", currency=" + currency +
+				", itemsSold=" + itemsSold +
+				", orderCount=" + orderCount +
+				", revenue=" + revenue +
+				'}';
+	}
+}
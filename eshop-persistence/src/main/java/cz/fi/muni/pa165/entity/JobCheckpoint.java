@@ -0,0 +1,140 @@
+package cz.fi.muni.pa165.entity;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.persistence.UniqueConstraint;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Progress of one partition of a run of a background job. The partition processes the items with ids
+ * from fromId to toId (both inclusive), lastId is the id of the last item processed. The checkpoint is
+ * updated in the transaction which processes a chunk, so a run which was stopped continues after the last
+ * committed chunk. The checkpoints of a job are deleted when all its partitions are finished.
+ */
+@Entity
+@Table(name="JOB_CHECKPOINT", uniqueConstraints=@UniqueConstraint(columnNames={"jobName", "partitionNo"}))
+public class JobCheckpoint {
+
+	@Id
+	@GeneratedValue(strategy=GenerationType.SEQUENCE, generator="jobCheckpointIds")
+	@SequenceGenerator(name="jobCheckpointIds", sequenceName="JOB_CHECKPOINT_SEQ", allocationSize=50)
+	private Long id;
+
+	@NotNull
+	@Column(nullable=false)
+	private String jobName;
+
+	private int partitionNo;
+
+	private long fromId;
+
+	private long toId;
+
+	private Long lastId;
+
+	private long processed;
+
+	private boolean finished;
+
+	@NotNull
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(nullable=false)
+	private Date started;
+
+	@NotNull
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(nullable=false)
+	private Date updated;
+
+	public JobCheckpoint() {
+	}
+
+	public JobCheckpoint(String jobName, int partitionNo, long fromId, long toId, Date started) {
+		this.jobName = jobName;
+		this.partitionNo = partitionNo;
+		this.fromId = fromId;
+		this.toId = toId;
+		this.started = started;
+		this.updated = started;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getJobName() {
+		return jobName;
+	}
+
+	public int getPartitionNo() {
+		return partitionNo;
+	}
+
+	public long getFromId() {
+		return fromId;
+	}
+
+	public long getToId() {
+		return toId;
+	}
+
+	/**
+	 * @return id of the last item processed, null when the partition did not process any chunk yet
+	 */
+	public Long getLastId() {
+		return lastId;
+	}
+
+	public void setLastId(Long lastId) {
+		this.lastId = lastId;
+	}
+
+	/**
+	 * @return number of items the partition changed so far
+	 */
+	public long getProcessed() {
+		return processed;
+	}
+
+	public void setProcessed(long processed) {
+		this.processed = processed;
+	}
+
+	public boolean isFinished() {
+		return finished;
+	}
+
+	public void setFinished(boolean finished) {
+		this.finished = finished;
+	}
+
+	/**
+	 * @return time the run of the job started, kept when the run is continued
+	 */
+	public Date getStarted() {
+		return started;
+	}
+
+	public Date getUpdated() {
+		return updated;
+	}
+
+	public void setUpdated(Date updated) {
+		this.updated = updated;
+	}
+
+	@Override
+	public String toString() {
+		return "JobCheckpoint{" + "jobName=" + jobName + ", partitionNo=" + partitionNo + ", fromId=" + fromId
+				+ ", toId=" + toId + ", lastId=" + lastId + ", processed=" + processed + ", finished=" + finished + '}';
+	}
+}
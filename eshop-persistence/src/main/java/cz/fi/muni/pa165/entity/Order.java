@@ -1,29 +1,70 @@
 package cz.fi.muni.pa165.entity;
 
+import cz.fi.muni.pa165.enums.Currency;
 import cz.fi.muni.pa165.enums.OrderState;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.MapKey;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedEntityGraphs;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.OneToMany;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.BatchSize;
+
 @Entity
-@Table(name="PRODUCT_ORDER")
+//indexes of the access paths of OrderDao: by state and creation time, by user, by creation time
+@Table(name="PRODUCT_ORDER", indexes={
+	@Index(name="IDX_ORDER_STATE_CREATED", columnList="state, created"),
+	@Index(name="IDX_ORDER_USER_CREATED", columnList="user_id, created"),
+	@Index(name="IDX_ORDER_CREATED", columnList="created")})
+@NamedEntityGraphs({
+	@NamedEntityGraph(name=Order.GRAPH_SUMMARY, attributeNodes=@NamedAttributeNode("user")),
+	@NamedEntityGraph(name=Order.GRAPH_DETAIL,
+		attributeNodes={
+			@NamedAttributeNode("user"),
+			@NamedAttributeNode(value="orderItems", subgraph="items")},
+		subgraphs={
+			@NamedSubgraph(name="items", attributeNodes={
+				@NamedAttributeNode(value="product", subgraph="product"),
+				@NamedAttributeNode("pricePerItem")}),
+			@NamedSubgraph(name="product", attributeNodes=@NamedAttributeNode("currentPrice"))})
+})
 public class Order {
+
+	/**
+	 * Fetches the order with its user.
+	 */
+	public static final String GRAPH_SUMMARY = "Order.summary";
+
+	/**
+	 * Fetches the order with its user, its items, their products with the current prices and the prices per item.
+	 */
+	public static final String GRAPH_DETAIL = "Order.detail";
+
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@GeneratedValue(strategy=GenerationType.SEQUENCE, generator="orderIds")
+	@SequenceGenerator(name="orderIds", sequenceName="PRODUCT_ORDER_SEQ", allocationSize=50)
 	private Long id;
 	
 	@ManyToOne(optional=false)
@@ -32,6 +73,7 @@ public class Order {
 	
 	@OneToMany
 	@NotNull
+	@BatchSize(size=100)
 	private List<OrderItem> orderItems = new ArrayList<OrderItem>();
 		
 	@NotNull
@@ -42,6 +84,10 @@ public class Order {
 	@NotNull
 	private OrderState state;
 
+	@OneToMany(mappedBy="order", cascade=CascadeType.ALL, orphanRemoval=true)
+	@MapKey(name="currency")
+	private Map<Currency, OrderTotal> totals = new HashMap<>();
+
 	public Order(Long id) {
 		this.id=id;
 	}
@@ -65,6 +111,18 @@ public class Order {
 		orderItems.add(p);
 	}
 
+	/**
+	 * @return total prices of the order by currency, empty if they were not computed
+	 */
+	public Map<Currency, OrderTotal> getTotals() {
+		return Collections.unmodifiableMap(totals);
+	}
+
+	public void addTotal(OrderTotal total) {
+		total.setOrder(this);
+		totals.put(total.getCurrency(), total);
+	}
+
 	public Date getCreated() {
 		return created;
 	}
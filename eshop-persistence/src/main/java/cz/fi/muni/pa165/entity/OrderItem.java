@@ -10,10 +10,11 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.JoinTable;
+import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
@@ -23,7 +24,8 @@ import javax.validation.constraints.NotNull;
 @Table(name="ORDER_ITEM")
 public class OrderItem {
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@GeneratedValue(strategy=GenerationType.SEQUENCE, generator="orderItemIds")
+	@SequenceGenerator(name="orderItemIds", sequenceName="ORDER_ITEM_SEQ", allocationSize=50)
 	private Long id;
 
 	@OneToOne
@@ -31,8 +33,9 @@ public class OrderItem {
 		
 	private Integer amount;
 
+	//a column rather than a join table, so that an item is inserted with one statement and inserts can be batched
 	@OneToOne
-	@JoinTable(name="ORDER_ITEM_PRICE")
+	@JoinColumn(name="pricePerItem_id")
 	private Price pricePerItem;
 	
 	
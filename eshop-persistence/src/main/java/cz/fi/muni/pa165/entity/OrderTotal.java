@@ -0,0 +1,103 @@
+package cz.fi.muni.pa165.entity;
+
+import cz.fi.muni.pa165.enums.Currency;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.MapKeyColumn;
+import javax.persistence.MapKeyEnumerated;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Total price of an order in one currency, computed once when the order is created. The exchange rates used
+ * to convert the prices of the items are kept with the total, so the total does not change with the rates.
+ */
+@Entity
+@Table(name="ORDER_TOTAL", uniqueConstraints=@UniqueConstraint(columnNames={"order_id", "currency"}))
+public class OrderTotal {
+
+	@Id
+	@GeneratedValue(strategy=GenerationType.SEQUENCE, generator="orderTotalIds")
+	@SequenceGenerator(name="orderTotalIds", sequenceName="ORDER_TOTAL_SEQ", allocationSize=50)
+	private Long id;
+
+	@ManyToOne(fetch=FetchType.LAZY, optional=false)
+	@JoinColumn(name="order_id")
+	private Order order;
+
+	@Enumerated
+	@NotNull
+	@Column(nullable=false)
+	private Currency currency;
+
+	@NotNull
+	@Column(nullable=false, precision=19, scale=4)
+	private BigDecimal total;
+
+	@ElementCollection
+	@CollectionTable(name="ORDER_TOTAL_RATE", joinColumns=@JoinColumn(name="order_total_id"))
+	@MapKeyEnumerated(EnumType.ORDINAL)
+	@MapKeyColumn(name="fromCurrency")
+	@Column(name="rate", nullable=false, precision=19, scale=6)
+	private Map<Currency, BigDecimal> rates = new EnumMap<>(Currency.class);
+
+	public OrderTotal() {
+	}
+
+	public OrderTotal(Currency currency) {
+		this.currency = currency;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Order getOrder() {
+		return order;
+	}
+
+	void setOrder(Order order) {
+		this.order = order;
+	}
+
+	public Currency getCurrency() {
+		return currency;
+	}
+
+	public BigDecimal getTotal() {
+		return total;
+	}
+
+	public void setTotal(BigDecimal total) {
+		this.total = total;
+	}
+
+	/**
+	 * @return exchange rates from the currencies of the items to the currency of the total
+	 */
+	public Map<Currency, BigDecimal> getRates() {
+		return Collections.unmodifiableMap(rates);
+	}
+
+	public void putRate(Currency from, BigDecimal rate) {
+		rates.put(from, rate);
+	}
+}
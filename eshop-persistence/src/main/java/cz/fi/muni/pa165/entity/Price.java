@@ -11,14 +11,24 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+//the price history of a product is read ordered by the start, see Product#getPriceHistory()
 @Entity
+@Table(indexes=@Index(name="IDX_PRICE_PRODUCT_START", columnList="Product_FK, priceStart DESC"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Price {
 	
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@GeneratedValue(strategy=GenerationType.SEQUENCE, generator="priceIds")
+	@SequenceGenerator(name="priceIds", sequenceName="PRICE_SEQ", allocationSize=50)
 	private Long id;
 	
 	@DecimalMin("0.0")
@@ -9,33 +9,38 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
-import javax.persistence.JoinTable;
-import javax.persistence.Lob;
 import javax.persistence.ManyToMany;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.persistence.OrderBy;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
 import cz.fi.muni.pa165.dto.Color;
-import cz.fi.muni.pa165.validation.AllOrNothing;
 
+/**
+ * The image of a product is not part of this entity, it is stored separately as {@link ProductImage}.
+ */
 @Entity
-@AllOrNothing(members={"image", "imageMimeType"})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class Product {
 	
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@GeneratedValue(strategy=GenerationType.SEQUENCE, generator="productIds")
+	@SequenceGenerator(name="productIds", sequenceName="PRODUCT_SEQ", allocationSize=50)
 	private Long id;
-
-	@Lob
-	private byte[] image;
-
-	private String imageMimeType;
 	
 	@NotNull
+	@NaturalId(mutable=true)
 	@Column(nullable=false,unique=true)
 	private String name;
 
@@ -50,17 +55,23 @@ public class Product {
 	@Temporal(TemporalType.DATE)
 	private java.util.Date addedDate;
 	
+	//products are often loaded as part of a list, e.g. in the items of orders, their collections are loaded in batches
 	@ManyToMany
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+	@BatchSize(size=100)
 	private Set<Category> categories = new HashSet<Category>();
 
 
+	//a column rather than a join table, so that a product is inserted with one statement and inserts can be batched
 	@OneToOne
-	@JoinTable(name="CURRENT_PRICE")
+	@JoinColumn(name="currentPrice_id")
 	private Price currentPrice;
 	
 	@OneToMany()
 	@OrderBy("priceStart DESC")
 	@JoinColumn(name="Product_FK")
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+	@BatchSize(size=100)
 	private List<Price> priceHistory = new ArrayList<Price>();
 	
 	public void setId(Long id){
@@ -93,23 +104,6 @@ public class Product {
 	}
 	public Product() {
 	}
-	public byte[] getImage() {
-		return image;
-	}
-	
-
-	public String getImageMimeType() {
-		return imageMimeType;
-	}
-
-
-
-	public void setImageMimeType(String imageMimeType) {
-		this.imageMimeType = imageMimeType;
-	}
-
-
-
 	public Price getCurrentPrice() {
 		return currentPrice;
 	}
@@ -129,11 +123,6 @@ public class Product {
 	}
 
 
-	public void setImage(byte[] image) {
-		this.image = image;
-	}
-
-
 	public String getName() {
 		return name;
 	}
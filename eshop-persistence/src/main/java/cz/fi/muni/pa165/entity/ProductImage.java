@@ -0,0 +1,151 @@
+package cz.fi.muni.pa165.entity;
+
+import java.sql.Blob;
+import java.util.Date;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.MapsId;
+import javax.persistence.OneToOne;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.validation.constraints.NotNull;
+
+import org.hibernate.annotations.DynamicUpdate;
+
+/**
+ * Image of a {@link Product}, kept in its own table and keyed by the product id,
+ * so that loading products never reads the image bytes. The content is a
+ * {@link Blob} which can only be read while the transaction that loaded it is open.
+ * Updates only write the changed columns, so that the content hash can be set
+ * after the content was streamed without writing the content again.
+ */
+@Entity
+@DynamicUpdate
+@Table(name="PRODUCT_IMAGE")
+public class ProductImage {
+
+	@Id
+	private Long id;
+
+	@MapsId
+	@OneToOne(fetch=FetchType.LAZY, optional=false)
+	private Product product;
+
+	@NotNull
+	@Column(nullable=false)
+	private String mimeType;
+
+	private long length;
+
+	/**
+	 * Hex encoded SHA-256 of the content, computed while the content is stored.
+	 */
+	@Column(length=64)
+	private String contentHash;
+
+	@Temporal(TemporalType.TIMESTAMP)
+	private Date lastModified;
+
+	@NotNull
+	@Lob
+	@Basic(fetch=FetchType.LAZY)
+	@Column(nullable=false)
+	private Blob data;
+
+	public ProductImage() {
+	}
+
+	public ProductImage(Product product) {
+		this.product = product;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Product getProduct() {
+		return product;
+	}
+
+	public String getMimeType() {
+		return mimeType;
+	}
+
+	public void setMimeType(String mimeType) {
+		this.mimeType = mimeType;
+	}
+
+	public long getLength() {
+		return length;
+	}
+
+	public void setLength(long length) {
+		this.length = length;
+	}
+
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	public void setContentHash(String contentHash) {
+		this.contentHash = contentHash;
+	}
+
+	public Date getLastModified() {
+		return lastModified;
+	}
+
+	public void setLastModified(Date lastModified) {
+		this.lastModified = lastModified;
+	}
+
+	public Blob getData() {
+		return data;
+	}
+
+	public void setData(Blob data) {
+		this.data = data;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((id == null) ? 0 : id.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (!(obj instanceof ProductImage))
+			return false;
+		ProductImage other = (ProductImage) obj;
+		if (id == null) {
+			if (other.getId() != null)
+				return false;
+		} else if (!id.equals(other.getId()))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "ProductImage{" +
+				"id=" + id +
+				", mimeType='" + mimeType + '\'' +
+				", length=" + length +
+				", contentHash='" + contentHash + '\'' +
+				", lastModified=" + lastModified +
+				'}';
+	}
+}
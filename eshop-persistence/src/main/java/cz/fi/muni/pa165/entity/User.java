@@ -11,23 +11,33 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 //In Derby, its forbiden to 'USER' is reserved keyword, we need to rename table 
 @Table(name="Users")
 public class User {
 	
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@GeneratedValue(strategy=GenerationType.SEQUENCE, generator="userIds")
+	@SequenceGenerator(name="userIds", sequenceName="USERS_SEQ", allocationSize=50)
 	private Long id;
 	
 	private String passwordHash;
 	
+	@NaturalId(mutable=true)
 	@Column(nullable=false,unique=true)
 	@Pattern(regexp=".+@.+\\....?")
 	@NotNull
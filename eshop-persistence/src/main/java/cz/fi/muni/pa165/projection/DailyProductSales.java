@@ -0,0 +1,62 @@
+package cz.fi.muni.pa165.projection;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import cz.fi.muni.pa165.enums.Currency;
+
+/**
+ * Sales of a product, or of all products, in one currency on one day, constructed in a query with SELECT NEW.
+ */
+public class DailyProductSales {
+	private Date day;
+	private Long productId;
+	private Currency currency;
+	private Long itemsSold;
+	private Long orderCount;
+	private BigDecimal revenue;
+
+	public DailyProductSales(Date day, Long productId, Currency currency, Long itemsSold, Long orderCount,
+			BigDecimal revenue) {
+		this.day = day;
+		this.productId = productId;
+		this.currency = currency;
+		this.itemsSold = itemsSold;
+		this.orderCount = orderCount;
+		this.revenue = revenue;
+	}
+
+	/**
+	 * Totals of all products.
+	 */
+	public DailyProductSales(Date day, Currency currency, Long itemsSold, Long orderCount, BigDecimal revenue) {
+		this(day, null, currency, itemsSold, orderCount, revenue);
+	}
+
+	public Date getDay() {
+		return day;
+	}
+
+	/**
+	 * @return id of the product or null for the totals of all products
+	 */
+	public Long getProductId() {
+		return productId;
+	}
+
+	public Currency getCurrency() {
+		return currency;
+	}
+
+	public Long getItemsSold() {
+		return itemsSold;
+	}
+
+	public Long getOrderCount() {
+		return orderCount;
+	}
+
+	public BigDecimal getRevenue() {
+		return revenue;
+	}
+}
@@ -0,0 +1,39 @@
+package cz.fi.muni.pa165.projection;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import cz.fi.muni.pa165.enums.Currency;
+
+/**
+ * Revenue of the orders created on one day in one currency, constructed in a query with SELECT NEW.
+ */
+public class DailyRevenue {
+	private Date day;
+	private Currency currency;
+	private Long orderCount;
+	private BigDecimal revenue;
+
+	public DailyRevenue(Date day, Currency currency, Long orderCount, BigDecimal revenue) {
+		this.day = day;
+		this.currency = currency;
+		this.orderCount = orderCount;
+		this.revenue = revenue;
+	}
+
+	public Date getDay() {
+		return day;
+	}
+
+	public Currency getCurrency() {
+		return currency;
+	}
+
+	public Long getOrderCount() {
+		return orderCount;
+	}
+
+	public BigDecimal getRevenue() {
+		return revenue;
+	}
+}
@@ -0,0 +1,27 @@
+package cz.fi.muni.pa165.projection;
+
+/**
+ * Lowest and highest id of the rows meeting some conditions, constructed in a query with SELECT NEW.
+ * Both are null when no row meets them.
+ */
+public class IdRange {
+	private Long minId;
+	private Long maxId;
+
+	public IdRange(Long minId, Long maxId) {
+		this.minId = minId;
+		this.maxId = maxId;
+	}
+
+	public Long getMinId() {
+		return minId;
+	}
+
+	public Long getMaxId() {
+		return maxId;
+	}
+
+	public boolean isEmpty() {
+		return minId == null;
+	}
+}
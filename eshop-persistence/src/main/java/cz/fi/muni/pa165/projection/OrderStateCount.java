@@ -0,0 +1,24 @@
+package cz.fi.muni.pa165.projection;
+
+import cz.fi.muni.pa165.enums.OrderState;
+
+/**
+ * Number of orders in a state, constructed in a query with SELECT NEW.
+ */
+public class OrderStateCount {
+	private OrderState state;
+	private Long orderCount;
+
+	public OrderStateCount(OrderState state, Long orderCount) {
+		this.state = state;
+		this.orderCount = orderCount;
+	}
+
+	public OrderState getState() {
+		return state;
+	}
+
+	public Long getOrderCount() {
+		return orderCount;
+	}
+}
@@ -0,0 +1,22 @@
+package cz.fi.muni.pa165.projection;
+
+/**
+ * Number of orders containing a product, constructed in a query with SELECT NEW.
+ */
+public class ProductOrderCount {
+	private Long productId;
+	private Long orderCount;
+
+	public ProductOrderCount(Long productId, Long orderCount) {
+		this.productId = productId;
+		this.orderCount = orderCount;
+	}
+
+	public Long getProductId() {
+		return productId;
+	}
+
+	public Long getOrderCount() {
+		return orderCount;
+	}
+}
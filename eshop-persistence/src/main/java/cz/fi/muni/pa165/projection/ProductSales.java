@@ -0,0 +1,34 @@
+package cz.fi.muni.pa165.projection;
+
+/**
+ * Number of pieces of a product sold and of the orders they were sold in, constructed in a query with SELECT NEW.
+ */
+public class ProductSales {
+	private Long productId;
+	private String productName;
+	private Long itemsSold;
+	private Long orderCount;
+
+	public ProductSales(Long productId, String productName, Long itemsSold, Long orderCount) {
+		this.productId = productId;
+		this.productName = productName;
+		this.itemsSold = itemsSold;
+		this.orderCount = orderCount;
+	}
+
+	public Long getProductId() {
+		return productId;
+	}
+
+	public String getProductName() {
+		return productName;
+	}
+
+	public Long getItemsSold() {
+		return itemsSold;
+	}
+
+	public Long getOrderCount() {
+		return orderCount;
+	}
+}
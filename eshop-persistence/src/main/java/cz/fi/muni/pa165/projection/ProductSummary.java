@@ -0,0 +1,88 @@
+package cz.fi.muni.pa165.projection;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import cz.fi.muni.pa165.dto.Color;
+import cz.fi.muni.pa165.entity.Category;
+import cz.fi.muni.pa165.entity.Price;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.enums.Currency;
+
+/**
+ * Read-only view of a product for listings, constructed directly in a query with SELECT NEW.
+ * It holds the current price and category ids only, never the price history or the image.
+ */
+public class ProductSummary {
+	private Long id;
+	private String name;
+	private Color color;
+	private Date addedDate;
+	private BigDecimal priceValue;
+	private Currency priceCurrency;
+	private Date priceStart;
+	private Set<Long> categoryIds = new HashSet<>();
+
+	public ProductSummary(Long id, String name, Color color, Date addedDate,
+			BigDecimal priceValue, Currency priceCurrency, Date priceStart) {
+		this.id = id;
+		this.name = name;
+		this.color = color;
+		this.addedDate = addedDate;
+		this.priceValue = priceValue;
+		this.priceCurrency = priceCurrency;
+		this.priceStart = priceStart;
+	}
+
+	/**
+	 * Creates a summary of the current state of the product. The categories of the product must be loaded.
+	 */
+	public static ProductSummary of(Product product) {
+		Price price = product.getCurrentPrice();
+		ProductSummary summary = new ProductSummary(product.getId(), product.getName(), product.getColor(),
+				product.getAddedDate(), (price == null) ? null : price.getValue(),
+				(price == null) ? null : price.getCurrency(), (price == null) ? null : price.getPriceStart());
+		for (Category category : product.getCategories()) {
+			summary.addCategoryId(category.getId());
+		}
+		return summary;
+	}
+
+	public void addCategoryId(Long categoryId) {
+		categoryIds.add(categoryId);
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Color getColor() {
+		return color;
+	}
+
+	public Date getAddedDate() {
+		return addedDate;
+	}
+
+	public BigDecimal getPriceValue() {
+		return priceValue;
+	}
+
+	public Currency getPriceCurrency() {
+		return priceCurrency;
+	}
+
+	public Date getPriceStart() {
+		return priceStart;
+	}
+
+	public Set<Long> getCategoryIds() {
+		return categoryIds;
+	}
+}
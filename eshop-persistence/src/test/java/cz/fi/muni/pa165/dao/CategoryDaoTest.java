@@ -3,17 +3,20 @@ package cz.fi.muni.pa165.dao;
 import java.util.List;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.PersistenceContext;
 import javax.persistence.PersistenceException;
 import javax.validation.ConstraintViolationException;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DataAccessException;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestExecutionListeners;
 import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
 import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -34,6 +37,12 @@ public class CategoryDaoTest  extends AbstractTestNGSpringContextTests{
 	
 	@PersistenceContext 
 	private EntityManager em;
+
+	@Autowired
+	private EntityManagerFactory emf;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
 	
 	@Test
 	public void findAll(){
@@ -59,14 +68,18 @@ public class CategoryDaoTest  extends AbstractTestNGSpringContextTests{
 		
 	}
 	
+	/**
+	 * New categories are validated and inserted when the persistence context is flushed.
+	 */
 	@Test(expectedExceptions=ConstraintViolationException.class)
 	public void nullCategoryNameNotAllowed(){
 		Category cat = new Category();
 		cat.setName(null);
 		categoryDao.create(cat);		
+		em.flush();
 	}
 	
-	@Test(expectedExceptions=DataAccessException.class)
+	@Test(expectedExceptions=PersistenceException.class)
 	public void nameIsUnique(){
 		Category cat = new Category();
 		cat.setName("Electronics");
@@ -74,8 +87,49 @@ public class CategoryDaoTest  extends AbstractTestNGSpringContextTests{
 		cat = new Category();
 		cat.setName("Electronics");
 		categoryDao.create(cat);
+		em.flush();
 	}
 	
+	@Test
+	public void findByName(){
+		Category cat = new Category();
+		cat.setName("Electronics");
+		categoryDao.create(cat);
+		Assert.assertEquals(categoryDao.findByName("Electronics"), cat);
+		Assert.assertNull(categoryDao.findByName("Food"));
+		Assert.assertNull(categoryDao.findByName(null));
+	}
+
+	/**
+	 * Checks that the cached natural id of a category is replaced when the category is renamed in another transaction.
+	 */
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void findByNameAfterRenameInOtherTransaction(){
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		Long id = tx.execute(s -> {
+			Category cat = new Category();
+			cat.setName("Electronics");
+			categoryDao.create(cat);
+			return cat.getId();
+		});
+		try {
+			Assert.assertEquals(tx.execute(s -> categoryDao.findByName("Electronics")).getId(), id);
+			Assert.assertTrue(emf.getCache().contains(Category.class, id));
+			tx.execute(s -> {
+				categoryDao.findById(id).setName("Gadgets");
+				return null;
+			});
+			Assert.assertNull(tx.execute(s -> categoryDao.findByName("Electronics")));
+			Assert.assertEquals(tx.execute(s -> categoryDao.findByName("Gadgets")).getId(), id);
+		} finally {
+			tx.execute(s -> {
+				categoryDao.delete(categoryDao.findById(id));
+				return null;
+			});
+		}
+	}
+
 	@Test()
 	public void savesName(){
 		Category cat = new Category();
@@ -0,0 +1,161 @@
+package cz.fi.muni.pa165.dao;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.PersistenceSampleApplicationContext;
+import cz.fi.muni.pa165.entity.DailySalesTotal;
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.projection.DailyProductSales;
+
+/**
+ * Changes the rollup from concurrent transactions, which are committed, so the rows are removed afterwards.
+ */
+@ContextConfiguration(classes = PersistenceSampleApplicationContext.class)
+public class DailySalesConcurrencyTest extends AbstractTestNGSpringContextTests {
+
+	private static final int THREADS = 6;
+
+	@Autowired
+	private DailySalesDao dailySalesDao;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@PersistenceContext
+	private EntityManager em;
+
+	private TransactionTemplate tx;
+
+	private ExecutorService executor;
+
+	private Date day;
+
+	/**
+	 * Every test has a day of its own. The rows deleted after an earlier test stay in the table for a while
+	 * and the UPDATE of a later test would lock them.
+	 */
+	private int days;
+
+	@BeforeMethod
+	public void setup() {
+		tx = new TransactionTemplate(transactionManager);
+		executor = Executors.newFixedThreadPool(THREADS);
+		Calendar cal = Calendar.getInstance();
+		cal.clear();
+		cal.set(2099, Calendar.JANUARY, 1);
+		cal.add(Calendar.DAY_OF_MONTH, days++);
+		day = cal.getTime();
+	}
+
+	@AfterMethod
+	public void removeRows() {
+		executor.shutdownNow();
+		tx.execute(s -> em.createQuery("DELETE FROM DailySalesTotal s WHERE s.day = :day")
+				.setParameter("day", day)
+				.executeUpdate());
+	}
+
+	private DailyProductSales sale() {
+		return new DailyProductSales(day, Currency.EUR, 1l, 1l, BigDecimal.TEN);
+	}
+
+	private List<DailySalesTotal> rows() {
+		return tx.execute(s -> em.createQuery("SELECT s FROM DailySalesTotal s WHERE s.day = :day",
+				DailySalesTotal.class)
+				.setParameter("day", day)
+				.getResultList());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Test
+	public void concurrentFirstSalesOfDayEndInOneRow() throws Exception {
+		CyclicBarrier start = new CyclicBarrier(THREADS);
+		List<Future<?>> adds = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			adds.add(executor.submit(() -> {
+				start.await();
+				return tx.execute(s -> {
+					dailySalesDao.add(sale());
+					return null;
+				});
+			}));
+		}
+		for (Future<?> add : adds) {
+			add.get(30, TimeUnit.SECONDS);
+		}
+
+		List<DailySalesTotal> rows = rows();
+		Assert.assertEquals(rows.size(), 1);
+		Assert.assertEquals(rows.get(0).getOrderCount(), THREADS);
+		Assert.assertEquals(rows.get(0).getRevenue().compareTo(BigDecimal.TEN.multiply(new BigDecimal(THREADS))), 0);
+	}
+
+	/**
+	 * Both transactions find no row of the day, then both insert it. The second insert waits for the first
+	 * transaction and fails on the unique key, so the second transaction adds to the row of the first one.
+	 */
+	@Test
+	public void interleavedFirstSalesOfDayEndInOneRow() throws Exception {
+		DailySalesDaoImpl dao = AopTestUtils.getUltimateTargetObject(dailySalesDao);
+		CountDownLatch updated = new CountDownLatch(2);
+		CountDownLatch inserted = new CountDownLatch(1);
+		Future<Boolean> first = executor.submit(() -> tx.execute(s -> {
+			Assert.assertEquals(dao.update(sale()), 0);
+			updated.countDown();
+			await(updated);
+			boolean insert = dao.insert(sale());
+			inserted.countDown();
+			return insert;
+		}));
+		Future<Boolean> second = executor.submit(() -> tx.execute(s -> {
+			Assert.assertEquals(dao.update(sale()), 0);
+			updated.countDown();
+			await(updated);
+			await(inserted);
+			boolean insert = dao.insert(sale());
+			if (!insert) {
+				Assert.assertEquals(dao.update(sale()), 1);
+			}
+			return insert;
+		}));
+
+		Assert.assertTrue(first.get(30, TimeUnit.SECONDS));
+		Assert.assertFalse(second.get(30, TimeUnit.SECONDS));
+		List<DailySalesTotal> rows = rows();
+		Assert.assertEquals(rows.size(), 1);
+		Assert.assertEquals(rows.get(0).getOrderCount(), 2);
+		Assert.assertEquals(rows.get(0).getRevenue().compareTo(new BigDecimal("20")), 0);
+	}
+}
@@ -0,0 +1,156 @@
+package cz.fi.muni.pa165.dao;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
+import org.springframework.transaction.annotation.Transactional;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.PersistenceSampleApplicationContext;
+import cz.fi.muni.pa165.entity.DailySales;
+import cz.fi.muni.pa165.entity.DailySalesTotal;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.projection.DailyProductSales;
+import cz.fi.muni.pa165.projection.DailyRevenue;
+import cz.fi.muni.pa165.projection.ProductSales;
+
+@ContextConfiguration(classes = PersistenceSampleApplicationContext.class)
+@TestExecutionListeners(TransactionalTestExecutionListener.class)
+@Transactional
+public class DailySalesDaoTest extends AbstractTestNGSpringContextTests {
+
+	@Autowired
+	private DailySalesDao dailySalesDao;
+
+	@Autowired
+	private ProductDao productDao;
+
+	@PersistenceContext
+	private EntityManager em;
+
+	private Product tv;
+	private Product radio;
+	private Date day1;
+	private Date day2;
+
+	@BeforeMethod
+	public void createProducts() {
+		Calendar cal = Calendar.getInstance();
+		cal.clear();
+		cal.set(2015, Calendar.MARCH, 1);
+		day1 = cal.getTime();
+		cal.set(2015, Calendar.MARCH, 2);
+		day2 = cal.getTime();
+		tv = new Product();
+		tv.setName("TV");
+		productDao.create(tv);
+		radio = new Product();
+		radio.setName("Radio");
+		productDao.create(radio);
+	}
+
+	@Test
+	public void addCreatesAndThenUpdatesRow() {
+		dailySalesDao.add(new DailyProductSales(day1, tv.getId(), Currency.CZK, 2l, 1l, new BigDecimal("200")));
+		dailySalesDao.add(new DailyProductSales(day1, tv.getId(), Currency.CZK, 3l, 1l, new BigDecimal("300")));
+		dailySalesDao.add(new DailyProductSales(day1, tv.getId(), Currency.EUR, 1l, 1l, new BigDecimal("4")));
+		dailySalesDao.add(new DailyProductSales(day1, Currency.CZK, 5l, 2l, new BigDecimal("500")));
+		dailySalesDao.add(new DailyProductSales(day1, Currency.CZK, -2l, -1l, new BigDecimal("-200")));
+		em.clear();
+
+		List<DailySales> rows = dailySalesDao.findAll();
+		List<DailySalesTotal> totals = dailySalesDao.findAllTotals();
+
+		Assert.assertEquals(rows.size(), 2);
+		for (DailySales row : rows) {
+			if (row.getCurrency() == Currency.CZK) {
+				assertRow(row, 5, 2, "500");
+			} else {
+				assertRow(row, 1, 1, "4");
+			}
+		}
+		Assert.assertEquals(totals.size(), 1);
+		DailySalesTotal total = totals.get(0);
+		Assert.assertEquals(total.getItemsSold(), 3);
+		Assert.assertEquals(total.getOrderCount(), 1);
+		Assert.assertEquals(total.getRevenue().compareTo(new BigDecimal("300")), 0);
+	}
+
+	private void assertRow(DailySales row, long itemsSold, long orderCount, String revenue) {
+		Assert.assertEquals(row.getItemsSold(), itemsSold, row.toString());
+		Assert.assertEquals(row.getOrderCount(), orderCount, row.toString());
+		Assert.assertEquals(row.getRevenue().compareTo(new BigDecimal(revenue)), 0, row.toString());
+	}
+
+	@Test
+	public void reportsReadRows() {
+		dailySalesDao.create(new DailyProductSales(day1, tv.getId(), Currency.CZK, 2l, 2l, new BigDecimal("200")));
+		dailySalesDao.create(new DailyProductSales(day1, radio.getId(), Currency.CZK, 1l, 1l, new BigDecimal("10")));
+		dailySalesDao.create(new DailyProductSales(day2, radio.getId(), Currency.CZK, 4l, 1l, new BigDecimal("40")));
+		dailySalesDao.create(new DailyProductSales(day1, Currency.CZK, 3l, 2l, new BigDecimal("210")));
+		dailySalesDao.create(new DailyProductSales(day2, Currency.CZK, 4l, 1l, new BigDecimal("40")));
+		//everything canceled on this day
+		dailySalesDao.create(new DailyProductSales(day2, Currency.EUR, 0l, 0l, BigDecimal.ZERO));
+
+		List<DailyRevenue> revenue = dailySalesDao.getDailyRevenue(day1, day2);
+		Assert.assertEquals(revenue.size(), 1);
+		Assert.assertEquals(revenue.get(0).getOrderCount(), Long.valueOf(2));
+		Assert.assertEquals(revenue.get(0).getRevenue().compareTo(new BigDecimal("210")), 0);
+		Calendar cal = Calendar.getInstance();
+		cal.setTime(day2);
+		cal.add(Calendar.DAY_OF_MONTH, 1);
+		Assert.assertEquals(dailySalesDao.getDailyRevenue(day1, cal.getTime()).size(), 2);
+
+		List<ProductSales> sales = dailySalesDao.getProductSales();
+		Assert.assertEquals(sales.size(), 2);
+		Assert.assertEquals(sales.get(0).getProductId(), radio.getId());
+		Assert.assertEquals(sales.get(0).getItemsSold(), Long.valueOf(5));
+		Assert.assertEquals(sales.get(0).getOrderCount(), Long.valueOf(2));
+		Assert.assertEquals(sales.get(1).getProductId(), tv.getId());
+	}
+
+	@Test
+	public void everyChangeOfDaysIsCounted() {
+		Calendar cal = Calendar.getInstance();
+		cal.setTime(day2);
+		cal.add(Calendar.DAY_OF_MONTH, 1);
+		long changes = dailySalesDao.countChanges(day1, day2);
+
+		dailySalesDao.add(new DailyProductSales(day1, tv.getId(), Currency.CZK, 2l, 1l, new BigDecimal("200")));
+		dailySalesDao.add(new DailyProductSales(day1, Currency.CZK, 2l, 1l, new BigDecimal("200")));
+		Assert.assertEquals(dailySalesDao.countChanges(day1, day2), changes + 2);
+		dailySalesDao.add(new DailyProductSales(day1, tv.getId(), Currency.CZK, -2l, -1l, new BigDecimal("-200")));
+		Assert.assertEquals(dailySalesDao.countChanges(day1, day2), changes + 3);
+		dailySalesDao.add(new DailyProductSales(day2, Currency.CZK, 1l, 1l, BigDecimal.TEN));
+		Assert.assertEquals(dailySalesDao.countChanges(day1, day2), changes + 3);
+
+		List<DailyProductSales> sales = dailySalesDao.findSales(day1, cal.getTime());
+		Assert.assertEquals(sales.size(), 3);
+		Assert.assertEquals(sales.stream().filter(s -> s.getProductId() == null).count(), 2);
+		DailyProductSales tvSales = sales.stream().filter(s -> tv.getId().equals(s.getProductId())).findFirst().get();
+		Assert.assertEquals(tvSales.getItemsSold(), Long.valueOf(0));
+		Assert.assertEquals(tvSales.getRevenue().signum(), 0);
+	}
+
+	@Test
+	public void deleteAll() {
+		dailySalesDao.create(new DailyProductSales(day1, tv.getId(), Currency.CZK, 2l, 2l, new BigDecimal("200")));
+		dailySalesDao.create(new DailyProductSales(day1, Currency.CZK, 2l, 2l, new BigDecimal("200")));
+		dailySalesDao.deleteAll();
+		Assert.assertTrue(dailySalesDao.findAll().isEmpty());
+		Assert.assertTrue(dailySalesDao.findAllTotals().isEmpty());
+	}
+}
@@ -0,0 +1,157 @@
+package cz.fi.muni.pa165.dao;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.PersistenceSampleApplicationContext;
+import cz.fi.muni.pa165.entity.Category;
+import cz.fi.muni.pa165.entity.Price;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.enums.Currency;
+
+/**
+ * Counts the SQL statements of a typical catalog request with a cold and with a warm second-level cache.
+ * Every request runs in its own transaction, like in the application, so the data is committed and removed afterwards.
+ */
+@ContextConfiguration(classes = PersistenceSampleApplicationContext.class)
+public class EntityCacheTest extends AbstractTestNGSpringContextTests {
+
+	@Autowired
+	private ProductDao productDao;
+
+	@Autowired
+	private CategoryDao categoryDao;
+
+	@Autowired
+	private PriceRepository priceRepository;
+
+	@Autowired
+	private EntityManagerFactory emf;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate tx;
+
+	private Long productId;
+
+	@BeforeMethod
+	public void createProduct() {
+		tx = new TransactionTemplate(transactionManager);
+		productId = tx.execute(s -> {
+			Category category = new Category();
+			category.setName("cached category");
+			categoryDao.create(category);
+			Price old = price(BigDecimal.ONE);
+			Price current = price(BigDecimal.TEN);
+			Product product = new Product();
+			product.setName("cached product");
+			product.addCategory(category);
+			product.addHistoricalPrice(old);
+			product.addHistoricalPrice(current);
+			product.setCurrentPrice(current);
+			productDao.create(product);
+			return product.getId();
+		});
+		emf.getCache().evictAll();
+	}
+
+	private Price price(BigDecimal value) {
+		Price price = new Price();
+		price.setValue(value);
+		price.setCurrency(Currency.CZK);
+		price.setPriceStart(new Date());
+		priceRepository.save(price);
+		return price;
+	}
+
+	@AfterMethod
+	public void removeProduct() {
+		tx.execute(s -> {
+			Product product = productDao.findById(productId);
+			productDao.remove(product);
+			priceRepository.deleteAll(product.getPriceHistory());
+			for (Category category : product.getCategories()) {
+				categoryDao.delete(categoryDao.findById(category.getId()));
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Reads what the product detail page shows: the category menu, the product, its categories and prices.
+	 *
+	 * @return number of SQL statements
+	 */
+	private long request() {
+		Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+		long before = statistics.getPrepareStatementCount();
+		tx.execute(s -> {
+			Assert.assertFalse(categoryDao.findAll().isEmpty());
+			Product product = productDao.findById(productId);
+			Assert.assertEquals(product.getCategories().iterator().next().getName(), "cached category");
+			Assert.assertEquals(product.getPriceHistory().size(), 2);
+			Assert.assertEquals(product.getCurrentPrice().getValue().compareTo(BigDecimal.TEN), 0);
+			return null;
+		});
+		return statistics.getPrepareStatementCount() - before;
+	}
+
+	@Test
+	public void warmRequestRunsNoStatements() {
+		long cold = request();
+		long warm = request();
+		logger.info("SQL statements per request: " + cold + " with a cold cache, " + warm + " with a warm cache");
+		Assert.assertTrue(cold > 0);
+		Assert.assertEquals(warm, 0);
+	}
+
+	@Test
+	public void changedCategoryIsReadAgain() {
+		request();
+		tx.execute(s -> {
+			Category category = new Category();
+			category.setName("other category");
+			categoryDao.create(category);
+			return null;
+		});
+		try {
+			Assert.assertEquals((int) tx.execute(s -> categoryDao.findAll().size()), 2);
+		} finally {
+			tx.execute(s -> {
+				categoryDao.delete(categoryDao.findByName("other category"));
+				return null;
+			});
+		}
+		Assert.assertEquals((int) tx.execute(s -> categoryDao.findAll().size()), 1);
+	}
+
+	@Test
+	public void changedPriceHistoryIsReadAgain() {
+		request();
+		tx.execute(s -> {
+			Product product = productDao.findById(productId);
+			Price newer = price(new BigDecimal("20"));
+			product.addHistoricalPrice(newer);
+			product.setCurrentPrice(newer);
+			return null;
+		});
+		Assert.assertEquals((int) tx.execute(s -> productDao.findById(productId).getPriceHistory().size()), 3);
+		Assert.assertEquals(tx.execute(s -> productDao.findById(productId).getCurrentPrice().getValue())
+				.compareTo(new BigDecimal("20")), 0);
+	}
+}
@@ -0,0 +1,80 @@
+package cz.fi.muni.pa165.dao;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
+import org.springframework.transaction.annotation.Transactional;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.PersistenceSampleApplicationContext;
+import cz.fi.muni.pa165.entity.JobCheckpoint;
+
+@ContextConfiguration(classes = PersistenceSampleApplicationContext.class)
+@TestExecutionListeners(TransactionalTestExecutionListener.class)
+@Transactional
+public class JobCheckpointDaoTest extends AbstractTestNGSpringContextTests {
+
+	@Autowired
+	private JobCheckpointDao jobCheckpointDao;
+
+	@PersistenceContext
+	private EntityManager em;
+
+	private Date started;
+
+	@BeforeMethod
+	public void createCheckpoints() {
+		started = new Date();
+		jobCheckpointDao.create(new JobCheckpoint("test-job", 1, 51, 100, started));
+		jobCheckpointDao.create(new JobCheckpoint("test-job", 0, 1, 50, started));
+		jobCheckpointDao.create(new JobCheckpoint("other-job", 0, 1, 10, started));
+	}
+
+	@Test
+	public void findsCheckpointsOfJobByPartition() {
+		List<JobCheckpoint> checkpoints = jobCheckpointDao.findByJob("test-job");
+		Assert.assertEquals(checkpoints.size(), 2);
+		Assert.assertEquals(checkpoints.get(0).getPartitionNo(), 0);
+		Assert.assertEquals(checkpoints.get(0).getFromId(), 1);
+		Assert.assertEquals(checkpoints.get(1).getPartitionNo(), 1);
+		Assert.assertEquals(checkpoints.get(1).getToId(), 100);
+		Assert.assertTrue(jobCheckpointDao.findByJob("no-job").isEmpty());
+		Assert.assertNull(jobCheckpointDao.findByJobAndPartition("test-job", 2));
+	}
+
+	@Test
+	public void keepsProgress() {
+		JobCheckpoint checkpoint = jobCheckpointDao.findByJobAndPartition("test-job", 1);
+		Assert.assertNull(checkpoint.getLastId());
+		checkpoint.setLastId(70L);
+		checkpoint.setProcessed(12);
+		em.clear();
+		checkpoint.setFinished(true);
+		jobCheckpointDao.update(checkpoint);
+		em.flush();
+		em.clear();
+
+		JobCheckpoint found = jobCheckpointDao.findByJobAndPartition("test-job", 1);
+		Assert.assertEquals(found.getLastId(), Long.valueOf(70));
+		Assert.assertEquals(found.getProcessed(), 12);
+		Assert.assertTrue(found.isFinished());
+		Assert.assertEquals(found.getStarted().getTime(), started.getTime());
+	}
+
+	@Test
+	public void deletesCheckpointsOfJob() {
+		Assert.assertEquals(jobCheckpointDao.deleteByJob("test-job"), 2);
+		Assert.assertTrue(jobCheckpointDao.findByJob("test-job").isEmpty());
+		Assert.assertEquals(jobCheckpointDao.findByJob("other-job").size(), 1);
+	}
+}
@@ -0,0 +1,233 @@
+package cz.fi.muni.pa165.dao;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
+import org.springframework.transaction.annotation.Transactional;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.PersistenceSampleApplicationContext;
+import cz.fi.muni.pa165.entity.ArchivedOrder;
+import cz.fi.muni.pa165.entity.ArchivedOrderRate;
+import cz.fi.muni.pa165.entity.Order;
+import cz.fi.muni.pa165.entity.OrderItem;
+import cz.fi.muni.pa165.entity.OrderTotal;
+import cz.fi.muni.pa165.entity.Price;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.entity.User;
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.projection.IdRange;
+import cz.fi.muni.pa165.projection.OrderStateCount;
+import cz.fi.muni.pa165.projection.ProductOrderCount;
+
+@ContextConfiguration(classes = PersistenceSampleApplicationContext.class)
+@TestExecutionListeners(TransactionalTestExecutionListener.class)
+@Transactional
+public class OrderArchiveDaoTest extends AbstractTestNGSpringContextTests {
+
+	@Autowired
+	private OrderArchiveDao orderArchiveDao;
+
+	@Autowired
+	private OrderDao orderDao;
+
+	@Autowired
+	private OrderTotalDao orderTotalDao;
+
+	@Autowired
+	private OrderItemDao orderItemDao;
+
+	@Autowired
+	private OrderStatisticsDao orderStatisticsDao;
+
+	@Autowired
+	private ProductDao productDao;
+
+	@Autowired
+	private UserDao userDao;
+
+	@Autowired
+	private PriceRepository priceRepository;
+
+	@PersistenceContext
+	private EntityManager em;
+
+	private User user;
+	private Product tv;
+	private Date old;
+	private Date cutoff;
+	private Date recent;
+
+	private Order oldDone;
+	private Order oldCanceled;
+	private Order oldReceived;
+	private Order recentDone;
+
+	@BeforeMethod
+	public void createOrders() {
+		Calendar cal = Calendar.getInstance();
+		cal.clear();
+		cal.set(2015, Calendar.MARCH, 1, 10, 0);
+		old = cal.getTime();
+		cal.set(2015, Calendar.APRIL, 1);
+		cutoff = cal.getTime();
+		cal.set(2015, Calendar.MAY, 1);
+		recent = cal.getTime();
+
+		user = UserDaoTest.getSimpleUser();
+		userDao.create(user);
+		Price price = new Price();
+		price.setValue(new BigDecimal("100.00"));
+		price.setCurrency(Currency.CZK);
+		price.setPriceStart(old);
+		priceRepository.save(price);
+		tv = new Product();
+		tv.setName("TV");
+		tv.addHistoricalPrice(price);
+		tv.setCurrentPrice(price);
+		productDao.create(tv);
+
+		oldDone = order(old, OrderState.DONE);
+		oldCanceled = order(old, OrderState.CANCELED);
+		oldReceived = order(old, OrderState.RECEIVED);
+		recentDone = order(recent, OrderState.DONE);
+		em.flush();
+		em.clear();
+	}
+
+	private Order order(Date created, OrderState state) {
+		OrderItem item = new OrderItem();
+		item.setProduct(tv);
+		item.setAmount(2);
+		item.setPricePerItem(tv.getCurrentPrice());
+		orderItemDao.create(item);
+		Order order = new Order();
+		order.setCreated(created);
+		order.setState(state);
+		order.setUser(user);
+		order.addOrderItem(item);
+		OrderTotal czk = new OrderTotal(Currency.CZK);
+		czk.setTotal(new BigDecimal("200"));
+		czk.putRate(Currency.CZK, BigDecimal.ONE);
+		order.addTotal(czk);
+		OrderTotal eur = new OrderTotal(Currency.EUR);
+		eur.setTotal(new BigDecimal("8"));
+		eur.putRate(Currency.CZK, new BigDecimal("0.04"));
+		order.addTotal(eur);
+		orderDao.create(order);
+		return order;
+	}
+
+	@Test
+	public void findArchivableIds() {
+		IdRange range = orderArchiveDao.findArchivableIdRange(cutoff);
+		Assert.assertEquals(range.getMinId(), oldDone.getId());
+		Assert.assertEquals(range.getMaxId(), oldCanceled.getId());
+		Assert.assertEquals(orderArchiveDao.findArchivableIds(cutoff, 0, Long.MAX_VALUE, 10),
+				Arrays.asList(oldDone.getId(), oldCanceled.getId()));
+		Assert.assertEquals(orderArchiveDao.findArchivableIds(cutoff, 0, Long.MAX_VALUE, 1),
+				Collections.singletonList(oldDone.getId()));
+		Assert.assertEquals(orderArchiveDao.findArchivableIds(cutoff, oldDone.getId(), oldCanceled.getId(), 10),
+				Collections.singletonList(oldCanceled.getId()));
+		Assert.assertTrue(orderArchiveDao.findArchivableIdRange(old).isEmpty());
+	}
+
+	@Test
+	public void archiveMovesOrdersWithTotals() {
+		int archived = orderArchiveDao.archive(Arrays.asList(oldDone.getId(), oldCanceled.getId()), recent);
+
+		Assert.assertEquals(archived, 2);
+		Assert.assertEquals(orderArchiveDao.count(), 2);
+		Assert.assertEquals(orderArchiveDao.countCreated(old, cutoff), 2);
+		Assert.assertEquals(orderArchiveDao.countCreated(cutoff, recent), 0);
+		Assert.assertNull(orderDao.findById(oldDone.getId()));
+		Assert.assertNotNull(orderDao.findById(oldReceived.getId()));
+		Assert.assertTrue(orderArchiveDao.findArchivableIdRange(cutoff).isEmpty());
+		Assert.assertNull(em.createQuery("SELECT t FROM OrderTotal t WHERE t.order.id = :id", OrderTotal.class)
+				.setParameter("id", oldDone.getId()).getResultList().stream().findAny().orElse(null));
+
+		ArchivedOrder done = orderArchiveDao.findById(oldDone.getId());
+		Assert.assertEquals(done.getState(), OrderState.DONE);
+		Assert.assertEquals(done.getCreated().getTime(), old.getTime());
+		Assert.assertEquals(done.getArchived().getTime(), recent.getTime());
+		Assert.assertEquals(done.getUser().getId(), user.getId());
+		Assert.assertEquals(done.getOrderItems().size(), 1);
+		Assert.assertEquals(done.getOrderItems().get(0).getProduct().getId(), tv.getId());
+		Assert.assertEquals(done.getTotals().get(Currency.EUR).compareTo(new BigDecimal("8")), 0);
+		List<ArchivedOrderRate> rates = done.getRates();
+		Assert.assertEquals(rates.size(), 2);
+		for (ArchivedOrderRate rate : rates) {
+			Assert.assertEquals(rate.getFromCurrency(), Currency.CZK);
+			Assert.assertEquals(rate.getRate().compareTo(rate.getToCurrency() == Currency.EUR ? new BigDecimal("0.04") : BigDecimal.ONE), 0);
+		}
+		Assert.assertEquals(orderTotalDao.findTotal(oldReceived.getId(), Currency.CZK).compareTo(new BigDecimal("200")), 0);
+	}
+
+	@Test
+	public void readsAcrossArchiveWhenAsked() {
+		orderArchiveDao.archive(Arrays.asList(oldDone.getId(), oldCanceled.getId()), recent);
+
+		Assert.assertNull(orderDao.findById(oldDone.getId()));
+		Order done = orderDao.findById(oldDone.getId(), true);
+		Assert.assertEquals(done.getState(), OrderState.DONE);
+		Assert.assertEquals(done.getOrderItems().size(), 1);
+		Assert.assertFalse(em.contains(done));
+		Assert.assertEquals(orderDao.findByUser(user, OrderFetchPlan.DETAIL).size(), 2);
+		Assert.assertEquals(orderDao.findByUser(user, OrderFetchPlan.DETAIL, true).size(), 4);
+		Assert.assertEquals(orderDao.getOrdersWithState(OrderState.DONE, OrderFetchPlan.SUMMARY, true).size(), 2);
+		Assert.assertEquals(orderDao.getOrdersCreatedBetween(old, cutoff, OrderState.CANCELED, OrderFetchPlan.SUMMARY, true)
+				.get(0).getId(), oldCanceled.getId());
+
+		Assert.assertEquals(orderTotalDao.findTotal(oldDone.getId(), Currency.EUR).compareTo(new BigDecimal("8")), 0);
+		Map<Long, BigDecimal> totals = orderTotalDao.findTotals(Arrays.asList(oldDone.getId(), recentDone.getId()), Currency.CZK);
+		Assert.assertEquals(totals.size(), 2);
+		Assert.assertEquals(totals.get(oldDone.getId()).compareTo(new BigDecimal("200")), 0);
+
+		long orders = 0;
+		for (OrderStateCount count : orderStatisticsDao.countOrdersByState()) {
+			orders += count.getOrderCount();
+		}
+		Assert.assertEquals(orders, 4);
+		Assert.assertEquals(orderStatisticsDao.getFirstCreated().getTime(), old.getTime());
+		Assert.assertEquals(orderStatisticsDao.getProductSales().get(0).getItemsSold(), Long.valueOf(6));
+	}
+
+	@Test
+	public void exportAndOrderCountsIncludeArchive() {
+		orderArchiveDao.archive(Arrays.asList(oldDone.getId(), oldCanceled.getId()), recent);
+
+		List<Long> ids;
+		try (Stream<Order> orders = orderDao.streamAll()) {
+			ids = orders.filter(o -> o.getUser().getId().equals(user.getId()))
+					.peek(o -> Assert.assertFalse(o.getOrderItems().isEmpty()))
+					.map(Order::getId)
+					.collect(Collectors.toList());
+		}
+		List<Long> expected = Arrays.asList(oldDone.getId(), oldCanceled.getId(), oldReceived.getId(), recentDone.getId());
+		Collections.sort(expected);
+		Assert.assertEquals(ids, expected);
+
+		ProductOrderCount tvCount = orderDao.countOrdersByProduct().stream()
+				.filter(c -> c.getProductId().equals(tv.getId()))
+				.findFirst().get();
+		Assert.assertEquals(tvCount.getOrderCount(), Long.valueOf(4));
+	}
+}
@@ -1,14 +1,22 @@
 package cz.fi.muni.pa165.dao;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 import cz.fi.muni.pa165.entity.OrderItem;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
@@ -25,10 +33,17 @@ import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
 import cz.fi.muni.pa165.PersistenceSampleApplicationContext;
+import cz.fi.muni.pa165.entity.Category;
 import cz.fi.muni.pa165.entity.Order;
+import cz.fi.muni.pa165.entity.OrderTotal;
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.enums.OrderSort;
 import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.entity.Price;
 import cz.fi.muni.pa165.entity.Product;
 import cz.fi.muni.pa165.entity.User;
+import cz.fi.muni.pa165.projection.IdRange;
+import cz.fi.muni.pa165.projection.ProductOrderCount;
 
 @ContextConfiguration(classes = PersistenceSampleApplicationContext.class)
 @TestExecutionListeners(TransactionalTestExecutionListener.class)
@@ -44,6 +59,18 @@ public class OrderDaoTest extends AbstractTestNGSpringContextTests {
 	@Autowired
 	public UserDao userDao;
 
+	@Autowired
+	public OrderItemDao orderItemDao;
+
+	@Autowired
+	public CategoryDao categoryDao;
+
+	@Autowired
+	public PriceRepository priceRepository;
+
+	@PersistenceContext
+	private EntityManager em;
+
 	private Order o1;
 	private Order o2;
 	private Order o3;
@@ -122,6 +149,195 @@ public class OrderDaoTest extends AbstractTestNGSpringContextTests {
 		
 	}
 
+	@Test
+	public void countOrdersByProduct() {
+		Product tv = new Product();
+		tv.setName("TV");
+		productDao.create(tv);
+		Product radio = new Product();
+		radio.setName("Radio");
+		productDao.create(radio);
+		o1.addOrderItem(createItem(tv));
+		o2.addOrderItem(createItem(tv));
+		o2.addOrderItem(createItem(tv));
+		o2.addOrderItem(createItem(radio));
+
+		List<ProductOrderCount> counts = orderDao.countOrdersByProduct();
+
+		Assert.assertEquals(counts.size(), 2);
+		for (ProductOrderCount count : counts) {
+			Assert.assertEquals(count.getOrderCount(), count.getProductId().equals(tv.getId()) ? Long.valueOf(2) : Long.valueOf(1));
+		}
+	}
+
+	private OrderItem createItem(Product product) {
+		OrderItem item = new OrderItem();
+		item.setProduct(product);
+		item.setAmount(1);
+		orderItemDao.create(item);
+		return item;
+	}
+
+	/**
+	 * Reading everything an order DTO contains takes the same number of statements for any number of orders.
+	 */
+	@Test
+	public void detailPlanTakesConstantStatements() {
+		Category category = new Category();
+		category.setName("category");
+		categoryDao.create(category);
+		List<Product> products = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			Price price = new Price();
+			price.setValue(BigDecimal.TEN);
+			price.setCurrency(Currency.CZK);
+			price.setPriceStart(date1);
+			priceRepository.save(price);
+			Product product = new Product();
+			product.setName("product " + i);
+			product.addCategory(category);
+			product.addHistoricalPrice(price);
+			product.setCurrentPrice(price);
+			productDao.create(product);
+			products.add(product);
+		}
+		Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		int created = 0;
+		List<Long> statementCounts = new ArrayList<>();
+		for (int size : new int[]{1, 100, 10_000}) {
+			for (; created < size; created++) {
+				Product product = products.get(created % products.size());
+				OrderItem item = createItem(product);
+				item.setPricePerItem(product.getCurrentPrice());
+				Order order = new Order();
+				order.setCreated(date3);
+				order.setState(OrderState.SHIPPED);
+				order.setUser((created % 2 == 0) ? user1 : user2);
+				order.addOrderItem(item);
+				orderDao.create(order);
+			}
+			em.flush();
+			em.clear();
+			em.getEntityManagerFactory().getCache().evictAll();
+
+			long before = statistics.getPrepareStatementCount();
+			List<Order> orders = orderDao.getOrdersWithState(OrderState.SHIPPED, OrderFetchPlan.DETAIL);
+			for (Order order : orders) {
+				order.getUser().getEmail();
+				for (OrderItem item : order.getOrderItems()) {
+					item.getPricePerItem().getValue();
+					item.getProduct().getCurrentPrice().getValue();
+					item.getProduct().getCategories().size();
+					item.getProduct().getPriceHistory().size();
+				}
+			}
+			Assert.assertEquals(orders.size(), size);
+			statementCounts.add(statistics.getPrepareStatementCount() - before);
+		}
+		logger.info("statements for 1, 100 and 10000 orders: " + statementCounts);
+		Assert.assertEquals(statementCounts.get(0), statementCounts.get(1));
+		Assert.assertEquals(statementCounts.get(1), statementCounts.get(2));
+		//orders with everything fetched, categories, price histories
+		Assert.assertEquals((long) statementCounts.get(0), 3L);
+	}
+
+	/**
+	 * Streaming keeps only the current chunk of orders in the persistence context and reads every chunk
+	 * with a fixed number of statements.
+	 */
+	@Test
+	public void streamAllLoadsChunks() {
+		Product product = new Product();
+		product.setName("product");
+		productDao.create(product);
+		for (int i = 0; i < 2 * OrderDaoImpl.STREAM_CHUNK_SIZE; i++) {
+			Order order = new Order();
+			order.setCreated(date3);
+			order.setState(OrderState.SHIPPED);
+			order.setUser(user2);
+			order.addOrderItem(createItem(product));
+			orderDao.create(order);
+		}
+		em.flush();
+		em.clear();
+		int chunks = 3;
+
+		Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		long before = statistics.getPrepareStatementCount();
+		List<Order> first = new ArrayList<>();
+		long count = 0;
+		long lastId = Long.MIN_VALUE;
+		try (Stream<Order> orders = orderDao.streamAll()) {
+			for (Order order : (Iterable<Order>) orders::iterator) {
+				Assert.assertTrue(order.getId() > lastId);
+				lastId = order.getId();
+				order.getUser().getEmail();
+				for (OrderItem item : order.getOrderItems()) {
+					item.getProduct().getName();
+				}
+				if (count++ == 0) {
+					first.add(order);
+				}
+			}
+		}
+		long statements = statistics.getPrepareStatementCount() - before;
+		logger.info("statements for streaming " + count + " orders: " + statements);
+		Assert.assertEquals(count, 2 * OrderDaoImpl.STREAM_CHUNK_SIZE + 3);
+		Assert.assertFalse(em.contains(first.get(0)));
+		//ids of the live and of the archived orders, no archived orders to load
+		Assert.assertEquals(statements, 2 + chunks);
+	}
+
+	@Test
+	public void lockAndUpdateStates() {
+		em.flush();
+		List<Long> ids = Arrays.asList(o1.getId(), o2.getId(), o3.getId(), 321321l);
+
+		Map<Long, OrderState> states = orderDao.lockStates(ids);
+		Assert.assertEquals(states.size(), 3);
+		Assert.assertEquals(states.get(o2.getId()), OrderState.RECEIVED);
+		Assert.assertEquals(states.get(o3.getId()), OrderState.CANCELED);
+
+		Assert.assertEquals(orderDao.updateStates(ids, OrderState.RECEIVED, OrderState.SHIPPED), 1);
+		em.clear();
+		Assert.assertEquals(orderDao.findById(o2.getId()).getState(), OrderState.SHIPPED);
+		Assert.assertEquals(orderDao.findById(o1.getId()).getState(), OrderState.CANCELED);
+		Assert.assertEquals(orderDao.findByIds(ids, OrderFetchPlan.SUMMARY).size(), 3);
+	}
+
+	/**
+	 * Changing the state of thousands of orders takes a few statements per chunk, not per order.
+	 */
+	@Test
+	public void updateStatesOfThousands() {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			Order order = new Order();
+			order.setCreated(date3);
+			order.setState(OrderState.RECEIVED);
+			order.setUser(user1);
+			orderDao.create(order);
+			ids.add(order.getId());
+		}
+		em.flush();
+		em.clear();
+
+		Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		long before = statistics.getPrepareStatementCount();
+		long start = System.currentTimeMillis();
+		int changed = 0;
+		for (int i = 0; i < ids.size(); i += 500) {
+			List<Long> chunk = ids.subList(i, i + 500);
+			Assert.assertEquals(orderDao.lockStates(chunk).size(), 500);
+			changed += orderDao.updateStates(chunk, OrderState.RECEIVED, OrderState.SHIPPED);
+		}
+		logger.info("shipped " + changed + " orders in " + (System.currentTimeMillis() - start) + " ms");
+
+		Assert.assertEquals(changed, 5000);
+		Assert.assertEquals(statistics.getPrepareStatementCount() - before, 3 * 10);
+		Assert.assertEquals(orderDao.getOrdersWithState(OrderState.SHIPPED, OrderFetchPlan.SUMMARY).size(), 5000);
+	}
+
 	@Test
 	public void getOrdersCreatedBetween() {
 		Calendar cal = Calendar.getInstance();
@@ -139,4 +355,82 @@ public class OrderDaoTest extends AbstractTestNGSpringContextTests {
 		Assert.assertEquals(orderDao.getOrdersCreatedBetween(date3, date4, OrderState.CANCELED).size(),1);
 	}
 
+	@Test
+	public void searchCombinesConditionsSortsAndPages() {
+		Price price = new Price();
+		price.setValue(new BigDecimal("250"));
+		price.setCurrency(Currency.CZK);
+		price.setPriceStart(date1);
+		priceRepository.save(price);
+		Product tv = new Product();
+		tv.setName("searched TV");
+		tv.addHistoricalPrice(price);
+		tv.setCurrentPrice(price);
+		productDao.create(tv);
+		OrderItem item = new OrderItem();
+		item.setProduct(tv);
+		item.setAmount(2);
+		item.setPricePerItem(price);
+		orderItemDao.create(item);
+		o2.addOrderItem(item);
+		OrderTotal total = new OrderTotal(Currency.CZK);
+		total.setTotal(new BigDecimal("500"));
+		o2.addTotal(total);
+		em.flush();
+		em.clear();
+
+		OrderSearch canceled = new OrderSearch();
+		canceled.setStates(EnumSet.of(OrderState.CANCELED));
+		Assert.assertEquals(ids(orderDao.search(canceled, 10)), Arrays.asList(o3.getId(), o1.getId()));
+		Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		long statements = statistics.getPrepareStatementCount();
+		List<Order> firstPage = orderDao.search(canceled, 1);
+		Assert.assertEquals(statistics.getPrepareStatementCount() - statements, 1);
+		Assert.assertEquals(firstPage.get(0).getUser().getId(), user2.getId());
+		canceled.setAfter(firstPage.get(0).getCreated(), firstPage.get(0).getId());
+		Assert.assertEquals(ids(orderDao.search(canceled, 1)), Arrays.asList(o1.getId()));
+
+		OrderSearch byUser = new OrderSearch();
+		byUser.setUserId(user1.getId());
+		byUser.setSort(OrderSort.OLDEST);
+		Assert.assertEquals(ids(orderDao.search(byUser, 10)), Arrays.asList(o1.getId(), o2.getId()));
+		byUser.setCreatedFrom(date2);
+		Assert.assertEquals(ids(orderDao.search(byUser, 10)), Arrays.asList(o2.getId()));
+
+		OrderSearch byProduct = new OrderSearch();
+		byProduct.setProductId(tv.getId());
+		byProduct.setMinTotal(new BigDecimal("500"));
+		byProduct.setCreatedTo(date3);
+		Assert.assertEquals(ids(orderDao.search(byProduct, 10)), Arrays.asList(o2.getId()));
+		byProduct.setMinTotal(new BigDecimal("501"));
+		Assert.assertTrue(orderDao.search(byProduct, 10).isEmpty());
+	}
+
+	@Test
+	public void findIdsWithStateReadsIdRangeInChunks() {
+		IdRange received = orderDao.findIdRangeWithState(OrderState.RECEIVED, date3);
+		Assert.assertFalse(received.isEmpty());
+		Assert.assertTrue(received.getMinId() <= o2.getId() && o2.getId() <= received.getMaxId());
+		Assert.assertTrue(orderDao.findIdRangeWithState(OrderState.RECEIVED, new Date(0)).isEmpty());
+
+		Date afterDate3 = new Date(date3.getTime() + 1);
+		Assert.assertEquals(orderDao.findIdsWithState(OrderState.CANCELED, date3, o1.getId() - 1, o3.getId(), 10),
+				Arrays.asList(o1.getId()));
+		Assert.assertEquals(orderDao.findIdsWithState(OrderState.CANCELED, afterDate3, o1.getId() - 1, o3.getId(), 10),
+				Arrays.asList(o1.getId(), o3.getId()));
+		Assert.assertEquals(orderDao.findIdsWithState(OrderState.CANCELED, afterDate3, o1.getId() - 1, o3.getId(), 1),
+				Arrays.asList(o1.getId()));
+		Assert.assertEquals(orderDao.findIdsWithState(OrderState.CANCELED, afterDate3, o1.getId(), o3.getId(), 1),
+				Arrays.asList(o3.getId()));
+		Assert.assertTrue(orderDao.findIdsWithState(OrderState.CANCELED, afterDate3, o1.getId(), o3.getId() - 1, 10)
+				.isEmpty());
+	}
+
+	private static List<Long> ids(List<Order> orders) {
+		List<Long> ids = new ArrayList<>();
+		for (Order order : orders) {
+			ids.add(order.getId());
+		}
+		return ids;
+	}
 }
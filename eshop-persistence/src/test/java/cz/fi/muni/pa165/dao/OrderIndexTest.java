@@ -0,0 +1,277 @@
+package cz.fi.muni.pa165.dao;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
+import org.springframework.transaction.annotation.Transactional;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.PersistenceSampleApplicationContext;
+import cz.fi.muni.pa165.entity.Order;
+import cz.fi.muni.pa165.entity.Price;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.entity.User;
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.enums.OrderState;
+
+/**
+ * Checks with the runtime statistics of Derby that the queries of {@link OrderDao} read the orders through the indexes
+ * of their access paths. A few probe orders are looked up among a growing number of other orders; read through
+ * an index, the number of rows a query visits does not grow with the table.
+ * <p>
+ * The benchmark runs with 10 000 and 100 000 orders, other table sizes can be given by the system property
+ * eshop.benchmark.orders, e.g. -Deshop.benchmark.orders=10000,100000,1000000.
+ */
+@ContextConfiguration(classes = PersistenceSampleApplicationContext.class)
+@TestExecutionListeners(TransactionalTestExecutionListener.class)
+@Transactional
+public class OrderIndexTest extends AbstractTestNGSpringContextTests {
+
+	private static final int PROBES = 20;
+
+	private static final Pattern ROWS_VISITED = Pattern.compile("Number of rows visited=(\\d+)");
+
+	@Autowired
+	private OrderDao orderDao;
+
+	@Autowired
+	private UserDao userDao;
+
+	@Autowired
+	private ProductDao productDao;
+
+	@Autowired
+	private PriceRepository priceRepository;
+
+	@PersistenceContext
+	private EntityManager em;
+
+	private User probeUser;
+	private User otherUser;
+	private Date probeStart;
+	private Date probeEnd;
+	private int otherOrders;
+
+	/**
+	 * Creates the probe orders: received orders of the probe user, all created within an hour.
+	 */
+	@BeforeMethod
+	public void createProbes() {
+		probeUser = UserDaoTest.getSimpleUser();
+		otherUser = UserDaoTest.getSimpleUser2();
+		userDao.create(probeUser);
+		userDao.create(otherUser);
+		Calendar cal = Calendar.getInstance();
+		cal.clear();
+		cal.set(2016, Calendar.JUNE, 1, 10, 0);
+		probeStart = cal.getTime();
+		for (int i = 0; i < PROBES; i++) {
+			Order order = new Order();
+			order.setCreated(cal.getTime());
+			order.setState(OrderState.RECEIVED);
+			order.setUser(probeUser);
+			orderDao.create(order);
+			cal.add(Calendar.MINUTE, 1);
+		}
+		probeEnd = cal.getTime();
+		em.flush();
+		otherOrders = 0;
+	}
+
+	/**
+	 * Adds orders of the other user which are not received and were created before the probes. They are inserted
+	 * with JDBC batches, ids are taken far above the ids of the sequence, the test transaction removes them.
+	 */
+	private void addOtherOrders(int count) {
+		OrderState[] states = {OrderState.SHIPPED, OrderState.DONE, OrderState.CANCELED};
+		long start = probeStart.getTime() - 365L * 24 * 60 * 60 * 1000;
+		em.unwrap(Session.class).doWork(connection -> {
+			try (PreparedStatement insert = connection.prepareStatement(
+					"INSERT INTO PRODUCT_ORDER (id, created, state, user_id) VALUES (?, ?, ?, ?)")) {
+				for (int i = otherOrders; i < otherOrders + count; i++) {
+					insert.setLong(1, 1_000_000_000L + i);
+					insert.setTimestamp(2, new Timestamp(start + i * 1000L));
+					insert.setInt(3, states[i % states.length].ordinal());
+					insert.setLong(4, otherUser.getId());
+					insert.addBatch();
+					if (i % 1000 == 999) {
+						insert.executeBatch();
+					}
+				}
+				insert.executeBatch();
+			}
+		});
+		otherOrders += count;
+	}
+
+	/**
+	 * Runs the query with the runtime statistics of Derby turned on.
+	 *
+	 * @return statistics of the last statement of the query
+	 */
+	private String runtimeStatistics(Runnable query) {
+		Session session = em.unwrap(Session.class);
+		session.doWork(connection -> {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("CALL SYSCS_UTIL.SYSCS_SET_RUNTIMESTATISTICS(1)");
+			}
+		});
+		query.run();
+		return session.doReturningWork(connection -> {
+			try (Statement statement = connection.createStatement();
+					ResultSet statistics = statement.executeQuery("VALUES SYSCS_UTIL.SYSCS_GET_RUNTIMESTATISTICS()")) {
+				statistics.next();
+				String text = statistics.getString(1);
+				statement.execute("CALL SYSCS_UTIL.SYSCS_SET_RUNTIMESTATISTICS(0)");
+				return text;
+			}
+		});
+	}
+
+	/**
+	 * Asserts that the statement read the table with an index scan, of the given index if not null.
+	 *
+	 * @return number of index rows the scan visited
+	 */
+	private static int assertIndexScan(String statistics, String table, String index) {
+		String scan = "Index Scan ResultSet for " + table + " using " + (index == null ? "" : "index " + index);
+		int at = statistics.indexOf(scan);
+		Assert.assertTrue(at >= 0, "expected " + scan + " in\n" + statistics);
+		Matcher visited = ROWS_VISITED.matcher(statistics);
+		Assert.assertTrue(visited.find(at));
+		return Integer.parseInt(visited.group(1));
+	}
+
+	private OrderSearch userSearch() {
+		OrderSearch search = new OrderSearch();
+		search.setUserId(probeUser.getId());
+		search.setCreatedFrom(probeStart);
+		return search;
+	}
+
+	private OrderSearch createdSearch() {
+		OrderSearch search = new OrderSearch();
+		search.setCreatedFrom(probeStart);
+		search.setCreatedTo(probeEnd);
+		return search;
+	}
+
+	@Test
+	public void eachAccessPathUsesItsIndex() {
+		addOtherOrders(5000);
+		em.clear();
+		User user = userDao.findById(probeUser.getId());
+
+		assertIndexScan(runtimeStatistics(() -> Assert.assertTrue(
+				orderDao.getOrdersWithState(OrderState.RECEIVED, OrderFetchPlan.SUMMARY).size() >= PROBES)),
+				"PRODUCT_ORDER", "IDX_ORDER_STATE_CREATED");
+		assertIndexScan(runtimeStatistics(() -> Assert.assertEquals(orderDao.getOrdersCreatedBetween(
+				probeStart, probeEnd, OrderState.RECEIVED, OrderFetchPlan.SUMMARY).size(), PROBES)),
+				"PRODUCT_ORDER", "IDX_ORDER_STATE_CREATED");
+		//Derby backs every foreign key with an index of its own, which is as good for the user alone
+		assertIndexScan(runtimeStatistics(() -> Assert.assertEquals(
+				orderDao.findByUser(user, OrderFetchPlan.SUMMARY).size(), PROBES)),
+				"PRODUCT_ORDER", null);
+		assertIndexScan(runtimeStatistics(() -> Assert.assertEquals(orderDao.search(userSearch(), 100).size(), PROBES)),
+				"PRODUCT_ORDER", "IDX_ORDER_USER_CREATED");
+		assertIndexScan(runtimeStatistics(() -> Assert.assertEquals(orderDao.search(createdSearch(), 100).size(), PROBES)),
+				"PRODUCT_ORDER", "IDX_ORDER_CREATED");
+	}
+
+	@Test
+	public void priceHistoryUsesIndex() {
+		Product product = new Product();
+		product.setName("indexed TV");
+		Calendar cal = Calendar.getInstance();
+		cal.set(2015, Calendar.JANUARY, 1);
+		for (int i = 0; i < 200; i++) {
+			Price price = new Price();
+			price.setValue(new BigDecimal(100 + i));
+			price.setCurrency(Currency.CZK);
+			price.setPriceStart(cal.getTime());
+			priceRepository.save(price);
+			product.addHistoricalPrice(price);
+			product.setCurrentPrice(price);
+			cal.add(Calendar.DAY_OF_MONTH, 1);
+		}
+		productDao.create(product);
+		em.flush();
+		em.clear();
+		em.getEntityManagerFactory().getCache().evictAll();
+
+		Product found = productDao.findById(product.getId());
+		//the history is read ordered by the index, without sorting
+		String statistics = runtimeStatistics(() -> Assert.assertEquals(found.getPriceHistory().size(), 200));
+		assertIndexScan(statistics,
+				"PRICE", "IDX_PRICE_PRODUCT_START");
+		Assert.assertFalse(statistics.contains("Sort ResultSet"), statistics);
+		Assert.assertEquals(found.getPriceHistory().get(0).getValue().intValue(), 299);
+	}
+
+	/**
+	 * Measures the queries as the table grows. The latency is only logged, the number of rows visited
+	 * must not grow with the table. Other tests may have left orders in the database, so the rows visited
+	 * with the smallest table are the baseline.
+	 */
+	@Test
+	public void indexedQueriesScaleSubLinearly() {
+		List<Integer> sizes = new ArrayList<>();
+		for (String size : System.getProperty("eshop.benchmark.orders", "10000,100000").split(",")) {
+			sizes.add(Integer.valueOf(size.trim()));
+		}
+		Map<String, Integer> baseline = new HashMap<>();
+		StringBuilder report = new StringBuilder("order queries by table size (ms per query, index rows visited):");
+		for (int size : sizes) {
+			addOtherOrders(size - PROBES - otherOrders);
+			em.clear();
+			User user = userDao.findById(probeUser.getId());
+			report.append("\n").append(size).append(" orders:");
+			report.append(measure(baseline, "by state", "IDX_ORDER_STATE_CREATED",
+					() -> orderDao.getOrdersWithState(OrderState.RECEIVED, OrderFetchPlan.SUMMARY)));
+			report.append(measure(baseline, "created between", "IDX_ORDER_STATE_CREATED",
+					() -> orderDao.getOrdersCreatedBetween(probeStart, probeEnd, OrderState.RECEIVED, OrderFetchPlan.SUMMARY)));
+			report.append(measure(baseline, "by user", null, () -> orderDao.findByUser(user, OrderFetchPlan.SUMMARY)));
+			report.append(measure(baseline, "by user since", "IDX_ORDER_USER_CREATED",
+					() -> orderDao.search(userSearch(), 100)));
+			report.append(measure(baseline, "created in", "IDX_ORDER_CREATED", () -> orderDao.search(createdSearch(), 100)));
+		}
+		logger.info(report);
+	}
+
+	private String measure(Map<String, Integer> baseline, String name, String index, Supplier<List<Order>> query) {
+		int visited = assertIndexScan(runtimeStatistics(() -> Assert.assertTrue(query.get().size() >= PROBES)),
+				"PRODUCT_ORDER", index);
+		Assert.assertEquals(visited, (int) baseline.computeIfAbsent(name, n -> visited), name + " rows visited");
+		int runs = 20;
+		long start = System.nanoTime();
+		for (int i = 0; i < runs; i++) {
+			query.get();
+			em.clear();
+		}
+		long micros = (System.nanoTime() - start) / runs / 1000;
+		return String.format(" %s %.2f (%d)", name, micros / 1000.0, visited);
+	}
+}
@@ -0,0 +1,253 @@
+package cz.fi.muni.pa165.dao;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
+import org.springframework.transaction.annotation.Transactional;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.PersistenceSampleApplicationContext;
+import cz.fi.muni.pa165.entity.Order;
+import cz.fi.muni.pa165.entity.OrderItem;
+import cz.fi.muni.pa165.entity.Price;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.entity.User;
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.projection.DailyProductSales;
+import cz.fi.muni.pa165.projection.DailyRevenue;
+import cz.fi.muni.pa165.projection.OrderStateCount;
+import cz.fi.muni.pa165.projection.ProductSales;
+
+@ContextConfiguration(classes = PersistenceSampleApplicationContext.class)
+@TestExecutionListeners(TransactionalTestExecutionListener.class)
+@Transactional
+public class OrderStatisticsDaoTest extends AbstractTestNGSpringContextTests {
+
+	@Autowired
+	private OrderStatisticsDao orderStatisticsDao;
+
+	@Autowired
+	private OrderDao orderDao;
+
+	@Autowired
+	private OrderItemDao orderItemDao;
+
+	@Autowired
+	private ProductDao productDao;
+
+	@Autowired
+	private UserDao userDao;
+
+	@Autowired
+	private PriceRepository priceRepository;
+
+	@PersistenceContext
+	private EntityManager em;
+
+	private User user;
+	private Product tv;
+	private Product radio;
+	private Price tvPrice;
+	private Price radioPrice;
+	private Date day1;
+	private Date day2;
+
+	@BeforeMethod
+	public void createProducts() {
+		Calendar cal = Calendar.getInstance();
+		cal.clear();
+		cal.set(2015, Calendar.MARCH, 1, 10, 0);
+		day1 = cal.getTime();
+		cal.set(2015, Calendar.MARCH, 2, 18, 30);
+		day2 = cal.getTime();
+
+		user = UserDaoTest.getSimpleUser();
+		userDao.create(user);
+		tvPrice = price(new BigDecimal("100.00"), Currency.CZK);
+		radioPrice = price(new BigDecimal("2.50"), Currency.EUR);
+		tv = product("TV", tvPrice);
+		radio = product("Radio", radioPrice);
+	}
+
+	private Price price(BigDecimal value, Currency currency) {
+		Price price = new Price();
+		price.setValue(value);
+		price.setCurrency(currency);
+		price.setPriceStart(day1);
+		priceRepository.save(price);
+		return price;
+	}
+
+	private Product product(String name, Price price) {
+		Product product = new Product();
+		product.setName(name);
+		product.addHistoricalPrice(price);
+		product.setCurrentPrice(price);
+		productDao.create(product);
+		return product;
+	}
+
+	private Order order(Date created, OrderState state, Product product, int amount) {
+		OrderItem item = new OrderItem();
+		item.setProduct(product);
+		item.setAmount(amount);
+		item.setPricePerItem(product.getCurrentPrice());
+		orderItemDao.create(item);
+		Order order = new Order();
+		order.setCreated(created);
+		order.setState(state);
+		order.setUser(user);
+		order.addOrderItem(item);
+		orderDao.create(order);
+		return order;
+	}
+
+	@Test
+	public void countOrdersByState() {
+		order(day1, OrderState.RECEIVED, tv, 1);
+		order(day1, OrderState.RECEIVED, tv, 1);
+		order(day2, OrderState.DONE, radio, 1);
+
+		List<OrderStateCount> counts = orderStatisticsDao.countOrdersByState();
+
+		Assert.assertEquals(counts.size(), 2);
+		Assert.assertEquals(counts.get(0).getState(), OrderState.RECEIVED);
+		Assert.assertEquals(counts.get(0).getOrderCount(), Long.valueOf(2));
+		Assert.assertEquals(counts.get(1).getState(), OrderState.DONE);
+		Assert.assertEquals(counts.get(1).getOrderCount(), Long.valueOf(1));
+	}
+
+	@Test
+	public void getDailyRevenue() {
+		Order mixed = order(day1, OrderState.SHIPPED, tv, 2);
+		OrderItem radioItem = new OrderItem();
+		radioItem.setProduct(radio);
+		radioItem.setAmount(4);
+		radioItem.setPricePerItem(radioPrice);
+		orderItemDao.create(radioItem);
+		mixed.addOrderItem(radioItem);
+		order(day1, OrderState.DONE, tv, 1);
+		order(day1, OrderState.CANCELED, tv, 10);
+		order(day2, OrderState.RECEIVED, radio, 3);
+
+		List<DailyRevenue> revenue = orderStatisticsDao.getDailyRevenue(day1, new Date(day2.getTime() + 1));
+
+		Assert.assertEquals(revenue.size(), 3);
+		assertRevenue(revenue.get(0), Currency.CZK, 2, "300");
+		assertRevenue(revenue.get(1), Currency.EUR, 1, "10");
+		assertRevenue(revenue.get(2), Currency.EUR, 1, "7.5");
+		Assert.assertTrue(revenue.get(0).getDay().before(revenue.get(2).getDay()));
+		Assert.assertTrue(orderStatisticsDao.getDailyRevenue(day1, day2).stream()
+				.allMatch(r -> r.getDay().equals(revenue.get(0).getDay())));
+	}
+
+	private void assertRevenue(DailyRevenue revenue, Currency currency, long orderCount, String sum) {
+		Assert.assertEquals(revenue.getCurrency(), currency);
+		Assert.assertEquals(revenue.getOrderCount(), Long.valueOf(orderCount));
+		Assert.assertEquals(revenue.getRevenue().compareTo(new BigDecimal(sum)), 0, revenue.getRevenue().toString());
+	}
+
+	@Test
+	public void getProductSales() {
+		order(day1, OrderState.DONE, tv, 1);
+		order(day1, OrderState.DONE, radio, 2);
+		order(day2, OrderState.SHIPPED, radio, 3);
+		order(day2, OrderState.CANCELED, tv, 100);
+
+		List<ProductSales> sales = orderStatisticsDao.getProductSales();
+
+		Assert.assertEquals(sales.size(), 2);
+		Assert.assertEquals(sales.get(0).getProductId(), radio.getId());
+		Assert.assertEquals(sales.get(0).getProductName(), "Radio");
+		Assert.assertEquals(sales.get(0).getItemsSold(), Long.valueOf(5));
+		Assert.assertEquals(sales.get(0).getOrderCount(), Long.valueOf(2));
+		Assert.assertEquals(sales.get(1).getProductId(), tv.getId());
+		Assert.assertEquals(sales.get(1).getItemsSold(), Long.valueOf(1));
+	}
+
+	@Test
+	public void getDailySalesMatchRevenue() {
+		order(day1, OrderState.SHIPPED, tv, 2);
+		order(day1, OrderState.DONE, radio, 1);
+		order(day1, OrderState.CANCELED, radio, 7);
+		order(day2, OrderState.RECEIVED, tv, 3);
+		order(day2, OrderState.RECEIVED, tv, 1);
+		Date end = new Date(day2.getTime() + 1);
+
+		List<DailyProductSales> byProduct = orderStatisticsDao.getDailyProductSales(day1, end);
+		List<DailyProductSales> totals = orderStatisticsDao.getDailyTotalSales(day1, end);
+		List<DailyRevenue> revenue = orderStatisticsDao.getDailyRevenue(day1, end);
+
+		Assert.assertEquals(byProduct.size(), 3);
+		for (DailyProductSales sales : byProduct) {
+			if (sales.getProductId().equals(radio.getId())) {
+				Assert.assertEquals(sales.getItemsSold(), Long.valueOf(1));
+				Assert.assertEquals(sales.getCurrency(), Currency.EUR);
+			} else if (sales.getItemsSold() == 4) {
+				Assert.assertEquals(sales.getOrderCount(), Long.valueOf(2));
+				Assert.assertEquals(sales.getRevenue().compareTo(new BigDecimal("400")), 0);
+			} else {
+				Assert.assertEquals(sales.getItemsSold(), Long.valueOf(2));
+			}
+		}
+		Assert.assertEquals(totals.size(), revenue.size());
+		for (DailyProductSales total : totals) {
+			Assert.assertNull(total.getProductId());
+			Assert.assertTrue(revenue.stream().anyMatch(r -> r.getCurrency() == total.getCurrency()
+					&& r.getDay().equals(total.getDay()) && r.getOrderCount().equals(total.getOrderCount())
+					&& r.getRevenue().compareTo(total.getRevenue()) == 0), total.getDay() + " " + total.getCurrency());
+		}
+		Assert.assertEquals(orderStatisticsDao.getFirstCreated().getTime(), day1.getTime());
+		Assert.assertEquals(orderStatisticsDao.getLastCreated().getTime(), day2.getTime());
+	}
+
+	/**
+	 * The aggregates take one statement each and load no entities, however many orders there are.
+	 */
+	@Test
+	public void statisticsLoadNoEntities() {
+		Calendar cal = Calendar.getInstance();
+		cal.setTime(day1);
+		for (int i = 0; i < 10_000; i++) {
+			cal.add(Calendar.MINUTE, 7);
+			order(cal.getTime(), OrderState.values()[i % OrderState.values().length], (i % 3 == 0) ? radio : tv, 1 + i % 5);
+		}
+		em.flush();
+		em.clear();
+
+		Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		long statements = statistics.getPrepareStatementCount();
+		long entities = statistics.getEntityLoadCount();
+		long start = System.nanoTime();
+		List<OrderStateCount> counts = orderStatisticsDao.countOrdersByState();
+		long byState = System.nanoTime();
+		List<DailyRevenue> revenue = orderStatisticsDao.getDailyRevenue(day1, cal.getTime());
+		long byDay = System.nanoTime();
+		List<ProductSales> sales = orderStatisticsDao.getProductSales();
+		long byProduct = System.nanoTime();
+		logger.info("statistics of 10000 orders: " + (byState - start) / 1_000_000 + " ms by state, "
+				+ (byDay - byState) / 1_000_000 + " ms by day and currency (" + revenue.size() + " rows), "
+				+ (byProduct - byDay) / 1_000_000 + " ms by product");
+
+		Assert.assertEquals(counts.stream().mapToLong(OrderStateCount::getOrderCount).sum(), 10_000);
+		Assert.assertEquals(sales.size(), 2);
+		Assert.assertFalse(revenue.isEmpty());
+		Assert.assertEquals(statistics.getPrepareStatementCount() - statements, 6);
+		Assert.assertEquals(statistics.getEntityLoadCount() - entities, 0);
+	}
+}
@@ -0,0 +1,113 @@
+package cz.fi.muni.pa165.dao;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
+import org.springframework.transaction.annotation.Transactional;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.PersistenceSampleApplicationContext;
+import cz.fi.muni.pa165.entity.Order;
+import cz.fi.muni.pa165.entity.OrderTotal;
+import cz.fi.muni.pa165.entity.User;
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.enums.OrderState;
+
+@ContextConfiguration(classes = PersistenceSampleApplicationContext.class)
+@TestExecutionListeners(TransactionalTestExecutionListener.class)
+@Transactional
+public class OrderTotalDaoTest extends AbstractTestNGSpringContextTests {
+
+	@Autowired
+	private OrderTotalDao orderTotalDao;
+
+	@Autowired
+	private OrderDao orderDao;
+
+	@Autowired
+	private UserDao userDao;
+
+	@PersistenceContext
+	private EntityManager em;
+
+	private Order withTotals;
+	private Order withoutTotals;
+
+	@BeforeMethod
+	public void createOrders() {
+		User user = UserDaoTest.getSimpleUser();
+		userDao.create(user);
+
+		withTotals = order(user);
+		withTotals.addTotal(total(Currency.CZK, "270", Currency.EUR, "27"));
+		withTotals.addTotal(total(Currency.EUR, "10", Currency.EUR, "1"));
+		orderDao.create(withTotals);
+
+		withoutTotals = order(user);
+		orderDao.create(withoutTotals);
+		em.flush();
+		em.clear();
+	}
+
+	private static Order order(User user) {
+		Order order = new Order();
+		order.setUser(user);
+		order.setCreated(new Date());
+		order.setState(OrderState.RECEIVED);
+		return order;
+	}
+
+	private static OrderTotal total(Currency currency, String total, Currency from, String rate) {
+		OrderTotal orderTotal = new OrderTotal(currency);
+		orderTotal.setTotal(new BigDecimal(total));
+		orderTotal.putRate(from, new BigDecimal(rate));
+		return orderTotal;
+	}
+
+	@Test
+	public void findTotal() {
+		Assert.assertEquals(orderTotalDao.findTotal(withTotals.getId(), Currency.CZK).compareTo(new BigDecimal("270")), 0);
+		Assert.assertEquals(orderTotalDao.findTotal(withTotals.getId(), Currency.EUR).compareTo(BigDecimal.TEN), 0);
+		Assert.assertNull(orderTotalDao.findTotal(withTotals.getId(), Currency.USD));
+		Assert.assertNull(orderTotalDao.findTotal(withoutTotals.getId(), Currency.CZK));
+	}
+
+	@Test
+	public void findTotals() {
+		Map<Long, BigDecimal> totals = orderTotalDao.findTotals(Arrays.asList(withTotals.getId(), withoutTotals.getId()), Currency.CZK);
+
+		Assert.assertEquals(totals.size(), 1);
+		Assert.assertEquals(totals.get(withTotals.getId()).compareTo(new BigDecimal("270")), 0);
+		Assert.assertTrue(orderTotalDao.findTotals(Collections.emptyList(), Currency.CZK).isEmpty());
+	}
+
+	@Test
+	public void ratesAreKeptWithTotal() {
+		OrderTotal czk = orderDao.findById(withTotals.getId()).getTotals().get(Currency.CZK);
+
+		Assert.assertEquals(czk.getRates().size(), 1);
+		Assert.assertEquals(czk.getRates().get(Currency.EUR).compareTo(new BigDecimal("27")), 0);
+	}
+
+	@Test
+	public void totalsAreRemovedWithOrder() {
+		orderDao.remove(orderDao.findById(withTotals.getId()));
+		em.flush();
+
+		Assert.assertNull(orderTotalDao.findTotal(withTotals.getId(), Currency.CZK));
+		Assert.assertEquals(em.createQuery("SELECT COUNT(t) FROM OrderTotal t", Long.class).getSingleResult(), Long.valueOf(0));
+	}
+}
@@ -1,13 +1,17 @@
 package cz.fi.muni.pa165.dao;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
-import javax.validation.ConstraintViolationException;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestExecutionListeners;
@@ -24,6 +28,7 @@ import cz.fi.muni.pa165.entity.Category;
 import cz.fi.muni.pa165.entity.Price;
 import cz.fi.muni.pa165.entity.Product;
 import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.projection.ProductSummary;
 
 @ContextConfiguration(classes = PersistenceSampleApplicationContext.class)
 @TestExecutionListeners(TransactionalTestExecutionListener.class)
@@ -112,6 +117,91 @@ public class ProductDaoTest extends AbstractTestNGSpringContextTests {
 		Assert.assertEquals(productDao.findByName("product3").size(), 1);
 	}
 
+	@Test
+	public void findByExactName() {
+		Assert.assertEquals(productDao.findByExactName("product3"), p3);
+		Assert.assertNull(productDao.findByExactName("product"));
+		Assert.assertNull(productDao.findByExactName(null));
+		p3.setName("renamed");
+		em.flush();
+		Assert.assertNull(productDao.findByExactName("product3"));
+		Assert.assertEquals(productDao.findByExactName("renamed"), p3);
+	}
+
+	@Test
+	public void findByNameMatchesLikeQuery() {
+		for (int i = 0; i < 200; i++) {
+			Product p = new Product();
+			p.setName("item " + i + (i % 3 == 0 ? " red" : " blue"));
+			productDao.create(p);
+		}
+		for (String name : new String[]{"item 1", "red", " 1", "7 b", "p", "", "Item", "item 1000"}) {
+			List<Long> expected = em.createQuery("SELECT p.id FROM Product p WHERE p.name LIKE :name ORDER BY p.id",
+					Long.class).setParameter("name", "%" + name + "%").getResultList();
+			List<Long> found = productDao.findByName(name).stream().map(Product::getId).collect(Collectors.toList());
+			Assert.assertEquals(found, expected, "searching '" + name + "'");
+		}
+	}
+
+	/**
+	 * Ids come from pooled sequences, so the rows of one table are inserted in JDBC batches
+	 * instead of one statement per row.
+	 */
+	@Test
+	public void createIsBatched() {
+		em.flush();
+		Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		long before = statistics.getPrepareStatementCount();
+		long start = System.nanoTime();
+		int count = 500;
+		List<Price> prices = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Price price = new Price();
+			price.setPriceStart(new Date());
+			price.setCurrency(Currency.CZK);
+			price.setValue(BigDecimal.ONE);
+			priceRepository.save(price);
+			prices.add(price);
+		}
+		for (int i = 0; i < count; i++) {
+			Product p = new Product();
+			p.setName("batched " + i);
+			p.addHistoricalPrice(prices.get(i));
+			p.setCurrentPrice(prices.get(i));
+			productDao.create(p);
+		}
+		em.flush();
+		long statements = statistics.getPrepareStatementCount() - before;
+		//prices, products and the foreign keys of the price histories
+		long rows = 3L * count;
+		logger.info(rows + " rows written with " + statements + " statements, "
+				+ rows * 1_000_000_000L / (System.nanoTime() - start) + " rows/s");
+		Assert.assertTrue(statements < count / 10, statements + " statements");
+	}
+
+	@Test
+	public void findByNameAfterRename() {
+		p3.setName("renamed");
+		em.flush();
+		Assert.assertEquals(productDao.findByName("renamed").size(), 1);
+		Assert.assertEquals(productDao.findByName("product3").size(), 0);
+	}
+
+	@Test
+	public void findByTextIncludesDescription() {
+		p4.setDescription("Single board computer");
+		em.flush();
+		Assert.assertEquals(productDao.findByText("BOARD").size(), 1);
+		Assert.assertEquals(productDao.findByText("board").get(0).getName(), "p4");
+	}
+
+	@Test
+	public void findSimilar() {
+		List<Product> found = productDao.findSimilar("prodcut3", 3);
+		Assert.assertEquals(found.size(), 1);
+		Assert.assertEquals(found.get(0).getName(), "product3");
+	}
+
 	@Test
 	public void find() {
 		Product found = productDao.findById(p1.getId());
@@ -120,29 +210,62 @@ public class ProductDaoTest extends AbstractTestNGSpringContextTests {
 		Assert.assertEquals(found.getCurrentPrice().getValue(), BigDecimal.TEN);
 	}
 
-	@Test(expectedExceptions = ConstraintViolationException.class)
-	public void mimeTypeCannotBeSetWithoutImage() {
-		Product p = new Product();
-		p.setName("LCD TV");
-		p.setImageMimeType("X");
-		productDao.create(p);
+	@Test
+	public void findAllSummaries() {
+		List<ProductSummary> found = productDao.findAllSummaries();
+		Assert.assertEquals(found.size(), 5);
+		ProductSummary first = found.get(0);
+		Assert.assertEquals(first.getName(), "p1");
+		Assert.assertEquals(first.getColor(), Color.RED);
+		Assert.assertEquals(first.getPriceValue().compareTo(BigDecimal.TEN), 0);
+		Assert.assertEquals(first.getPriceCurrency(), Currency.CZK);
+		Assert.assertEquals(first.getCategoryIds().size(), 1);
+		Assert.assertNull(found.get(1).getPriceValue());
+		Assert.assertTrue(found.get(4).getCategoryIds().isEmpty());
+	}
+
+	@Test
+	public void findSummariesByCategory() {
+		Category other = new Category();
+		other.setName("other");
+		categoryDao.create(other);
+		p1.addCategory(other);
+
+		List<ProductSummary> found = productDao.findSummariesByCategory("cat");
+		Assert.assertEquals(found.size(), 2);
+		Assert.assertEquals(found.get(0).getName(), "p1");
+		Assert.assertEquals(found.get(0).getCategoryIds().size(), 2);
+		Assert.assertEquals(found.get(1).getName(), "p2");
+		Assert.assertTrue(productDao.findSummariesByCategory("asdf").isEmpty());
 	}
 
-	@Test(expectedExceptions = ConstraintViolationException.class)
-	public void imageCannotBeSetWithoutMimeType() {
-		Product p = new Product();
-		p.setName("LCD TV");
-		p.setImage(new byte[] {});
-		productDao.create(p);
+	@Test
+	public void findSummariesAfter() {
+		List<ProductSummary> first = productDao.findSummariesAfter(null, null, 2);
+		Assert.assertEquals(first.stream().map(ProductSummary::getName).collect(Collectors.toList()),
+				Arrays.asList("p1", "p2"));
+		Assert.assertEquals(first.get(0).getCategoryIds().size(), 1);
+
+		ProductSummary last = first.get(1);
+		List<ProductSummary> second = productDao.findSummariesAfter(last.getName(), last.getId(), 2);
+		Assert.assertEquals(second.stream().map(ProductSummary::getName).collect(Collectors.toList()),
+				Arrays.asList("p4", "p5"));
+		Assert.assertTrue(second.get(0).getCategoryIds().isEmpty());
+
+		last = second.get(1);
+		Assert.assertEquals(productDao.findSummariesAfter(last.getName(), last.getId(), 2).size(), 1);
 	}
 
 	@Test
-	public void imageCanBeSetWithMimeType() {
-		Product p = new Product();
-		p.setName("LCD TV");
-		p.setImageMimeType("X");
-		p.setImage(new byte[] {});
-		productDao.create(p);
+	public void findSummariesByCategoryAfter() {
+		List<ProductSummary> first = productDao.findSummariesByCategoryAfter("cat", null, null, 1);
+		Assert.assertEquals(first.size(), 1);
+		Assert.assertEquals(first.get(0).getName(), "p1");
+
+		List<ProductSummary> second = productDao.findSummariesByCategoryAfter("cat", "p1", p1.getId(), 5);
+		Assert.assertEquals(second.size(), 1);
+		Assert.assertEquals(second.get(0).getName(), "p2");
+		Assert.assertTrue(productDao.findSummariesByCategoryAfter("cat", "p2", p2.getId(), 5).isEmpty());
 	}
 
-}
\ No newline at end of file
+}
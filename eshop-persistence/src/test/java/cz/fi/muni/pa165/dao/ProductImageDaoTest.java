@@ -0,0 +1,126 @@
+package cz.fi.muni.pa165.dao;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolationException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
+import org.springframework.transaction.annotation.Transactional;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.PersistenceSampleApplicationContext;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.entity.ProductImage;
+
+@ContextConfiguration(classes = PersistenceSampleApplicationContext.class)
+@TestExecutionListeners(TransactionalTestExecutionListener.class)
+@Transactional
+public class ProductImageDaoTest extends AbstractTestNGSpringContextTests {
+
+	@PersistenceContext
+	public EntityManager em;
+
+	@Autowired
+	public ProductDao productDao;
+
+	@Autowired
+	public ProductImageDao productImageDao;
+
+	private Product product;
+
+	@BeforeMethod
+	public void createProduct() {
+		product = new Product();
+		product.setName("LCD TV");
+		productDao.create(product);
+	}
+
+	@Test
+	public void storeAndRead() throws IOException {
+		byte[] data = {1, 2, 3, 4, 5};
+		productImageDao.store(product, "image/png", new ByteArrayInputStream(data), data.length);
+		em.clear();
+
+		ProductImage image = productImageDao.findByProductId(product.getId());
+		Assert.assertEquals(image.getMimeType(), "image/png");
+		Assert.assertEquals(image.getLength(), 5);
+		try (InputStream in = productImageDao.openStream(product.getId())) {
+			Assert.assertEquals(in.readAllBytes(), data);
+		}
+	}
+
+	@Test
+	public void storeSetsHashAndModificationTime() {
+		productImageDao.store(product, "image/png", new ByteArrayInputStream("abc".getBytes()), 3);
+		em.clear();
+
+		ProductImage image = productImageDao.findByProductId(product.getId());
+		Assert.assertEquals(image.getContentHash(), "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+		Assert.assertNotNull(image.getLastModified());
+		Assert.assertEquals(productImageDao.findContentHash(product.getId()), image.getContentHash());
+	}
+
+	@Test
+	public void readRange() throws IOException {
+		byte[] data = {1, 2, 3, 4, 5};
+		productImageDao.store(product, "image/png", new ByteArrayInputStream(data), data.length);
+		em.clear();
+
+		try (InputStream in = productImageDao.openStream(product.getId(), 1, 3)) {
+			Assert.assertEquals(in.readAllBytes(), new byte[]{2, 3, 4});
+		}
+		Assert.assertNull(productImageDao.openStream(product.getId() + 1, 0, 1));
+	}
+
+	@Test
+	public void storeReplacesImage() throws IOException {
+		productImageDao.store(product, "image/png", new ByteArrayInputStream(new byte[]{1}), 1);
+		productImageDao.store(product, "image/jpeg", new ByteArrayInputStream(new byte[]{7, 8}), 2);
+		em.clear();
+
+		ProductImage image = productImageDao.findByProductId(product.getId());
+		Assert.assertEquals(image.getMimeType(), "image/jpeg");
+		Assert.assertEquals(image.getLength(), 2);
+		try (InputStream in = productImageDao.openStream(product.getId())) {
+			Assert.assertEquals(in.readAllBytes(), new byte[]{7, 8});
+		}
+	}
+
+	@Test
+	public void productWithoutImage() {
+		Assert.assertNull(productImageDao.findByProductId(product.getId()));
+		Assert.assertNull(productImageDao.openStream(product.getId()));
+		Assert.assertNull(productImageDao.findContentHash(product.getId()));
+	}
+
+	@Test
+	public void removingProductRemovesImage() {
+		productImageDao.store(product, "image/png", new ByteArrayInputStream(new byte[]{1}), 1);
+		productDao.remove(product);
+		em.flush();
+		Assert.assertNull(productImageDao.findByProductId(product.getId()));
+	}
+
+	@Test(expectedExceptions = ConstraintViolationException.class)
+	public void imageCannotBeSetWithoutMimeType() {
+		productImageDao.store(product, null, new ByteArrayInputStream(new byte[]{}), 0);
+	}
+
+	@Test(expectedExceptions = ConstraintViolationException.class)
+	public void mimeTypeCannotBeSetWithoutImage() {
+		ProductImage image = new ProductImage(product);
+		image.setMimeType("X");
+		em.persist(image);
+		em.flush();
+	}
+}
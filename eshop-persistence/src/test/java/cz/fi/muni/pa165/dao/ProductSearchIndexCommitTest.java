@@ -0,0 +1,88 @@
+package cz.fi.muni.pa165.dao;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.PersistenceSampleApplicationContext;
+import cz.fi.muni.pa165.entity.Product;
+
+/**
+ * Commits and rolls back changes of products, which are committed, so the product is removed afterwards.
+ */
+@ContextConfiguration(classes = PersistenceSampleApplicationContext.class)
+public class ProductSearchIndexCommitTest extends AbstractTestNGSpringContextTests {
+
+	@Autowired
+	private ProductSearchIndex searchIndex;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@PersistenceContext
+	private EntityManager em;
+
+	private TransactionTemplate tx;
+
+	private Long productId;
+
+	@BeforeMethod
+	public void createProduct() {
+		tx = new TransactionTemplate(transactionManager);
+		productId = tx.execute(s -> {
+			Product product = new Product();
+			product.setName("Committed gadget");
+			em.persist(product);
+			return product.getId();
+		});
+	}
+
+	@AfterMethod
+	public void removeProduct() {
+		//removed through the entity manager, bulk deletes do not reach the index
+		tx.execute(s -> {
+			em.remove(em.find(Product.class, productId));
+			return null;
+		});
+	}
+
+	@Test
+	public void rolledBackRenameIndexesCommittedName() {
+		tx.execute(s -> {
+			em.find(Product.class, productId).setName("Rolled back gadget");
+			em.flush();
+			Assert.assertEquals(searchIndex.searchName("Rolled back gadget"), new int[]{productId.intValue()});
+			s.setRollbackOnly();
+			return null;
+		});
+
+		Assert.assertEquals(searchIndex.searchName("Rolled back gadget"), new int[0]);
+		Assert.assertEquals(searchIndex.searchName("Committed gadget"), new int[]{productId.intValue()});
+	}
+
+	@Test
+	public void rolledBackInsertIsRemoved() {
+		int[] inserted = new int[1];
+		tx.execute(s -> {
+			Product product = new Product();
+			product.setName("Uncommitted gadget");
+			em.persist(product);
+			em.flush();
+			inserted[0] = product.getId().intValue();
+			Assert.assertEquals(searchIndex.searchName("Uncommitted gadget"), inserted);
+			s.setRollbackOnly();
+			return null;
+		});
+
+		Assert.assertEquals(searchIndex.searchName("Uncommitted gadget"), new int[0]);
+	}
+}
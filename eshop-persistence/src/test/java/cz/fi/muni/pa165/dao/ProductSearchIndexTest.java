@@ -0,0 +1,88 @@
+package cz.fi.muni.pa165.dao;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ProductSearchIndexTest {
+
+	private ProductSearchIndex index;
+
+	@BeforeMethod
+	public void createIndex() {
+		index = new ProductSearchIndex();
+		index.put(1L, "Raspberry PI", "Small computer");
+		index.put(2L, "Arduino", "Microcontroller board");
+		index.put(3L, "Raspberry jam", null);
+	}
+
+	@Test
+	public void searchName() {
+		Assert.assertEquals(index.searchName("Raspberry"), new int[]{1, 3});
+		Assert.assertEquals(index.searchName("rry P"), new int[]{1});
+		Assert.assertEquals(index.searchName("raspberry"), new int[0]);
+		Assert.assertEquals(index.searchName("computer"), new int[0]);
+	}
+
+	@Test
+	public void shortTextsAreMatchedWithoutTrigrams() {
+		Assert.assertEquals(index.searchName("PI"), new int[]{1});
+		Assert.assertEquals(index.searchName("j"), new int[]{3});
+		Assert.assertEquals(index.searchName(""), new int[]{1, 2, 3});
+	}
+
+	@Test
+	public void shortTextsFindAllProducts() {
+		for (long id = 10; id < 210; id++) {
+			index.put(id, ((id % 2 == 0) ? "Board " : "board ") + id, null);
+		}
+
+		int[] found = index.searchName("B");
+		Assert.assertEquals(found.length, 100);
+		Assert.assertEquals(found[0], 10);
+		Assert.assertEquals(found[99], 208);
+		Assert.assertEquals(index.search("ar").length, 201);
+		Assert.assertEquals(index.search("ar")[0], 2);
+		Assert.assertEquals(index.searchName("PI"), new int[]{1});
+	}
+
+	@Test
+	public void searchIgnoresCaseAndIncludesDescription() {
+		Assert.assertEquals(index.search("RASPBERRY"), new int[]{1, 3});
+		Assert.assertEquals(index.search("controller"), new int[]{2});
+		//name and description are not joined
+		Assert.assertEquals(index.search("jamnull"), new int[0]);
+	}
+
+	@Test
+	public void renamedProductIsReindexed() {
+		index.put(3L, "Strawberry jam", null);
+
+		Assert.assertEquals(index.searchName("Raspberry"), new int[]{1});
+		Assert.assertEquals(index.searchName("Strawberry"), new int[]{3});
+	}
+
+	@Test
+	public void removedProductIsNotFound() {
+		index.remove(1L);
+
+		Assert.assertEquals(index.searchName("Raspberry"), new int[]{3});
+		Assert.assertEquals(index.search("computer"), new int[0]);
+	}
+
+	@Test
+	public void productsAreIndexedInAnyOrder() {
+		index.put(10L, "Raspberry Zero", null);
+		index.put(5L, "Raspberry 4", null);
+
+		Assert.assertEquals(index.searchName("Raspberry"), new int[]{1, 3, 5, 10});
+	}
+
+	@Test
+	public void searchSimilarFindsMisspelledText() {
+		Assert.assertEquals(index.searchSimilar("Raspbery PI", 10), new int[]{1, 3});
+		Assert.assertEquals(index.searchSimilar("arduno", 10), new int[]{2});
+		Assert.assertEquals(index.searchSimilar("Raspbery", 1), new int[]{1});
+		Assert.assertEquals(index.searchSimilar("xyzzy", 10), new int[0]);
+	}
+}
@@ -2,6 +2,9 @@ package cz.fi.muni.pa165.dao;
 
 import java.util.Date;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestExecutionListeners;
@@ -23,6 +26,9 @@ public class UserDaoTest extends AbstractTestNGSpringContextTests {
 	@Autowired
 	private UserDao userdao;
 
+	@PersistenceContext
+	private EntityManager em;
+
 	private User u1 ;
 	private User u2;
 
@@ -57,6 +63,15 @@ public class UserDaoTest extends AbstractTestNGSpringContextTests {
 		Assert.assertNull(userdao.findUserByEmail("asdfasdfasd"));
 	}
 
+	@Test
+	public void findByEmailAfterChange() {
+		Assert.assertEquals(userdao.findUserByEmail("filip@fi.cz"), u1);
+		u1.setEmail("filip@mail.muni.cz");
+		em.flush();
+		Assert.assertNull(userdao.findUserByEmail("filip@fi.cz"));
+		Assert.assertEquals(userdao.findUserByEmail("filip@mail.muni.cz").getId(), u1.getId());
+	}
+
 	/**
 	 * Just helper method to create a valid user
 	 * 
@@ -82,4 +97,4 @@ public class UserDaoTest extends AbstractTestNGSpringContextTests {
 		return user;
 	}
 
-}
\ No newline at end of file
+}
\ No newline at end of file
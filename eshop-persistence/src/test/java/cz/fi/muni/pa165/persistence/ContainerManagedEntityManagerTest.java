@@ -10,7 +10,6 @@ import javax.persistence.criteria.Root;
 import javax.validation.ConstraintViolationException;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DataAccessException;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
 import org.springframework.test.context.ContextConfiguration;
@@ -43,9 +42,10 @@ public class ContainerManagedEntityManagerTest extends AbstractTransactionalTest
 		Category cat = new Category();
 		cat.setName(null);
 		categoryDao.create(cat);		
+		em.flush();
 	}
 	
-	@Test(expectedExceptions=DataAccessException.class)
+	@Test(expectedExceptions=PersistenceException.class)
 	public void nameUnique(){
 		Category cat = new Category();
 		cat.setName("Electronics");
@@ -53,6 +53,7 @@ public class ContainerManagedEntityManagerTest extends AbstractTransactionalTest
 		cat = new Category();
 		cat.setName("Electronics");
 		categoryDao.create(cat);
+		em.flush();
 	}
 	
 
@@ -0,0 +1,88 @@
+package cz.fi.muni.pa165.persistence;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import cz.fi.muni.pa165.DataSourceConfiguration;
+import cz.fi.muni.pa165.PersistenceSampleApplicationContext;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ContextConfiguration(classes = PersistenceSampleApplicationContext.class)
+public class DataSourceConfigurationTest extends AbstractTestNGSpringContextTests {
+
+	@Autowired
+	private DataSource db;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	/**
+	 * The context defines no registry, so the pool publishes to the global one, as it does in the applications.
+	 */
+	@BeforeClass
+	public void addRegistry() {
+		Metrics.addRegistry(meterRegistry);
+	}
+
+	@AfterClass
+	public void removeRegistry() {
+		Metrics.removeRegistry(meterRegistry);
+	}
+
+	@Test
+	public void poolIsConfiguredFromProperties() {
+		HikariDataSource pool = (HikariDataSource) db;
+		Assert.assertEquals(pool.getPoolName(), DataSourceConfiguration.POOL_NAME);
+		Assert.assertEquals(pool.getJdbcUrl(), "jdbc:derby:memory:testdb;create=true");
+		Assert.assertEquals(pool.getMaximumPoolSize(), 10);
+		Assert.assertEquals(pool.getLeakDetectionThreshold(), 60000);
+	}
+
+	@Test
+	public void poolPublishesMetrics() throws SQLException {
+		Timer acquire = meterRegistry.get("hikaricp.connections.acquire")
+				.tag("pool", DataSourceConfiguration.POOL_NAME).timer();
+		long acquired = acquire.count();
+		try (Connection connection = db.getConnection()) {
+			Assert.assertTrue(connection.isValid(1));
+			Assert.assertTrue(meterRegistry.get("hikaricp.connections.active").gauge().value() >= 1);
+		}
+		Assert.assertEquals(acquire.count(), acquired + 1);
+		Assert.assertEquals(acquire.takeSnapshot().percentileValues().length, 3);
+		Assert.assertTrue(meterRegistry.get("hikaricp.connections.idle").gauge().value() >= 1);
+		Assert.assertEquals(meterRegistry.get("hikaricp.connections.timeout").counter().count(), 0.0);
+	}
+
+	@Test
+	public void inMemoryDatabaseIsDroppedOnClose() throws SQLException {
+		System.setProperty("eshop.db.url", "jdbc:derby:memory:droptest;create=true");
+		try (AnnotationConfigApplicationContext context =
+				new AnnotationConfigApplicationContext(DataSourceConfiguration.class)) {
+			context.getBean(DataSource.class).getConnection().close();
+		} finally {
+			System.clearProperty("eshop.db.url");
+		}
+		try {
+			DriverManager.getConnection("jdbc:derby:memory:droptest").close();
+			Assert.fail("database still exists");
+		} catch (SQLException ex) {
+			//database not found
+			Assert.assertEquals(ex.getSQLState(), "XJ004");
+		}
+	}
+}
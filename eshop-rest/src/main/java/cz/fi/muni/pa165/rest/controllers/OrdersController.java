@@ -1,20 +1,46 @@
 package cz.fi.muni.pa165.rest.controllers;
 
 import cz.fi.muni.pa165.rest.ApiUris;
+import cz.fi.muni.pa165.dto.OrderCreateDTO;
 import cz.fi.muni.pa165.dto.OrderDTO;
+import cz.fi.muni.pa165.dto.OrderIntakeStatusDTO;
+import cz.fi.muni.pa165.dto.OrderPageDTO;
+import cz.fi.muni.pa165.dto.OrderSearchDTO;
+import cz.fi.muni.pa165.dto.OrderTransitionResultDTO;
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.enums.OrderSort;
 import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
+import cz.fi.muni.pa165.exceptions.JobRunningException;
+import cz.fi.muni.pa165.exceptions.OrderIntakeFullException;
 import cz.fi.muni.pa165.facade.OrderFacade;
 import cz.fi.muni.pa165.rest.exceptions.InvalidParameterException;
 import cz.fi.muni.pa165.rest.exceptions.ResourceNotFoundException;
+import cz.fi.muni.pa165.rest.exceptions.ServiceUnavailableException;
+import cz.fi.muni.pa165.rest.export.OrderExportFormat;
+import cz.fi.muni.pa165.rest.export.OrderExportWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
 import java.util.List;
 import javax.inject.Inject;
+import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -63,6 +89,184 @@ public class OrdersController {
         }
     }
 
+    /**
+     * Searching the orders by any combination of the conditions, one page at a time
+     * curl -i -X GET "http://localhost:8080/eshop-rest/orders/search?state=RECEIVED&state=SHIPPED&from=2016-01-01&min_total=1000"
+     *
+     * @param states states of the orders, all states if none is given
+     * @param from first day the orders were created on
+     * @param to last day the orders were created on
+     * @param userId id of the user who made the orders
+     * @param productId id of a product the orders contain
+     * @param minTotal the least total price of the orders in the currency
+     * @param currency currency of the minimal total, CZK by default
+     * @param sort NEWEST (default) or OLDEST
+     * @param cursor next cursor of the previous page, omitted for the first page
+     * @param size number of orders on the page, from 1 to {@value OrderFacade#MAX_PAGE_SIZE}
+     * @return page of OrderDTOs with the cursor of the next page
+     * @throws InvalidParameterException when a parameter or the cursor is not valid
+     */
+    @RequestMapping(value = "/search", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    public final OrderPageDTO searchOrders(@RequestParam(value = "state", required = false) List<String> states,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "user_id", required = false) Long userId,
+            @RequestParam(value = "product_id", required = false) Long productId,
+            @RequestParam(value = "min_total", required = false) BigDecimal minTotal,
+            @RequestParam(value = "currency", required = false, defaultValue = "CZK") String currency,
+            @RequestParam(value = "sort", required = false, defaultValue = "NEWEST") String sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false, defaultValue = "50") int size) {
+
+        logger.debug("rest searchOrders({},{},{},{},{},{},{},{},{},{})", states, from, to, userId, productId, minTotal,
+                currency, sort, cursor, size);
+
+        if (size < 1 || size > OrderFacade.MAX_PAGE_SIZE) {
+            throw new InvalidParameterException();
+        }
+        OrderSearchDTO search = new OrderSearchDTO();
+        try {
+            if (states != null) {
+                for (String state : states) {
+                    search.getStates().add(OrderState.valueOf(state));
+                }
+            }
+            search.setTotalCurrency(Currency.valueOf(currency));
+            search.setSort(OrderSort.valueOf(sort));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidParameterException();
+        }
+        if (from != null) {
+            search.setCreatedFrom(Date.from(from.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        }
+        if (to != null) {
+            search.setCreatedTo(Date.from(to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        }
+        search.setUserId(userId);
+        search.setProductId(productId);
+        search.setMinTotal(minTotal);
+
+        try {
+            return orderFacade.searchOrders(search, cursor, size);
+        } catch (EshopServiceException ex) {
+            throw new InvalidParameterException();
+        }
+    }
+
+    /**
+     * Exporting all the orders for accounting. The orders are written as they are read from the database,
+     * so the response starts immediately and the memory used does not depend on the number of orders.
+     *
+     * @param format ndjson (default) or csv
+     * @param response response the orders are written to
+     * @throws IOException
+     */
+    @RequestMapping(value = "/export", method = RequestMethod.GET)
+    public final void exportOrders(@RequestParam(value = "format", required = false, defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+
+        logger.debug("rest exportOrders({})", format);
+
+        final OrderExportFormat exportFormat = OrderExportFormat.fromName(format);
+        if (exportFormat == null) {
+            throw new InvalidParameterException();
+        }
+
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Content-Disposition", "attachment; filename=\"orders." + exportFormat.getExtension() + "\"");
+        OrderExportWriter writer = new OrderExportWriter(exportFormat,
+                new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8)));
+        writer.start();
+        orderFacade.exportOrders(writer);
+        long written = writer.finish();
+        logger.debug("rest exportOrders exported {} orders", written);
+    }
+
+    /**
+     * Submitting a new order. The order is created in the background, its status can be looked up
+     * by the acknowledgement id in the response.
+     * curl -X POST -i -H "Content-Type: application/json" --data '{"userId":1,"items":[{"productId":1,"amount":2}]}'
+     * http://localhost:8080/eshop-rest/orders/intake
+     *
+     * @param order the user and the ordered products
+     * @return status of the order with the acknowledgement id
+     * @throws InvalidParameterException when the order has no products or invalid amounts
+     * @throws ServiceUnavailableException when too many orders wait to be created
+     */
+    @RequestMapping(value = "/intake", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public final OrderIntakeStatusDTO submitOrder(@RequestBody OrderCreateDTO order) {
+
+        logger.debug("rest submitOrder({})", order);
+
+        try {
+            return orderFacade.submitOrder(order);
+        } catch (OrderIntakeFullException ex) {
+            throw new ServiceUnavailableException();
+        } catch (EshopServiceException ex) {
+            throw new InvalidParameterException();
+        }
+    }
+
+    /**
+     * Getting the status of a submitted order
+     *
+     * @param ackId acknowledgement id returned when the order was submitted
+     * @return status of the order, with the order id once it is created
+     * @throws ResourceNotFoundException when the id is unknown or the status expired
+     */
+    @RequestMapping(value = "/intake/{ack_id}", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    public final OrderIntakeStatusDTO getOrderIntakeStatus(@PathVariable("ack_id") String ackId) {
+
+        logger.debug("rest getOrderIntakeStatus({})", ackId);
+
+        OrderIntakeStatusDTO status = orderFacade.getOrderIntakeStatus(ackId);
+        if (status == null) {
+            throw new ResourceNotFoundException();
+        }
+        return status;
+    }
+
+    /**
+     * Archive the DONE and CANCELED orders older than the configured age now
+     * curl -X POST -i http://localhost:8080/eshop-rest/orders/archive
+     *
+     * @return number of orders archived
+     * @throws ServiceUnavailableException when the archiving is running already
+     */
+    @RequestMapping(value = "/archive", method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE)
+    public final int archiveOrders() {
+
+        logger.debug("rest archiveOrders()");
+
+        try {
+            return orderFacade.archiveOldOrders();
+        } catch (JobRunningException ex) {
+            throw new ServiceUnavailableException();
+        }
+    }
+
+    /**
+     * Cancel the orders which stay RECEIVED longer than the configured time now
+     * curl -X POST -i http://localhost:8080/eshop-rest/orders/cancel_stale
+     *
+     * @return number of orders canceled
+     * @throws ServiceUnavailableException when the cancellation is running already
+     */
+    @RequestMapping(value = "/cancel_stale", method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE)
+    public final long cancelStaleOrders() {
+
+        logger.debug("rest cancelStaleOrders()");
+
+        try {
+            return orderFacade.cancelStaleOrders();
+        } catch (JobRunningException ex) {
+            throw new ServiceUnavailableException();
+        }
+    }
+
     /**
      * 
      * @param userId
@@ -126,4 +330,30 @@ public class OrdersController {
         return orderFacade.getOrderById(orderId);
     }
 
+    /**
+     * Perform one action on many orders at once, e.g. shipping all the orders of a warehouse run.
+     * Every order is reported separately, orders that do not exist or cannot be changed are skipped.
+     *
+     * @param action one of CANCEL, SHIP, FINISH
+     * @param ids ids of the orders
+     * @return result for each of the ids
+     */
+    @RequestMapping(method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public final List<OrderTransitionResultDTO> changeOrders(@RequestParam("action") String action,
+            @RequestBody List<Long> ids) {
+
+        logger.debug("rest changeOrders({}, {} orders)", action, ids.size());
+
+        if (action.equalsIgnoreCase("CANCEL")) {
+            return orderFacade.cancelOrders(ids);
+        } else if (action.equalsIgnoreCase("SHIP")) {
+            return orderFacade.shipOrders(ids);
+        } else if (action.equalsIgnoreCase("FINISH")) {
+            return orderFacade.finishOrders(ids);
+        } else {
+            throw new InvalidParameterException();
+        }
+    }
+
 }
@@ -1,6 +1,7 @@
 package cz.fi.muni.pa165.rest.controllers;
 
 import cz.fi.muni.pa165.rest.ApiUris;
+import java.util.HashSet;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -9,12 +10,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import cz.fi.muni.pa165.dto.CategoryDTO;
+import cz.fi.muni.pa165.dto.Color;
 import cz.fi.muni.pa165.dto.NewPriceDTO;
 import cz.fi.muni.pa165.dto.ProductCreateDTO;
 import cz.fi.muni.pa165.dto.ProductDTO;
+import cz.fi.muni.pa165.dto.ProductFacetsDTO;
+import cz.fi.muni.pa165.dto.ProductSuggestionDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryPageDTO;
 import cz.fi.muni.pa165.exceptions.EshopServiceException;
 import cz.fi.muni.pa165.facade.ProductFacade;
 import cz.fi.muni.pa165.rest.exceptions.InvalidParameterException;
@@ -39,15 +45,69 @@ public class ProductsController {
     private ProductFacade productFacade;
 
     /**
-     * Get list of Products curl -i -X GET
-     * http://localhost:8080/eshop-rest/products
+     * Get a page of Products ordered by name curl -i -X GET
+     * http://localhost:8080/eshop-rest/products?size=20
      *
-     * @return ProductDTO
+     * The next page is requested with the cursor returned in the page
+     * http://localhost:8080/eshop-rest/products?size=20&cursor=...
+     *
+     * @param cursor next cursor of the previous page, omitted for the first page
+     * @param size number of products in the page, from 1 to {@value ProductFacade#MAX_PAGE_SIZE}
+     * @return ProductSummaryPageDTO
+     * @throws InvalidParameterException
      */
     @RequestMapping(method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
-    public final List<ProductDTO> getProducts() {
-        logger.debug("rest getProducts()");
-        return productFacade.getAllProducts();
+    public final ProductSummaryPageDTO getProducts(@RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "50") int size) {
+        logger.debug("rest getProducts({}, {})", cursor, size);
+        if (size < 1 || size > ProductFacade.MAX_PAGE_SIZE) {
+            throw new InvalidParameterException();
+        }
+        try {
+            return productFacade.getProductSummaryPage(cursor, size);
+        } catch (EshopServiceException esse) {
+            throw new InvalidParameterException();
+        }
+    }
+
+    /**
+     * Suggest products whose name starts with the typed text, the most often ordered first
+     * curl -i -X GET
+     * http://localhost:8080/eshop-rest/products/suggest?q=ras
+     *
+     * @param query beginning of the product name, case is ignored
+     * @param limit maximum number of suggestions, at most 10
+     * @return ProductSuggestionDTO
+     */
+    @RequestMapping(value = "/suggest", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    public final List<ProductSuggestionDTO> suggestProducts(@RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        logger.debug("rest suggestProducts({}, {})", query, limit);
+        return productFacade.suggestProducts(query, limit);
+    }
+
+    /**
+     * Filter products by colors, categories and price bands and count the products for every facet value
+     * curl -i -X GET
+     * "http://localhost:8080/eshop-rest/products/facets?color=RED&color=BLUE&category=1&priceBand=0"
+     *
+     * @param colors colors of the products, any color if empty
+     * @param categoryIds identifiers of the categories, any category if empty
+     * @param priceBands price bands as returned in the result, any price if empty
+     * @param limit maximum number of returned products
+     * @return ProductFacetsDTO
+     */
+    @RequestMapping(value = "/facets", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    public final ProductFacetsDTO searchProductFacets(
+            @RequestParam(value = "color", required = false) List<Color> colors,
+            @RequestParam(value = "category", required = false) List<Long> categoryIds,
+            @RequestParam(value = "priceBand", required = false) List<Integer> priceBands,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        logger.debug("rest searchProductFacets({}, {}, {})", colors, categoryIds, priceBands);
+        return productFacade.searchProductFacets(
+                (colors == null) ? null : new HashSet<>(colors),
+                (categoryIds == null) ? null : new HashSet<>(categoryIds),
+                (priceBands == null) ? null : new HashSet<>(priceBands), limit);
     }
 
     /**
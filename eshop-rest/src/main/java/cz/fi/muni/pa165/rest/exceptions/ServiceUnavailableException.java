@@ -0,0 +1,9 @@
+package cz.fi.muni.pa165.rest.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason="The service is overloaded, try again later")
+public class ServiceUnavailableException extends RuntimeException {
+    
+} 
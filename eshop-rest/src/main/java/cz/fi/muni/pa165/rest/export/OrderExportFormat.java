@@ -0,0 +1,44 @@
+package cz.fi.muni.pa165.rest.export;
+
+/**
+ * Formats of the order export
+ */
+public enum OrderExportFormat {
+    /**
+     * One JSON object per order and line
+     */
+    NDJSON("application/x-ndjson", "ndjson"),
+    /**
+     * One line per order item, orders without items have one line with empty item columns
+     */
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    OrderExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @param name name of the format, case insensitive
+     * @return the format or null if there is no such format
+     */
+    public static OrderExportFormat fromName(String name) {
+        for (OrderExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
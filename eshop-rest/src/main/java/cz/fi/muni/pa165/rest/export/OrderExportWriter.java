@@ -0,0 +1,109 @@
+package cz.fi.muni.pa165.rest.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.StdDateFormat;
+import cz.fi.muni.pa165.dto.OrderExportDTO;
+import cz.fi.muni.pa165.dto.OrderExportItemDTO;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.function.Consumer;
+
+/**
+ * Writes exported orders as they come. The output is flushed after the header, after the first order
+ * and then after every {@link #FLUSH_EVERY} orders, so the client gets the first bytes immediately
+ * and nothing but the current chunk is kept in buffers.
+ */
+public class OrderExportWriter implements Consumer<OrderExportDTO> {
+
+    public static final int FLUSH_EVERY = 500;
+
+    static final String CSV_HEADER = "order_id,created,state,user_id,user_email,"
+            + "product_id,product_name,amount,price_per_item,currency";
+
+    private final OrderExportFormat format;
+    private final Writer out;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private final StdDateFormat dateFormat = new StdDateFormat();
+    private long written;
+
+    public OrderExportWriter(OrderExportFormat format, Writer out) {
+        this.format = format;
+        this.out = out;
+    }
+
+    /**
+     * Writes the header, if the format has one, and flushes the output.
+     */
+    public void start() throws IOException {
+        if (format == OrderExportFormat.CSV) {
+            out.write(CSV_HEADER);
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    @Override
+    public void accept(OrderExportDTO order) {
+        try {
+            if (format == OrderExportFormat.NDJSON) {
+                objectMapper.writeValue(out, order);
+                out.write('\n');
+            } else {
+                writeCsv(order);
+            }
+            written++;
+            if (written == 1 || written % FLUSH_EVERY == 0) {
+                out.flush();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Flushes the rest of the output.
+     *
+     * @return number of orders written
+     */
+    public long finish() throws IOException {
+        out.flush();
+        return written;
+    }
+
+    private void writeCsv(OrderExportDTO order) throws IOException {
+        String prefix = order.getId() + "," + csv(order.getCreated()) + "," + csv(order.getState())
+                + "," + csv(order.getUserId()) + "," + csv(order.getUserEmail()) + ",";
+        if (order.getItems().isEmpty()) {
+            out.write(prefix + ",,,,\n");
+        }
+        for (OrderExportItemDTO item : order.getItems()) {
+            out.write(prefix + csv(item.getProductId()) + "," + csv(item.getProductName()) + ","
+                    + csv(item.getAmount()) + "," + csv(item.getPricePerItem()) + ","
+                    + csv(item.getCurrency()) + "\n");
+        }
+    }
+
+    private String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Date) {
+            return dateFormat.format((Date) value);
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
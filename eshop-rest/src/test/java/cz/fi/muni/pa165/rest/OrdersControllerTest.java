@@ -1,5 +1,12 @@
 package cz.fi.muni.pa165.rest;
 
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -13,7 +20,10 @@ import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standal
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.mockito.InjectMocks;
@@ -29,8 +39,21 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import cz.fi.muni.pa165.RootWebContext;
+import cz.fi.muni.pa165.dto.OrderCreateDTO;
 import cz.fi.muni.pa165.dto.OrderDTO;
+import cz.fi.muni.pa165.dto.OrderExportDTO;
+import cz.fi.muni.pa165.dto.OrderExportItemDTO;
+import cz.fi.muni.pa165.dto.OrderIntakeStatusDTO;
+import cz.fi.muni.pa165.dto.OrderPageDTO;
+import cz.fi.muni.pa165.dto.OrderTransitionResultDTO;
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.enums.OrderIntakeState;
+import cz.fi.muni.pa165.enums.OrderSort;
 import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.enums.OrderTransitionOutcome;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
+import cz.fi.muni.pa165.exceptions.JobRunningException;
+import cz.fi.muni.pa165.exceptions.OrderIntakeFullException;
 import cz.fi.muni.pa165.facade.OrderFacade;
 import cz.fi.muni.pa165.rest.controllers.OrdersController;
 import static org.mockito.Mockito.doThrow;
@@ -86,6 +109,36 @@ public class OrdersControllerTest extends AbstractTestNGSpringContextTests {
 
     }
     
+    @Test
+    public void searchOrders() throws Exception {
+
+        OrderPageDTO page = new OrderPageDTO();
+        page.setOrders(this.createOrders().subList(0, 2));
+        page.setNext("Mjox");
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(2016, Calendar.FEBRUARY, 1);
+        doReturn(page).when(orderFacade).searchOrders(argThat(search ->
+                search.getStates().equals(EnumSet.of(OrderState.RECEIVED, OrderState.SHIPPED))
+                        && search.getCreatedTo().equals(cal.getTime())
+                        && search.getMinTotal().compareTo(new BigDecimal("1000")) == 0
+                        && search.getSort() == OrderSort.OLDEST), eq("MTox"), eq(2));
+
+        mockMvc.perform(get("/orders/search").param("state", "RECEIVED", "SHIPPED").param("to", "2016-01-31")
+                .param("min_total", "1000").param("sort", "OLDEST").param("cursor", "MTox").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(
+                        content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.orders[1].id").value(2))
+                .andExpect(jsonPath("$.next").value("Mjox"));
+    }
+
+    @Test
+    public void searchOrdersInvalidState() throws Exception {
+        mockMvc.perform(get("/orders/search").param("state", "LOST"))
+                .andExpect(status().isNotAcceptable());
+    }
+
     @Test
     public void getAllOrdersByUserId() throws Exception {
 
@@ -172,7 +225,192 @@ public class OrdersControllerTest extends AbstractTestNGSpringContextTests {
 
     }
     
-    
+
+    @Test
+    public void archiveOrders() throws Exception {
+
+        doReturn(3).when(orderFacade).archiveOldOrders();
+
+        mockMvc.perform(post("/orders/archive"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("3"));
+
+        doThrow(new JobRunningException("running")).when(orderFacade).archiveOldOrders();
+
+        mockMvc.perform(post("/orders/archive"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void cancelStaleOrders() throws Exception {
+
+        doReturn(5l).when(orderFacade).cancelStaleOrders();
+
+        mockMvc.perform(post("/orders/cancel_stale"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("5"));
+
+        doThrow(new JobRunningException("running")).when(orderFacade).cancelStaleOrders();
+
+        mockMvc.perform(post("/orders/cancel_stale"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void shipOrders() throws Exception {
+
+        doReturn(Arrays.asList(transitionResult(1l, OrderTransitionOutcome.CHANGED, OrderState.SHIPPED),
+                transitionResult(2l, OrderTransitionOutcome.NOT_ALLOWED, OrderState.CANCELED),
+                transitionResult(9l, OrderTransitionOutcome.NOT_FOUND, null)))
+                .when(orderFacade).shipOrders(Arrays.asList(1l, 2l, 9l));
+
+        mockMvc.perform(post("/orders").param("action", "SHIP")
+                .contentType(MediaType.APPLICATION_JSON).content("[1,2,9]"))
+                .andExpect(status().isOk())
+                .andExpect(
+                        content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.[?(@.orderId==1)].outcome").value("CHANGED"))
+                .andExpect(jsonPath("$.[?(@.orderId==2)].state").value("CANCELED"))
+                .andExpect(jsonPath("$.[?(@.orderId==9)].outcome").value("NOT_FOUND"));
+    }
+
+    @Test
+    public void changeOrdersInvalidAction() throws Exception {
+
+        mockMvc.perform(post("/orders").param("action", "INVALID")
+                .contentType(MediaType.APPLICATION_JSON).content("[1,2]"))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    public void submitOrder() throws Exception {
+
+        OrderIntakeStatusDTO status = new OrderIntakeStatusDTO();
+        status.setAckId("ack-1");
+        status.setState(OrderIntakeState.QUEUED);
+        doReturn(status).when(orderFacade).submitOrder(any(OrderCreateDTO.class));
+
+        mockMvc.perform(post("/orders/intake").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userId\":1,\"items\":[{\"productId\":2,\"amount\":3}]}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.ackId").value("ack-1"))
+                .andExpect(jsonPath("$.state").value("QUEUED"));
+    }
+
+    @Test
+    public void submitOrderWhenIntakeIsFull() throws Exception {
+
+        doThrow(new OrderIntakeFullException("full")).when(orderFacade).submitOrder(any(OrderCreateDTO.class));
+
+        mockMvc.perform(post("/orders/intake").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userId\":1,\"items\":[{\"productId\":2,\"amount\":3}]}"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void submitOrderWithoutItems() throws Exception {
+
+        doThrow(new EshopServiceException("An order needs at least one product")).when(orderFacade)
+                .submitOrder(any(OrderCreateDTO.class));
+
+        mockMvc.perform(post("/orders/intake").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userId\":1,\"items\":null}"))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    public void getOrderIntakeStatus() throws Exception {
+
+        OrderIntakeStatusDTO status = new OrderIntakeStatusDTO();
+        status.setAckId("ack-2");
+        status.setState(OrderIntakeState.CREATED);
+        status.setOrderId(42l);
+        doReturn(status).when(orderFacade).getOrderIntakeStatus("ack-2");
+        doReturn(null).when(orderFacade).getOrderIntakeStatus("ack-3");
+
+        mockMvc.perform(get("/orders/intake/ack-2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("CREATED"))
+                .andExpect(jsonPath("$.orderId").value(42));
+        mockMvc.perform(get("/orders/intake/ack-3"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void exportOrdersAsNdjson() throws Exception {
+
+        exportedOrders();
+
+        mockMvc.perform(get("/orders/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string(startsWith("{\"id\":1,")))
+                .andExpect(content().string(containsString(
+                        "\"items\":[{\"productId\":7,\"productName\":\"TV, 42\\\"\",\"amount\":2,\"pricePerItem\":10.50,\"currency\":\"CZK\"}]}\n{\"id\":2,")));
+    }
+
+    @Test
+    public void exportOrdersAsCsv() throws Exception {
+
+        exportedOrders();
+
+        mockMvc.perform(get("/orders/export").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(content().string(startsWith(
+                        "order_id,created,state,user_id,user_email,product_id,product_name,amount,price_per_item,currency\n1,")))
+                .andExpect(content().string(containsString(
+                        ",DONE,3,filip@seznam.cz,7,\"TV, 42\"\"\",2,10.50,CZK\n2,")))
+                .andExpect(content().string(endsWith(",CANCELED,3,filip@seznam.cz,,,,,\n")));
+    }
+
+    @Test
+    public void exportOrdersInvalidFormat() throws Exception {
+
+        mockMvc.perform(get("/orders/export").param("format", "xls"))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    private OrderTransitionResultDTO transitionResult(Long orderId, OrderTransitionOutcome outcome, OrderState state) {
+        OrderTransitionResultDTO result = new OrderTransitionResultDTO();
+        result.setOrderId(orderId);
+        result.setOutcome(outcome);
+        result.setState(state);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void exportedOrders() {
+        OrderExportItemDTO item = new OrderExportItemDTO();
+        item.setProductId(7l);
+        item.setProductName("TV, 42\"");
+        item.setAmount(2);
+        item.setPricePerItem(new BigDecimal("10.50"));
+        item.setCurrency(Currency.CZK);
+
+        OrderExportDTO orderOne = new OrderExportDTO();
+        orderOne.setId(1l);
+        orderOne.setState(OrderState.DONE);
+        orderOne.setCreated(Calendar.getInstance().getTime());
+        orderOne.setUserId(3l);
+        orderOne.setUserEmail("filip@seznam.cz");
+        orderOne.getItems().add(item);
+
+        OrderExportDTO orderTwo = new OrderExportDTO();
+        orderTwo.setId(2l);
+        orderTwo.setState(OrderState.CANCELED);
+        orderTwo.setCreated(Calendar.getInstance().getTime());
+        orderTwo.setUserId(3l);
+        orderTwo.setUserEmail("filip@seznam.cz");
+
+        doAnswer(invocation -> {
+            Consumer<OrderExportDTO> consumer = invocation.getArgument(0);
+            consumer.accept(orderOne);
+            consumer.accept(orderTwo);
+            return null;
+        }).when(orderFacade).exportOrders(any());
+    }
+
     private List<OrderDTO> createOrders() {
         
         OrderDTO orderOne = new OrderDTO();
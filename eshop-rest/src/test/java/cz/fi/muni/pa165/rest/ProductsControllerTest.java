@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 
 import org.mockito.InjectMocks;
@@ -44,7 +45,12 @@ import cz.fi.muni.pa165.dto.NewPriceDTO;
 import cz.fi.muni.pa165.dto.PriceDTO;
 import cz.fi.muni.pa165.dto.ProductCreateDTO;
 import cz.fi.muni.pa165.dto.ProductDTO;
+import cz.fi.muni.pa165.dto.ProductFacetsDTO;
+import cz.fi.muni.pa165.dto.ProductSuggestionDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryPageDTO;
 import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
 import cz.fi.muni.pa165.facade.ProductFacade;
 import cz.fi.muni.pa165.rest.controllers.GlobalExceptionController;
 import cz.fi.muni.pa165.rest.controllers.ProductsController;
@@ -105,27 +111,79 @@ public class ProductsControllerTest  extends AbstractTestNGSpringContextTests {
 
 	@Test
 	public void debugTest() throws Exception {
-		doReturn(Collections.unmodifiableList(this.createProducts())).when(
-				productFacade).getAllProducts();
+		doReturn(this.createProductSummaryPage(null)).when(productFacade).getProductSummaryPage(null, 50);
 		mockMvc.perform(get("/products"));//.andDo(print());
 	}
 
 	@Test
 	public void getAllProducts() throws Exception {
 
-		doReturn(Collections.unmodifiableList(this.createProducts())).when(
-				productFacade).getAllProducts();
+		doReturn(this.createProductSummaryPage("next")).when(productFacade).getProductSummaryPage(null, 50);
 
 		mockMvc.perform(get("/products"))
 				.andExpect(status().isOk())
 				.andExpect(
 						content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON_VALUE))
 				.andExpect(
-						jsonPath("$.[?(@.id==10)].name").value("Raspberry PI"))
-				.andExpect(jsonPath("$.[?(@.id==20)].name").value("Arduino"));
+						jsonPath("$.products[?(@.id==10)].name").value("Raspberry PI"))
+				.andExpect(jsonPath("$.products[?(@.id==20)].name").value("Arduino"))
+				.andExpect(jsonPath("$.products[?(@.id==10)].currentPrice.value").value(34))
+				.andExpect(jsonPath("$.next").value("next"));
 
 	}
 
+	@Test
+	public void getNextPageOfProducts() throws Exception {
+		doReturn(this.createProductSummaryPage(null)).when(productFacade).getProductSummaryPage("next", 2);
+
+		mockMvc.perform(get("/products").param("cursor", "next").param("size", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.products[?(@.id==20)].name").value("Arduino"))
+				.andExpect(jsonPath("$.next").doesNotExist());
+	}
+
+	@Test
+	public void getProductsWithInvalidPage() throws Exception {
+		doThrow(new EshopServiceException("Invalid page cursor")).when(productFacade).getProductSummaryPage("x", 50);
+
+		mockMvc.perform(get("/products").param("cursor", "x")).andExpect(status().is4xxClientError());
+		mockMvc.perform(get("/products").param("size", "0")).andExpect(status().is4xxClientError());
+	}
+
+	@Test
+	public void suggestProducts() throws Exception {
+		ProductSuggestionDTO suggestion = new ProductSuggestionDTO();
+		suggestion.setId(10L);
+		suggestion.setName("Raspberry PI");
+		suggestion.setOrderCount(3);
+		doReturn(Collections.singletonList(suggestion)).when(productFacade).suggestProducts("ras", 5);
+
+		mockMvc.perform(get("/products/suggest").param("q", "ras").param("limit", "5"))
+				.andExpect(status().isOk())
+				.andExpect(
+						content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON_VALUE))
+				.andExpect(jsonPath("$[0].name").value("Raspberry PI"))
+				.andExpect(jsonPath("$[0].orderCount").value(3));
+	}
+
+	@Test
+	public void searchProductFacets() throws Exception {
+		ProductFacetsDTO facets = new ProductFacetsDTO();
+		facets.setProducts(this.createProductSummaries());
+		facets.setTotalCount(2);
+		facets.setColorCounts(Collections.singletonMap(Color.BLACK, 2));
+		doReturn(facets).when(productFacade).searchProductFacets(EnumSet.of(Color.BLACK, Color.RED),
+				Collections.singleton(1l), null, 50);
+
+		mockMvc.perform(get("/products/facets").param("color", "BLACK", "RED").param("category", "1"))
+				.andExpect(status().isOk())
+				.andExpect(
+						content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON_VALUE))
+				.andExpect(jsonPath("$.totalCount").value(2))
+				.andExpect(jsonPath("$.colorCounts.BLACK").value(2))
+				.andExpect(jsonPath("$.products[?(@.id==20)].name").value("Arduino"));
+	}
+
 	@Test
 	public void getValidProduct() throws Exception {
 
@@ -259,6 +317,31 @@ public class ProductsControllerTest  extends AbstractTestNGSpringContextTests {
 		return Arrays.asList(productOne, productTwo);
 	}
 
+	private ProductSummaryPageDTO createProductSummaryPage(String next) {
+		ProductSummaryPageDTO page = new ProductSummaryPageDTO();
+		page.setProducts(this.createProductSummaries());
+		page.setNext(next);
+		return page;
+	}
+
+	private List<ProductSummaryDTO> createProductSummaries() {
+		ProductSummaryDTO productOne = new ProductSummaryDTO();
+		productOne.setId(10L);
+		productOne.setName("Raspberry PI");
+		PriceDTO currentPrice = new PriceDTO();
+		currentPrice.setCurrency(Currency.EUR);
+		currentPrice.setValue(new BigDecimal("34"));
+		productOne.setCurrentPrice(currentPrice);
+		productOne.setColor(Color.BLACK);
+
+		ProductSummaryDTO productTwo = new ProductSummaryDTO();
+		productTwo.setId(20L);
+		productTwo.setName("Arduino");
+		productTwo.setColor(Color.WHITE);
+
+		return Arrays.asList(productOne, productTwo);
+	}
+
 	private static String convertObjectToJsonBytes(Object object)
 			throws IOException {
 		ObjectMapper mapper = new ObjectMapper();
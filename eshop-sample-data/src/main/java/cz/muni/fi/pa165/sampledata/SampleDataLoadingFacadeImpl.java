@@ -6,6 +6,7 @@ import cz.fi.muni.pa165.enums.Currency;
 import cz.fi.muni.pa165.enums.OrderState;
 import cz.fi.muni.pa165.service.CategoryService;
 import cz.fi.muni.pa165.service.OrderService;
+import cz.fi.muni.pa165.service.ProductImageService;
 import cz.fi.muni.pa165.service.ProductService;
 import cz.fi.muni.pa165.service.UserService;
 import org.slf4j.Logger;
@@ -14,10 +15,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
+import java.net.URLConnection;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -46,6 +47,8 @@ public class SampleDataLoadingFacadeImpl implements SampleDataLoadingFacade {
     private CategoryService categoryService;
     @Autowired
     private ProductService productService;
+    @Autowired
+    private ProductImageService productImageService;
 
     @Override
     @SuppressWarnings("unused")
@@ -177,22 +180,15 @@ public class SampleDataLoadingFacadeImpl implements SampleDataLoadingFacade {
         }
         pr.setAddedDate(Date.from(day.toInstant()));
 
-        pr.setImage(readImage(imageFile));
-        pr.setImageMimeType(mimeType);
         productService.createProduct(pr);
+        storeImage(pr, imageFile, mimeType);
         return pr;
     }
 
-    private byte[] readImage(String file) throws IOException {
-        try (InputStream is = this.getClass().getResourceAsStream("/" + file)) {
-            int nRead;
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-            byte[] data = new byte[1024];
-            while ((nRead = is.read(data, 0, data.length)) != -1) {
-                buffer.write(data, 0, nRead);
-            }
-            buffer.flush();
-            return buffer.toByteArray();
+    private void storeImage(Product product, String file, String mimeType) throws IOException {
+        URLConnection connection = this.getClass().getResource("/" + file).openConnection();
+        try (InputStream is = connection.getInputStream()) {
+            productImageService.storeImage(product, mimeType, is, connection.getContentLengthLong());
         }
     }
 }
@@ -0,0 +1,60 @@
+package cz.fi.muni.pa165.service;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+/**
+ * Product image kept by the {@link ImageCacheService}, the metadata are those of the cached content.
+ */
+public class CachedImage {
+	private final Long productId;
+	private final String mimeType;
+	private final String contentHash;
+	private final Date lastModified;
+	private final ByteBuffer content;
+
+	public CachedImage(Long productId, String mimeType, String contentHash, Date lastModified, ByteBuffer content) {
+		this.productId = productId;
+		this.mimeType = mimeType;
+		this.contentHash = contentHash;
+		this.lastModified = lastModified;
+		this.content = content;
+	}
+
+	public Long getProductId() {
+		return productId;
+	}
+
+	public String getMimeType() {
+		return mimeType;
+	}
+
+	public long getLength() {
+		return content.capacity();
+	}
+
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	public Date getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * Returns a new read-only view of the content positioned at its start, so callers do not affect each other.
+	 */
+	public ByteBuffer getContent() {
+		return content.duplicate();
+	}
+
+	@Override
+	public String toString() {
+		return "CachedImage{" +
+				"productId=" + productId +
+				", mimeType='" + mimeType + '\'' +
+				", contentHash='" + contentHash + '\'' +
+				", length=" + content.capacity() +
+				'}';
+	}
+}
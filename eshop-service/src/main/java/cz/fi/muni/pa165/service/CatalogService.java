@@ -0,0 +1,42 @@
+package cz.fi.muni.pa165.service;
+
+import cz.fi.muni.pa165.entity.Category;
+import cz.fi.muni.pa165.entity.Product;
+
+/**
+ * Keeps an immutable {@link CatalogSnapshot} for reading the catalog without the database.
+ * Changes made through the product and category services replace the snapshot once they are committed.
+ */
+public interface CatalogService {
+
+	/**
+	 * Returns the current snapshot, it is loaded from the database on first use only.
+	 */
+	CatalogSnapshot getSnapshot();
+
+	/**
+	 * Puts the current state of a created or changed product into the snapshot once the current transaction commits.
+	 * The categories of the product must be loaded.
+	 */
+	void productChanged(Product product);
+
+	/**
+	 * Removes the product from the snapshot once the current transaction commits.
+	 */
+	void productDeleted(Long productId);
+
+	/**
+	 * Puts a created or renamed category into the snapshot once the current transaction commits.
+	 */
+	void categoryChanged(Category category);
+
+	/**
+	 * Removes the category from the snapshot once the current transaction commits.
+	 */
+	void categoryDeleted(Long categoryId);
+
+	/**
+	 * Loads a new snapshot from the database.
+	 */
+	void rebuild();
+}
@@ -0,0 +1,86 @@
+package cz.fi.muni.pa165.service;
+
+import java.util.function.UnaryOperator;
+
+import javax.inject.Inject;
+
+import org.springframework.stereotype.Service;
+
+import cz.fi.muni.pa165.dao.CategoryDao;
+import cz.fi.muni.pa165.dao.ProductDao;
+import cz.fi.muni.pa165.entity.Category;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.projection.ProductSummary;
+import cz.fi.muni.pa165.utils.TransactionUtils;
+
+/**
+ * Implementation of the {@link CatalogService}. Readers only read a volatile field. Writers are serialized,
+ * each copies the current snapshot with its change and publishes the copy.
+ */
+@Service
+public class CatalogServiceImpl implements CatalogService {
+
+	@Inject
+	private ProductDao productDao;
+
+	@Inject
+	private CategoryDao categoryDao;
+
+	/**
+	 * Null until the snapshot is loaded.
+	 */
+	private volatile CatalogSnapshot snapshot;
+
+	@Override
+	public CatalogSnapshot getSnapshot() {
+		CatalogSnapshot current = snapshot;
+		return (current != null) ? current : load();
+	}
+
+	private synchronized CatalogSnapshot load() {
+		if (snapshot == null) {
+			snapshot = CatalogSnapshot.of(productDao.findAllSummaries(), categoryDao.findAll());
+		}
+		return snapshot;
+	}
+
+	@Override
+	public synchronized void rebuild() {
+		snapshot = CatalogSnapshot.of(productDao.findAllSummaries(), categoryDao.findAll());
+	}
+
+	@Override
+	public void productChanged(Product product) {
+		//the entity may be changed again or detached before the commit
+		ProductSummary summary = ProductSummary.of(product);
+		TransactionUtils.afterCommit(() -> update(s -> s.withProduct(summary)));
+	}
+
+	@Override
+	public void productDeleted(Long productId) {
+		TransactionUtils.afterCommit(() -> update(s -> s.withoutProduct(productId)));
+	}
+
+	@Override
+	public void categoryChanged(Category category) {
+		Long id = category.getId();
+		String name = category.getName();
+		TransactionUtils.afterCommit(() -> update(s -> s.withCategory(id, name)));
+	}
+
+	@Override
+	public void categoryDeleted(Long categoryId) {
+		TransactionUtils.afterCommit(() -> update(s -> s.withoutCategory(categoryId)));
+	}
+
+	/**
+	 * Replaces the snapshot with its changed copy. Nothing is done before the snapshot is loaded,
+	 * the change is then read from the database. Changes are idempotent, so a change that was already
+	 * read by a concurrent load can be applied again.
+	 */
+	private synchronized void update(UnaryOperator<CatalogSnapshot> change) {
+		if (snapshot != null) {
+			snapshot = change.apply(snapshot);
+		}
+	}
+}
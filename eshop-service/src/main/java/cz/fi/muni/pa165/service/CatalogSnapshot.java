@@ -0,0 +1,735 @@
+package cz.fi.muni.pa165.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+import cz.fi.muni.pa165.dto.Color;
+import cz.fi.muni.pa165.entity.Category;
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.projection.ProductSummary;
+
+/**
+ * Immutable copy of the catalog: products with their current prices and categories, and the categories.
+ * Products are kept ordered by name and id in parallel primitive arrays, names are interned. A snapshot is never
+ * changed, the with/without methods return a changed copy, so any number of threads can read it without locking.
+ * A copy inserts or removes the changed entry at its position in the arrays, the arrays it does not change
+ * are shared with the original. Read methods return new objects, callers may change them.
+ */
+public final class CatalogSnapshot {
+
+	public static final CatalogSnapshot EMPTY = of(Collections.emptyList(), Collections.emptyList());
+
+	private static final long NONE = Long.MIN_VALUE;
+
+	private static final Color[] COLORS = Color.values();
+
+	private static final Currency[] CURRENCIES = Currency.values();
+
+	private static final Comparator<ProductSummary> BY_NAME = Comparator
+			.comparing(ProductSummary::getName).thenComparing(ProductSummary::getId);
+
+	//products ordered by name and id
+	private final long[] productIds;
+	private final String[] productNames;
+	private final byte[] colors;
+	private final long[] addedDates;
+	private final long[] unscaledPrices;
+	private final int[] priceScales;
+	/**
+	 * Prices which do not fit into unscaledPrices and priceScales, null when there are none.
+	 */
+	private final BigDecimal[] largePrices;
+	private final byte[] priceCurrencies;
+	private final long[] priceStarts;
+	/**
+	 * Categories of product i are at indexes from productCategoryStarts[i] to productCategoryStarts[i + 1].
+	 */
+	private final int[] productCategoryStarts;
+	private final long[] productCategoryIds;
+	private final long[] sortedProductIds;
+	private final int[] productIndexesById;
+
+	//categories ordered by name
+	private final long[] categoryIds;
+	private final String[] categoryNames;
+	/**
+	 * Indexes of the products of category i are at indexes from categoryProductStarts[i] to categoryProductStarts[i + 1].
+	 */
+	private final int[] categoryProductStarts;
+	private final int[] categoryProducts;
+	private final long[] sortedCategoryIds;
+	private final int[] categoryIndexesById;
+
+	/**
+	 * Creates a snapshot of the products and categories. Category ids of the products which are not among
+	 * the categories are left out.
+	 */
+	public static CatalogSnapshot of(List<ProductSummary> products, List<Category> categories) {
+		Columns columns = new Columns();
+		List<Category> sortedCategories = new ArrayList<>(categories);
+		sortedCategories.sort(Comparator.comparing(Category::getName));
+		int categoryCount = sortedCategories.size();
+		columns.categoryIds = new long[categoryCount];
+		columns.categoryNames = new String[categoryCount];
+		for (int c = 0; c < categoryCount; c++) {
+			columns.categoryIds[c] = sortedCategories.get(c).getId();
+			columns.categoryNames[c] = sortedCategories.get(c).getName().intern();
+		}
+		columns.sortedCategoryIds = columns.categoryIds.clone();
+		columns.categoryIndexesById = indexesById(columns.categoryIds, columns.sortedCategoryIds);
+
+		List<ProductSummary> sortedProducts = new ArrayList<>(products);
+		sortedProducts.sort(BY_NAME);
+		int productCount = sortedProducts.size();
+		columns.productIds = new long[productCount];
+		columns.productNames = new String[productCount];
+		columns.colors = new byte[productCount];
+		columns.addedDates = new long[productCount];
+		columns.unscaledPrices = new long[productCount];
+		columns.priceScales = new int[productCount];
+		columns.priceCurrencies = new byte[productCount];
+		columns.priceStarts = new long[productCount];
+		columns.productCategoryStarts = new int[productCount + 1];
+		long[] categoryIdsOfProducts = new long[16];
+		int[] productCountsByCategory = new int[categoryCount];
+		int links = 0;
+		for (int i = 0; i < productCount; i++) {
+			ProductSummary product = sortedProducts.get(i);
+			columns.productIds[i] = product.getId();
+			columns.setProduct(i, product);
+			columns.productCategoryStarts[i] = links;
+			for (Long categoryId : product.getCategoryIds()) {
+				int c = index(columns.sortedCategoryIds, columns.categoryIndexesById, categoryId);
+				if (c >= 0) {
+					if (links == categoryIdsOfProducts.length) {
+						categoryIdsOfProducts = Arrays.copyOf(categoryIdsOfProducts, links * 2);
+					}
+					categoryIdsOfProducts[links++] = categoryId;
+					productCountsByCategory[c]++;
+				}
+			}
+			Arrays.sort(categoryIdsOfProducts, columns.productCategoryStarts[i], links);
+		}
+		columns.productCategoryStarts[productCount] = links;
+		columns.productCategoryIds = Arrays.copyOf(categoryIdsOfProducts, links);
+		columns.sortedProductIds = columns.productIds.clone();
+		columns.productIndexesById = indexesById(columns.productIds, columns.sortedProductIds);
+
+		columns.categoryProductStarts = new int[categoryCount + 1];
+		for (int c = 0; c < categoryCount; c++) {
+			columns.categoryProductStarts[c + 1] = columns.categoryProductStarts[c] + productCountsByCategory[c];
+		}
+		columns.categoryProducts = new int[links];
+		int[] next = Arrays.copyOf(columns.categoryProductStarts, categoryCount);
+		//products are visited in name order, so the products of every category stay ordered by name
+		for (int i = 0; i < productCount; i++) {
+			for (int l = columns.productCategoryStarts[i]; l < columns.productCategoryStarts[i + 1]; l++) {
+				int c = index(columns.sortedCategoryIds, columns.categoryIndexesById, columns.productCategoryIds[l]);
+				columns.categoryProducts[next[c]++] = i;
+			}
+		}
+		return new CatalogSnapshot(columns);
+	}
+
+	private CatalogSnapshot(Columns columns) {
+		productIds = columns.productIds;
+		productNames = columns.productNames;
+		colors = columns.colors;
+		addedDates = columns.addedDates;
+		unscaledPrices = columns.unscaledPrices;
+		priceScales = columns.priceScales;
+		largePrices = columns.largePrices;
+		priceCurrencies = columns.priceCurrencies;
+		priceStarts = columns.priceStarts;
+		productCategoryStarts = columns.productCategoryStarts;
+		productCategoryIds = columns.productCategoryIds;
+		sortedProductIds = columns.sortedProductIds;
+		productIndexesById = columns.productIndexesById;
+		categoryIds = columns.categoryIds;
+		categoryNames = columns.categoryNames;
+		categoryProductStarts = columns.categoryProductStarts;
+		categoryProducts = columns.categoryProducts;
+		sortedCategoryIds = columns.sortedCategoryIds;
+		categoryIndexesById = columns.categoryIndexesById;
+	}
+
+	/**
+	 * Sorts the ids in sortedIds and returns the position in ids of every sorted id.
+	 */
+	private static int[] indexesById(long[] ids, long[] sortedIds) {
+		Integer[] order = new Integer[ids.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparingLong(i -> ids[i]));
+		int[] indexes = new int[ids.length];
+		for (int i = 0; i < order.length; i++) {
+			sortedIds[i] = ids[order[i]];
+			indexes[i] = order[i];
+		}
+		return indexes;
+	}
+
+	private static int index(long[] sortedIds, int[] indexesById, long id) {
+		int position = Arrays.binarySearch(sortedIds, id);
+		return (position < 0) ? -1 : indexesById[position];
+	}
+
+	public int getProductCount() {
+		return productIds.length;
+	}
+
+	/**
+	 * Returns all products ordered by name.
+	 */
+	public List<ProductSummary> getProducts() {
+		List<ProductSummary> products = new ArrayList<>(productIds.length);
+		for (int i = 0; i < productIds.length; i++) {
+			products.add(product(i));
+		}
+		return products;
+	}
+
+	/**
+	 * Returns the product or null if the product is not in the snapshot.
+	 */
+	public ProductSummary getProduct(long id) {
+		int i = index(sortedProductIds, productIndexesById, id);
+		return (i < 0) ? null : product(i);
+	}
+
+	/**
+	 * Returns the products in the category with the given name ordered by name, empty if there is no such category.
+	 */
+	public List<ProductSummary> getProductsInCategory(String categoryName) {
+		int c = Arrays.binarySearch(categoryNames, categoryName);
+		if (c < 0) {
+			return new ArrayList<>();
+		}
+		List<ProductSummary> products = new ArrayList<>(categoryProductStarts[c + 1] - categoryProductStarts[c]);
+		for (int p = categoryProductStarts[c]; p < categoryProductStarts[c + 1]; p++) {
+			products.add(product(categoryProducts[p]));
+		}
+		return products;
+	}
+
+	/**
+	 * Returns at most maxResults products ordered by name and id which follow the product with the given name and id,
+	 * starting with the first product if afterName is null. The position is found by a binary search,
+	 * so the cost does not depend on how far the products are.
+	 */
+	public List<ProductSummary> getProductsAfter(String afterName, Long afterId, int maxResults) {
+		int from = (afterName == null) ? 0 : firstAfter(0, productIds.length, i -> i, afterName, afterId);
+		int to = (int) Math.min(productIds.length, (long) from + maxResults);
+		List<ProductSummary> products = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			products.add(product(i));
+		}
+		return products;
+	}
+
+	/**
+	 * Returns at most maxResults products in the category with the given name which follow the product with the given
+	 * name and id, see {@link #getProductsAfter(String, Long, int)}. Empty if there is no such category.
+	 */
+	public List<ProductSummary> getProductsInCategoryAfter(String categoryName, String afterName, Long afterId,
+			int maxResults) {
+		int c = Arrays.binarySearch(categoryNames, categoryName);
+		if (c < 0) {
+			return new ArrayList<>();
+		}
+		int from = (afterName == null) ? categoryProductStarts[c]
+				: firstAfter(categoryProductStarts[c], categoryProductStarts[c + 1], p -> categoryProducts[p],
+						afterName, afterId);
+		int to = (int) Math.min(categoryProductStarts[c + 1], (long) from + maxResults);
+		List<ProductSummary> products = new ArrayList<>(to - from);
+		for (int p = from; p < to; p++) {
+			products.add(product(categoryProducts[p]));
+		}
+		return products;
+	}
+
+	/**
+	 * Returns the first position from low to high whose product follows the product with the given name and id.
+	 * The products at the positions are ordered by name and id, product maps a position to the product index.
+	 */
+	private int firstAfter(int low, int high, IntUnaryOperator product, String name, long id) {
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			int i = product.applyAsInt(middle);
+			int order = productNames[i].compareTo(name);
+			if (order == 0) {
+				order = Long.compare(productIds[i], id);
+			}
+			if (order <= 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns all categories ordered by name.
+	 */
+	public List<Category> getCategories() {
+		List<Category> categories = new ArrayList<>(categoryIds.length);
+		for (int c = 0; c < categoryIds.length; c++) {
+			categories.add(category(c));
+		}
+		return categories;
+	}
+
+	/**
+	 * Returns the category or null if the category is not in the snapshot.
+	 */
+	public Category getCategory(long id) {
+		int c = index(sortedCategoryIds, categoryIndexesById, id);
+		return (c < 0) ? null : category(c);
+	}
+
+	private ProductSummary product(int i) {
+		boolean hasPrice = priceCurrencies[i] >= 0;
+		BigDecimal price = null;
+		if (hasPrice) {
+			price = (largePrices != null && largePrices[i] != null) ? largePrices[i]
+					: BigDecimal.valueOf(unscaledPrices[i], priceScales[i]);
+		}
+		ProductSummary product = new ProductSummary(productIds[i], productNames[i],
+				(colors[i] < 0) ? null : COLORS[colors[i]],
+				(addedDates[i] == NONE) ? null : new Date(addedDates[i]),
+				price,
+				hasPrice ? CURRENCIES[priceCurrencies[i]] : null,
+				(priceStarts[i] == NONE) ? null : new Date(priceStarts[i]));
+		for (int l = productCategoryStarts[i]; l < productCategoryStarts[i + 1]; l++) {
+			product.addCategoryId(productCategoryIds[l]);
+		}
+		return product;
+	}
+
+	private Category category(int c) {
+		Category category = new Category(categoryIds[c]);
+		category.setName(categoryNames[c]);
+		return category;
+	}
+
+	/**
+	 * Returns a copy with the product added or replaced.
+	 */
+	public CatalogSnapshot withProduct(ProductSummary product) {
+		Columns columns = new Columns(this);
+		int i = index(sortedProductIds, productIndexesById, product.getId());
+		if (i >= 0) {
+			columns.removeProduct(i);
+		}
+		columns.insertProduct(product);
+		return new CatalogSnapshot(columns);
+	}
+
+	/**
+	 * Returns a copy without the product.
+	 */
+	public CatalogSnapshot withoutProduct(Long productId) {
+		int i = index(sortedProductIds, productIndexesById, productId);
+		if (i < 0) {
+			return this;
+		}
+		Columns columns = new Columns(this);
+		columns.removeProduct(i);
+		return new CatalogSnapshot(columns);
+	}
+
+	/**
+	 * Returns a copy with the category added or renamed. A renamed category keeps its products.
+	 */
+	public CatalogSnapshot withCategory(Long categoryId, String name) {
+		int c = index(sortedCategoryIds, categoryIndexesById, categoryId);
+		if (c >= 0 && categoryNames[c].equals(name)) {
+			return this;
+		}
+		Columns columns = new Columns(this);
+		int[] products = new int[0];
+		if (c >= 0) {
+			products = Arrays.copyOfRange(categoryProducts, categoryProductStarts[c], categoryProductStarts[c + 1]);
+			columns.removeCategory(c);
+		}
+		columns.insertCategory(categoryId, name, products);
+		return new CatalogSnapshot(columns);
+	}
+
+	/**
+	 * Returns a copy without the category, the products stay but are no longer in the category.
+	 */
+	public CatalogSnapshot withoutCategory(Long categoryId) {
+		int c = index(sortedCategoryIds, categoryIndexesById, categoryId);
+		if (c < 0) {
+			return this;
+		}
+		Columns columns = new Columns(this);
+		columns.removeCategory(c);
+		columns.removeProductCategory(categoryId);
+		return new CatalogSnapshot(columns);
+	}
+
+	/**
+	 * The arrays of a snapshot being created. A changed copy starts with the arrays of the original and replaces
+	 * every array it changes with a changed copy, the arrays themselves are never written once they are shared.
+	 */
+	private static final class Columns {
+		long[] productIds;
+		String[] productNames;
+		byte[] colors;
+		long[] addedDates;
+		long[] unscaledPrices;
+		int[] priceScales;
+		BigDecimal[] largePrices;
+		byte[] priceCurrencies;
+		long[] priceStarts;
+		int[] productCategoryStarts;
+		long[] productCategoryIds;
+		long[] sortedProductIds;
+		int[] productIndexesById;
+		long[] categoryIds;
+		String[] categoryNames;
+		int[] categoryProductStarts;
+		int[] categoryProducts;
+		long[] sortedCategoryIds;
+		int[] categoryIndexesById;
+
+		Columns() {
+		}
+
+		Columns(CatalogSnapshot snapshot) {
+			productIds = snapshot.productIds;
+			productNames = snapshot.productNames;
+			colors = snapshot.colors;
+			addedDates = snapshot.addedDates;
+			unscaledPrices = snapshot.unscaledPrices;
+			priceScales = snapshot.priceScales;
+			largePrices = snapshot.largePrices;
+			priceCurrencies = snapshot.priceCurrencies;
+			priceStarts = snapshot.priceStarts;
+			productCategoryStarts = snapshot.productCategoryStarts;
+			productCategoryIds = snapshot.productCategoryIds;
+			sortedProductIds = snapshot.sortedProductIds;
+			productIndexesById = snapshot.productIndexesById;
+			categoryIds = snapshot.categoryIds;
+			categoryNames = snapshot.categoryNames;
+			categoryProductStarts = snapshot.categoryProductStarts;
+			categoryProducts = snapshot.categoryProducts;
+			sortedCategoryIds = snapshot.sortedCategoryIds;
+			categoryIndexesById = snapshot.categoryIndexesById;
+		}
+
+		/**
+		 * Fills the attributes of product i except its id and categories into arrays not shared yet.
+		 */
+		void setProduct(int i, ProductSummary product) {
+			productNames[i] = product.getName().intern();
+			colors[i] = (byte) ((product.getColor() == null) ? -1 : product.getColor().ordinal());
+			addedDates[i] = (product.getAddedDate() == null) ? NONE : product.getAddedDate().getTime();
+			priceStarts[i] = (product.getPriceStart() == null) ? NONE : product.getPriceStart().getTime();
+			BigDecimal price = product.getPriceValue();
+			if (price == null || product.getPriceCurrency() == null) {
+				priceCurrencies[i] = -1;
+				return;
+			}
+			priceCurrencies[i] = (byte) product.getPriceCurrency().ordinal();
+			//the scale is kept unless the unscaled value does not fit into a long without the trailing zeros
+			BigDecimal normalized = (price.unscaledValue().bitLength() < Long.SIZE) ? price : price.stripTrailingZeros();
+			if (normalized.unscaledValue().bitLength() < Long.SIZE) {
+				unscaledPrices[i] = normalized.unscaledValue().longValue();
+				priceScales[i] = normalized.scale();
+			} else {
+				if (largePrices == null) {
+					largePrices = new BigDecimal[productIds.length];
+				}
+				largePrices[i] = price;
+			}
+		}
+
+		/**
+		 * Inserts the product at its position in the name order.
+		 */
+		void insertProduct(ProductSummary product) {
+			int at = -productPosition(product.getName(), product.getId()) - 1;
+			long[] links = product.getCategoryIds().stream()
+					.filter(id -> Arrays.binarySearch(sortedCategoryIds, id) >= 0)
+					.mapToLong(Long::longValue).sorted().toArray();
+			productIds = insert(productIds, at, product.getId());
+			productNames = insert(productNames, at, null);
+			colors = insert(colors, at, (byte) 0);
+			addedDates = insert(addedDates, at, 0);
+			unscaledPrices = insert(unscaledPrices, at, 0);
+			priceScales = insert(priceScales, at, 0);
+			largePrices = (largePrices == null) ? null : insert(largePrices, at, null);
+			priceCurrencies = insert(priceCurrencies, at, (byte) 0);
+			priceStarts = insert(priceStarts, at, 0);
+			setProduct(at, product);
+
+			productCategoryIds = insert(productCategoryIds, productCategoryStarts[at], links);
+			int[] starts = new int[productCategoryStarts.length + 1];
+			System.arraycopy(productCategoryStarts, 0, starts, 0, at + 1);
+			for (int i = at; i < productCategoryStarts.length; i++) {
+				starts[i + 1] = productCategoryStarts[i] + links.length;
+			}
+			productCategoryStarts = starts;
+
+			int position = -Arrays.binarySearch(sortedProductIds, product.getId()) - 1;
+			sortedProductIds = insert(sortedProductIds, position, product.getId());
+			productIndexesById = insert(productIndexesById, position, at);
+			shift(productIndexesById, at, 1);
+			productIndexesById[position] = at;
+
+			int[] categoriesOfProduct = new int[links.length];
+			for (int l = 0; l < links.length; l++) {
+				categoriesOfProduct[l] = index(sortedCategoryIds, categoryIndexesById, links[l]);
+			}
+			Arrays.sort(categoriesOfProduct);
+			int[] products = new int[categoryProducts.length + links.length];
+			int[] productStarts = new int[categoryProductStarts.length];
+			int p = 0;
+			int next = 0;
+			for (int c = 0; c < categoryIds.length; c++) {
+				productStarts[c] = p;
+				boolean member = next < categoriesOfProduct.length && categoriesOfProduct[next] == c;
+				for (int l = categoryProductStarts[c]; l < categoryProductStarts[c + 1]; l++) {
+					int i = categoryProducts[l];
+					if (member && i >= at) {
+						products[p++] = at;
+						member = false;
+					}
+					products[p++] = (i >= at) ? i + 1 : i;
+				}
+				if (member) {
+					products[p++] = at;
+				}
+				if (next < categoriesOfProduct.length && categoriesOfProduct[next] == c) {
+					next++;
+				}
+			}
+			productStarts[categoryIds.length] = p;
+			categoryProducts = products;
+			categoryProductStarts = productStarts;
+		}
+
+		/**
+		 * Removes product i, the following products move one position back.
+		 */
+		void removeProduct(int i) {
+			long productId = productIds[i];
+			productIds = remove(productIds, i, i + 1);
+			productNames = remove(productNames, i);
+			colors = remove(colors, i);
+			addedDates = remove(addedDates, i, i + 1);
+			unscaledPrices = remove(unscaledPrices, i, i + 1);
+			priceScales = remove(priceScales, i, i + 1);
+			largePrices = (largePrices == null) ? null : remove(largePrices, i);
+			priceCurrencies = remove(priceCurrencies, i);
+			priceStarts = remove(priceStarts, i, i + 1);
+
+			int linkCount = productCategoryStarts[i + 1] - productCategoryStarts[i];
+			productCategoryIds = remove(productCategoryIds, productCategoryStarts[i], productCategoryStarts[i + 1]);
+			int[] starts = new int[productCategoryStarts.length - 1];
+			System.arraycopy(productCategoryStarts, 0, starts, 0, i + 1);
+			for (int j = i + 1; j < starts.length; j++) {
+				starts[j] = productCategoryStarts[j + 1] - linkCount;
+			}
+			productCategoryStarts = starts;
+
+			int position = Arrays.binarySearch(sortedProductIds, productId);
+			sortedProductIds = remove(sortedProductIds, position, position + 1);
+			productIndexesById = remove(productIndexesById, position, position + 1);
+			shift(productIndexesById, i + 1, -1);
+
+			int[] products = new int[categoryProducts.length - linkCount];
+			int[] productStarts = new int[categoryProductStarts.length];
+			int p = 0;
+			for (int c = 0; c < categoryIds.length; c++) {
+				productStarts[c] = p;
+				for (int l = categoryProductStarts[c]; l < categoryProductStarts[c + 1]; l++) {
+					int j = categoryProducts[l];
+					if (j != i) {
+						products[p++] = (j > i) ? j - 1 : j;
+					}
+				}
+			}
+			productStarts[categoryIds.length] = p;
+			categoryProducts = products;
+			categoryProductStarts = productStarts;
+		}
+
+		/**
+		 * Inserts the category at its position in the name order with the given indexes of its products.
+		 */
+		void insertCategory(long categoryId, String name, int[] products) {
+			int found = Arrays.binarySearch(categoryNames, name);
+			int at = (found < 0) ? -found - 1 : found;
+			categoryIds = insert(categoryIds, at, categoryId);
+			categoryNames = insert(categoryNames, at, name.intern());
+
+			int position = -Arrays.binarySearch(sortedCategoryIds, categoryId) - 1;
+			sortedCategoryIds = insert(sortedCategoryIds, position, categoryId);
+			categoryIndexesById = insert(categoryIndexesById, position, at);
+			shift(categoryIndexesById, at, 1);
+			categoryIndexesById[position] = at;
+
+			categoryProducts = insert(categoryProducts, categoryProductStarts[at], products);
+			int[] starts = new int[categoryProductStarts.length + 1];
+			System.arraycopy(categoryProductStarts, 0, starts, 0, at + 1);
+			for (int c = at; c < categoryProductStarts.length; c++) {
+				starts[c + 1] = categoryProductStarts[c] + products.length;
+			}
+			categoryProductStarts = starts;
+		}
+
+		/**
+		 * Removes category c with the indexes of its products, the products keep the category id.
+		 */
+		void removeCategory(int c) {
+			long categoryId = categoryIds[c];
+			categoryIds = remove(categoryIds, c, c + 1);
+			categoryNames = remove(categoryNames, c);
+
+			int position = Arrays.binarySearch(sortedCategoryIds, categoryId);
+			sortedCategoryIds = remove(sortedCategoryIds, position, position + 1);
+			categoryIndexesById = remove(categoryIndexesById, position, position + 1);
+			shift(categoryIndexesById, c + 1, -1);
+
+			int productCount = categoryProductStarts[c + 1] - categoryProductStarts[c];
+			categoryProducts = remove(categoryProducts, categoryProductStarts[c], categoryProductStarts[c + 1]);
+			int[] starts = new int[categoryProductStarts.length - 1];
+			System.arraycopy(categoryProductStarts, 0, starts, 0, c + 1);
+			for (int j = c + 1; j < starts.length; j++) {
+				starts[j] = categoryProductStarts[j + 1] - productCount;
+			}
+			categoryProductStarts = starts;
+		}
+
+		/**
+		 * Removes the category id from the categories of all products.
+		 */
+		void removeProductCategory(long categoryId) {
+			long[] links = new long[productCategoryIds.length];
+			int[] starts = new int[productCategoryStarts.length];
+			int l = 0;
+			for (int i = 0; i < productIds.length; i++) {
+				starts[i] = l;
+				for (int k = productCategoryStarts[i]; k < productCategoryStarts[i + 1]; k++) {
+					if (productCategoryIds[k] != categoryId) {
+						links[l++] = productCategoryIds[k];
+					}
+				}
+			}
+			starts[productIds.length] = l;
+			productCategoryIds = Arrays.copyOf(links, l);
+			productCategoryStarts = starts;
+		}
+
+		/**
+		 * Returns the index of the product with the given name and id in the name order like
+		 * {@link Arrays#binarySearch(long[], long)}, (-(insertion point) - 1) if there is no such product.
+		 */
+		private int productPosition(String name, long id) {
+			int low = 0;
+			int high = productIds.length - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				int order = productNames[middle].compareTo(name);
+				if (order == 0) {
+					order = Long.compare(productIds[middle], id);
+				}
+				if (order < 0) {
+					low = middle + 1;
+				} else if (order > 0) {
+					high = middle - 1;
+				} else {
+					return middle;
+				}
+			}
+			return -(low + 1);
+		}
+	}
+
+	/**
+	 * Adds by to the indexes at least as large as from.
+	 */
+	private static void shift(int[] indexes, int from, int by) {
+		for (int i = 0; i < indexes.length; i++) {
+			if (indexes[i] >= from) {
+				indexes[i] += by;
+			}
+		}
+	}
+
+	private static long[] insert(long[] array, int at, long... values) {
+		long[] copy = new long[array.length + values.length];
+		System.arraycopy(array, 0, copy, 0, at);
+		System.arraycopy(values, 0, copy, at, values.length);
+		System.arraycopy(array, at, copy, at + values.length, array.length - at);
+		return copy;
+	}
+
+	private static int[] insert(int[] array, int at, int... values) {
+		int[] copy = new int[array.length + values.length];
+		System.arraycopy(array, 0, copy, 0, at);
+		System.arraycopy(values, 0, copy, at, values.length);
+		System.arraycopy(array, at, copy, at + values.length, array.length - at);
+		return copy;
+	}
+
+	private static byte[] insert(byte[] array, int at, byte value) {
+		byte[] copy = new byte[array.length + 1];
+		System.arraycopy(array, 0, copy, 0, at);
+		copy[at] = value;
+		System.arraycopy(array, at, copy, at + 1, array.length - at);
+		return copy;
+	}
+
+	private static <T> T[] insert(T[] array, int at, T value) {
+		T[] copy = Arrays.copyOf(array, array.length + 1);
+		System.arraycopy(array, at, copy, at + 1, array.length - at);
+		copy[at] = value;
+		return copy;
+	}
+
+	/**
+	 * Returns a copy without the elements from index from to index to, exclusive.
+	 */
+	private static long[] remove(long[] array, int from, int to) {
+		long[] copy = new long[array.length - (to - from)];
+		System.arraycopy(array, 0, copy, 0, from);
+		System.arraycopy(array, to, copy, from, array.length - to);
+		return copy;
+	}
+
+	/**
+	 * Returns a copy without the elements from index from to index to, exclusive.
+	 */
+	private static int[] remove(int[] array, int from, int to) {
+		int[] copy = new int[array.length - (to - from)];
+		System.arraycopy(array, 0, copy, 0, from);
+		System.arraycopy(array, to, copy, from, array.length - to);
+		return copy;
+	}
+
+	private static byte[] remove(byte[] array, int at) {
+		byte[] copy = new byte[array.length - 1];
+		System.arraycopy(array, 0, copy, 0, at);
+		System.arraycopy(array, at + 1, copy, at, array.length - at - 1);
+		return copy;
+	}
+
+	private static <T> T[] remove(T[] array, int at) {
+		T[] copy = Arrays.copyOf(array, array.length - 1);
+		System.arraycopy(array, at + 1, copy, at, array.length - at - 1);
+		return copy;
+	}
+}
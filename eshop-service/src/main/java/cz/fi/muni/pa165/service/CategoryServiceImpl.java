@@ -23,6 +23,9 @@ public class CategoryServiceImpl implements CategoryService {
 	@Inject
 	private CategoryDao categoryDao;
 
+	@Inject
+	private CatalogService catalogService;
+
 	@Override
 	public Category findById(Long id) {
 		return categoryDao.findById(id);
@@ -36,11 +39,13 @@ public class CategoryServiceImpl implements CategoryService {
 	@Override
 	public void create(Category category) {
 		categoryDao.create(category);
+		catalogService.categoryChanged(category);
 	}
 
 	@Override
 	public void remove(Category c) {
 		categoryDao.delete(c);
+		catalogService.categoryDeleted(c.getId());
 	}
 
 	@Override
@@ -0,0 +1,62 @@
+package cz.fi.muni.pa165.service;
+
+import java.util.List;
+
+import cz.fi.muni.pa165.projection.IdRange;
+
+/**
+ * A background job run by the {@link JobRunner}, which reads, processes and writes items in chunks.
+ * The items are identified by ids; when a run starts, the range of their ids is split into partitions
+ * processed in parallel, each chunk by chunk in the order of the ids. A chunk is read, processed and written
+ * in its own transaction, together with the checkpoint of its partition, so a stopped run continues
+ * after the last chunk committed.
+ *
+ * @param <I> items read
+ * @param <O> items written
+ */
+public interface ChunkedJob<I, O> {
+
+	/**
+	 * @return name identifying the checkpoints of the job
+	 */
+	String getName();
+
+	/**
+	 * @return maximal number of items read in one transaction
+	 */
+	int getChunkSize();
+
+	/**
+	 * @return number of partitions the ids are split into when a run starts
+	 */
+	int getPartitions();
+
+	/**
+	 * @return time between the runs of the job in the background in minutes, 0 when it runs only on request
+	 */
+	long getIntervalMinutes();
+
+	/**
+	 * Range of the ids of the items to process, read when a new run starts.
+	 */
+	IdRange findIdRange();
+
+	/**
+	 * Reads the items with ids greater than afterId and at most toId, the lowest id first.
+	 */
+	List<I> read(long afterId, long toId, int maxResults);
+
+	long getId(I item);
+
+	/**
+	 * @return the item to write, null when the item is skipped
+	 */
+	O process(I item);
+
+	/**
+	 * Writes the processed items of a chunk, in the transaction of the chunk.
+	 *
+	 * @return number of items changed
+	 */
+	int write(List<O> items);
+}
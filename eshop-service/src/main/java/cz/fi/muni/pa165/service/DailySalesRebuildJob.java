@@ -0,0 +1,131 @@
+package cz.fi.muni.pa165.service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import cz.fi.muni.pa165.dao.OrderStatisticsDao;
+import cz.fi.muni.pa165.projection.IdRange;
+
+/**
+ * Corrects the daily sales rollup by {@link DailySalesService#rebuild(Date, Date)}. The items of the job are
+ * the days from the first to the last order, numbered as in {@link LocalDate#toEpochDay()}; a chunk rebuilds
+ * {@link DailySalesService#REBUILD_CHUNK_DAYS} days in its own transaction and the partitions run in parallel.
+ * Running it through the {@link JobRunner} keeps it from running twice at once and away from the request threads.
+ * The interval and the partitions are read from the eshop.daily-sales.rebuild.* properties when they are set.
+ */
+@Service
+public class DailySalesRebuildJob implements ChunkedJob<Long, Long>, InitializingBean {
+
+	public static final String NAME = "daily-sales-rebuild";
+
+	private long intervalMinutes = 0;
+
+	private int partitions = 2;
+
+	@Autowired
+	private DailySalesService dailySalesService;
+
+	@Autowired
+	private OrderStatisticsDao orderStatisticsDao;
+
+	@Autowired(required = false)
+	private Environment env;
+
+	/**
+	 * @param intervalMinutes time between the runs in the background, 0 disables them
+	 */
+	public void setIntervalMinutes(long intervalMinutes) {
+		this.intervalMinutes = intervalMinutes;
+	}
+
+	/**
+	 * @param partitions number of chunks of days rebuilt at the same time
+	 */
+	public void setPartitions(int partitions) {
+		this.partitions = partitions;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (env != null) {
+			intervalMinutes = env.getProperty("eshop.daily-sales.rebuild.interval-minutes", Long.class,
+					intervalMinutes);
+			partitions = env.getProperty("eshop.daily-sales.rebuild.partitions", Integer.class, partitions);
+		}
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public int getChunkSize() {
+		return DailySalesService.REBUILD_CHUNK_DAYS;
+	}
+
+	@Override
+	public int getPartitions() {
+		return partitions;
+	}
+
+	@Override
+	public long getIntervalMinutes() {
+		return intervalMinutes;
+	}
+
+	/**
+	 * @return days of the first and the last order
+	 */
+	@Override
+	public IdRange findIdRange() {
+		Date first = orderStatisticsDao.getFirstCreated();
+		if (first == null) {
+			return new IdRange(null, null);
+		}
+		return new IdRange(toDay(first), toDay(orderStatisticsDao.getLastCreated()));
+	}
+
+	@Override
+	public List<Long> read(long afterId, long toId, int maxResults) {
+		List<Long> days = new ArrayList<>();
+		for (long day = afterId + 1; day <= toId && days.size() < maxResults; day++) {
+			days.add(day);
+		}
+		return days;
+	}
+
+	@Override
+	public long getId(Long day) {
+		return day;
+	}
+
+	@Override
+	public Long process(Long day) {
+		return day;
+	}
+
+	/**
+	 * @return number of rows corrected
+	 */
+	@Override
+	public int write(List<Long> days) {
+		return dailySalesService.rebuild(toDate(days.get(0)), toDate(days.get(days.size() - 1) + 1));
+	}
+
+	static long toDay(Date time) {
+		return time.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+	}
+
+	static Date toDate(long day) {
+		return Date.from(LocalDate.ofEpochDay(day).atStartOfDay(ZoneId.systemDefault()).toInstant());
+	}
+}
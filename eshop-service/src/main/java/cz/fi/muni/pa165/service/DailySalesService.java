@@ -0,0 +1,43 @@
+package cz.fi.muni.pa165.service;
+
+import java.util.Collection;
+import java.util.Date;
+
+import cz.fi.muni.pa165.entity.Order;
+
+/**
+ * Keeps the {@link cz.fi.muni.pa165.entity.DailySales} rollup in line with the orders.
+ */
+public interface DailySalesService {
+
+	/**
+	 * Adds the items of the order to the rollup within the current transaction. The order must have
+	 * its creation time and items set.
+	 */
+	void orderAdded(Order order);
+
+	/**
+	 * Subtracts the items of the order from the rollup within the current transaction.
+	 */
+	void orderRemoved(Order order);
+
+	/**
+	 * Subtracts the items of the orders from the rollup within the current transaction. The changes are summed
+	 * before the rows are updated, so every row is updated once, and the rows are updated in a fixed order.
+	 */
+	void ordersRemoved(Collection<Order> orders);
+
+	/**
+	 * Corrects the rollup of the days from start (inclusive) to end (exclusive) within the current transaction.
+	 * The sales of the orders and the rows of the rollup are read without locks, again when the rows changed
+	 * or orders of the days were archived meanwhile. The differences are added to the rows like the changes
+	 * of orders, so orders are created and changed meanwhile and only the corrected rows stay locked until
+	 * the transaction ends. Run in chunks of {@link #REBUILD_CHUNK_DAYS} days by the {@link DailySalesRebuildJob}.
+	 *
+	 * @return number of rows corrected
+	 * @throws cz.fi.muni.pa165.exceptions.EshopServiceException when the days kept changing while they were read
+	 */
+	int rebuild(Date start, Date end);
+
+	int REBUILD_CHUNK_DAYS = 31;
+}
@@ -0,0 +1,216 @@
+package cz.fi.muni.pa165.service;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import cz.fi.muni.pa165.dao.DailySalesDao;
+import cz.fi.muni.pa165.dao.OrderArchiveDao;
+import cz.fi.muni.pa165.dao.OrderStatisticsDao;
+import cz.fi.muni.pa165.entity.Order;
+import cz.fi.muni.pa165.entity.OrderItem;
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
+import cz.fi.muni.pa165.projection.DailyProductSales;
+
+@Service
+public class DailySalesServiceImpl implements DailySalesService {
+
+	private static final Logger log = LoggerFactory.getLogger(DailySalesServiceImpl.class);
+
+	/**
+	 * Number of times the days of a rebuild are read before it fails.
+	 */
+	private static final int REBUILD_ATTEMPTS = 5;
+
+	@Autowired
+	private DailySalesDao dailySalesDao;
+
+	@Autowired
+	private OrderStatisticsDao orderStatisticsDao;
+
+	@Autowired
+	private OrderArchiveDao orderArchiveDao;
+
+	@Override
+	public void orderAdded(Order order) {
+		if (order.getState() != OrderState.CANCELED) {
+			add(Collections.singletonList(order), 1);
+		}
+	}
+
+	@Override
+	public void orderRemoved(Order order) {
+		add(Collections.singletonList(order), -1);
+	}
+
+	@Override
+	public void ordersRemoved(Collection<Order> orders) {
+		add(orders, -1);
+	}
+
+	/**
+	 * Adds the orders to the rows of their products and to the totals of their days. The changes of all
+	 * the orders are summed first and every row is updated once, in the order of day, product id (the totals
+	 * last) and currency, so concurrent transactions lock the rows in the same order.
+	 */
+	private void add(Collection<Order> orders, int sign) {
+		Map<RowKey, Sales> rows = new TreeMap<>();
+		for (Order order : orders) {
+			Date day = dayOf(order.getCreated());
+			Map<RowKey, Sales> orderRows = new HashMap<>();
+			for (OrderItem item : order.getOrderItems()) {
+				if (item.getProduct() == null || item.getPricePerItem() == null) {
+					continue;
+				}
+				Currency currency = item.getPricePerItem().getCurrency();
+				BigDecimal revenue = item.getPricePerItem().getValue().multiply(new BigDecimal(item.getAmount()));
+				orderRows.computeIfAbsent(new RowKey(day, item.getProduct().getId(), currency), k -> new Sales())
+						.add(item.getAmount(), revenue);
+				orderRows.computeIfAbsent(new RowKey(day, null, currency), k -> new Sales())
+						.add(item.getAmount(), revenue);
+			}
+			for (Map.Entry<RowKey, Sales> row : orderRows.entrySet()) {
+				rows.computeIfAbsent(row.getKey(), k -> new Sales()).addOrder(row.getValue());
+			}
+		}
+		for (Map.Entry<RowKey, Sales> row : rows.entrySet()) {
+			dailySalesDao.add(row.getValue().toRow(row.getKey(), sign));
+		}
+	}
+
+	/**
+	 * The rows read between two equal counts of changes match the orders read between them: a transaction
+	 * changing orders of these days changes their rows too, before it commits. Only archiving moves orders without
+	 * changing the rows, an order moved between the queries on the live and the archived orders would be missed
+	 * or counted twice, so the archived orders of the days are counted as well.
+	 */
+	@Override
+	public int rebuild(Date start, Date end) {
+		for (int attempt = 1; ; attempt++) {
+			long changes = dailySalesDao.countChanges(start, end);
+			long archived = orderArchiveDao.countCreated(start, end);
+			Map<RowKey, Sales> corrections = new TreeMap<>();
+			add(corrections, orderStatisticsDao.getDailyProductSales(start, end), 1);
+			add(corrections, orderStatisticsDao.getDailyTotalSales(start, end), 1);
+			add(corrections, dailySalesDao.findSales(start, end), -1);
+			if (changes == dailySalesDao.countChanges(start, end)
+					&& archived == orderArchiveDao.countCreated(start, end)) {
+				int rows = 0;
+				for (Map.Entry<RowKey, Sales> row : corrections.entrySet()) {
+					if (!row.getValue().isZero()) {
+						dailySalesDao.add(row.getValue().toRow(row.getKey(), 1));
+						rows++;
+					}
+				}
+				return rows;
+			}
+			if (attempt == REBUILD_ATTEMPTS) {
+				throw new EshopServiceException("Daily sales from " + start + " to " + end + " kept changing, "
+						+ "they were not rebuilt in " + attempt + " attempts");
+			}
+			log.debug("daily sales from {} to {} changed while rebuilding them, attempt {}", start, end, attempt);
+		}
+	}
+
+	private static void add(Map<RowKey, Sales> rows, List<DailyProductSales> sales, int sign) {
+		for (DailyProductSales row : sales) {
+			rows.computeIfAbsent(new RowKey(row.getDay(), row.getProductId(), row.getCurrency()), k -> new Sales())
+					.add(row, sign);
+		}
+	}
+
+	static Date dayOf(Date time) {
+		Calendar cal = Calendar.getInstance();
+		cal.setTime(time);
+		cal.set(Calendar.HOUR_OF_DAY, 0);
+		cal.set(Calendar.MINUTE, 0);
+		cal.set(Calendar.SECOND, 0);
+		cal.set(Calendar.MILLISECOND, 0);
+		return cal.getTime();
+	}
+
+	private static class RowKey implements Comparable<RowKey> {
+		private static final Comparator<RowKey> ORDER = Comparator.comparing((RowKey k) -> k.day)
+				.thenComparing(k -> k.productId, Comparator.nullsLast(Comparator.naturalOrder()))
+				.thenComparing(k -> k.currency);
+
+		private final Date day;
+		private final Long productId;
+		private final Currency currency;
+
+		RowKey(Date day, Long productId, Currency currency) {
+			this.day = day;
+			this.productId = productId;
+			this.currency = currency;
+		}
+
+		@Override
+		public int compareTo(RowKey other) {
+			return ORDER.compare(this, other);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof RowKey)) {
+				return false;
+			}
+			RowKey other = (RowKey) o;
+			return day.equals(other.day) && Objects.equals(productId, other.productId) && currency == other.currency;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(day, productId, currency);
+		}
+	}
+
+	private static class Sales {
+		private long itemsSold;
+		private long orderCount;
+		private BigDecimal revenue = BigDecimal.ZERO;
+
+		void add(int amount, BigDecimal revenue) {
+			this.itemsSold += amount;
+			this.revenue = this.revenue.add(revenue);
+		}
+
+		void add(DailyProductSales row, int sign) {
+			this.itemsSold += sign * row.getItemsSold();
+			this.orderCount += sign * row.getOrderCount();
+			this.revenue = (sign < 0) ? this.revenue.subtract(row.getRevenue()) : this.revenue.add(row.getRevenue());
+		}
+
+		boolean isZero() {
+			return itemsSold == 0 && orderCount == 0 && revenue.signum() == 0;
+		}
+
+		void addOrder(Sales order) {
+			this.itemsSold += order.itemsSold;
+			this.revenue = this.revenue.add(order.revenue);
+			this.orderCount++;
+		}
+
+		DailyProductSales toRow(RowKey key, int sign) {
+			return new DailyProductSales(key.day, key.productId, key.currency, sign * itemsSold, sign * orderCount,
+					(sign < 0) ? revenue.negate() : revenue);
+		}
+	}
+}
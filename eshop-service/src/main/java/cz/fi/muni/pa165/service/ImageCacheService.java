@@ -0,0 +1,54 @@
+package cz.fi.muni.pa165.service;
+
+import java.nio.channels.ReadableByteChannel;
+
+import cz.fi.muni.pa165.entity.ProductImage;
+
+/**
+ * Keeps the content of frequently requested product images outside of the Java heap,
+ * so that serving them needs neither the database nor new heap arrays.
+ * Entries are identified by the product id and the content hash of the image, so an entry
+ * for a changed image is never returned even before it is invalidated. The entries keep
+ * the metadata of the image too, so a cached image is described without loading its entity.
+ */
+public interface ImageCacheService {
+
+	/**
+	 * Returns the cached image.
+	 *
+	 * @return the image or null if the image with the content hash is not cached
+	 */
+	CachedImage get(Long productId, String contentHash);
+
+	/**
+	 * Tells whether an image of the given length fits into the cache.
+	 */
+	boolean canCache(long length);
+
+	/**
+	 * Reads the content from the channel and caches it with the metadata of the image, evicting the least
+	 * recently used images when the cache would exceed its maximum size.
+	 *
+	 * @return the cached image, or null if the image is too large to be cached
+	 * or the channel ends before the length of the image
+	 */
+	CachedImage put(Long productId, ProductImage image, ReadableByteChannel content);
+
+	/**
+	 * Removes the image of the product from the cache.
+	 */
+	void invalidate(Long productId);
+
+	long getHitCount();
+
+	long getMissCount();
+
+	long getEvictionCount();
+
+	int getEntryCount();
+
+	/**
+	 * Total number of bytes of the cached images.
+	 */
+	long getSize();
+}
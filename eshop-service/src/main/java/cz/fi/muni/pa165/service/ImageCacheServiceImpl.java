@@ -0,0 +1,133 @@
+package cz.fi.muni.pa165.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+
+import cz.fi.muni.pa165.entity.ProductImage;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
+
+/**
+ * Implementation of the {@link ImageCacheService} keeping images in direct byte buffers.
+ * The buffers are not copied when they are returned, callers get read-only views of them.
+ */
+@Service
+public class ImageCacheServiceImpl implements ImageCacheService {
+
+	private long maxSize = 32 * 1024 * 1024;
+
+	private long maxEntrySize = 2 * 1024 * 1024;
+
+	/**
+	 * Entries ordered from the least to the most recently used.
+	 */
+	private final LinkedHashMap<Long, CachedImage> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long size;
+
+	private long hits;
+
+	private long misses;
+
+	private long evictions;
+
+	public void setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public void setMaxEntrySize(long maxEntrySize) {
+		this.maxEntrySize = maxEntrySize;
+	}
+
+	@Override
+	public synchronized CachedImage get(Long productId, String contentHash) {
+		CachedImage entry = entries.get(productId);
+		if (entry == null || !entry.getContentHash().equals(contentHash)) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry;
+	}
+
+	@Override
+	public boolean canCache(long length) {
+		return length <= Math.min(maxEntrySize, maxSize);
+	}
+
+	@Override
+	public CachedImage put(Long productId, ProductImage image, ReadableByteChannel content) {
+		if (!canCache(image.getLength())) {
+			return null;
+		}
+		ByteBuffer buffer = ByteBuffer.allocateDirect((int) image.getLength());
+		try {
+			while (buffer.hasRemaining() && content.read(buffer) != -1) {
+				//read until the buffer is full
+			}
+			if (buffer.hasRemaining()) {
+				return null;
+			}
+		} catch (IOException ex) {
+			throw new EshopServiceException("Cannot read image of product " + productId, ex);
+		}
+		buffer.flip();
+		CachedImage cached = new CachedImage(productId, image.getMimeType(), image.getContentHash(),
+				image.getLastModified(), buffer.asReadOnlyBuffer());
+		synchronized (this) {
+			CachedImage previous = entries.put(productId, cached);
+			if (previous != null) {
+				size -= previous.getLength();
+			}
+			size += cached.getLength();
+			Iterator<Map.Entry<Long, CachedImage>> leastRecentlyUsed = entries.entrySet().iterator();
+			while (size > maxSize && leastRecentlyUsed.hasNext()) {
+				Map.Entry<Long, CachedImage> evicted = leastRecentlyUsed.next();
+				if (!evicted.getKey().equals(productId)) {
+					size -= evicted.getValue().getLength();
+					leastRecentlyUsed.remove();
+					evictions++;
+				}
+			}
+		}
+		return cached;
+	}
+
+	@Override
+	public synchronized void invalidate(Long productId) {
+		CachedImage removed = entries.remove(productId);
+		if (removed != null) {
+			size -= removed.getLength();
+		}
+	}
+
+	@Override
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	@Override
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	@Override
+	public synchronized long getEvictionCount() {
+		return evictions;
+	}
+
+	@Override
+	public synchronized int getEntryCount() {
+		return entries.size();
+	}
+
+	@Override
+	public synchronized long getSize() {
+		return size;
+	}
+}
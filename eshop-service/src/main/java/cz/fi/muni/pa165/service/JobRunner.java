@@ -0,0 +1,19 @@
+package cz.fi.muni.pa165.service;
+
+/**
+ * Runs {@link ChunkedJob}s: on request, and in the background every interval of the job. The partitions of
+ * all jobs share a small pool of low priority threads and pause between chunks, so the jobs hold only few
+ * connections and locks and requests served meanwhile are not slowed down much.
+ */
+public interface JobRunner {
+
+	/**
+	 * Runs the job and waits until it ends. A run which was stopped before, by a failure or a shutdown,
+	 * is continued from its checkpoints instead of starting a new one.
+	 *
+	 * @return number of items changed by the run
+	 * @throws cz.fi.muni.pa165.exceptions.JobRunningException when the job is running already
+	 * @throws cz.fi.muni.pa165.exceptions.EshopServiceException when the run fails
+	 */
+	long run(ChunkedJob<?, ?> job);
+}
@@ -0,0 +1,260 @@
+package cz.fi.muni.pa165.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import cz.fi.muni.pa165.dao.JobCheckpointDao;
+import cz.fi.muni.pa165.entity.JobCheckpoint;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
+import cz.fi.muni.pa165.exceptions.JobRunningException;
+import cz.fi.muni.pa165.projection.IdRange;
+
+/**
+ * Implementation of the {@link JobRunner}. The checkpoints of a run are created in one transaction when the run
+ * starts and deleted in one transaction when all partitions are finished. Between those, every partition
+ * reads its checkpoint, the next chunk of items after it and writes the items and the moved checkpoint
+ * in a transaction of its own.
+ */
+@Service
+public class JobRunnerImpl implements JobRunner, InitializingBean, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(JobRunnerImpl.class);
+
+	private int threads = 2;
+
+	private long chunkPauseMillis = 10;
+
+	@Autowired(required = false)
+	private List<ChunkedJob<?, ?>> jobs = Collections.emptyList();
+
+	@Autowired
+	private JobCheckpointDao jobCheckpointDao;
+
+	@Autowired
+	private TimeService timeService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+	private ExecutorService workers;
+
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * @param threads number of partitions processed at the same time by all jobs
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * @param chunkPauseMillis time a partition waits after every chunk, leaving the database to other work
+	 */
+	public void setChunkPauseMillis(long chunkPauseMillis) {
+		this.chunkPauseMillis = chunkPauseMillis;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		AtomicInteger workerCount = new AtomicInteger();
+		workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+				runnable -> {
+					Thread thread = new Thread(runnable, "job-worker-" + workerCount.incrementAndGet());
+					thread.setDaemon(true);
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				});
+		for (ChunkedJob<?, ?> job : jobs) {
+			if (job.getIntervalMinutes() <= 0) {
+				continue;
+			}
+			if (scheduler == null) {
+				scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+					Thread thread = new Thread(runnable, "job-scheduler");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+			scheduler.scheduleWithFixedDelay(() -> {
+				try {
+					run(job);
+				} catch (RuntimeException e) {
+					log.error("Job " + job.getName() + " failed", e);
+				}
+			}, job.getIntervalMinutes(), job.getIntervalMinutes(), TimeUnit.MINUTES);
+		}
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+		workers.shutdownNow();
+		workers.awaitTermination(30, TimeUnit.SECONDS);
+	}
+
+	@Override
+	public long run(ChunkedJob<?, ?> job) {
+		if (!running.add(job.getName())) {
+			throw new JobRunningException("Job " + job.getName() + " is running already");
+		}
+		try {
+			return runPartitions(job);
+		} finally {
+			running.remove(job.getName());
+		}
+	}
+
+	private long runPartitions(ChunkedJob<?, ?> job) {
+		TransactionTemplate tx = newTransaction();
+		List<JobCheckpoint> checkpoints = tx.execute(s -> startOrContinue(job));
+		List<Future<?>> partitions = new ArrayList<>();
+		for (JobCheckpoint checkpoint : checkpoints) {
+			if (!checkpoint.isFinished()) {
+				partitions.add(workers.submit(() -> runPartition(job, checkpoint.getPartitionNo())));
+			}
+		}
+		try {
+			for (Future<?> partition : partitions) {
+				partition.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			partitions.forEach(partition -> partition.cancel(true));
+			throw new EshopServiceException("Job " + job.getName() + " was interrupted", e);
+		} catch (ExecutionException e) {
+			partitions.forEach(partition -> partition.cancel(true));
+			throw new EshopServiceException("Job " + job.getName() + " failed, it continues from its checkpoints "
+					+ "in the next run", e.getCause());
+		}
+		return tx.execute(s -> finish(job));
+	}
+
+	/**
+	 * Reads the checkpoints of the stopped run of the job, or creates the checkpoints of a new run, splitting
+	 * the range of ids into partitions of the same size.
+	 */
+	private List<JobCheckpoint> startOrContinue(ChunkedJob<?, ?> job) {
+		List<JobCheckpoint> checkpoints = jobCheckpointDao.findByJob(job.getName());
+		if (!checkpoints.isEmpty()) {
+			log.info("Continuing job {} started at {}", job.getName(), checkpoints.get(0).getStarted());
+			return checkpoints;
+		}
+		IdRange range = job.findIdRange();
+		if (range.isEmpty()) {
+			return checkpoints;
+		}
+		long ids = range.getMaxId() - range.getMinId() + 1;
+		long partitions = Math.max(1, Math.min(job.getPartitions(), ids));
+		long partitionSize = (ids + partitions - 1) / partitions;
+		for (int i = 0; i < partitions; i++) {
+			long fromId = range.getMinId() + i * partitionSize;
+			long toId = Math.min(range.getMaxId(), fromId + partitionSize - 1);
+			JobCheckpoint checkpoint = new JobCheckpoint(job.getName(), i, fromId, toId, timeService.getCurrentTime());
+			jobCheckpointDao.create(checkpoint);
+			checkpoints.add(checkpoint);
+		}
+		return checkpoints;
+	}
+
+	private <I, O> void runPartition(ChunkedJob<I, O> job, int partitionNo) {
+		TransactionTemplate tx = newTransaction();
+		while (Boolean.TRUE.equals(tx.execute(s -> runChunk(job, partitionNo)))) {
+			if (Thread.currentThread().isInterrupted()) {
+				return;
+			}
+			if (chunkPauseMillis > 0) {
+				try {
+					Thread.sleep(chunkPauseMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads, processes and writes the next chunk of the partition and moves its checkpoint after the chunk.
+	 *
+	 * @return whether there may be more items in the partition
+	 */
+	private <I, O> boolean runChunk(ChunkedJob<I, O> job, int partitionNo) {
+		JobCheckpoint checkpoint = jobCheckpointDao.findByJobAndPartition(job.getName(), partitionNo);
+		long afterId = (checkpoint.getLastId() == null) ? checkpoint.getFromId() - 1 : checkpoint.getLastId();
+		List<I> items = job.read(afterId, checkpoint.getToId(), job.getChunkSize());
+		List<O> processed = new ArrayList<>(items.size());
+		for (I item : items) {
+			O result = job.process(item);
+			if (result != null) {
+				processed.add(result);
+			}
+		}
+		if (!processed.isEmpty()) {
+			checkpoint.setProcessed(checkpoint.getProcessed() + job.write(processed));
+		}
+		if (!items.isEmpty()) {
+			checkpoint.setLastId(job.getId(items.get(items.size() - 1)));
+		}
+		boolean more = items.size() == job.getChunkSize();
+		checkpoint.setFinished(!more);
+		checkpoint.setUpdated(timeService.getCurrentTime());
+		jobCheckpointDao.update(checkpoint);
+		return more;
+	}
+
+	/**
+	 * Deletes the checkpoints of the run when all its partitions are finished.
+	 *
+	 * @return number of items changed by the run
+	 */
+	private long finish(ChunkedJob<?, ?> job) {
+		List<JobCheckpoint> checkpoints = jobCheckpointDao.findByJob(job.getName());
+		long processed = 0;
+		boolean finished = true;
+		for (JobCheckpoint checkpoint : checkpoints) {
+			processed += checkpoint.getProcessed();
+			finished &= checkpoint.isFinished();
+		}
+		if (!finished) {
+			log.info("Job {} was stopped after {} items, it continues in the next run", job.getName(), processed);
+			return processed;
+		}
+		jobCheckpointDao.deleteByJob(job.getName());
+		if (processed > 0) {
+			log.info("Job {} changed {} items", job.getName(), processed);
+		}
+		return processed;
+	}
+
+	private TransactionTemplate newTransaction() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		return tx;
+	}
+}
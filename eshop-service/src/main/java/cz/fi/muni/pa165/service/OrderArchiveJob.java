@@ -0,0 +1,126 @@
+package cz.fi.muni.pa165.service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import cz.fi.muni.pa165.dao.OrderArchiveDao;
+import cz.fi.muni.pa165.projection.IdRange;
+
+/**
+ * Moves DONE and CANCELED orders older than the configured age to the archive, so the tables of the live orders
+ * stay small. Every chunk is moved in the transaction of the chunk, so archiving a long history does not hold
+ * locks on many orders at once. The settings are read from the eshop.orders.archive.* properties
+ * of service.properties when they are set.
+ */
+@Service
+public class OrderArchiveJob implements ChunkedJob<Long, Long>, InitializingBean {
+
+	public static final String NAME = "order-archive";
+
+	private int archiveAfterDays = 90;
+
+	private int chunkSize = 500;
+
+	private int partitions = 2;
+
+	private long intervalMinutes = 60;
+
+	@Autowired
+	private OrderArchiveDao orderArchiveDao;
+
+	@Autowired
+	private TimeService timeService;
+
+	@Autowired(required = false)
+	private Environment env;
+
+	/**
+	 * @param archiveAfterDays age of the orders archived
+	 */
+	public void setArchiveAfterDays(int archiveAfterDays) {
+		this.archiveAfterDays = archiveAfterDays;
+	}
+
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	public void setPartitions(int partitions) {
+		this.partitions = partitions;
+	}
+
+	/**
+	 * @param intervalMinutes time between the runs in the background, 0 disables them
+	 */
+	public void setIntervalMinutes(long intervalMinutes) {
+		this.intervalMinutes = intervalMinutes;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (env != null) {
+			archiveAfterDays = env.getProperty("eshop.orders.archive.after-days", Integer.class, archiveAfterDays);
+			chunkSize = env.getProperty("eshop.orders.archive.chunk-size", Integer.class, chunkSize);
+			partitions = env.getProperty("eshop.orders.archive.partitions", Integer.class, partitions);
+			intervalMinutes = env.getProperty("eshop.orders.archive.interval-minutes", Long.class, intervalMinutes);
+		}
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	@Override
+	public int getPartitions() {
+		return partitions;
+	}
+
+	@Override
+	public long getIntervalMinutes() {
+		return intervalMinutes;
+	}
+
+	@Override
+	public IdRange findIdRange() {
+		return orderArchiveDao.findArchivableIdRange(getCreatedBefore());
+	}
+
+	@Override
+	public List<Long> read(long afterId, long toId, int maxResults) {
+		return orderArchiveDao.findArchivableIds(getCreatedBefore(), afterId, toId, maxResults);
+	}
+
+	@Override
+	public long getId(Long id) {
+		return id;
+	}
+
+	@Override
+	public Long process(Long id) {
+		return id;
+	}
+
+	@Override
+	public int write(List<Long> ids) {
+		return orderArchiveDao.archive(ids, timeService.getCurrentTime());
+	}
+
+	/**
+	 * @return creation time before which finished orders are archived
+	 */
+	private Date getCreatedBefore() {
+		return new Date(timeService.getCurrentTime().getTime() - TimeUnit.DAYS.toMillis(archiveAfterDays));
+	}
+}
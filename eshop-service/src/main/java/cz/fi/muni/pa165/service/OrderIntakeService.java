@@ -0,0 +1,32 @@
+package cz.fi.muni.pa165.service;
+
+import java.util.Map;
+
+/**
+ * Asynchronous intake of new orders. Submitted orders wait in a bounded queue and a single writer thread
+ * creates them in batches, all orders of a batch in one transaction, so that the throughput is limited
+ * by the speed of the batch commits rather than by a transaction per order.
+ */
+public interface OrderIntakeService {
+
+	/**
+	 * Queues a new order of the user for the current prices of the products. When the queue is full,
+	 * waits until the writer takes orders from it.
+	 *
+	 * @param amounts ordered amounts by product id
+	 * @return ticket with the acknowledgement id and the status of the order
+	 * @throws cz.fi.muni.pa165.exceptions.OrderIntakeFullException when the queue stays full
+	 */
+	OrderIntakeTicket submit(Long userId, Map<Long, Integer> amounts);
+
+	/**
+	 * @return ticket of the submitted order, null if the acknowledgement id is unknown or the order
+	 * was finished so long ago that its status expired
+	 */
+	OrderIntakeTicket getTicket(String ackId);
+
+	/**
+	 * @return number of orders waiting in the queue
+	 */
+	int getQueuedCount();
+}
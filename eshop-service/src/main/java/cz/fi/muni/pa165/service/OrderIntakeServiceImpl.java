@@ -0,0 +1,286 @@
+package cz.fi.muni.pa165.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import cz.fi.muni.pa165.entity.Order;
+import cz.fi.muni.pa165.entity.OrderItem;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.entity.User;
+import cz.fi.muni.pa165.enums.OrderIntakeState;
+import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
+import cz.fi.muni.pa165.exceptions.OrderIntakeFullException;
+
+/**
+ * Implementation of the {@link OrderIntakeService}. The submitted orders are kept in a lock-free queue which is bounded
+ * by reserving a place in it before adding an order. The writer thread takes whatever is in the queue, up to a batch,
+ * so the batches grow with the load and a single order is created without waiting for others.
+ */
+@Service
+public class OrderIntakeServiceImpl implements OrderIntakeService, InitializingBean, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(OrderIntakeServiceImpl.class);
+
+	private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	private int capacity = 10000;
+
+	private int batchSize = 200;
+
+	private long offerTimeoutMillis = 2000;
+
+	private long statusRetentionMillis = TimeUnit.MINUTES.toMillis(15);
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private TimeService timeService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final Queue<OrderIntakeTicket> queue = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Number of orders in the queue and of places reserved in it.
+	 */
+	private final AtomicInteger queued = new AtomicInteger();
+
+	private final Map<String, OrderIntakeTicket> tickets = new ConcurrentHashMap<>();
+
+	/**
+	 * Tickets in the order they were finished, used by the writer thread only to expire their statuses.
+	 */
+	private final ArrayDeque<OrderIntakeTicket> finished = new ArrayDeque<>();
+
+	private volatile boolean running;
+
+	private volatile boolean stopped;
+
+	private volatile Thread writer;
+
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public void setOfferTimeoutMillis(long offerTimeoutMillis) {
+		this.offerTimeoutMillis = offerTimeoutMillis;
+	}
+
+	public void setStatusRetentionMillis(long statusRetentionMillis) {
+		this.statusRetentionMillis = statusRetentionMillis;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		running = true;
+		Thread thread = new Thread(this::write, "order-intake-writer");
+		thread.setDaemon(true);
+		writer = thread;
+		thread.start();
+	}
+
+	/**
+	 * Stops accepting orders and waits until the writer creates the queued ones.
+	 */
+	@Override
+	public void destroy() throws InterruptedException {
+		stopped = true;
+		running = false;
+		Thread thread = writer;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+			thread.join(TimeUnit.SECONDS.toMillis(30));
+		}
+	}
+
+	@Override
+	public OrderIntakeTicket submit(Long userId, Map<Long, Integer> amounts) {
+		if (stopped) {
+			throw new EshopServiceException("The order intake is stopped");
+		}
+		if (userId == null || amounts == null || amounts.isEmpty()) {
+			throw new EshopServiceException("An order needs a user and at least one product");
+		}
+		for (Map.Entry<Long, Integer> amount : amounts.entrySet()) {
+			if (amount.getKey() == null || amount.getValue() == null || amount.getValue() < 1) {
+				throw new EshopServiceException("Invalid amount " + amount.getValue() + " of product " + amount.getKey());
+			}
+		}
+		reserve();
+		OrderIntakeTicket ticket = new OrderIntakeTicket(UUID.randomUUID().toString(), userId,
+				new LinkedHashMap<>(amounts), timeService.getCurrentTime());
+		tickets.put(ticket.getAckId(), ticket);
+		queue.offer(ticket);
+		LockSupport.unpark(writer);
+		return ticket;
+	}
+
+	/**
+	 * Reserves a place in the queue, waiting while it is full. This is the back-pressure on the callers
+	 * when the orders are submitted faster than the writer creates them.
+	 */
+	private void reserve() {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+		while (true) {
+			int current = queued.get();
+			if (current < capacity) {
+				if (queued.compareAndSet(current, current + 1)) {
+					return;
+				}
+			} else if (System.nanoTime() - deadline >= 0) {
+				throw new OrderIntakeFullException("The order intake is full, " + current + " orders are waiting");
+			} else {
+				LockSupport.parkNanos(FULL_PARK_NANOS);
+			}
+		}
+	}
+
+	@Override
+	public OrderIntakeTicket getTicket(String ackId) {
+		return tickets.get(ackId);
+	}
+
+	@Override
+	public int getQueuedCount() {
+		return queued.get();
+	}
+
+	private void write() {
+		List<OrderIntakeTicket> batch = new ArrayList<>(batchSize);
+		while (running || !queue.isEmpty()) {
+			OrderIntakeTicket ticket;
+			while (batch.size() < batchSize && (ticket = queue.poll()) != null) {
+				batch.add(ticket);
+			}
+			if (batch.isEmpty()) {
+				expireStatuses();
+				LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+				continue;
+			}
+			queued.addAndGet(-batch.size());
+			try {
+				commit(batch);
+			} catch (Throwable ex) {
+				//errors are caught too, a writer thread that died would leave the intake accepting orders nobody creates
+				log.error("cannot create " + batch.size() + " orders", ex);
+				for (OrderIntakeTicket failed : batch) {
+					if (failed.getState() == OrderIntakeState.QUEUED) {
+						fail(failed, "The order cannot be created");
+					}
+				}
+			}
+			batch.clear();
+			expireStatuses();
+		}
+	}
+
+	/**
+	 * Creates the orders of the batch in one transaction. When the transaction fails, e.g. on a constraint violation
+	 * of one of the orders, each order is created again in its own transaction, so the other orders are not lost.
+	 */
+	private void commit(List<OrderIntakeTicket> batch) {
+		Map<OrderIntakeTicket, Order> created = new LinkedHashMap<>();
+		Map<OrderIntakeTicket, String> rejected = new LinkedHashMap<>();
+		try {
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+				for (OrderIntakeTicket ticket : batch) {
+					try {
+						created.put(ticket, createOrder(ticket));
+					} catch (EshopServiceException ex) {
+						rejected.put(ticket, ex.getMessage());
+					}
+				}
+			});
+		} catch (RuntimeException ex) {
+			if (batch.size() == 1) {
+				log.warn("cannot create order " + batch.get(0).getAckId(), ex);
+				fail(batch.get(0), "The order cannot be saved");
+			} else {
+				log.warn("cannot create a batch of {} orders, creating them one by one", batch.size(), ex);
+				for (OrderIntakeTicket ticket : batch) {
+					commit(Collections.singletonList(ticket));
+				}
+			}
+			return;
+		}
+		log.debug("created {} orders in one transaction, rejected {}", created.size(), rejected.size());
+		for (Map.Entry<OrderIntakeTicket, Order> order : created.entrySet()) {
+			order.getKey().created(order.getValue().getId());
+			finished.addLast(order.getKey());
+		}
+		for (Map.Entry<OrderIntakeTicket, String> reason : rejected.entrySet()) {
+			fail(reason.getKey(), reason.getValue());
+		}
+	}
+
+	private Order createOrder(OrderIntakeTicket ticket) {
+		User user = userService.findUserById(ticket.getUserId());
+		if (user == null) {
+			throw new EshopServiceException("User " + ticket.getUserId() + " does not exist");
+		}
+		Order order = new Order();
+		order.setUser(user);
+		order.setCreated(ticket.getCreated());
+		order.setState(OrderState.RECEIVED);
+		for (Map.Entry<Long, Integer> amount : ticket.getAmounts().entrySet()) {
+			Product product = productService.findById(amount.getKey());
+			if (product == null || product.getCurrentPrice() == null) {
+				throw new EshopServiceException("Product " + amount.getKey() + " cannot be ordered");
+			}
+			OrderItem item = new OrderItem();
+			item.setProduct(product);
+			item.setPricePerItem(product.getCurrentPrice());
+			item.setAmount(amount.getValue());
+			order.addOrderItem(item);
+		}
+		orderService.createOrder(order);
+		return order;
+	}
+
+	private void fail(OrderIntakeTicket ticket, String message) {
+		ticket.failed(message);
+		finished.addLast(ticket);
+	}
+
+	private void expireStatuses() {
+		long expired = System.currentTimeMillis() - statusRetentionMillis;
+		while (!finished.isEmpty() && finished.peekFirst().getFinishedAt() < expired) {
+			tickets.remove(finished.pollFirst().getAckId());
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package cz.fi.muni.pa165.service;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+import cz.fi.muni.pa165.enums.OrderIntakeState;
+
+/**
+ * Order submitted to the {@link OrderIntakeService} and its status. The status is changed by the writer thread
+ * and can be read from any thread.
+ */
+public class OrderIntakeTicket {
+	private final String ackId;
+	private final Long userId;
+	private final Map<Long, Integer> amounts;
+	private final Date created;
+
+	private volatile OrderIntakeState state = OrderIntakeState.QUEUED;
+	private volatile Long orderId;
+	private volatile String message;
+	private volatile long finishedAt;
+
+	public OrderIntakeTicket(String ackId, Long userId, Map<Long, Integer> amounts, Date created) {
+		this.ackId = ackId;
+		this.userId = userId;
+		this.amounts = Collections.unmodifiableMap(amounts);
+		this.created = created;
+	}
+
+	public String getAckId() {
+		return ackId;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	/**
+	 * @return ordered amounts by product id
+	 */
+	public Map<Long, Integer> getAmounts() {
+		return amounts;
+	}
+
+	/**
+	 * @return time the order was submitted, which becomes the time the order was created
+	 */
+	public Date getCreated() {
+		return created;
+	}
+
+	public OrderIntakeState getState() {
+		return state;
+	}
+
+	/**
+	 * @return id of the created order, null until the order is created
+	 */
+	public Long getOrderId() {
+		return orderId;
+	}
+
+	/**
+	 * @return why the order was not created, null unless it failed
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	long getFinishedAt() {
+		return finishedAt;
+	}
+
+	void created(Long orderId) {
+		this.orderId = orderId;
+		this.finishedAt = System.currentTimeMillis();
+		this.state = OrderIntakeState.CREATED;
+	}
+
+	void failed(String message) {
+		this.message = message;
+		this.finishedAt = System.currentTimeMillis();
+		this.state = OrderIntakeState.FAILED;
+	}
+
+	@Override
+	public String toString() {
+		return "OrderIntakeTicket{" +
+				"ackId='" + ackId + '\'' +
+				", state=" + state +
+				", orderId=" + orderId +
+				'}';
+	}
+}
@@ -1,7 +1,12 @@
 package cz.fi.muni.pa165.service;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
+import cz.fi.muni.pa165.dao.OrderSearch;
 import cz.fi.muni.pa165.entity.Order;
 import cz.fi.muni.pa165.entity.Price;
 import cz.fi.muni.pa165.enums.Currency;
@@ -16,7 +21,7 @@ public interface OrderService {
 	void createOrder(Order order);
 
 	/**
-	 * Get all saved orders belonging to the given user.
+	 * Get all saved orders belonging to the given user, the archived ones included.
 	 */
 	List<Order> getOrdersByUser(User user);
 	
@@ -34,11 +39,52 @@ public interface OrderService {
 
 	List<Order> findAllOrders();
 
+	/**
+	 * Finds a page of the orders, see {@link cz.fi.muni.pa165.dao.OrderDao#search(OrderSearch, int)}.
+	 */
+	List<Order> searchOrders(OrderSearch search, int maxResults);
+
+	/**
+	 * Stream all orders ordered by id, see {@link cz.fi.muni.pa165.dao.OrderDao#streamAll()}.
+	 * The stream must be consumed within a transaction and closed.
+	 */
+	Stream<Order> streamAllOrders();
+
 	void shipOrder(Order order);
 	void finishOrder(Order order);
 	void cancelOrder(Order order);
 
+	/**
+	 * Number of orders {@link #changeStates} changes with one statement and in one transaction.
+	 */
+	int BULK_CHUNK_SIZE = 500;
+
+	/**
+	 * Changes the state of many orders at once, where the transition is allowed as in {@link #shipOrder},
+	 * {@link #finishOrder} and {@link #cancelOrder}. The orders are not loaded, the states are changed
+	 * with bulk updates of {@link #BULK_CHUNK_SIZE} orders. Each chunk is committed separately when called
+	 * outside of a transaction, so chunks changed before a failure stay changed.
+	 *
+	 * @return result for every distinct id, in the order of the ids
+	 */
+	List<OrderTransitionResult> changeStates(Collection<Long> ids, OrderState state);
+
+	/**
+	 * Finds the order among the live orders and then among the archived ones. An archived order is returned
+	 * as a copy which is not managed, see {@link cz.fi.muni.pa165.dao.OrderDao}.
+	 */
 	Order findOrderById(Long id);
 
+	/**
+	 * Total price of the order in the currency. The totals are stored when the order is created,
+	 * with the exchange rates of that time, so only orders created otherwise are priced from their items.
+	 */
 	Price getTotalPrice(long orderId, Currency currency);
+
+	/**
+	 * Stored total prices of the orders in the currency, without loading the orders.
+	 *
+	 * @return totals by order id, orders without stored totals are missing
+	 */
+	Map<Long, BigDecimal> getTotalPrices(Collection<Long> orderIds, Currency currency);
 }
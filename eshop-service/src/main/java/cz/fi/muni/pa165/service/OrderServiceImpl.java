@@ -1,22 +1,35 @@
 package cz.fi.muni.pa165.service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import cz.fi.muni.pa165.dao.OrderItemDao;
+import cz.fi.muni.pa165.dao.OrderTotalDao;
 import cz.fi.muni.pa165.entity.OrderItem;
+import cz.fi.muni.pa165.entity.OrderTotal;
 import cz.fi.muni.pa165.entity.Price;
 import cz.fi.muni.pa165.enums.Currency;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import cz.fi.muni.pa165.dao.OrderDao;
+import cz.fi.muni.pa165.dao.OrderFetchPlan;
+import cz.fi.muni.pa165.dao.OrderSearch;
 import cz.fi.muni.pa165.entity.Order;
 import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.enums.OrderTransitionOutcome;
 import cz.fi.muni.pa165.entity.User;
 import cz.fi.muni.pa165.exceptions.EshopServiceException;
 
@@ -32,27 +45,79 @@ public class OrderServiceImpl implements OrderService {
     private OrderItemDao orderItemDao;
     @Autowired
 	private OrderDao orderDao;
+    @Autowired
+    private OrderTotalDao orderTotalDao;
 	@Autowired
 	private TimeService timeService;
     @Autowired
     private ExchangeService exchangeService;
+    @Autowired
+    private DailySalesService dailySalesService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     @Override
     public void createOrder(Order order) {
         for (OrderItem orderItem : order.getOrderItems()) {
             orderItemDao.create(orderItem);
         }
+        addTotals(order);
         orderDao.create(order);
+        dailySalesService.orderAdded(order);
+    }
+
+    /**
+     * Computes the total price of the order in every currency with the current exchange rates.
+     * The prices of the items are summed by their currency first, so each rate is used once.
+     */
+    private void addTotals(Order order) {
+        Map<Currency, BigDecimal> byItemCurrency = new EnumMap<>(Currency.class);
+        for (OrderItem item : order.getOrderItems()) {
+            if (item.getPricePerItem() == null) {
+                continue;
+            }
+            BigDecimal itemPrice = item.getPricePerItem().getValue().multiply(new BigDecimal(item.getAmount()));
+            byItemCurrency.merge(item.getPricePerItem().getCurrency(), itemPrice, BigDecimal::add);
+        }
+        for (Currency currency : Currency.values()) {
+            OrderTotal total = new OrderTotal(currency);
+            BigDecimal totalPrice = BigDecimal.ZERO;
+            for (Map.Entry<Currency, BigDecimal> price : byItemCurrency.entrySet()) {
+                BigDecimal rate = exchangeService.getCurrencyRate(price.getKey(), currency);
+                total.putRate(price.getKey(), rate);
+                totalPrice = totalPrice.add(price.getValue().multiply(rate));
+            }
+            total.setTotal(totalPrice);
+            order.addTotal(total);
+        }
     }
 
     @Override
 	public Order findOrderById(Long id) {
-		return orderDao.findById(id);
+		return orderDao.findById(id, true);
 	}
 
 	@Override
 	public Price getTotalPrice(long orderId, Currency currency) {
-		Order order = this.findOrderById(orderId);
+		BigDecimal stored = orderTotalDao.findTotal(orderId, currency);
+		if (stored != null) {
+			Price price = new Price();
+			price.setCurrency(currency);
+			price.setValue(stored);
+			return price;
+		}
+		return computeTotalPrice(this.findOrderById(orderId), currency);
+	}
+
+	@Override
+	public Map<Long, BigDecimal> getTotalPrices(Collection<Long> orderIds, Currency currency) {
+		return orderTotalDao.findTotals(orderIds, currency);
+	}
+
+	/**
+	 * Total price of an order created without the stored totals, from its items and the current exchange rates.
+	 */
+	private Price computeTotalPrice(Order order, Currency currency) {
         BigDecimal totalPrice = BigDecimal.ZERO;
         for (OrderItem item : order.getOrderItems()) {
             BigDecimal itemPrice = item.getPricePerItem().getValue().multiply(new BigDecimal(item.getAmount()));
@@ -78,9 +143,19 @@ public class OrderServiceImpl implements OrderService {
 		return orderDao.findAll();
 	}
 
+	@Override
+	public List<Order> searchOrders(OrderSearch search, int maxResults) {
+		return orderDao.search(search, maxResults);
+	}
+
+	@Override
+	public Stream<Order> streamAllOrders() {
+		return orderDao.streamAll();
+	}
+
 	@Override
 	public List<Order> getOrdersByUser(User user) {
-		return orderDao.findByUser(user);
+		return orderDao.findByUser(user, OrderFetchPlan.DETAIL, true);
 	}
 
 	@Override
@@ -125,6 +200,45 @@ public class OrderServiceImpl implements OrderService {
 	public void cancelOrder(Order order) {
 		checkTransition(order.getState(), OrderState.CANCELED);
 		order.setState(OrderState.CANCELED);
+		dailySalesService.orderRemoved(order);
+	}
+
+	@Override
+	public List<OrderTransitionResult> changeStates(Collection<Long> ids, OrderState state) {
+		List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+		List<OrderTransitionResult> results = new ArrayList<>(distinctIds.size());
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		for (int i = 0; i < distinctIds.size(); i += BULK_CHUNK_SIZE) {
+			List<Long> chunk = distinctIds.subList(i, Math.min(i + BULK_CHUNK_SIZE, distinctIds.size()));
+			results.addAll(tx.execute(s -> changeStatesOfChunk(chunk, state)));
+		}
+		return results;
+	}
+
+	private List<OrderTransitionResult> changeStatesOfChunk(List<Long> ids, OrderState state) {
+		Map<Long, OrderState> states = orderDao.lockStates(ids);
+		Map<OrderState, List<Long>> idsByOldState = new EnumMap<>(OrderState.class);
+		List<OrderTransitionResult> results = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			OrderState oldState = states.get(id);
+			if (oldState == null) {
+				results.add(new OrderTransitionResult(id, OrderTransitionOutcome.NOT_FOUND, null));
+			} else if (allowedTransitions.contains(new Transition(oldState, state))) {
+				idsByOldState.computeIfAbsent(oldState, s -> new ArrayList<>()).add(id);
+				results.add(new OrderTransitionResult(id, OrderTransitionOutcome.CHANGED, state));
+			} else {
+				results.add(new OrderTransitionResult(id, OrderTransitionOutcome.NOT_ALLOWED, oldState));
+			}
+		}
+		List<Long> changed = new ArrayList<>();
+		for (Map.Entry<OrderState, List<Long>> group : idsByOldState.entrySet()) {
+			orderDao.updateStates(group.getValue(), group.getKey(), state);
+			changed.addAll(group.getValue());
+		}
+		if (state == OrderState.CANCELED) {
+			dailySalesService.ordersRemoved(orderDao.findByIds(changed, OrderFetchPlan.DETAIL));
+		}
+		return results;
 	}
 
 	private void checkTransition(OrderState oldState, OrderState newState) {
@@ -0,0 +1,33 @@
+package cz.fi.muni.pa165.service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.projection.DailyRevenue;
+import cz.fi.muni.pa165.projection.ProductSales;
+
+/**
+ * Order statistics for the admin dashboard. The counts are aggregated by the database,
+ * see {@link cz.fi.muni.pa165.dao.OrderStatisticsDao}, the sales are read from the daily sales rollup,
+ * see {@link DailySalesService}.
+ */
+public interface OrderStatisticsService {
+
+	/**
+	 * Counts the orders in every state, states without orders have count 0.
+	 */
+	Map<OrderState, Long> countOrdersByState();
+
+	/**
+	 * Revenue of the orders created from the day of start (inclusive) to the day of end (exclusive)
+	 * by day and currency, canceled orders are not included. The times of day are ignored.
+	 */
+	List<DailyRevenue> getDailyRevenue(Date start, Date end);
+
+	/**
+	 * Pieces sold of every product ever sold, best-selling first, canceled orders are not included.
+	 */
+	List<ProductSales> getProductSales();
+}
@@ -0,0 +1,52 @@
+package cz.fi.muni.pa165.service;
+
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import cz.fi.muni.pa165.dao.DailySalesDao;
+import cz.fi.muni.pa165.dao.OrderStatisticsDao;
+import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
+import cz.fi.muni.pa165.projection.DailyRevenue;
+import cz.fi.muni.pa165.projection.OrderStateCount;
+import cz.fi.muni.pa165.projection.ProductSales;
+
+@Service
+public class OrderStatisticsServiceImpl implements OrderStatisticsService {
+
+	@Autowired
+	private OrderStatisticsDao orderStatisticsDao;
+
+	@Autowired
+	private DailySalesDao dailySalesDao;
+
+	@Override
+	public Map<OrderState, Long> countOrdersByState() {
+		Map<OrderState, Long> counts = new EnumMap<>(OrderState.class);
+		for (OrderState state : OrderState.values()) {
+			counts.put(state, 0L);
+		}
+		for (OrderStateCount count : orderStatisticsDao.countOrdersByState()) {
+			counts.put(count.getState(), count.getOrderCount());
+		}
+		return counts;
+	}
+
+	@Override
+	public List<DailyRevenue> getDailyRevenue(Date start, Date end) {
+		if (start == null || end == null || !start.before(end)) {
+			throw new EshopServiceException("Invalid period from " + start + " to " + end);
+		}
+		return dailySalesDao.getDailyRevenue(DailySalesServiceImpl.dayOf(start), DailySalesServiceImpl.dayOf(end));
+	}
+
+	@Override
+	public List<ProductSales> getProductSales() {
+		return dailySalesDao.getProductSales();
+	}
+}
@@ -0,0 +1,43 @@
+package cz.fi.muni.pa165.service;
+
+import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.enums.OrderTransitionOutcome;
+
+/**
+ * Result of changing the state of one order by {@link OrderService#changeStates}.
+ */
+public class OrderTransitionResult {
+	private final Long orderId;
+	private final OrderTransitionOutcome outcome;
+	private final OrderState state;
+
+	public OrderTransitionResult(Long orderId, OrderTransitionOutcome outcome, OrderState state) {
+		this.orderId = orderId;
+		this.outcome = outcome;
+		this.state = state;
+	}
+
+	public Long getOrderId() {
+		return orderId;
+	}
+
+	public OrderTransitionOutcome getOutcome() {
+		return outcome;
+	}
+
+	/**
+	 * @return state of the order after the operation, null if the order was not found
+	 */
+	public OrderState getState() {
+		return state;
+	}
+
+	@Override
+	public String toString() {
+		return "OrderTransitionResult{" +
+				"orderId=" + orderId +
+				", outcome=" + outcome +
+				", state=" + state +
+				'}';
+	}
+}
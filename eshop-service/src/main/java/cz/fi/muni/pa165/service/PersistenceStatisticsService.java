@@ -0,0 +1,15 @@
+package cz.fi.muni.pa165.service;
+
+import org.hibernate.stat.Statistics;
+
+/**
+ * Gives access to the counters Hibernate keeps for the persistence unit, among them the counters
+ * of the second-level cache and the number of SQL statements.
+ */
+public interface PersistenceStatisticsService {
+
+	/**
+	 * Returns live counters, they keep changing after the call.
+	 */
+	Statistics getStatistics();
+}
@@ -0,0 +1,49 @@
+package cz.fi.muni.pa165.service;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+import cz.fi.muni.pa165.dto.Color;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.enums.Currency;
+
+/**
+ * Filters products by color, category and price band at once and counts the products in every facet value.
+ * Products are filtered in memory, the database is read only when the index is built.
+ */
+public interface ProductFacetService {
+
+	/**
+	 * Upper limits of the price bands in {@link #PRICE_BAND_CURRENCY}, the last band has no upper limit.
+	 * Band i contains current prices from limit i-1 (inclusive) to limit i (exclusive).
+	 */
+	BigDecimal[] PRICE_BAND_LIMITS = {
+			new BigDecimal(500), new BigDecimal(2000), new BigDecimal(10000), new BigDecimal(50000)};
+
+	Currency PRICE_BAND_CURRENCY = Currency.CZK;
+
+	/**
+	 * Finds products having one of the colors, one of the categories and a price in one of the price bands.
+	 * An empty or null set does not filter by that facet. Products without a color or price do not match
+	 * a color or price filter.
+	 *
+	 * @param maxResults maximum number of returned products, all matching products are counted
+	 */
+	ProductFacets search(Set<Color> colors, Set<Long> categoryIds, Set<Integer> priceBands, int maxResults);
+
+	/**
+	 * Indexes the current state of a created or changed product once the current transaction commits.
+	 * The categories of the product must be loaded.
+	 */
+	void productChanged(Product product);
+
+	/**
+	 * Removes the product from the index once the current transaction commits.
+	 */
+	void productDeleted(Long productId);
+
+	/**
+	 * Reloads all products from the database.
+	 */
+	void rebuild();
+}
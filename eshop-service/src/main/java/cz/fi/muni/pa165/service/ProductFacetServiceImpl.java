@@ -0,0 +1,324 @@
+package cz.fi.muni.pa165.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.inject.Inject;
+
+import org.springframework.stereotype.Service;
+
+import cz.fi.muni.pa165.dao.ProductDao;
+import cz.fi.muni.pa165.dto.Color;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.projection.ProductSummary;
+import cz.fi.muni.pa165.utils.TransactionUtils;
+
+/**
+ * Implementation of the {@link ProductFacetService}. Every indexed product gets a position and every
+ * color, category and price band a bitset of the positions of its products. A search reads the bitsets
+ * once, word by word, combining the selected values with OR and the facets with AND, and counts
+ * the facet values in the same pass. The index is built on first use and then updated with changed products.
+ */
+@Service
+public class ProductFacetServiceImpl implements ProductFacetService {
+
+	private static final long[] EMPTY = new long[0];
+
+	private static final Color[] COLORS = Color.values();
+
+	@Inject
+	private ProductDao productDao;
+
+	@Inject
+	private ExchangeService exchangeService;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private boolean built;
+
+	/**
+	 * Products by position, null at the positions of removed products.
+	 */
+	private final List<Entry> entries = new ArrayList<>();
+
+	private final Map<Long, Integer> positions = new HashMap<>();
+
+	private long[] live = EMPTY;
+
+	private final long[][] colorBits = new long[COLORS.length][];
+
+	private final Map<Long, long[]> categoryBits = new HashMap<>();
+
+	private final long[][] priceBandBits = new long[PRICE_BAND_LIMITS.length + 1][];
+
+	@Override
+	public ProductFacets search(Set<Color> colors, Set<Long> categoryIds, Set<Integer> priceBands, int maxResults) {
+		lock.readLock().lock();
+		try {
+			if (built) {
+				return find(colors, categoryIds, priceBands, maxResults);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		lock.writeLock().lock();
+		try {
+			if (!built) {
+				build();
+			}
+			return find(colors, categoryIds, priceBands, maxResults);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private ProductFacets find(Set<Color> colors, Set<Long> categoryIds, Set<Integer> priceBands, int maxResults) {
+		long[][] selectedColors = null;
+		if (colors != null && !colors.isEmpty()) {
+			selectedColors = colors.stream().map(c -> colorBits[c.ordinal()]).toArray(long[][]::new);
+		}
+		long[][] selectedCategories = null;
+		if (categoryIds != null && !categoryIds.isEmpty()) {
+			selectedCategories = categoryIds.stream().map(id -> categoryBits.getOrDefault(id, EMPTY))
+					.toArray(long[][]::new);
+		}
+		long[][] selectedPriceBands = null;
+		if (priceBands != null && !priceBands.isEmpty()) {
+			selectedPriceBands = priceBands.stream()
+					.map(band -> (band >= 0 && band < priceBandBits.length) ? priceBandBits[band] : EMPTY)
+					.toArray(long[][]::new);
+		}
+		Long[] categories = categoryBits.keySet().toArray(new Long[0]);
+		long[][] categoriesBits = new long[categories.length][];
+		for (int i = 0; i < categories.length; i++) {
+			categoriesBits[i] = categoryBits.get(categories[i]);
+		}
+
+		int[] colorCounts = new int[COLORS.length];
+		int[] categoryCounts = new int[categories.length];
+		int[] priceBandCounts = new int[priceBandBits.length];
+		List<ProductSummary> products = new ArrayList<>(Math.max(0, Math.min(maxResults, positions.size())));
+		int totalCount = 0;
+		for (int w = 0; w < live.length; w++) {
+			long word = live[w];
+			if (word == 0) {
+				continue;
+			}
+			long color = union(selectedColors, w);
+			long category = union(selectedCategories, w);
+			long priceBand = union(selectedPriceBands, w);
+
+			long matching = word & color & category & priceBand;
+			totalCount += Long.bitCount(matching);
+			while (matching != 0 && products.size() < maxResults) {
+				products.add(entries.get(w * 64 + Long.numberOfTrailingZeros(matching)).summary);
+				matching &= matching - 1;
+			}
+			//a facet is counted without its own selection
+			long colorBase = word & category & priceBand;
+			if (colorBase != 0) {
+				for (int i = 0; i < colorCounts.length; i++) {
+					colorCounts[i] += Long.bitCount(colorBase & word(colorBits[i], w));
+				}
+			}
+			long categoryBase = word & color & priceBand;
+			if (categoryBase != 0) {
+				for (int i = 0; i < categoryCounts.length; i++) {
+					categoryCounts[i] += Long.bitCount(categoryBase & word(categoriesBits[i], w));
+				}
+			}
+			long priceBandBase = word & color & category;
+			if (priceBandBase != 0) {
+				for (int i = 0; i < priceBandCounts.length; i++) {
+					priceBandCounts[i] += Long.bitCount(priceBandBase & word(priceBandBits[i], w));
+				}
+			}
+		}
+
+		Map<Color, Integer> colorCountMap = new EnumMap<>(Color.class);
+		for (int i = 0; i < COLORS.length; i++) {
+			colorCountMap.put(COLORS[i], colorCounts[i]);
+		}
+		Map<Long, Integer> categoryCountMap = new TreeMap<>();
+		for (int i = 0; i < categories.length; i++) {
+			categoryCountMap.put(categories[i], categoryCounts[i]);
+		}
+		return new ProductFacets(Collections.unmodifiableList(products), totalCount,
+				Collections.unmodifiableMap(colorCountMap), Collections.unmodifiableMap(categoryCountMap),
+				priceBandCounts);
+	}
+
+	/**
+	 * Returns the word of the union of the bitsets, all ones if no bitsets are selected.
+	 */
+	private static long union(long[][] selected, int w) {
+		if (selected == null) {
+			return -1L;
+		}
+		long result = 0;
+		for (long[] bits : selected) {
+			result |= word(bits, w);
+		}
+		return result;
+	}
+
+	private static long word(long[] bits, int w) {
+		return (w < bits.length) ? bits[w] : 0;
+	}
+
+	private static long[] set(long[] bits, int position) {
+		int w = position >>> 6;
+		if (w >= bits.length) {
+			long[] grown = new long[Math.max(w + 1, bits.length * 2)];
+			System.arraycopy(bits, 0, grown, 0, bits.length);
+			bits = grown;
+		}
+		bits[w] |= 1L << position;
+		return bits;
+	}
+
+	private static void clear(long[] bits, int position) {
+		int w = position >>> 6;
+		if (w < bits.length) {
+			bits[w] &= ~(1L << position);
+		}
+	}
+
+	@Override
+	public void productChanged(Product product) {
+		//the entity may be changed again or detached before the commit
+		ProductSummary summary = ProductSummary.of(product);
+		TransactionUtils.afterCommit(() -> {
+			lock.writeLock().lock();
+			try {
+				if (built) {
+					put(summary);
+				}
+			} finally {
+				lock.writeLock().unlock();
+			}
+		});
+	}
+
+	@Override
+	public void productDeleted(Long productId) {
+		TransactionUtils.afterCommit(() -> {
+			lock.writeLock().lock();
+			try {
+				if (built) {
+					remove(productId);
+				}
+			} finally {
+				lock.writeLock().unlock();
+			}
+		});
+	}
+
+	@Override
+	public void rebuild() {
+		lock.writeLock().lock();
+		try {
+			build();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void build() {
+		entries.clear();
+		positions.clear();
+		live = EMPTY;
+		for (int i = 0; i < colorBits.length; i++) {
+			colorBits[i] = EMPTY;
+		}
+		categoryBits.clear();
+		for (int i = 0; i < priceBandBits.length; i++) {
+			priceBandBits[i] = EMPTY;
+		}
+		for (ProductSummary summary : productDao.findAllSummaries()) {
+			put(summary);
+		}
+		built = true;
+	}
+
+	private void put(ProductSummary summary) {
+		Integer position = positions.get(summary.getId());
+		if (position == null) {
+			position = entries.size();
+			entries.add(null);
+			positions.put(summary.getId(), position);
+		} else {
+			unindex(entries.get(position), position);
+		}
+		Entry entry = new Entry(summary, priceBand(summary.getPriceValue(), summary.getPriceCurrency()));
+		entries.set(position, entry);
+		index(entry, position);
+	}
+
+	private void remove(Long productId) {
+		Integer position = positions.remove(productId);
+		if (position != null) {
+			unindex(entries.get(position), position);
+			entries.set(position, null);
+		}
+	}
+
+	private void index(Entry entry, int position) {
+		live = set(live, position);
+		if (entry.summary.getColor() != null) {
+			int color = entry.summary.getColor().ordinal();
+			colorBits[color] = set(colorBits[color], position);
+		}
+		for (Long categoryId : entry.summary.getCategoryIds()) {
+			categoryBits.put(categoryId, set(categoryBits.getOrDefault(categoryId, EMPTY), position));
+		}
+		if (entry.priceBand >= 0) {
+			priceBandBits[entry.priceBand] = set(priceBandBits[entry.priceBand], position);
+		}
+	}
+
+	private void unindex(Entry entry, int position) {
+		clear(live, position);
+		if (entry.summary.getColor() != null) {
+			clear(colorBits[entry.summary.getColor().ordinal()], position);
+		}
+		for (Long categoryId : entry.summary.getCategoryIds()) {
+			clear(categoryBits.get(categoryId), position);
+		}
+		if (entry.priceBand >= 0) {
+			clear(priceBandBits[entry.priceBand], position);
+		}
+	}
+
+	private int priceBand(BigDecimal value, Currency currency) {
+		if (value == null || currency == null) {
+			return -1;
+		}
+		BigDecimal converted = value.multiply(exchangeService.getCurrencyRate(currency, PRICE_BAND_CURRENCY));
+		int band = 0;
+		while (band < PRICE_BAND_LIMITS.length && converted.compareTo(PRICE_BAND_LIMITS[band]) >= 0) {
+			band++;
+		}
+		return band;
+	}
+
+	private static class Entry {
+		private final ProductSummary summary;
+		private final int priceBand;
+
+		Entry(ProductSummary summary, int priceBand) {
+			this.summary = summary;
+			this.priceBand = priceBand;
+		}
+	}
+}
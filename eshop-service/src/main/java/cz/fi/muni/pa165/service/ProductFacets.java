@@ -0,0 +1,58 @@
+package cz.fi.muni.pa165.service;
+
+import java.util.List;
+import java.util.Map;
+
+import cz.fi.muni.pa165.dto.Color;
+import cz.fi.muni.pa165.projection.ProductSummary;
+
+/**
+ * Products matching a faceted filter of the {@link ProductFacetService} together with the facet counts.
+ * The count of a facet value is the number of products that would match if the value was the only one
+ * selected in its facet, with the selections in the other facets unchanged.
+ */
+public class ProductFacets {
+	private final List<ProductSummary> products;
+	private final int totalCount;
+	private final Map<Color, Integer> colorCounts;
+	private final Map<Long, Integer> categoryCounts;
+	private final int[] priceBandCounts;
+
+	public ProductFacets(List<ProductSummary> products, int totalCount, Map<Color, Integer> colorCounts,
+			Map<Long, Integer> categoryCounts, int[] priceBandCounts) {
+		this.products = products;
+		this.totalCount = totalCount;
+		this.colorCounts = colorCounts;
+		this.categoryCounts = categoryCounts;
+		this.priceBandCounts = priceBandCounts;
+	}
+
+	/**
+	 * Returns the first matching products, at most as many as requested.
+	 */
+	public List<ProductSummary> getProducts() {
+		return products;
+	}
+
+	/**
+	 * Returns the number of all matching products.
+	 */
+	public int getTotalCount() {
+		return totalCount;
+	}
+
+	public Map<Color, Integer> getColorCounts() {
+		return colorCounts;
+	}
+
+	public Map<Long, Integer> getCategoryCounts() {
+		return categoryCounts;
+	}
+
+	/**
+	 * Returns the counts indexed by the price band, see {@link ProductFacetService#PRICE_BAND_LIMITS}.
+	 */
+	public int[] getPriceBandCounts() {
+		return priceBandCounts;
+	}
+}
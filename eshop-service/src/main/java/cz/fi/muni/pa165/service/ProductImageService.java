@@ -0,0 +1,49 @@
+package cz.fi.muni.pa165.service;
+
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.entity.ProductImage;
+
+/**
+ * An interface that defines a service access to the {@link ProductImage} entity.
+ * Image content is only ever handled as a stream.
+ */
+public interface ProductImageService {
+
+	/**
+	 * Creates or replaces the image of the given product. The stream is consumed before the method returns.
+	 */
+	void storeImage(Product product, String mimeType, InputStream data, long length);
+
+	/**
+	 * Finds the image metadata without reading its content.
+	 */
+	ProductImage findImage(Long productId);
+
+	/**
+	 * Finds only the content hash of the image.
+	 *
+	 * @return the hash or null if the product has no image
+	 */
+	String findContentHash(Long productId);
+
+	/**
+	 * Opens the image content. The channel can be read only within the current transaction.
+	 *
+	 * @return the channel or null if the product has no image
+	 */
+	ReadableByteChannel openImage(Long productId);
+
+	/**
+	 * Opens a part of the image content. The channel can be read only within the current transaction.
+	 *
+	 * @param offset index of the first byte, starting at 0
+	 * @param length number of bytes to read
+	 * @return the channel or null if the product has no image
+	 */
+	ReadableByteChannel openImage(Long productId, long offset, long length);
+
+	void removeImage(Long productId);
+}
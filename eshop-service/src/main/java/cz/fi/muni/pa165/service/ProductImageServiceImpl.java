@@ -0,0 +1,55 @@
+package cz.fi.muni.pa165.service;
+
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+import javax.inject.Inject;
+
+import org.springframework.stereotype.Service;
+
+import cz.fi.muni.pa165.dao.ProductImageDao;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.entity.ProductImage;
+
+/**
+ * Implementation of the {@link ProductImageService}.
+ */
+@Service
+public class ProductImageServiceImpl implements ProductImageService {
+
+	@Inject
+	private ProductImageDao productImageDao;
+
+	@Override
+	public void storeImage(Product product, String mimeType, InputStream data, long length) {
+		productImageDao.store(product, mimeType, data, length);
+	}
+
+	@Override
+	public ProductImage findImage(Long productId) {
+		return productImageDao.findByProductId(productId);
+	}
+
+	@Override
+	public String findContentHash(Long productId) {
+		return productImageDao.findContentHash(productId);
+	}
+
+	@Override
+	public ReadableByteChannel openImage(Long productId) {
+		InputStream in = productImageDao.openStream(productId);
+		return (in == null) ? null : Channels.newChannel(in);
+	}
+
+	@Override
+	public ReadableByteChannel openImage(Long productId, long offset, long length) {
+		InputStream in = productImageDao.openStream(productId, offset, length);
+		return (in == null) ? null : Channels.newChannel(in);
+	}
+
+	@Override
+	public void removeImage(Long productId) {
+		productImageDao.remove(productId);
+	}
+}
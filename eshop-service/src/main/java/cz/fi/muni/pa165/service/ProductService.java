@@ -9,6 +9,7 @@ import cz.fi.muni.pa165.entity.Category;
 import cz.fi.muni.pa165.entity.Price;
 import cz.fi.muni.pa165.entity.Product;
 import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.projection.ProductSummary;
 
 
 @Service
@@ -21,5 +22,7 @@ public interface ProductService {
 	public void changePrice(Product product, Price newPrice);
 	public void deleteProduct(Product p);
 	public BigDecimal getPriceValueInCurrency(Product p, Currency currency);
+	public List<ProductSummary> findAllSummaries();
+	public List<ProductSummary> findSummariesByCategory(String categoryName);
 	
 }
@@ -7,6 +7,7 @@ import cz.fi.muni.pa165.entity.Price;
 import cz.fi.muni.pa165.entity.Product;
 import cz.fi.muni.pa165.enums.Currency;
 import cz.fi.muni.pa165.exceptions.EshopServiceException;
+import cz.fi.muni.pa165.projection.ProductSummary;
 import cz.fi.muni.pa165.utils.CurrencyRateUtils;
 
 import org.springframework.stereotype.Service;
@@ -40,6 +41,15 @@ public class ProductServiceImpl implements ProductService {
 	
 	@Inject
 	private ExchangeService exchangeService;
+
+	@Inject
+	private ProductSuggestionService productSuggestionService;
+
+	@Inject
+	private ProductFacetService productFacetService;
+
+	@Inject
+	private CatalogService catalogService;
 	
 	
 	@Override
@@ -52,6 +62,16 @@ public class ProductServiceImpl implements ProductService {
 		return productDao.findAll();
 	}
 
+	@Override
+	public List<ProductSummary> findAllSummaries() {
+		return productDao.findAllSummaries();
+	}
+
+	@Override
+	public List<ProductSummary> findSummariesByCategory(String categoryName) {
+		return productDao.findSummariesByCategory(categoryName);
+	}
+
 	@Override
 	public Product createProduct(Product p) {
         List<Price> priceHistory = p.getPriceHistory();
@@ -59,12 +79,18 @@ public class ProductServiceImpl implements ProductService {
 			priceRepository.save(price);
 		}
 		productDao.create(p);
+		productSuggestionService.productCreated(p);
+		productFacetService.productChanged(p);
+		catalogService.productChanged(p);
 		return p;
 	}
 
 	@Override
 	public void deleteProduct(Product p) {
 		productDao.remove(p);
+		productSuggestionService.productDeleted(p.getId());
+		productFacetService.productDeleted(p.getId());
+		catalogService.productDeleted(p.getId());
 	}
 
 
@@ -97,6 +123,8 @@ public class ProductServiceImpl implements ProductService {
 		priceRepository.save(newPrice);
 		p.addHistoricalPrice(p.getCurrentPrice());
 		p.setCurrentPrice(newPrice);
+		productFacetService.productChanged(p);
+		catalogService.productChanged(p);
 	}
 
 	@Override
@@ -108,11 +136,15 @@ public class ProductServiceImpl implements ProductService {
 							+ category.getId());
 		}
 		product.addCategory(category);
+		productFacetService.productChanged(product);
+		catalogService.productChanged(product);
 	}
 
 	@Override
 	public void removeCategory(Product product, Category category) {
 		product.removeCategory(category);
+		productFacetService.productChanged(product);
+		catalogService.productChanged(product);
 	}
 
 }
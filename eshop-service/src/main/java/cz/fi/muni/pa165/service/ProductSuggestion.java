@@ -0,0 +1,37 @@
+package cz.fi.muni.pa165.service;
+
+/**
+ * Product offered by the {@link ProductSuggestionService}, with the number of orders it appeared in.
+ */
+public class ProductSuggestion {
+	private final Long id;
+	private final String name;
+	private final long orderCount;
+
+	public ProductSuggestion(Long id, String name, long orderCount) {
+		this.id = id;
+		this.name = name;
+		this.orderCount = orderCount;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getOrderCount() {
+		return orderCount;
+	}
+
+	@Override
+	public String toString() {
+		return "ProductSuggestion{" +
+				"id=" + id +
+				", name='" + name + '\'' +
+				", orderCount=" + orderCount +
+				'}';
+	}
+}
@@ -0,0 +1,38 @@
+package cz.fi.muni.pa165.service;
+
+import java.util.List;
+
+import cz.fi.muni.pa165.entity.Product;
+
+/**
+ * Suggests products whose names start with a typed prefix, the most often ordered first.
+ * Suggestions are answered from memory, the database is read only when the suggestions are built.
+ */
+public interface ProductSuggestionService {
+
+	/**
+	 * Returns products whose name starts with the prefix, ignoring case, ordered by the number of orders
+	 * and then by name.
+	 *
+	 * @param maxResults at most {@link #MAX_SUGGESTIONS} are returned even if more are requested
+	 */
+	List<ProductSuggestion> suggest(String prefix, int maxResults);
+
+	/**
+	 * Makes the product available for suggestions once the current transaction commits.
+	 */
+	void productCreated(Product product);
+
+	/**
+	 * Stops suggesting the product once the current transaction commits.
+	 */
+	void productDeleted(Long productId);
+
+	/**
+	 * Reloads all products and their order counts from the database. Suggestions are answered from the previous
+	 * products until the new ones are loaded. Runs periodically in the background.
+	 */
+	void rebuild();
+
+	int MAX_SUGGESTIONS = 10;
+}
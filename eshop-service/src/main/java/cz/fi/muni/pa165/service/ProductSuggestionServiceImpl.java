@@ -0,0 +1,343 @@
+package cz.fi.muni.pa165.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Service;
+
+import cz.fi.muni.pa165.dao.OrderDao;
+import cz.fi.muni.pa165.dao.ProductDao;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.projection.ProductOrderCount;
+import cz.fi.muni.pa165.projection.ProductSummary;
+import cz.fi.muni.pa165.utils.TransactionUtils;
+
+/**
+ * Implementation of the {@link ProductSuggestionService} using a trie over lower-cased product names.
+ * Every node keeps the best {@link #MAX_SUGGESTIONS} products of its subtree, so a suggestion is a walk
+ * along the prefix. The trie is built on first use and then updated with created and deleted products.
+ * Order counts are read when the trie is built; a background thread rebuilds it periodically, so the ranking
+ * follows new orders. A new trie is built without holding the lock, suggestions are answered from the old one
+ * meanwhile. Products created or deleted during the build are applied to the new trie too before it replaces
+ * the old one.
+ */
+@Service
+public class ProductSuggestionServiceImpl implements ProductSuggestionService, InitializingBean, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(ProductSuggestionServiceImpl.class);
+
+	private static final Comparator<ProductSuggestion> BEST_FIRST = Comparator
+			.comparingLong(ProductSuggestion::getOrderCount).reversed()
+			.thenComparing(ProductSuggestion::getName)
+			.thenComparing(ProductSuggestion::getId);
+
+	private long refreshMinutes = 15;
+
+	@Inject
+	private ProductDao productDao;
+
+	@Inject
+	private OrderDao orderDao;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Null until the trie is built, guarded by the lock.
+	 */
+	private Trie trie;
+
+	/**
+	 * Changes made while a new trie is built, null when no trie is built. Guarded by the lock.
+	 */
+	private List<Consumer<Trie>> changesDuringBuild;
+
+	/**
+	 * Serializes the builds.
+	 */
+	private final Object buildMonitor = new Object();
+
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * @param refreshMinutes time between the rebuilds in the background, 0 disables them
+	 */
+	public void setRefreshMinutes(long refreshMinutes) {
+		this.refreshMinutes = refreshMinutes;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (refreshMinutes <= 0) {
+			return;
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "product-suggestions");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				if (isBuilt()) {
+					rebuild();
+				}
+			} catch (RuntimeException e) {
+				log.error("Rebuilding the product suggestions failed", e);
+			}
+		}, refreshMinutes, refreshMinutes, TimeUnit.MINUTES);
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler.awaitTermination(30, TimeUnit.SECONDS);
+		}
+	}
+
+	@Override
+	public List<ProductSuggestion> suggest(String prefix, int maxResults) {
+		String key = prefix.toLowerCase(Locale.ROOT);
+		if (!isBuilt()) {
+			synchronized (buildMonitor) {
+				if (!isBuilt()) {
+					rebuild();
+				}
+			}
+		}
+		lock.readLock().lock();
+		try {
+			return trie.find(key, maxResults);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private boolean isBuilt() {
+		lock.readLock().lock();
+		try {
+			return trie != null;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void productCreated(Product product) {
+		ProductSuggestion suggestion = new ProductSuggestion(product.getId(), product.getName(), 0);
+		TransactionUtils.afterCommit(() -> change(t -> t.add(suggestion)));
+	}
+
+	@Override
+	public void productDeleted(Long productId) {
+		TransactionUtils.afterCommit(() -> change(t -> t.remove(productId)));
+	}
+
+	/**
+	 * Applies the change to the current trie and remembers it for the trie being built. Changes are idempotent,
+	 * so a change the new trie already read from the database can be applied again.
+	 */
+	private void change(Consumer<Trie> change) {
+		lock.writeLock().lock();
+		try {
+			if (trie != null) {
+				change.accept(trie);
+			}
+			if (changesDuringBuild != null) {
+				changesDuringBuild.add(change);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void rebuild() {
+		synchronized (buildMonitor) {
+			lock.writeLock().lock();
+			try {
+				changesDuringBuild = new ArrayList<>();
+			} finally {
+				lock.writeLock().unlock();
+			}
+			try {
+				Trie built = build();
+				lock.writeLock().lock();
+				try {
+					for (Consumer<Trie> change : changesDuringBuild) {
+						change.accept(built);
+					}
+					trie = built;
+				} finally {
+					lock.writeLock().unlock();
+				}
+			} finally {
+				lock.writeLock().lock();
+				try {
+					changesDuringBuild = null;
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+		}
+	}
+
+	private Trie build() {
+		Map<Long, Long> orderCounts = new HashMap<>();
+		for (ProductOrderCount count : orderDao.countOrdersByProduct()) {
+			orderCounts.put(count.getProductId(), count.getOrderCount());
+		}
+		Trie built = new Trie();
+		for (ProductSummary product : productDao.findAllSummaries()) {
+			built.add(new ProductSuggestion(product.getId(), product.getName(),
+					orderCounts.getOrDefault(product.getId(), 0L)));
+		}
+		return built;
+	}
+
+	private static class Trie {
+		private final Node root = new Node();
+		private final Map<Long, ProductSuggestion> products = new HashMap<>();
+
+		List<ProductSuggestion> find(String key, int maxResults) {
+			Node node = root;
+			for (int i = 0; i < key.length() && node != null; i++) {
+				node = node.child(key.charAt(i));
+			}
+			if (node == null) {
+				return Collections.emptyList();
+			}
+			return Collections.unmodifiableList(Arrays.asList(
+					Arrays.copyOf(node.best, Math.max(0, Math.min(maxResults, node.best.length)))));
+		}
+
+		void add(ProductSuggestion suggestion) {
+			if (suggestion.getName() == null || products.containsKey(suggestion.getId())) {
+				return;
+			}
+			products.put(suggestion.getId(), suggestion);
+			String key = suggestion.getName().toLowerCase(Locale.ROOT);
+			Node node = root;
+			node.offer(suggestion);
+			for (int i = 0; i < key.length(); i++) {
+				node = node.getOrCreateChild(key.charAt(i));
+				node.offer(suggestion);
+			}
+			node.products.add(suggestion);
+		}
+
+		void remove(Long productId) {
+			ProductSuggestion suggestion = products.remove(productId);
+			if (suggestion == null) {
+				return;
+			}
+			String key = suggestion.getName().toLowerCase(Locale.ROOT);
+			Node[] path = new Node[key.length() + 1];
+			path[0] = root;
+			for (int i = 0; i < key.length(); i++) {
+				path[i + 1] = path[i].child(key.charAt(i));
+			}
+			path[key.length()].products.remove(suggestion);
+			//children are fixed before their parents, so parents can be recomputed from them
+			for (int i = key.length(); i >= 0; i--) {
+				if (path[i].contains(suggestion)) {
+					path[i].recompute();
+				}
+			}
+		}
+	}
+
+	private static class Node {
+		private static final Node[] NO_CHILDREN = new Node[0];
+		private static final ProductSuggestion[] NONE = new ProductSuggestion[0];
+
+		/**
+		 * Sorted characters of the children.
+		 */
+		private char[] keys = new char[0];
+		private Node[] children = NO_CHILDREN;
+		/**
+		 * Best products in this subtree, best first.
+		 */
+		private ProductSuggestion[] best = NONE;
+		/**
+		 * Products whose whole name ends in this node.
+		 */
+		private final List<ProductSuggestion> products = new ArrayList<>(1);
+
+		Node child(char c) {
+			int index = Arrays.binarySearch(keys, c);
+			return (index >= 0) ? children[index] : null;
+		}
+
+		Node getOrCreateChild(char c) {
+			int index = Arrays.binarySearch(keys, c);
+			if (index >= 0) {
+				return children[index];
+			}
+			int insertAt = -index - 1;
+			char[] newKeys = new char[keys.length + 1];
+			Node[] newChildren = new Node[children.length + 1];
+			System.arraycopy(keys, 0, newKeys, 0, insertAt);
+			System.arraycopy(children, 0, newChildren, 0, insertAt);
+			newKeys[insertAt] = c;
+			newChildren[insertAt] = new Node();
+			System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+			System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+			keys = newKeys;
+			children = newChildren;
+			return newChildren[insertAt];
+		}
+
+		void offer(ProductSuggestion suggestion) {
+			int index = Arrays.binarySearch(best, suggestion, BEST_FIRST);
+			int insertAt = (index >= 0) ? index : -index - 1;
+			if (insertAt >= MAX_SUGGESTIONS) {
+				return;
+			}
+			ProductSuggestion[] newBest = new ProductSuggestion[Math.min(best.length + 1, MAX_SUGGESTIONS)];
+			System.arraycopy(best, 0, newBest, 0, insertAt);
+			newBest[insertAt] = suggestion;
+			System.arraycopy(best, insertAt, newBest, insertAt + 1, newBest.length - insertAt - 1);
+			best = newBest;
+		}
+
+		boolean contains(ProductSuggestion suggestion) {
+			for (ProductSuggestion s : best) {
+				if (s == suggestion) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		void recompute() {
+			best = NONE;
+			for (ProductSuggestion s : products) {
+				offer(s);
+			}
+			for (Node child : children) {
+				for (ProductSuggestion s : child.best) {
+					offer(s);
+				}
+			}
+		}
+	}
+}
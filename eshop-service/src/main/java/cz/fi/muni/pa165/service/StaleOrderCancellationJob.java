@@ -0,0 +1,121 @@
+package cz.fi.muni.pa165.service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import cz.fi.muni.pa165.dao.OrderDao;
+import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.enums.OrderTransitionOutcome;
+import cz.fi.muni.pa165.projection.IdRange;
+
+/**
+ * Cancels the orders which stay RECEIVED longer than the configured time. The ids of the orders are read
+ * in chunks and canceled by {@link OrderService#changeStates}, which locks them and checks their state
+ * again, so orders shipped in the meantime are skipped, and removes them from the daily sales.
+ */
+@Service
+public class StaleOrderCancellationJob implements ChunkedJob<Long, Long> {
+
+	public static final String NAME = "stale-order-cancellation";
+
+	private int cancelAfterHours = 72;
+
+	private int chunkSize = 100;
+
+	private int partitions = 4;
+
+	private long intervalMinutes = 60;
+
+	@Autowired
+	private OrderDao orderDao;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private TimeService timeService;
+
+	/**
+	 * @param cancelAfterHours time after which RECEIVED orders are canceled
+	 */
+	public void setCancelAfterHours(int cancelAfterHours) {
+		this.cancelAfterHours = cancelAfterHours;
+	}
+
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	public void setPartitions(int partitions) {
+		this.partitions = partitions;
+	}
+
+	/**
+	 * @param intervalMinutes time between the runs in the background, 0 disables them
+	 */
+	public void setIntervalMinutes(long intervalMinutes) {
+		this.intervalMinutes = intervalMinutes;
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	@Override
+	public int getPartitions() {
+		return partitions;
+	}
+
+	@Override
+	public long getIntervalMinutes() {
+		return intervalMinutes;
+	}
+
+	@Override
+	public IdRange findIdRange() {
+		return orderDao.findIdRangeWithState(OrderState.RECEIVED, getDeadline());
+	}
+
+	@Override
+	public List<Long> read(long afterId, long toId, int maxResults) {
+		return orderDao.findIdsWithState(OrderState.RECEIVED, getDeadline(), afterId, toId, maxResults);
+	}
+
+	@Override
+	public long getId(Long id) {
+		return id;
+	}
+
+	@Override
+	public Long process(Long id) {
+		return id;
+	}
+
+	@Override
+	public int write(List<Long> ids) {
+		int canceled = 0;
+		for (OrderTransitionResult result : orderService.changeStates(ids, OrderState.CANCELED)) {
+			if (result.getOutcome() == OrderTransitionOutcome.CHANGED) {
+				canceled++;
+			}
+		}
+		return canceled;
+	}
+
+	/**
+	 * @return creation time before which RECEIVED orders are canceled
+	 */
+	private Date getDeadline() {
+		return new Date(timeService.getCurrentTime().getTime() - TimeUnit.HOURS.toMillis(cancelAfterHours));
+	}
+}
@@ -0,0 +1,34 @@
+package cz.fi.muni.pa165.service;
+
+import java.nio.file.Path;
+
+import cz.fi.muni.pa165.entity.ProductImage;
+
+/**
+ * Provides resized variants of product images. Variants are generated on first use
+ * and kept in a size bounded cache on disk.
+ */
+public interface ThumbnailService {
+
+	/**
+	 * Returns the width of the smallest variant that is at least as wide as requested.
+	 *
+	 * @return the variant width or null if the requested size is larger than all variants
+	 */
+	Integer variantFor(int requestedSize);
+
+	/**
+	 * Returns the file with the given variant of the image, generating it if it is not cached.
+	 * The file name contains the content hash of the image, so a changed image never gets
+	 * a stale thumbnail.
+	 *
+	 * @param variant one of the widths returned by {@link #variantFor(int)}
+	 * @return the file or null if the image cannot be decoded
+	 */
+	Path getThumbnail(ProductImage image, int variant);
+
+	/**
+	 * Mime type of the files returned by {@link #getThumbnail(ProductImage, int)} for the image.
+	 */
+	String thumbnailMimeType(ProductImage image);
+}
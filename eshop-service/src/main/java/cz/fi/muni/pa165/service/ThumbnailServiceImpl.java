@@ -0,0 +1,197 @@
+package cz.fi.muni.pa165.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import cz.fi.muni.pa165.entity.ProductImage;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
+
+/**
+ * Implementation of the {@link ThumbnailService} using javax.imageio, which does not need a display.
+ * Cached files are named {@code <product id>-<variant>-<content hash>.<format>}. Every use of a file
+ * updates its modification time and when the cache grows over its maximum size, the files that were
+ * not used for the longest time are deleted.
+ */
+@Service
+public class ThumbnailServiceImpl implements ThumbnailService {
+
+	final static Logger log = LoggerFactory.getLogger(ThumbnailServiceImpl.class);
+
+	private static final int[] VARIANTS = {64, 256, 1024};
+
+	@Inject
+	private ProductImageService productImageService;
+
+	private Path cacheDirectory = Paths.get(System.getProperty("java.io.tmpdir"), "eshop-thumbnails");
+
+	private long maxCacheSize = 64 * 1024 * 1024;
+
+	public void setCacheDirectory(Path cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+
+	public void setMaxCacheSize(long maxCacheSize) {
+		this.maxCacheSize = maxCacheSize;
+	}
+
+	@Override
+	public Integer variantFor(int requestedSize) {
+		for (int variant : VARIANTS) {
+			if (requestedSize <= variant) {
+				return variant;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public String thumbnailMimeType(ProductImage image) {
+		return "png".equals(formatOf(image)) ? "image/png" : "image/jpeg";
+	}
+
+	@Override
+	public Path getThumbnail(ProductImage image, int variant) {
+		String format = formatOf(image);
+		Path file = cacheDirectory.resolve(image.getId() + "-" + variant + "-" + image.getContentHash() + "." + format);
+		try {
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+			return file;
+		} catch (NoSuchFileException ex) {
+			//not cached yet
+		} catch (IOException ex) {
+			throw new EshopServiceException("Cannot read thumbnail of product " + image.getId(), ex);
+		}
+		try {
+			BufferedImage original = readImage(image.getId());
+			if (original == null) {
+				log.warn("image of product {} cannot be decoded", image.getId());
+				return null;
+			}
+			Files.createDirectories(cacheDirectory);
+			Path tmp = Files.createTempFile(cacheDirectory, "thumbnail", ".tmp");
+			try (OutputStream out = Files.newOutputStream(tmp)) {
+				ImageIO.write(resize(original, variant, "png".equals(format)), format, out);
+			}
+			Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			evict(image.getId() + "-" + variant + "-", file);
+			return file;
+		} catch (IOException ex) {
+			throw new EshopServiceException("Cannot create thumbnail of product " + image.getId(), ex);
+		}
+	}
+
+	private BufferedImage readImage(Long productId) throws IOException {
+		try (ReadableByteChannel channel = productImageService.openImage(productId);
+			 InputStream in = Channels.newInputStream(channel)) {
+			return ImageIO.read(in);
+		}
+	}
+
+	/**
+	 * Scales the image down to the given width, or height if it is higher than wide, keeping the aspect ratio.
+	 * Smaller images are only re-encoded.
+	 */
+	private static BufferedImage resize(BufferedImage original, int variant, boolean alpha) {
+		int width = original.getWidth();
+		int height = original.getHeight();
+		double scale = Math.min(1.0, (double) variant / Math.max(width, height));
+		int newWidth = Math.max(1, (int) Math.round(width * scale));
+		int newHeight = Math.max(1, (int) Math.round(height * scale));
+		BufferedImage resized = new BufferedImage(newWidth, newHeight,
+				alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = resized.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			g.drawImage(original, 0, 0, newWidth, newHeight, null);
+		} finally {
+			g.dispose();
+		}
+		return resized;
+	}
+
+	/**
+	 * Images that may be transparent are kept as PNG, everything else becomes JPEG.
+	 */
+	private static String formatOf(ProductImage image) {
+		String mimeType = image.getMimeType();
+		return ("image/png".equals(mimeType) || "image/gif".equals(mimeType)) ? "png" : "jpg";
+	}
+
+	/**
+	 * Deletes older versions of the created file and then the least recently used files
+	 * until the cache fits into its maximum size.
+	 */
+	private synchronized void evict(String variantPrefix, Path created) throws IOException {
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> dir = Files.newDirectoryStream(cacheDirectory)) {
+			for (Path file : dir) {
+				String name = file.getFileName().toString();
+				if (name.endsWith(".tmp")) {
+					continue;
+				}
+				if (name.startsWith(variantPrefix) && !file.equals(created)) {
+					Files.deleteIfExists(file);
+				} else {
+					files.add(file);
+				}
+			}
+		}
+		long size = 0;
+		List<CachedFile> cached = new ArrayList<>();
+		for (Path file : files) {
+			try {
+				CachedFile cachedFile = new CachedFile(file, Files.size(file), Files.getLastModifiedTime(file).toMillis());
+				cached.add(cachedFile);
+				size += cachedFile.size;
+			} catch (NoSuchFileException ex) {
+				//deleted concurrently
+			}
+		}
+		cached.sort(Comparator.comparingLong(f -> f.lastUsed));
+		for (CachedFile file : cached) {
+			if (size <= maxCacheSize) {
+				break;
+			}
+			if (!file.path.equals(created)) {
+				Files.deleteIfExists(file.path);
+				size -= file.size;
+			}
+		}
+	}
+
+	private static class CachedFile {
+		private final Path path;
+		private final long size;
+		private final long lastUsed;
+
+		CachedFile(Path path, long size, long lastUsed) {
+			this.path = path;
+			this.size = size;
+			this.lastUsed = lastUsed;
+		}
+	}
+}
@@ -7,18 +7,24 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.PropertySource;
 
 import cz.fi.muni.pa165.PersistenceSampleApplicationContext;
 import cz.fi.muni.pa165.dto.CategoryDTO;
 import cz.fi.muni.pa165.dto.ProductDTO;
+import cz.fi.muni.pa165.dto.ProductImageDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryDTO;
 import cz.fi.muni.pa165.entity.Category;
 import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.entity.ProductImage;
+import cz.fi.muni.pa165.projection.ProductSummary;
 import cz.fi.muni.pa165.service.OrderServiceImpl;
 import cz.fi.muni.pa165.service.facade.CategoryFacadeImpl;
 
 @Configuration
 @Import(PersistenceSampleApplicationContext.class)
 @ComponentScan(basePackageClasses={OrderServiceImpl.class, CategoryFacadeImpl.class})
+@PropertySource("classpath:service.properties")
 public class ServiceConfiguration {
 	
 
@@ -38,6 +44,12 @@ public class ServiceConfiguration {
 	    @Override
 	    protected void configure() {
 	        mapping(Category.class, CategoryDTO.class);
+	        mapping(ProductSummary.class, ProductSummaryDTO.class)
+	                .fields("priceValue", "currentPrice.value")
+	                .fields("priceCurrency", "currentPrice.currency")
+	                .fields("priceStart", "currentPrice.priceStart");
+	        mapping(ProductImage.class, ProductImageDTO.class)
+	                .fields("id", "productId");
 	    }
 	}
 	
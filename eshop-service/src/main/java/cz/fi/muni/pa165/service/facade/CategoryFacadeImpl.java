@@ -1,5 +1,6 @@
 package cz.fi.muni.pa165.service.facade;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -9,11 +10,13 @@ import cz.fi.muni.pa165.entity.Category;
 import org.dozer.loader.api.BeanMappingBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import cz.fi.muni.pa165.dto.CategoryDTO;
 import cz.fi.muni.pa165.facade.CategoryFacade;
 import cz.fi.muni.pa165.service.BeanMappingService;
+import cz.fi.muni.pa165.service.CatalogService;
 import cz.fi.muni.pa165.service.CategoryService;
 
 //TODO create Facade annotation
@@ -27,18 +30,34 @@ public class CategoryFacadeImpl implements CategoryFacade
 
 	@Autowired
     private BeanMappingService beanMappingService;
+
+	@Autowired
+    private CatalogService catalogService;
     
 	 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<CategoryDTO> getAllCategories()
     {
-        return beanMappingService.mapTo(categoryService.findAll(),CategoryDTO.class);
+        List<CategoryDTO> categories = new ArrayList<>();
+        for (Category category : catalogService.getSnapshot().getCategories()) {
+            categories.add(toDTO(category));
+        }
+        return categories;
     }
 
     @Override 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public CategoryDTO getCategoryById(Long id)
     {
-        Category category = categoryService.findById(id);
-        return (category == null) ? null : beanMappingService.mapTo(category,CategoryDTO.class);
+        Category category = catalogService.getSnapshot().getCategory(id);
+        return (category == null) ? null : toDTO(category);
+    }
+
+    private static CategoryDTO toDTO(Category category) {
+        CategoryDTO categoryDTO = new CategoryDTO();
+        categoryDTO.setId(category.getId());
+        categoryDTO.setName(category.getName());
+        return categoryDTO;
     }
 
     @Override
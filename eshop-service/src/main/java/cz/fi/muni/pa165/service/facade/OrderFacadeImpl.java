@@ -1,22 +1,52 @@
 package cz.fi.muni.pa165.service.facade;
 
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import cz.fi.muni.pa165.dto.OrderCreateDTO;
+import cz.fi.muni.pa165.dto.OrderExportDTO;
+import cz.fi.muni.pa165.dto.OrderIntakeStatusDTO;
+import cz.fi.muni.pa165.dto.OrderPageDTO;
+import cz.fi.muni.pa165.dto.OrderSearchDTO;
+import cz.fi.muni.pa165.dto.OrderItemCreateDTO;
+import cz.fi.muni.pa165.dto.DailyRevenueDTO;
+import cz.fi.muni.pa165.dto.OrderExportItemDTO;
+import cz.fi.muni.pa165.dto.OrderStatisticsDTO;
+import cz.fi.muni.pa165.dto.OrderTransitionResultDTO;
+import cz.fi.muni.pa165.dto.ProductSalesDTO;
 import cz.fi.muni.pa165.dto.OrderTotalPriceDTO;
+import cz.fi.muni.pa165.entity.OrderItem;
 import cz.fi.muni.pa165.entity.Price;
 import cz.fi.muni.pa165.enums.Currency;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import cz.fi.muni.pa165.dto.OrderDTO;
+import cz.fi.muni.pa165.dao.OrderSearch;
 import cz.fi.muni.pa165.entity.Order;
 import cz.fi.muni.pa165.entity.User;
 import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
 import cz.fi.muni.pa165.facade.OrderFacade;
 import cz.fi.muni.pa165.service.BeanMappingService;
+import cz.fi.muni.pa165.service.DailySalesRebuildJob;
+import cz.fi.muni.pa165.service.JobRunner;
+import cz.fi.muni.pa165.service.OrderArchiveJob;
+import cz.fi.muni.pa165.service.OrderIntakeService;
+import cz.fi.muni.pa165.service.OrderIntakeTicket;
 import cz.fi.muni.pa165.service.OrderService;
+import cz.fi.muni.pa165.service.OrderStatisticsService;
+import cz.fi.muni.pa165.service.StaleOrderCancellationJob;
 import cz.fi.muni.pa165.service.UserService;
+import cz.fi.muni.pa165.utils.PageCursors;
+import cz.fi.muni.pa165.utils.Tuple;
 
 @Service
 @Transactional
@@ -28,6 +58,24 @@ public class OrderFacadeImpl implements OrderFacade {
 	@Autowired
 	private UserService userService;
 
+	@Autowired
+	private OrderStatisticsService orderStatisticsService;
+
+	@Autowired
+	private OrderIntakeService orderIntakeService;
+
+	@Autowired
+	private JobRunner jobRunner;
+
+	@Autowired
+	private StaleOrderCancellationJob staleOrderCancellationJob;
+
+	@Autowired
+	private OrderArchiveJob orderArchiveJob;
+
+	@Autowired
+	private DailySalesRebuildJob dailySalesRebuildJob;
+
 	@Autowired
 	private BeanMappingService beanMappingService;
 
@@ -54,6 +102,33 @@ public class OrderFacadeImpl implements OrderFacade {
 				OrderDTO.class);
 	}
 
+	@Override
+	public OrderPageDTO searchOrders(OrderSearchDTO searchDTO, String cursor, int pageSize) {
+		OrderSearch search = new OrderSearch();
+		search.setStates(searchDTO.getStates());
+		search.setCreatedFrom(searchDTO.getCreatedFrom());
+		search.setCreatedTo(searchDTO.getCreatedTo());
+		search.setUserId(searchDTO.getUserId());
+		search.setProductId(searchDTO.getProductId());
+		search.setMinTotal(searchDTO.getMinTotal());
+		search.setTotalCurrency(searchDTO.getTotalCurrency());
+		search.setSort(searchDTO.getSort());
+		Tuple<Long, Long> after = PageCursors.decodeLong(cursor);
+		if (after != null) {
+			search.setAfter(new Date(after.y), after.x);
+		}
+		List<Order> orders = orderService.searchOrders(search, pageSize + 1);
+		//the extra order tells that there is a next page
+		OrderPageDTO page = new OrderPageDTO();
+		if (orders.size() > pageSize) {
+			orders = orders.subList(0, pageSize);
+			Order last = orders.get(pageSize - 1);
+			page.setNext(PageCursors.encode(last.getId(), String.valueOf(last.getCreated().getTime())));
+		}
+		page.setOrders(beanMappingService.mapTo(orders, OrderDTO.class));
+		return page;
+	}
+
 	@Override
 	public List<OrderDTO> getAllOrders() {
 		return beanMappingService.mapTo(orderService.findAllOrders(),
@@ -68,6 +143,32 @@ public class OrderFacadeImpl implements OrderFacade {
 		
 	}
 
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public OrderIntakeStatusDTO submitOrder(OrderCreateDTO order) {
+		if (order.getItems() == null) {
+			throw new EshopServiceException("An order needs at least one product");
+		}
+		Map<Long, Integer> amounts = new LinkedHashMap<>();
+		for (OrderItemCreateDTO item : order.getItems()) {
+			if (item == null) {
+				throw new EshopServiceException("Missing item of the order");
+			}
+			if (item.getAmount() == null) {
+				throw new EshopServiceException("Missing amount of product " + item.getProductId());
+			}
+			amounts.merge(item.getProductId(), item.getAmount(), Integer::sum);
+		}
+		return beanMappingService.mapTo(orderIntakeService.submit(order.getUserId(), amounts), OrderIntakeStatusDTO.class);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public OrderIntakeStatusDTO getOrderIntakeStatus(String ackId) {
+		OrderIntakeTicket ticket = orderIntakeService.getTicket(ackId);
+		return (ticket == null) ? null : beanMappingService.mapTo(ticket, OrderIntakeStatusDTO.class);
+	}
+
 	@Override
 	public void shipOrder(Long id) {
 		orderService.shipOrder(orderService.findOrderById(id));
@@ -83,6 +184,39 @@ public class OrderFacadeImpl implements OrderFacade {
 		orderService.cancelOrder(orderService.findOrderById(id));
 	}
 
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public List<OrderTransitionResultDTO> shipOrders(List<Long> ids) {
+		return beanMappingService.mapTo(orderService.changeStates(ids, OrderState.SHIPPED),
+				OrderTransitionResultDTO.class);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public List<OrderTransitionResultDTO> finishOrders(List<Long> ids) {
+		return beanMappingService.mapTo(orderService.changeStates(ids, OrderState.DONE),
+				OrderTransitionResultDTO.class);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public List<OrderTransitionResultDTO> cancelOrders(List<Long> ids) {
+		return beanMappingService.mapTo(orderService.changeStates(ids, OrderState.CANCELED),
+				OrderTransitionResultDTO.class);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public int archiveOldOrders() {
+		return (int) jobRunner.run(orderArchiveJob);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public long cancelStaleOrders() {
+		return jobRunner.run(staleOrderCancellationJob);
+	}
+
 	@Override
 	public OrderTotalPriceDTO getOrderTotalPrice(long id, Currency currency) {
 		OrderTotalPriceDTO otp = new OrderTotalPriceDTO();
@@ -93,5 +227,56 @@ public class OrderFacadeImpl implements OrderFacade {
 		return otp;
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Map<Long, BigDecimal> getOrderTotalPrices(List<Long> ids, Currency currency) {
+		return orderService.getTotalPrices(ids, currency);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void exportOrders(Consumer<OrderExportDTO> consumer) {
+		try (Stream<Order> orders = orderService.streamAllOrders()) {
+			orders.map(this::toExport).forEach(consumer);
+		}
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public OrderStatisticsDTO getOrderStatistics(Date start, Date end) {
+		OrderStatisticsDTO statistics = new OrderStatisticsDTO();
+		statistics.setOrderCounts(orderStatisticsService.countOrdersByState());
+		statistics.setDailyRevenue(beanMappingService.mapTo(orderStatisticsService.getDailyRevenue(start, end),
+				DailyRevenueDTO.class));
+		statistics.setProductSales(beanMappingService.mapTo(orderStatisticsService.getProductSales(),
+				ProductSalesDTO.class));
+		return statistics;
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void rebuildDailySales() {
+		jobRunner.run(dailySalesRebuildJob);
+	}
 
+	private OrderExportDTO toExport(Order order) {
+		OrderExportDTO dto = new OrderExportDTO();
+		dto.setId(order.getId());
+		dto.setCreated(order.getCreated());
+		dto.setState(order.getState());
+		dto.setUserId(order.getUser().getId());
+		dto.setUserEmail(order.getUser().getEmail());
+		for (OrderItem item : order.getOrderItems()) {
+			OrderExportItemDTO itemDto = new OrderExportItemDTO();
+			itemDto.setProductId(item.getProduct().getId());
+			itemDto.setProductName(item.getProduct().getName());
+			itemDto.setAmount(item.getAmount());
+			if (item.getPricePerItem() != null) {
+				itemDto.setPricePerItem(item.getPricePerItem().getValue());
+				itemDto.setCurrency(item.getPricePerItem().getCurrency());
+			}
+			dto.getItems().add(itemDto);
+		}
+		return dto;
+	}
 }
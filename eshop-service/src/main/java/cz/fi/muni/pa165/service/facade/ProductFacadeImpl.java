@@ -2,27 +2,74 @@ package cz.fi.muni.pa165.service.facade;
 
 import javax.inject.Inject;
 
+import cz.fi.muni.pa165.dto.CacheRegionStatisticsDTO;
+import cz.fi.muni.pa165.dto.EntityCacheStatisticsDTO;
 import cz.fi.muni.pa165.dto.ProductChangeImageDTO;
+import cz.fi.muni.pa165.dto.Color;
+import cz.fi.muni.pa165.dto.PriceBandDTO;
+import cz.fi.muni.pa165.dto.PriceDTO;
 import cz.fi.muni.pa165.dto.ProductDTO;
+import cz.fi.muni.pa165.dto.ProductFacetsDTO;
+import cz.fi.muni.pa165.dto.ProductImageDTO;
+import cz.fi.muni.pa165.dto.ProductSuggestionDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryPageDTO;
 
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import cz.fi.muni.pa165.dto.ImageCacheStatisticsDTO;
 import cz.fi.muni.pa165.dto.NewPriceDTO;
 import cz.fi.muni.pa165.dto.ProductCreateDTO;
 import cz.fi.muni.pa165.entity.Category;
 import cz.fi.muni.pa165.entity.Price;
 import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.entity.ProductImage;
+import cz.fi.muni.pa165.projection.ProductSummary;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
+import cz.fi.muni.pa165.exceptions.ImageChangedException;
 import cz.fi.muni.pa165.facade.ProductFacade;
 import cz.fi.muni.pa165.service.BeanMappingService;
+import cz.fi.muni.pa165.service.CachedImage;
+import cz.fi.muni.pa165.service.CatalogService;
 import cz.fi.muni.pa165.service.CategoryService;
+import cz.fi.muni.pa165.service.ImageCacheService;
+import cz.fi.muni.pa165.service.PersistenceStatisticsService;
+import cz.fi.muni.pa165.service.ProductFacetService;
+import cz.fi.muni.pa165.service.ProductFacets;
+import cz.fi.muni.pa165.service.ProductImageService;
 import cz.fi.muni.pa165.service.ProductService;
+import cz.fi.muni.pa165.service.ProductSuggestion;
+import cz.fi.muni.pa165.service.ProductSuggestionService;
+import cz.fi.muni.pa165.service.ThumbnailService;
+import cz.fi.muni.pa165.utils.PageCursors;
+import cz.fi.muni.pa165.utils.Tuple;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -35,6 +82,30 @@ public class ProductFacadeImpl implements ProductFacade {
 
 	@Inject
 	private CategoryService categoryService;
+
+	@Inject
+	private ProductImageService productImageService;
+
+	@Inject
+	private ThumbnailService thumbnailService;
+
+	@Inject
+	private ImageCacheService imageCacheService;
+
+	@Inject
+	private PlatformTransactionManager transactionManager;
+
+	@Inject
+	private ProductSuggestionService productSuggestionService;
+
+	@Inject
+	private ProductFacetService productFacetService;
+
+	@Inject
+	private CatalogService catalogService;
+
+	@Inject
+	private PersistenceStatisticsService persistenceStatisticsService;
 	
 	@Autowired
 	private BeanMappingService beanMappingService;
@@ -56,6 +127,10 @@ public class ProductFacadeImpl implements ProductFacade {
         mappedProduct.addCategory(categoryService.findById(p.getCategoryId()));
         //save product
         Product newProduct = productService.createProduct(mappedProduct);
+        if (p.getImage() != null) {
+            productImageService.storeImage(newProduct, p.getImageMimeType(),
+                    new ByteArrayInputStream(p.getImage()), p.getImage().length);
+        }
 		return newProduct.getId();
 	}
 
@@ -81,6 +156,7 @@ public class ProductFacadeImpl implements ProductFacade {
 	@Override
 	public void deleteProduct(Long productId) {
 		productService.deleteProduct(new Product(productId));
+		imageCacheService.invalidate(productId);
 	}
 
 	@Override
@@ -91,14 +167,39 @@ public class ProductFacadeImpl implements ProductFacade {
 	@Override
 	public ProductDTO getProductWithId(Long id) {
                 Product product = productService.findById(id);
-		return (product == null) ? null : beanMappingService.mapTo(product, ProductDTO.class);
+		if (product == null) {
+			return null;
+		}
+		ProductDTO productDTO = beanMappingService.mapTo(product, ProductDTO.class);
+		ProductImage image = productImageService.findImage(id);
+		if (image != null) {
+			productDTO.setImageMimeType(image.getMimeType());
+			productDTO.setImage(readImage(id));
+		}
+		return productDTO;
 	}
 
 	@Override
 	public void changeImage(ProductChangeImageDTO dto) {
+		if (dto.getImage() == null) {
+			throw new EshopServiceException("Missing image of product " + dto.getProductId());
+		}
 		Product p = productService.findById(dto.getProductId());
-		p.setImage(dto.getImage());
-		p.setImageMimeType(dto.getImageMimeType());
+		if (p == null) {
+			throw new EshopServiceException("Product " + dto.getProductId() + " does not exist");
+		}
+		productImageService.storeImage(p, dto.getImageMimeType(),
+				new ByteArrayInputStream(dto.getImage()), dto.getImage().length);
+		imageCacheService.invalidate(dto.getProductId());
+	}
+
+	private byte[] readImage(Long productId) {
+		try (ReadableByteChannel channel = productImageService.openImage(productId);
+			 InputStream in = Channels.newInputStream(channel)) {
+			return in.readAllBytes();
+		} catch (IOException ex) {
+			throw new EshopServiceException("Cannot read image of product " + productId, ex);
+		}
 	}
 
 	@Override
@@ -107,4 +208,380 @@ public class ProductFacadeImpl implements ProductFacade {
 		return beanMappingService.mapTo(c.getProducts(), ProductDTO.class);
 	}
 
+	@Override
+	@Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+	public List<ProductSummaryDTO> getAllProductSummaries() {
+		return toSummaryDTOs(catalogService.getSnapshot().getProducts());
+	}
+
+	/**
+	 * Maps summaries read from the catalog snapshot by hand, so that storefront listings do not use Dozer.
+	 */
+	private static List<ProductSummaryDTO> toSummaryDTOs(List<ProductSummary> summaries) {
+		List<ProductSummaryDTO> result = new ArrayList<>(summaries.size());
+		for (ProductSummary summary : summaries) {
+			ProductSummaryDTO dto = new ProductSummaryDTO();
+			dto.setId(summary.getId());
+			dto.setName(summary.getName());
+			dto.setColor(summary.getColor());
+			dto.setAddedDate(summary.getAddedDate());
+			if (summary.getPriceValue() != null) {
+				PriceDTO price = new PriceDTO();
+				price.setValue(summary.getPriceValue());
+				price.setCurrency(summary.getPriceCurrency());
+				price.setPriceStart(summary.getPriceStart());
+				dto.setCurrentPrice(price);
+			}
+			dto.setCategoryIds(summary.getCategoryIds());
+			result.add(dto);
+		}
+		return result;
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+	public ProductSummaryPageDTO getProductSummaryPage(String cursor, int pageSize) {
+		Tuple<Long, String> after = PageCursors.decode(cursor);
+		return toPage(catalogService.getSnapshot().getProductsAfter((after == null) ? null : after.y,
+				(after == null) ? null : after.x, pageSize + 1), pageSize);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+	public ProductSummaryPageDTO getProductSummaryPageByCategory(String categoryName, String cursor, int pageSize) {
+		Tuple<Long, String> after = PageCursors.decode(cursor);
+		return toPage(catalogService.getSnapshot().getProductsInCategoryAfter(categoryName,
+				(after == null) ? null : after.y, (after == null) ? null : after.x, pageSize + 1), pageSize);
+	}
+
+	/**
+	 * Makes a page from one more summary than the page size, the extra one tells that there is a next page.
+	 */
+	private static ProductSummaryPageDTO toPage(List<ProductSummary> summaries, int pageSize) {
+		ProductSummaryPageDTO page = new ProductSummaryPageDTO();
+		if (summaries.size() > pageSize) {
+			summaries = summaries.subList(0, pageSize);
+			ProductSummary last = summaries.get(pageSize - 1);
+			page.setNext(PageCursors.encode(last.getId(), last.getName()));
+		}
+		page.setProducts(toSummaryDTOs(summaries));
+		return page;
+	}
+
+	@Override
+	public ProductImageDTO getProductImage(Long productId) {
+		String contentHash = productImageService.findContentHash(productId);
+		if (contentHash == null) {
+			return null;
+		}
+		CachedImage cached = imageCacheService.get(productId, contentHash);
+		if (cached != null) {
+			ProductImageDTO image = new ProductImageDTO();
+			image.setProductId(productId);
+			image.setMimeType(cached.getMimeType());
+			image.setLength(cached.getLength());
+			image.setContentHash(cached.getContentHash());
+			image.setLastModified(cached.getLastModified());
+			return image;
+		}
+		ProductImage image = productImageService.findImage(productId);
+		return (image == null) ? null : beanMappingService.mapTo(image, ProductImageDTO.class);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void writeProductImage(Long productId, String contentHash, long offset, long length,
+			WritableByteChannel target) {
+		CachedImage cached = imageCacheService.get(productId, contentHash);
+		if (cached == null) {
+			cached = readOnlyTransaction().execute(status -> cacheImage(productId, contentHash));
+		}
+		try {
+			if (cached != null) {
+				checkRange(productId, offset, length, cached.getLength());
+				ByteBuffer content = cached.getContent();
+				content.position((int) offset).limit((int) (offset + length));
+				while (content.hasRemaining()) {
+					target.write(content);
+				}
+				return;
+			}
+			//too large to be cached, the range is copied to a file so that the transaction ends before writing
+			try (FileChannel copy = readOnlyTransaction().execute(
+					status -> copyImage(productId, contentHash, offset, length))) {
+				transfer(copy, 0, length, target);
+			}
+		} catch (IOException ex) {
+			throw new EshopServiceException("Cannot write image of product " + productId, ex);
+		}
+	}
+
+	/**
+	 * Caches the image which has the content hash.
+	 *
+	 * @return the cached image or null if the image is too large to be cached
+	 */
+	private CachedImage cacheImage(Long productId, String contentHash) {
+		ProductImage image = findImage(productId, contentHash);
+		if (!imageCacheService.canCache(image.getLength())) {
+			return null;
+		}
+		try (ReadableByteChannel channel = productImageService.openImage(productId)) {
+			return imageCacheService.put(productId, image, channel);
+		} catch (IOException ex) {
+			throw new EshopServiceException("Cannot read image of product " + productId, ex);
+		}
+	}
+
+	/**
+	 * Copies a range of the image which has the content hash to a temporary file, deleted when the channel is closed.
+	 */
+	private FileChannel copyImage(Long productId, String contentHash, long offset, long length) {
+		ProductImage image = findImage(productId, contentHash);
+		checkRange(productId, offset, length, image.getLength());
+		FileChannel copy = null;
+		try (ReadableByteChannel channel = productImageService.openImage(productId, offset, length)) {
+			copy = FileChannel.open(Files.createTempFile("product-image-", null), StandardOpenOption.READ,
+					StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+			long position = 0;
+			while (position < length) {
+				long transferred = copy.transferFrom(channel, position, length - position);
+				if (transferred <= 0) {
+					break;
+				}
+				position += transferred;
+			}
+			return copy;
+		} catch (IOException ex) {
+			if (copy != null) {
+				try {
+					copy.close();
+				} catch (IOException closeEx) {
+					ex.addSuppressed(closeEx);
+				}
+			}
+			throw new EshopServiceException("Cannot read image of product " + productId, ex);
+		}
+	}
+
+	/**
+	 * Finds the image metadata, rejecting an image other than the one described to the client.
+	 */
+	private ProductImage findImage(Long productId, String contentHash) {
+		ProductImage image = productImageService.findImage(productId);
+		if (image == null) {
+			throw new ImageChangedException("Product " + productId + " has no image");
+		}
+		checkContentHash(productId, contentHash, image.getContentHash());
+		return image;
+	}
+
+	@Override
+	public ProductImageDTO getProductThumbnail(Long productId, int size) {
+		ProductImage image = productImageService.findImage(productId);
+		if (image == null) {
+			return null;
+		}
+		Integer variant = thumbnailService.variantFor(size);
+		ProductImageDTO thumbnail = new ProductImageDTO();
+		try (FileChannel channel = (variant == null) ? null : openThumbnail(image, variant)) {
+			if (channel == null) {
+				return beanMappingService.mapTo(image, ProductImageDTO.class);
+			}
+			thumbnail.setLength(channel.size());
+		} catch (IOException ex) {
+			throw new EshopServiceException("Cannot read thumbnail of product " + productId, ex);
+		}
+		thumbnail.setProductId(productId);
+		thumbnail.setMimeType(thumbnailService.thumbnailMimeType(image));
+		thumbnail.setContentHash(image.getContentHash() + "-" + variant);
+		thumbnail.setLastModified(image.getLastModified());
+		return thumbnail;
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void writeProductThumbnail(Long productId, int size, String contentHash, long offset, long length,
+			WritableByteChannel target) {
+		Integer variant = thumbnailService.variantFor(size);
+		FileChannel opened = (variant == null) ? null
+				: readOnlyTransaction().execute(status -> openThumbnail(productId, contentHash, variant));
+		if (opened == null) {
+			writeProductImage(productId, contentHash, offset, length, target);
+			return;
+		}
+		try (FileChannel channel = opened) {
+			checkRange(productId, offset, length, channel.size());
+			transfer(channel, offset, length, target);
+		} catch (IOException ex) {
+			throw new EshopServiceException("Cannot write thumbnail of product " + productId, ex);
+		}
+	}
+
+	/**
+	 * Opens the thumbnail which has the content hash, the file stays readable after the transaction ends.
+	 *
+	 * @return null when the image cannot be decoded
+	 */
+	private FileChannel openThumbnail(Long productId, String contentHash, int variant) {
+		ProductImage image = productImageService.findImage(productId);
+		if (image == null) {
+			throw new ImageChangedException("Product " + productId + " has no image");
+		}
+		String thumbnailHash = image.getContentHash() + "-" + variant;
+		try {
+			FileChannel channel = openThumbnail(image, variant);
+			if (channel != null && !thumbnailHash.equals(contentHash)) {
+				channel.close();
+				throw new ImageChangedException("Thumbnail of product " + productId + " changed from " + contentHash
+						+ " to " + thumbnailHash);
+			}
+			return channel;
+		} catch (IOException ex) {
+			throw new EshopServiceException("Cannot read thumbnail of product " + productId, ex);
+		}
+	}
+
+	private static void transfer(FileChannel source, long offset, long length, WritableByteChannel target)
+			throws IOException {
+		long position = offset;
+		long end = offset + length;
+		while (position < end) {
+			long transferred = source.transferTo(position, end - position, target);
+			if (transferred <= 0) {
+				break;
+			}
+			position += transferred;
+		}
+	}
+
+	private TransactionTemplate readOnlyTransaction() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		tx.setReadOnly(true);
+		return tx;
+	}
+
+	/**
+	 * Rejects writing an image other than the one described to the client, its length or type may differ.
+	 */
+	private static void checkContentHash(Long productId, String expected, String actual) {
+		if (!actual.equals(expected)) {
+			throw new ImageChangedException("Image of product " + productId + " changed from " + expected
+					+ " to " + actual);
+		}
+	}
+
+	/**
+	 * Rejects ranges outside of the image, so the offsets fit into the cached buffers.
+	 */
+	private static void checkRange(Long productId, long offset, long length, long imageLength) {
+		if (offset < 0 || length < 0 || offset > imageLength - length) {
+			throw new EshopServiceException("Invalid range " + offset + "+" + length + " of image of product "
+					+ productId + " with " + imageLength + " bytes");
+		}
+	}
+
+	/**
+	 * Opens the cached thumbnail. The file may be evicted between finding and opening it, then it is created again.
+	 * An opened file stays readable even when it is evicted meanwhile.
+	 *
+	 * @return null when the image cannot be decoded
+	 */
+	private FileChannel openThumbnail(ProductImage image, int variant) throws IOException {
+		for (int attempt = 1; ; attempt++) {
+			Path file = thumbnailService.getThumbnail(image, variant);
+			if (file == null) {
+				return null;
+			}
+			try {
+				return FileChannel.open(file);
+			} catch (NoSuchFileException ex) {
+				if (attempt == 2) {
+					throw ex;
+				}
+			}
+		}
+	}
+
+	@Override
+	public ImageCacheStatisticsDTO getImageCacheStatistics() {
+		ImageCacheStatisticsDTO statistics = new ImageCacheStatisticsDTO();
+		statistics.setHitCount(imageCacheService.getHitCount());
+		statistics.setMissCount(imageCacheService.getMissCount());
+		statistics.setEvictionCount(imageCacheService.getEvictionCount());
+		statistics.setEntryCount(imageCacheService.getEntryCount());
+		statistics.setSize(imageCacheService.getSize());
+		return statistics;
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+	public EntityCacheStatisticsDTO getEntityCacheStatistics() {
+		Statistics counters = persistenceStatisticsService.getStatistics();
+		EntityCacheStatisticsDTO statistics = new EntityCacheStatisticsDTO();
+		statistics.setStatementCount(counters.getPrepareStatementCount());
+		statistics.setHitCount(counters.getSecondLevelCacheHitCount());
+		statistics.setMissCount(counters.getSecondLevelCacheMissCount());
+		statistics.setPutCount(counters.getSecondLevelCachePutCount());
+		statistics.setNaturalIdHitCount(counters.getNaturalIdCacheHitCount());
+		statistics.setNaturalIdMissCount(counters.getNaturalIdCacheMissCount());
+		statistics.setQueryHitCount(counters.getQueryCacheHitCount());
+		statistics.setQueryMissCount(counters.getQueryCacheMissCount());
+		for (String regionName : counters.getSecondLevelCacheRegionNames()) {
+			CacheRegionStatistics region = counters.getCacheRegionStatistics(regionName);
+			if (region == null) {
+				continue;
+			}
+			CacheRegionStatisticsDTO regionStatistics = new CacheRegionStatisticsDTO();
+			regionStatistics.setRegion(regionName);
+			regionStatistics.setHitCount(region.getHitCount());
+			regionStatistics.setMissCount(region.getMissCount());
+			regionStatistics.setPutCount(region.getPutCount());
+			regionStatistics.setEntryCount(region.getElementCountInMemory());
+			statistics.getRegions().add(regionStatistics);
+		}
+		return statistics;
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+	public List<ProductSuggestionDTO> suggestProducts(String prefix, int maxResults) {
+		//mapped by hand, this is called on every keystroke
+		List<ProductSuggestion> suggestions = productSuggestionService.suggest(prefix, maxResults);
+		List<ProductSuggestionDTO> result = new ArrayList<>(suggestions.size());
+		for (ProductSuggestion suggestion : suggestions) {
+			ProductSuggestionDTO dto = new ProductSuggestionDTO();
+			dto.setId(suggestion.getId());
+			dto.setName(suggestion.getName());
+			dto.setOrderCount(suggestion.getOrderCount());
+			result.add(dto);
+		}
+		return result;
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+	public ProductFacetsDTO searchProductFacets(Set<Color> colors, Set<Long> categoryIds, Set<Integer> priceBands,
+			int maxResults) {
+		ProductFacets facets = productFacetService.search(colors, categoryIds, priceBands, maxResults);
+		ProductFacetsDTO result = new ProductFacetsDTO();
+		result.setProducts(beanMappingService.mapTo(facets.getProducts(), ProductSummaryDTO.class));
+		result.setTotalCount(facets.getTotalCount());
+		result.setColorCounts(facets.getColorCounts());
+		result.setCategoryCounts(facets.getCategoryCounts());
+		List<PriceBandDTO> bands = new ArrayList<>();
+		int[] counts = facets.getPriceBandCounts();
+		for (int i = 0; i < counts.length; i++) {
+			PriceBandDTO band = new PriceBandDTO();
+			band.setBand(i);
+			band.setFrom((i == 0) ? BigDecimal.ZERO : ProductFacetService.PRICE_BAND_LIMITS[i - 1]);
+			band.setTo((i < ProductFacetService.PRICE_BAND_LIMITS.length) ? ProductFacetService.PRICE_BAND_LIMITS[i] : null);
+			band.setCurrency(ProductFacetService.PRICE_BAND_CURRENCY);
+			band.setCount(counts[i]);
+			bands.add(band);
+		}
+		result.setPriceBands(bands);
+		return result;
+	}
+
 }
@@ -0,0 +1,58 @@
+package cz.fi.muni.pa165.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
+
+/**
+ * Cursors of keyset pages. A cursor is the id and the sort value of the last entry of a page, encoded so that
+ * it can be passed in a URL.
+ */
+public final class PageCursors {
+
+	private PageCursors() {
+	}
+
+	public static String encode(long id, String value) {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString((id + ":" + value).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return the id and the sort value of the last entry of the previous page, null for the first page
+	 * (a null or empty cursor)
+	 * @throws EshopServiceException if the cursor is not valid
+	 */
+	public static Tuple<Long, String> decode(String cursor) {
+		if (cursor == null || cursor.isEmpty()) {
+			return null;
+		}
+		try {
+			String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			int separator = key.indexOf(':');
+			return new Tuple<>(Long.valueOf(key.substring(0, separator)), key.substring(separator + 1));
+		} catch (IllegalArgumentException | StringIndexOutOfBoundsException ex) {
+			throw invalid(cursor, ex);
+		}
+	}
+
+	/**
+	 * Like {@link #decode(String)} for a sort value which is a number, e.g. a time.
+	 */
+	public static Tuple<Long, Long> decodeLong(String cursor) {
+		Tuple<Long, String> after = decode(cursor);
+		if (after == null) {
+			return null;
+		}
+		try {
+			return new Tuple<>(after.x, Long.valueOf(after.y));
+		} catch (NumberFormatException ex) {
+			throw invalid(cursor, ex);
+		}
+	}
+
+	private static EshopServiceException invalid(String cursor, Exception cause) {
+		return new EshopServiceException("Invalid page cursor " + cursor, cause);
+	}
+}
@@ -0,0 +1,110 @@
+package cz.fi.muni.pa165.utils;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import cz.fi.muni.pa165.dto.ProductImageDTO;
+import cz.fi.muni.pa165.exceptions.ImageChangedException;
+import cz.fi.muni.pa165.facade.ProductFacade;
+
+/**
+ * Sends product images over HTTP for the web controllers, so they all answer the same way.
+ */
+public final class ProductImageResponses {
+
+	private static final CacheControl IMAGE_CACHE_CONTROL = CacheControl.maxAge(7, TimeUnit.DAYS).cachePublic();
+
+	private ProductImageResponses() {
+	}
+
+	/**
+	 * Sends the product image with validators for caching (ETag, Last-Modified) and support for a single byte range,
+	 * only the headers for HEAD requests. A Range header is ignored for empty images, they have no bytes to send.
+	 * Products without an image are redirected to /no-image.png.
+	 *
+	 * @param size when not null, a thumbnail at least this large is sent instead of the original
+	 */
+	public static void send(ProductFacade productFacade, long productId, Integer size, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		send(productFacade, productId, size, request, response, 1);
+	}
+
+	/**
+	 * The metadata and the bytes are read in separate calls, the image may change in between. Nothing is written
+	 * then and the response is not committed yet, so it is reset and the new image is sent once.
+	 */
+	private static void send(ProductFacade productFacade, long productId, Integer size, HttpServletRequest request,
+			HttpServletResponse response, int attempt) throws IOException {
+		ProductImageDTO image = (size == null) ? productFacade.getProductImage(productId)
+				: productFacade.getProductThumbnail(productId, size);
+		if (image == null) {
+			response.sendRedirect(request.getContextPath() + "/no-image.png");
+			return;
+		}
+		String etag = "\"" + image.getContentHash() + "\"";
+		long lastModified = image.getLastModified() == null ? -1 : image.getLastModified().getTime();
+		response.setHeader(HttpHeaders.CACHE_CONTROL, IMAGE_CACHE_CONTROL.getHeaderValue());
+		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+		if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+			return;
+		}
+		long length = image.getLength();
+		long start = 0;
+		long count = length;
+		String range = request.getHeader(HttpHeaders.RANGE);
+		String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+		if (length > 0 && range != null && (ifRange == null || ifRange.equals(etag))) {
+			List<HttpRange> ranges;
+			try {
+				ranges = HttpRange.parseRanges(range);
+			} catch (IllegalArgumentException ex) {
+				ranges = Collections.emptyList();
+			}
+			//multiple ranges are not supported, the whole image is sent instead
+			if (ranges.size() == 1) {
+				start = ranges.get(0).getRangeStart(length);
+				long end = ranges.get(0).getRangeEnd(length);
+				if (start >= length || start > end) {
+					response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+					response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+					return;
+				}
+				count = end - start + 1;
+				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+			}
+		}
+		response.setContentType(image.getMimeType());
+		response.setContentLengthLong(count);
+		if (count == 0 || "HEAD".equals(request.getMethod())) {
+			return;
+		}
+		//the servlet API offers no channel, the wrapping channel copies cached direct buffers to the heap
+		WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+		try {
+			if (size == null) {
+				productFacade.writeProductImage(productId, image.getContentHash(), start, count, out);
+			} else {
+				productFacade.writeProductThumbnail(productId, size, image.getContentHash(), start, count, out);
+			}
+		} catch (ImageChangedException ex) {
+			if (attempt > 1 || response.isCommitted()) {
+				throw ex;
+			}
+			response.reset();
+			send(productFacade, productId, size, request, response, attempt + 1);
+		}
+	}
+}
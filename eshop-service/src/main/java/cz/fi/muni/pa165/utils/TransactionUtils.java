@@ -0,0 +1,27 @@
+package cz.fi.muni.pa165.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public final class TransactionUtils {
+
+	private TransactionUtils() {
+	}
+
+	/**
+	 * Runs the action once the current transaction commits, the action is dropped on rollback.
+	 * Without a transaction the action runs immediately.
+	 */
+	public static void afterCommit(Runnable action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					action.run();
+				}
+			});
+		} else {
+			action.run();
+		}
+	}
+}
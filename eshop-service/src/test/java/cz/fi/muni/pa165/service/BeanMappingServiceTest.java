@@ -1,6 +1,8 @@
 package cz.fi.muni.pa165.service;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,9 +13,15 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import cz.fi.muni.pa165.dto.CategoryDTO;
+import cz.fi.muni.pa165.dto.DailyRevenueDTO;
+import cz.fi.muni.pa165.dto.Color;
 import cz.fi.muni.pa165.dto.ProductDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryDTO;
 import cz.fi.muni.pa165.entity.Category;
 import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.projection.DailyRevenue;
+import cz.fi.muni.pa165.projection.ProductSummary;
 import cz.fi.muni.pa165.service.BeanMappingService;
 import cz.fi.muni.pa165.service.config.ServiceConfiguration;
 
@@ -61,5 +69,28 @@ public class BeanMappingServiceTest extends AbstractTestNGSpringContextTests
     	Assert.assertEquals(cdtos.get(0).getCategories().size(), 1);
     	
     }
-    
+
+    @Test
+    public void shouldMapSummaryPriceIntoCurrentPrice(){
+    	ProductSummary summary = new ProductSummary(3l, "Radio", Color.BLACK, new Date(),
+    			BigDecimal.TEN, Currency.EUR, new Date());
+    	summary.addCategoryId(2l);
+    	ProductSummaryDTO dto = beanMappingService.mapTo(summary, ProductSummaryDTO.class);
+    	Assert.assertEquals(dto.getName(), "Radio");
+    	Assert.assertEquals(dto.getCurrentPrice().getValue(), BigDecimal.TEN);
+    	Assert.assertEquals(dto.getCurrentPrice().getCurrency(), Currency.EUR);
+    	Assert.assertEquals(dto.getCategoryIds().size(), 1);
+    }
+
+    @Test
+    public void shouldMapDailyRevenue(){
+    	Date day = new java.sql.Date(0);
+    	DailyRevenue revenue = new DailyRevenue(day, Currency.CZK, 3l, new BigDecimal("12.50"));
+    	DailyRevenueDTO dto = beanMappingService.mapTo(revenue, DailyRevenueDTO.class);
+    	Assert.assertEquals(dto.getDay().getTime(), day.getTime());
+    	Assert.assertEquals(dto.getCurrency(), Currency.CZK);
+    	Assert.assertEquals(dto.getOrderCount(), 3);
+    	Assert.assertEquals(dto.getRevenue(), new BigDecimal("12.50"));
+    }
+
 }
@@ -0,0 +1,221 @@
+package cz.fi.muni.pa165.service;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.dao.CategoryDao;
+import cz.fi.muni.pa165.dao.ProductDao;
+import cz.fi.muni.pa165.dto.Color;
+import cz.fi.muni.pa165.entity.Category;
+import cz.fi.muni.pa165.entity.Price;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.projection.ProductSummary;
+
+public class CatalogServiceTest
+{
+    @Mock
+    private ProductDao productDao;
+
+    @Mock
+    private CategoryDao categoryDao;
+
+    @InjectMocks
+    private CatalogServiceImpl catalogService;
+
+    @BeforeMethod
+    public void setup() {
+        catalogService = new CatalogServiceImpl();
+        MockitoAnnotations.initMocks(this);
+        ProductSummary tv = new ProductSummary(2l, "TV", Color.BLACK, new Date(1000),
+                new BigDecimal("199.90"), Currency.EUR, new Date(2000));
+        tv.addCategoryId(10l);
+        ProductSummary radio = new ProductSummary(1l, "Radio", null, null, null, null, null);
+        radio.addCategoryId(10l);
+        radio.addCategoryId(20l);
+        when(productDao.findAllSummaries()).thenReturn(Arrays.asList(tv, radio));
+        when(categoryDao.findAll()).thenReturn(Arrays.asList(category(20l, "Audio"), category(10l, "Electronics")));
+    }
+
+    @Test
+    public void productsAreOrderedByName() {
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+
+        Assert.assertEquals(names(snapshot.getProducts()), Arrays.asList("Radio", "TV"));
+        Assert.assertEquals(snapshot.getCategories().stream().map(Category::getName).collect(Collectors.toList()),
+                Arrays.asList("Audio", "Electronics"));
+        Assert.assertEquals(names(snapshot.getProductsInCategory("Electronics")), Arrays.asList("Radio", "TV"));
+        Assert.assertEquals(names(snapshot.getProductsInCategory("Audio")), Arrays.asList("Radio"));
+        Assert.assertTrue(snapshot.getProductsInCategory("Toys").isEmpty());
+    }
+
+    @Test
+    public void pagesFollowTheCursor() {
+        ProductSummary radio2 = new ProductSummary(3l, "Radio", null, null, null, null, null);
+        radio2.addCategoryId(10l);
+        ProductSummary amplifier = new ProductSummary(4l, "Amplifier", null, null, null, null, null);
+        amplifier.addCategoryId(20l);
+        CatalogSnapshot snapshot = catalogService.getSnapshot().withProduct(radio2).withProduct(amplifier);
+
+        Assert.assertEquals(ids(snapshot.getProductsAfter(null, null, 2)), Arrays.asList(4l, 1l));
+        Assert.assertEquals(ids(snapshot.getProductsAfter("Radio", 1l, 5)), Arrays.asList(3l, 2l));
+        //the cursor product does not have to be in the snapshot anymore
+        Assert.assertEquals(ids(snapshot.getProductsAfter("Q", 9l, 1)), Arrays.asList(1l));
+        Assert.assertTrue(snapshot.getProductsAfter("TV", 2l, 5).isEmpty());
+        Assert.assertEquals(ids(snapshot.getProductsInCategoryAfter("Electronics", null, null, 1)),
+                Arrays.asList(1l));
+        Assert.assertEquals(ids(snapshot.getProductsInCategoryAfter("Electronics", "Radio", 1l, 5)),
+                Arrays.asList(3l, 2l));
+        Assert.assertEquals(ids(snapshot.getProductsInCategoryAfter("Audio", "Amplifier", 4l, 5)),
+                Arrays.asList(1l));
+        Assert.assertTrue(snapshot.getProductsInCategoryAfter("Toys", null, null, 5).isEmpty());
+    }
+
+    @Test
+    public void productIsReadBack() {
+        ProductSummary tv = catalogService.getSnapshot().getProduct(2l);
+
+        Assert.assertEquals(tv.getName(), "TV");
+        Assert.assertEquals(tv.getColor(), Color.BLACK);
+        Assert.assertEquals(tv.getAddedDate(), new Date(1000));
+        Assert.assertEquals(tv.getPriceValue(), new BigDecimal("199.90"));
+        Assert.assertEquals(tv.getPriceCurrency(), Currency.EUR);
+        Assert.assertEquals(tv.getPriceStart(), new Date(2000));
+        Assert.assertEquals(tv.getCategoryIds().size(), 1);
+
+        ProductSummary radio = catalogService.getSnapshot().getProduct(1l);
+        Assert.assertNull(radio.getColor());
+        Assert.assertNull(radio.getPriceValue());
+        Assert.assertEquals(radio.getCategoryIds().size(), 2);
+        Assert.assertNull(catalogService.getSnapshot().getProduct(3l));
+        Assert.assertEquals(catalogService.getSnapshot().getCategory(20l).getName(), "Audio");
+        Assert.assertNull(catalogService.getSnapshot().getCategory(30l));
+    }
+
+    @Test
+    public void databaseIsReadOnce() {
+        catalogService.getSnapshot();
+        catalogService.getSnapshot();
+
+        verify(productDao, times(1)).findAllSummaries();
+        verify(categoryDao, times(1)).findAll();
+    }
+
+    @Test
+    public void changesReplaceTheSnapshot() {
+        CatalogSnapshot before = catalogService.getSnapshot();
+        Product product = new Product(3l);
+        product.setName("Amplifier");
+        Price price = new Price();
+        price.setValue(BigDecimal.TEN);
+        price.setCurrency(Currency.CZK);
+        product.setCurrentPrice(price);
+        product.addCategory(category(20l, "Audio"));
+
+        catalogService.productChanged(product);
+        catalogService.productDeleted(2l);
+
+        CatalogSnapshot after = catalogService.getSnapshot();
+        Assert.assertEquals(names(after.getProducts()), Arrays.asList("Amplifier", "Radio"));
+        Assert.assertEquals(names(after.getProductsInCategory("Audio")), Arrays.asList("Amplifier", "Radio"));
+        Assert.assertEquals(after.getProduct(3l).getPriceValue(), BigDecimal.TEN);
+        //the previous snapshot is not changed
+        Assert.assertEquals(names(before.getProducts()), Arrays.asList("Radio", "TV"));
+    }
+
+    @Test
+    public void deletedCategoryIsRemovedFromProducts() {
+        catalogService.getSnapshot();
+
+        catalogService.categoryDeleted(20l);
+        catalogService.categoryChanged(category(30l, "Toys"));
+
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        Assert.assertEquals(snapshot.getCategories().stream().map(Category::getName).collect(Collectors.toList()),
+                Arrays.asList("Electronics", "Toys"));
+        Assert.assertEquals(snapshot.getProduct(1l).getCategoryIds().size(), 1);
+        Assert.assertTrue(snapshot.getProductsInCategory("Toys").isEmpty());
+    }
+
+    @Test
+    public void renamedProductMovesInNameOrder() {
+        catalogService.getSnapshot();
+        Product product = new Product(1l);
+        product.setName("Walkman");
+        product.addCategory(category(10l, "Electronics"));
+        product.addCategory(category(20l, "Audio"));
+
+        catalogService.productChanged(product);
+
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        Assert.assertEquals(names(snapshot.getProducts()), Arrays.asList("TV", "Walkman"));
+        Assert.assertEquals(names(snapshot.getProductsInCategory("Electronics")), Arrays.asList("TV", "Walkman"));
+        Assert.assertEquals(names(snapshot.getProductsInCategory("Audio")), Arrays.asList("Walkman"));
+        Assert.assertEquals(snapshot.getProduct(1l).getName(), "Walkman");
+        Assert.assertEquals(snapshot.getProduct(2l).getName(), "TV");
+    }
+
+    @Test
+    public void renamedCategoryKeepsProducts() {
+        catalogService.getSnapshot();
+
+        catalogService.categoryChanged(category(20l, "Sound"));
+
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        Assert.assertEquals(snapshot.getCategories().stream().map(Category::getName).collect(Collectors.toList()),
+                Arrays.asList("Electronics", "Sound"));
+        Assert.assertEquals(names(snapshot.getProductsInCategory("Sound")), Arrays.asList("Radio"));
+        Assert.assertEquals(names(snapshot.getProductsInCategory("Electronics")), Arrays.asList("Radio", "TV"));
+        Assert.assertEquals(snapshot.getCategory(20l).getName(), "Sound");
+    }
+
+    @Test
+    public void pricesTooLongForLongAreKept() {
+        BigDecimal zeros = new BigDecimal("100000000000000000000.00");
+        BigDecimal digits = new BigDecimal("12345678901234567890.55");
+        ProductSummary amplifier = new ProductSummary(3l, "Amplifier", null, null, zeros, Currency.CZK, null);
+        ProductSummary speaker = new ProductSummary(4l, "Speaker", null, null, digits, Currency.CZK, null);
+
+        CatalogSnapshot snapshot = CatalogSnapshot.of(Arrays.asList(amplifier), Arrays.asList())
+                .withProduct(speaker);
+
+        Assert.assertEquals(snapshot.getProduct(3l).getPriceValue().compareTo(zeros), 0);
+        Assert.assertEquals(snapshot.getProduct(4l).getPriceValue(), digits);
+        Assert.assertEquals(snapshot.withoutProduct(3l).getProduct(4l).getPriceValue(), digits);
+    }
+
+    @Test
+    public void changesBeforeLoadingAreIgnored() {
+        catalogService.productDeleted(2l);
+
+        Assert.assertEquals(catalogService.getSnapshot().getProductCount(), 2);
+    }
+
+    private static Category category(Long id, String name) {
+        Category category = new Category(id);
+        category.setName(name);
+        return category;
+    }
+
+    private static List<String> names(List<ProductSummary> products) {
+        return products.stream().map(ProductSummary::getName).collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(List<ProductSummary> products) {
+        return products.stream().map(ProductSummary::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,70 @@
+package cz.fi.muni.pa165.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.dao.OrderStatisticsDao;
+import cz.fi.muni.pa165.projection.IdRange;
+
+public class DailySalesRebuildJobTest
+{
+    @Mock
+    private DailySalesService dailySalesService;
+
+    @Mock
+    private OrderStatisticsDao orderStatisticsDao;
+
+    @InjectMocks
+    private DailySalesRebuildJob job;
+
+    @BeforeMethod
+    public void setup() {
+        job = new DailySalesRebuildJob();
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void rebuildsDaysInChunks() {
+        Calendar cal = Calendar.getInstance();
+        cal.set(2015, Calendar.MARCH, 1, 17, 45);
+        Date first = cal.getTime();
+        cal.add(Calendar.DAY_OF_MONTH, 100);
+        when(orderStatisticsDao.getFirstCreated()).thenReturn(first);
+        when(orderStatisticsDao.getLastCreated()).thenReturn(cal.getTime());
+        when(dailySalesService.rebuild(any(), any())).thenReturn(3);
+
+        IdRange range = job.findIdRange();
+        Assert.assertEquals(range.getMaxId() - range.getMinId(), 100);
+        Assert.assertEquals(DailySalesRebuildJob.toDate(range.getMinId()), DailySalesServiceImpl.dayOf(first));
+
+        List<Long> days = job.read(range.getMinId() - 1, range.getMaxId(), job.getChunkSize());
+        Assert.assertEquals(days.size(), DailySalesService.REBUILD_CHUNK_DAYS);
+        Assert.assertEquals(days.get(0), range.getMinId());
+        Assert.assertEquals(job.read(range.getMaxId() - 1, range.getMaxId(), job.getChunkSize()),
+                Collections.singletonList(range.getMaxId()));
+        Assert.assertTrue(job.read(range.getMaxId(), range.getMaxId(), job.getChunkSize()).isEmpty());
+
+        Assert.assertEquals(job.write(days), 3);
+        cal.setTime(DailySalesServiceImpl.dayOf(first));
+        cal.add(Calendar.DAY_OF_MONTH, DailySalesService.REBUILD_CHUNK_DAYS);
+        verify(dailySalesService).rebuild(DailySalesServiceImpl.dayOf(first), cal.getTime());
+    }
+
+    @Test
+    public void noDaysWithoutOrders() {
+        Assert.assertTrue(job.findIdRange().isEmpty());
+    }
+}
@@ -0,0 +1,206 @@
+package cz.fi.muni.pa165.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.dao.DailySalesDao;
+import cz.fi.muni.pa165.dao.OrderArchiveDao;
+import cz.fi.muni.pa165.dao.OrderStatisticsDao;
+import cz.fi.muni.pa165.entity.Order;
+import cz.fi.muni.pa165.entity.OrderItem;
+import cz.fi.muni.pa165.entity.Price;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
+import cz.fi.muni.pa165.projection.DailyProductSales;
+
+public class DailySalesServiceTest
+{
+    @Mock
+    private DailySalesDao dailySalesDao;
+
+    @Mock
+    private OrderStatisticsDao orderStatisticsDao;
+
+    @Mock
+    private OrderArchiveDao orderArchiveDao;
+
+    @InjectMocks
+    private DailySalesServiceImpl dailySalesService;
+
+    private Product tv = new Product(1l);
+    private Product radio = new Product(2l);
+    private Date created;
+
+    @BeforeMethod
+    public void setup() {
+        dailySalesService = new DailySalesServiceImpl();
+        MockitoAnnotations.initMocks(this);
+        tv.setName("TV");
+        radio.setName("Radio");
+        Calendar cal = Calendar.getInstance();
+        cal.set(2015, Calendar.MARCH, 1, 17, 45);
+        created = cal.getTime();
+    }
+
+    private static OrderItem item(Product product, int amount, String price, Currency currency) {
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setAmount(amount);
+        Price p = new Price();
+        p.setValue(new BigDecimal(price));
+        p.setCurrency(currency);
+        item.setPricePerItem(p);
+        return item;
+    }
+
+    private Order order(OrderState state) {
+        Order order = new Order();
+        order.setCreated(created);
+        order.setState(state);
+        order.addOrderItem(item(radio, 1, "10", Currency.CZK));
+        order.addOrderItem(item(tv, 2, "100", Currency.CZK));
+        order.addOrderItem(item(tv, 1, "100", Currency.CZK));
+        order.addOrderItem(item(tv, 1, "4", Currency.EUR));
+        return order;
+    }
+
+    @Test
+    public void addedOrderIsAddedOncePerProductAndToTotals() {
+        dailySalesService.orderAdded(order(OrderState.RECEIVED));
+
+        ArgumentCaptor<DailyProductSales> rows = ArgumentCaptor.forClass(DailyProductSales.class);
+        verify(dailySalesDao, times(5)).add(rows.capture());
+        List<DailyProductSales> added = rows.getAllValues();
+        assertRow(added.get(0), tv.getId(), Currency.CZK, 3, "300");
+        assertRow(added.get(1), tv.getId(), Currency.EUR, 1, "4");
+        assertRow(added.get(2), radio.getId(), Currency.CZK, 1, "10");
+        assertRow(added.get(3), null, Currency.CZK, 4, "310");
+        assertRow(added.get(4), null, Currency.EUR, 1, "4");
+        for (DailyProductSales row : added) {
+            Assert.assertEquals(row.getOrderCount(), Long.valueOf(1));
+            Assert.assertEquals(row.getDay(), DailySalesServiceImpl.dayOf(created));
+        }
+    }
+
+    private static void assertRow(DailyProductSales row, Long productId, Currency currency, long itemsSold, String revenue) {
+        Assert.assertEquals(row.getProductId(), productId);
+        Assert.assertEquals(row.getCurrency(), currency);
+        Assert.assertEquals(row.getItemsSold(), Long.valueOf(itemsSold));
+        Assert.assertEquals(row.getRevenue().compareTo(new BigDecimal(revenue)), 0);
+    }
+
+    @Test
+    public void removedOrderIsSubtracted() {
+        dailySalesService.orderRemoved(order(OrderState.CANCELED));
+
+        ArgumentCaptor<DailyProductSales> rows = ArgumentCaptor.forClass(DailyProductSales.class);
+        verify(dailySalesDao, times(5)).add(rows.capture());
+        assertRow(rows.getAllValues().get(3), null, Currency.CZK, -4, "-310");
+        Assert.assertEquals(rows.getAllValues().get(3).getOrderCount(), Long.valueOf(-1));
+    }
+
+    @Test
+    public void removedOrdersAreSummedAndUpdatedInKeyOrder() {
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(created);
+        cal.add(Calendar.DAY_OF_MONTH, -1);
+        Order dayBefore = new Order();
+        dayBefore.setCreated(cal.getTime());
+        dayBefore.setState(OrderState.CANCELED);
+        dayBefore.addOrderItem(item(radio, 3, "10", Currency.CZK));
+
+        dailySalesService.ordersRemoved(Arrays.asList(order(OrderState.CANCELED), dayBefore, order(OrderState.CANCELED)));
+
+        ArgumentCaptor<DailyProductSales> rows = ArgumentCaptor.forClass(DailyProductSales.class);
+        verify(dailySalesDao, times(7)).add(rows.capture());
+        List<DailyProductSales> removed = rows.getAllValues();
+        assertRow(removed.get(0), radio.getId(), Currency.CZK, -3, "-30");
+        assertRow(removed.get(1), null, Currency.CZK, -3, "-30");
+        Assert.assertEquals(removed.get(0).getDay(), DailySalesServiceImpl.dayOf(cal.getTime()));
+        assertRow(removed.get(2), tv.getId(), Currency.CZK, -6, "-600");
+        assertRow(removed.get(3), tv.getId(), Currency.EUR, -2, "-8");
+        assertRow(removed.get(4), radio.getId(), Currency.CZK, -2, "-20");
+        assertRow(removed.get(5), null, Currency.CZK, -8, "-620");
+        assertRow(removed.get(6), null, Currency.EUR, -2, "-8");
+        Assert.assertEquals(removed.get(1).getOrderCount(), Long.valueOf(-1));
+        Assert.assertEquals(removed.get(5).getOrderCount(), Long.valueOf(-2));
+    }
+
+    @Test
+    public void canceledOrderIsNotAdded() {
+        dailySalesService.orderAdded(order(OrderState.CANCELED));
+
+        verify(dailySalesDao, never()).add(any());
+    }
+
+    @Test
+    public void rebuildAddsDifferences() {
+        Date day = DailySalesServiceImpl.dayOf(created);
+        Date end = new Date(day.getTime() + 1);
+        when(orderStatisticsDao.getDailyProductSales(day, end)).thenReturn(Arrays.asList(
+                new DailyProductSales(day, tv.getId(), Currency.CZK, 3l, 1l, new BigDecimal("300")),
+                new DailyProductSales(day, tv.getId(), Currency.EUR, 1l, 1l, new BigDecimal("4"))));
+        when(orderStatisticsDao.getDailyTotalSales(day, end)).thenReturn(Collections.singletonList(
+                new DailyProductSales(day, Currency.CZK, 3l, 1l, new BigDecimal("300"))));
+        when(dailySalesDao.findSales(day, end)).thenReturn(Arrays.asList(
+                new DailyProductSales(day, tv.getId(), Currency.CZK, 2l, 1l, new BigDecimal("200")),
+                new DailyProductSales(day, tv.getId(), Currency.EUR, 1l, 1l, new BigDecimal("4")),
+                new DailyProductSales(day, radio.getId(), Currency.CZK, 1l, 1l, new BigDecimal("10")),
+                new DailyProductSales(day, Currency.CZK, 3l, 2l, new BigDecimal("310"))));
+
+        Assert.assertEquals(dailySalesService.rebuild(day, end), 3);
+
+        ArgumentCaptor<DailyProductSales> rows = ArgumentCaptor.forClass(DailyProductSales.class);
+        verify(dailySalesDao, times(3)).add(rows.capture());
+        List<DailyProductSales> corrections = rows.getAllValues();
+        assertRow(corrections.get(0), tv.getId(), Currency.CZK, 1, "100");
+        Assert.assertEquals(corrections.get(0).getOrderCount(), Long.valueOf(0));
+        assertRow(corrections.get(1), radio.getId(), Currency.CZK, -1, "-10");
+        Assert.assertEquals(corrections.get(1).getOrderCount(), Long.valueOf(-1));
+        assertRow(corrections.get(2), null, Currency.CZK, 0, "-10");
+        Assert.assertEquals(corrections.get(2).getOrderCount(), Long.valueOf(-1));
+    }
+
+    @Test
+    public void rebuildReadsAgainWhenRowsChanged() {
+        Date day = DailySalesServiceImpl.dayOf(created);
+        Date end = new Date(day.getTime() + 1);
+        when(dailySalesDao.countChanges(day, end)).thenReturn(1l, 2l, 2l, 2l);
+        when(orderArchiveDao.countCreated(day, end)).thenReturn(0l, 0l, 1l);
+
+        Assert.assertEquals(dailySalesService.rebuild(day, end), 0);
+
+        verify(orderStatisticsDao, times(3)).getDailyProductSales(day, end);
+        verify(dailySalesDao, never()).add(any());
+    }
+
+    @Test(expectedExceptions = EshopServiceException.class)
+    public void rebuildFailsWhenDaysKeepChanging() {
+        Date day = DailySalesServiceImpl.dayOf(created);
+        AtomicLong changes = new AtomicLong();
+        when(dailySalesDao.countChanges(any(), any())).thenAnswer(invocation -> changes.incrementAndGet());
+
+        dailySalesService.rebuild(day, new Date(day.getTime() + 1));
+    }
+}
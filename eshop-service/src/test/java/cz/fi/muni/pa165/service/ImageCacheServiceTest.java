@@ -0,0 +1,114 @@
+package cz.fi.muni.pa165.service;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Date;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.entity.ProductImage;
+
+public class ImageCacheServiceTest
+{
+    private ImageCacheServiceImpl imageCacheService;
+
+    @BeforeMethod
+    public void createCache() {
+        imageCacheService = new ImageCacheServiceImpl();
+        imageCacheService.setMaxSize(10);
+        imageCacheService.setMaxEntrySize(6);
+    }
+
+    @Test
+    public void cachedImageIsReturned() {
+        imageCacheService.put(1l, image("a", 3), channel(1, 2, 3));
+
+        CachedImage cached = imageCacheService.get(1l, "a");
+
+        Assert.assertEquals(cached.getMimeType(), "image/png");
+        Assert.assertEquals(cached.getLength(), 3);
+        Assert.assertEquals(cached.getLastModified(), new Date(1000));
+        Assert.assertTrue(cached.getContent().isDirect());
+        Assert.assertTrue(cached.getContent().isReadOnly());
+        Assert.assertEquals(bytes(cached.getContent()), new byte[]{1, 2, 3});
+        //reading a returned buffer does not change the cached content
+        Assert.assertEquals(bytes(imageCacheService.get(1l, "a").getContent()), new byte[]{1, 2, 3});
+        Assert.assertEquals(imageCacheService.getHitCount(), 2);
+        Assert.assertEquals(imageCacheService.getMissCount(), 0);
+    }
+
+    @Test
+    public void changedImageIsMissed() {
+        imageCacheService.put(1l, image("a", 3), channel(1, 2, 3));
+
+        Assert.assertNull(imageCacheService.get(1l, "b"));
+        Assert.assertNull(imageCacheService.get(2l, "a"));
+        Assert.assertEquals(imageCacheService.getMissCount(), 2);
+    }
+
+    @Test
+    public void invalidatedImageIsRemoved() {
+        imageCacheService.put(1l, image("a", 3), channel(1, 2, 3));
+
+        imageCacheService.invalidate(1l);
+
+        Assert.assertNull(imageCacheService.get(1l, "a"));
+        Assert.assertEquals(imageCacheService.getEntryCount(), 0);
+        Assert.assertEquals(imageCacheService.getSize(), 0);
+    }
+
+    @Test
+    public void leastRecentlyUsedImageIsEvicted() {
+        imageCacheService.put(1l, image("a", 4), channel(1, 2, 3, 4));
+        imageCacheService.put(2l, image("b", 4), channel(1, 2, 3, 4));
+        imageCacheService.get(1l, "a");
+
+        imageCacheService.put(3l, image("c", 4), channel(1, 2, 3, 4));
+
+        Assert.assertNotNull(imageCacheService.get(1l, "a"));
+        Assert.assertNull(imageCacheService.get(2l, "b"));
+        Assert.assertNotNull(imageCacheService.get(3l, "c"));
+        Assert.assertEquals(imageCacheService.getEvictionCount(), 1);
+        Assert.assertEquals(imageCacheService.getSize(), 8);
+    }
+
+    @Test
+    public void largeImageIsNotCached() {
+        Assert.assertFalse(imageCacheService.canCache(7));
+        Assert.assertNull(imageCacheService.put(1l, image("a", 7), channel(1, 2, 3, 4, 5, 6, 7)));
+        Assert.assertEquals(imageCacheService.getEntryCount(), 0);
+    }
+
+    @Test
+    public void truncatedImageIsNotCached() {
+        Assert.assertNull(imageCacheService.put(1l, image("a", 3), channel(1, 2)));
+        Assert.assertNull(imageCacheService.get(1l, "a"));
+    }
+
+    private static ProductImage image(String contentHash, long length) {
+        ProductImage image = new ProductImage();
+        image.setMimeType("image/png");
+        image.setContentHash(contentHash);
+        image.setLength(length);
+        image.setLastModified(new Date(1000));
+        return image;
+    }
+
+    private static ReadableByteChannel channel(int... content) {
+        byte[] data = new byte[content.length];
+        for (int i = 0; i < content.length; i++) {
+            data[i] = (byte) content[i];
+        }
+        return Channels.newChannel(new ByteArrayInputStream(data));
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return data;
+    }
+}
@@ -0,0 +1,217 @@
+package cz.fi.muni.pa165.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.dao.JobCheckpointDao;
+import cz.fi.muni.pa165.entity.JobCheckpoint;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
+import cz.fi.muni.pa165.exceptions.JobRunningException;
+import cz.fi.muni.pa165.projection.IdRange;
+
+public class JobRunnerTest
+{
+    @Mock
+    private JobCheckpointDao jobCheckpointDao;
+
+    @Mock
+    private TimeService timeService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private JobRunnerImpl jobRunner;
+
+    /**
+     * Checkpoints "stored" by the mocked dao.
+     */
+    private final List<JobCheckpoint> checkpoints = new CopyOnWriteArrayList<>();
+
+    @BeforeMethod
+    public void setup() {
+        jobRunner = new JobRunnerImpl();
+        MockitoAnnotations.initMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(timeService.getCurrentTime()).thenReturn(new Date());
+        checkpoints.clear();
+        doAnswer(invocation -> checkpoints.add(invocation.getArgument(0)))
+                .when(jobCheckpointDao).create(any());
+        when(jobCheckpointDao.update(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(jobCheckpointDao.findByJob(anyString())).thenAnswer(invocation -> new ArrayList<>(checkpoints));
+        when(jobCheckpointDao.findByJobAndPartition(anyString(), anyInt())).thenAnswer(invocation ->
+                checkpoints.stream().filter(c -> c.getPartitionNo() == (int) invocation.getArgument(1))
+                        .findFirst().orElse(null));
+        when(jobCheckpointDao.deleteByJob(anyString())).thenAnswer(invocation -> {
+            int deleted = checkpoints.size();
+            checkpoints.clear();
+            return deleted;
+        });
+        jobRunner.setThreads(2);
+        jobRunner.setChunkPauseMillis(0);
+        jobRunner.afterPropertiesSet();
+    }
+
+    @AfterMethod
+    public void shutdown() throws InterruptedException {
+        jobRunner.destroy();
+    }
+
+    @Test
+    public void processesPartitionsInChunksAndDeletesCheckpoints() {
+        TestJob job = new TestJob(ids(1, 10), 3, 2);
+        job.skippedId = 7l;
+
+        Assert.assertEquals(jobRunner.run(job), 9);
+
+        List<Long> written = new ArrayList<>(job.written);
+        Collections.sort(written);
+        Assert.assertEquals(written, Arrays.asList(1l, 2l, 3l, 4l, 5l, 6l, 8l, 9l, 10l));
+        Assert.assertTrue(checkpoints.isEmpty());
+    }
+
+    @Test
+    public void failedRunContinuesFromCheckpoint() {
+        TestJob job = new TestJob(ids(1, 8), 1, 2);
+        job.failingId = 6l;
+
+        Assert.expectThrows(EshopServiceException.class, () -> jobRunner.run(job));
+        Assert.assertEquals(checkpoints.size(), 1);
+        JobCheckpoint checkpoint = checkpoints.get(0);
+        Assert.assertEquals(checkpoint.getLastId(), Long.valueOf(4));
+        Assert.assertEquals(checkpoint.getProcessed(), 4);
+        Assert.assertFalse(checkpoint.isFinished());
+
+        job.failingId = null;
+        Assert.assertEquals(jobRunner.run(job), 8);
+        Assert.assertEquals(job.written, ids(1, 8));
+        Assert.assertTrue(checkpoints.isEmpty());
+    }
+
+    @Test
+    public void refusesToRunJobTwiceAtOnce() throws InterruptedException {
+        TestJob job = new TestJob(ids(1, 4), 1, 2);
+        job.reading = new CountDownLatch(1);
+        job.release = new CountDownLatch(1);
+        Thread first = new Thread(() -> jobRunner.run(job));
+        first.start();
+        Assert.assertTrue(job.reading.await(5, TimeUnit.SECONDS));
+
+        Assert.expectThrows(JobRunningException.class, () -> jobRunner.run(job));
+
+        job.release.countDown();
+        first.join(5000);
+        Assert.assertEquals(job.written, ids(1, 4));
+    }
+
+    @Test
+    public void runsNothingWithoutItems() {
+        Assert.assertEquals(jobRunner.run(new TestJob(Collections.emptyList(), 4, 2)), 0);
+        Assert.assertTrue(checkpoints.isEmpty());
+    }
+
+    private static List<Long> ids(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().collect(Collectors.toList());
+    }
+
+    private static class TestJob implements ChunkedJob<Long, Long>
+    {
+        private final List<Long> ids;
+        private final int partitions;
+        private final int chunkSize;
+        private final List<Long> written = new CopyOnWriteArrayList<>();
+        private Long skippedId;
+        private Long failingId;
+        private CountDownLatch reading;
+        private CountDownLatch release;
+
+        TestJob(List<Long> ids, int partitions, int chunkSize) {
+            this.ids = ids;
+            this.partitions = partitions;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public String getName() {
+            return "test-job";
+        }
+
+        @Override
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        @Override
+        public int getPartitions() {
+            return partitions;
+        }
+
+        @Override
+        public long getIntervalMinutes() {
+            return 0;
+        }
+
+        @Override
+        public IdRange findIdRange() {
+            return ids.isEmpty() ? new IdRange(null, null) : new IdRange(ids.get(0), ids.get(ids.size() - 1));
+        }
+
+        @Override
+        public List<Long> read(long afterId, long toId, int maxResults) {
+            if (reading != null) {
+                reading.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return ids.stream().filter(id -> id > afterId && id <= toId).limit(maxResults)
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public long getId(Long id) {
+            return id;
+        }
+
+        @Override
+        public Long process(Long id) {
+            return id.equals(skippedId) ? null : id;
+        }
+
+        @Override
+        public int write(List<Long> items) {
+            if (failingId != null && items.contains(failingId)) {
+                throw new IllegalStateException("write failed");
+            }
+            written.addAll(items);
+            return items.size();
+        }
+    }
+}
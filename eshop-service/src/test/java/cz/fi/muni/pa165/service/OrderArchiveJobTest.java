@@ -0,0 +1,87 @@
+package cz.fi.muni.pa165.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.mock.env.MockEnvironment;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.dao.OrderArchiveDao;
+import cz.fi.muni.pa165.projection.IdRange;
+
+public class OrderArchiveJobTest
+{
+    @Mock
+    private OrderArchiveDao orderArchiveDao;
+
+    @Mock
+    private TimeService timeService;
+
+    @Spy
+    private MockEnvironment env;
+
+    @InjectMocks
+    private OrderArchiveJob job;
+
+    private final Date now = new Date();
+
+    @BeforeMethod
+    public void setup() {
+        job = new OrderArchiveJob();
+        env = new MockEnvironment();
+        MockitoAnnotations.initMocks(this);
+        when(timeService.getCurrentTime()).thenReturn(now);
+        job.setArchiveAfterDays(30);
+    }
+
+    @Test
+    public void readsOrdersCreatedBeforeArchiveAge() {
+        IdRange range = new IdRange(3l, 40l);
+        when(orderArchiveDao.findArchivableIdRange(any())).thenReturn(range);
+        when(orderArchiveDao.findArchivableIds(any(), eq(3l), eq(40l), eq(10))).thenReturn(Arrays.asList(4l, 7l));
+
+        Assert.assertSame(job.findIdRange(), range);
+        Assert.assertEquals(job.read(3, 40, 10), Arrays.asList(4l, 7l));
+
+        ArgumentCaptor<Date> createdBefore = ArgumentCaptor.forClass(Date.class);
+        verify(orderArchiveDao).findArchivableIdRange(createdBefore.capture());
+        Assert.assertEquals(createdBefore.getValue().getTime(), now.getTime() - TimeUnit.DAYS.toMillis(30));
+    }
+
+    @Test
+    public void archivesChunkAtCurrentTime() {
+        List<Long> ids = Arrays.asList(4l, 7l);
+        when(orderArchiveDao.archive(ids, now)).thenReturn(2);
+
+        Assert.assertEquals(job.write(ids), 2);
+    }
+
+    @Test
+    public void readsSettingsFromProperties() {
+        env.setProperty("eshop.orders.archive.after-days", "7");
+        env.setProperty("eshop.orders.archive.chunk-size", "3");
+        env.setProperty("eshop.orders.archive.partitions", "5");
+        env.setProperty("eshop.orders.archive.interval-minutes", "0");
+        job.afterPropertiesSet();
+
+        Assert.assertEquals(job.getChunkSize(), 3);
+        Assert.assertEquals(job.getPartitions(), 5);
+        Assert.assertEquals(job.getIntervalMinutes(), 0);
+        job.findIdRange();
+        verify(orderArchiveDao).findArchivableIdRange(new Date(now.getTime() - TimeUnit.DAYS.toMillis(7)));
+    }
+}
@@ -0,0 +1,229 @@
+package cz.fi.muni.pa165.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.PersistenceException;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.entity.Order;
+import cz.fi.muni.pa165.entity.Price;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.entity.User;
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.enums.OrderIntakeState;
+import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
+import cz.fi.muni.pa165.exceptions.OrderIntakeFullException;
+
+public class OrderIntakeServiceTest
+{
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private TimeService timeService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private OrderIntakeServiceImpl orderIntakeService;
+
+    private final AtomicLong orderIds = new AtomicLong();
+
+    @BeforeMethod
+    public void setup() {
+        orderIntakeService = new OrderIntakeServiceImpl();
+        MockitoAnnotations.initMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(timeService.getCurrentTime()).thenReturn(new Date());
+        User user = new User();
+        user.setEmail("pepa@seznam.cz");
+        when(userService.findUserById(1l)).thenReturn(user);
+        Product product = new Product(10l);
+        Price price = new Price();
+        price.setValue(BigDecimal.TEN);
+        price.setCurrency(Currency.CZK);
+        product.setCurrentPrice(price);
+        when(productService.findById(10l)).thenReturn(product);
+        doAnswer(invocation -> {
+            invocation.<Order>getArgument(0).setId(orderIds.incrementAndGet());
+            return null;
+        }).when(orderService).createOrder(any());
+    }
+
+    @AfterMethod
+    public void stop() throws InterruptedException {
+        orderIntakeService.destroy();
+    }
+
+    private OrderIntakeTicket submit(long userId, int amount) {
+        return orderIntakeService.submit(userId, Collections.singletonMap(10l, amount));
+    }
+
+    private static void awaitFinished(OrderIntakeTicket... tickets) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        for (OrderIntakeTicket ticket : tickets) {
+            while (ticket.getState() == OrderIntakeState.QUEUED) {
+                Assert.assertTrue(System.currentTimeMillis() < deadline, "order " + ticket + " was not processed");
+                Thread.sleep(5);
+            }
+        }
+    }
+
+    @Test
+    public void queuedOrdersAreCreatedInOneTransaction() throws InterruptedException {
+        OrderIntakeTicket first = submit(1, 1);
+        OrderIntakeTicket second = submit(1, 2);
+        OrderIntakeTicket third = submit(1, 3);
+        Assert.assertEquals(first.getState(), OrderIntakeState.QUEUED);
+        Assert.assertEquals(orderIntakeService.getQueuedCount(), 3);
+        Assert.assertSame(orderIntakeService.getTicket(second.getAckId()), second);
+
+        orderIntakeService.afterPropertiesSet();
+        awaitFinished(first, second, third);
+
+        for (OrderIntakeTicket ticket : new OrderIntakeTicket[]{first, second, third}) {
+            Assert.assertEquals(ticket.getState(), OrderIntakeState.CREATED);
+            Assert.assertNotNull(ticket.getOrderId());
+        }
+        Assert.assertEquals(orderIntakeService.getQueuedCount(), 0);
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(any());
+        verify(orderService).createOrder(argThat(o -> o.getState() == OrderState.RECEIVED
+                && o.getOrderItems().get(0).getAmount() == 3
+                && o.getOrderItems().get(0).getPricePerItem().getValue().equals(BigDecimal.TEN)));
+    }
+
+    @Test
+    public void invalidOrderFailsAlone() throws InterruptedException {
+        OrderIntakeTicket valid = submit(1, 1);
+        OrderIntakeTicket unknownUser = submit(2, 1);
+        OrderIntakeTicket unknownProduct = orderIntakeService.submit(1l, Collections.singletonMap(11l, 1));
+
+        orderIntakeService.afterPropertiesSet();
+        awaitFinished(valid, unknownUser, unknownProduct);
+
+        Assert.assertEquals(valid.getState(), OrderIntakeState.CREATED);
+        Assert.assertEquals(unknownUser.getState(), OrderIntakeState.FAILED);
+        Assert.assertEquals(unknownUser.getMessage(), "User 2 does not exist");
+        Assert.assertEquals(unknownProduct.getState(), OrderIntakeState.FAILED);
+        Assert.assertNull(unknownProduct.getOrderId());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    public void failedBatchIsCreatedOneByOne() throws InterruptedException {
+        doThrow(new PersistenceException("constraint violation")).when(orderService)
+                .createOrder(argThat(o -> o.getOrderItems().get(0).getAmount() == 2));
+        OrderIntakeTicket first = submit(1, 1);
+        OrderIntakeTicket failing = submit(1, 2);
+        OrderIntakeTicket third = submit(1, 3);
+
+        orderIntakeService.afterPropertiesSet();
+        awaitFinished(first, failing, third);
+
+        Assert.assertEquals(first.getState(), OrderIntakeState.CREATED);
+        Assert.assertEquals(failing.getState(), OrderIntakeState.FAILED);
+        Assert.assertEquals(third.getState(), OrderIntakeState.CREATED);
+        verify(transactionManager, times(4)).getTransaction(any());
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    public void writerSurvivesErrors() throws InterruptedException {
+        doThrow(new NoClassDefFoundError("cz/fi/muni/pa165/Missing")).when(orderService)
+                .createOrder(argThat(o -> o.getOrderItems().get(0).getAmount() == 2));
+        OrderIntakeTicket first = submit(1, 1);
+        OrderIntakeTicket failing = submit(1, 2);
+
+        orderIntakeService.afterPropertiesSet();
+        awaitFinished(first, failing);
+        OrderIntakeTicket next = submit(1, 3);
+        awaitFinished(next);
+
+        Assert.assertEquals(first.getState(), OrderIntakeState.FAILED);
+        Assert.assertEquals(failing.getState(), OrderIntakeState.FAILED);
+        Assert.assertEquals(failing.getMessage(), "The order cannot be created");
+        Assert.assertEquals(next.getState(), OrderIntakeState.CREATED);
+    }
+
+    @Test
+    public void fullQueueRejectsOrders() {
+        orderIntakeService.setCapacity(2);
+        orderIntakeService.setOfferTimeoutMillis(20);
+        submit(1, 1);
+        submit(1, 1);
+
+        Assert.expectThrows(OrderIntakeFullException.class, () -> submit(1, 1));
+        Assert.assertEquals(orderIntakeService.getQueuedCount(), 2);
+    }
+
+    @Test
+    public void fullQueueWaitsForTheWriter() throws InterruptedException {
+        orderIntakeService.setCapacity(1);
+        orderIntakeService.setOfferTimeoutMillis(5000);
+        orderIntakeService.afterPropertiesSet();
+        OrderIntakeTicket[] tickets = new OrderIntakeTicket[20];
+        for (int i = 0; i < tickets.length; i++) {
+            tickets[i] = submit(1, 1);
+        }
+
+        awaitFinished(tickets);
+        verify(orderService, times(tickets.length)).createOrder(any());
+    }
+
+    @Test
+    public void invalidAmountIsRejected() {
+        Assert.expectThrows(EshopServiceException.class, () -> submit(1, 0));
+        Assert.expectThrows(EshopServiceException.class,
+                () -> orderIntakeService.submit(1l, Collections.emptyMap()));
+        Assert.assertEquals(orderIntakeService.getQueuedCount(), 0);
+    }
+
+    @Test
+    public void finishedStatusesExpire() throws InterruptedException {
+        orderIntakeService.setStatusRetentionMillis(0);
+        OrderIntakeTicket first = submit(1, 1);
+        orderIntakeService.afterPropertiesSet();
+        awaitFinished(first);
+        Thread.sleep(5);
+        OrderIntakeTicket second = submit(1, 1);
+        awaitFinished(second);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (orderIntakeService.getTicket(first.getAckId()) != null) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline, "status did not expire");
+            Thread.sleep(5);
+        }
+        Assert.assertNull(orderIntakeService.getTicket("unknown"));
+    }
+}
@@ -1,11 +1,16 @@
 package cz.fi.muni.pa165.service;
 
 import cz.fi.muni.pa165.dao.OrderDao;
+import cz.fi.muni.pa165.dao.OrderFetchPlan;
+import cz.fi.muni.pa165.dao.OrderItemDao;
+import cz.fi.muni.pa165.dao.OrderTotalDao;
 import cz.fi.muni.pa165.entity.Order;
 import cz.fi.muni.pa165.entity.OrderItem;
+import cz.fi.muni.pa165.entity.OrderTotal;
 import cz.fi.muni.pa165.entity.Price;
 import cz.fi.muni.pa165.enums.Currency;
 import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.enums.OrderTransitionOutcome;
 import cz.fi.muni.pa165.service.config.ServiceConfiguration;
 import org.hibernate.service.spi.ServiceException;
 import org.mockito.InjectMocks;
@@ -20,12 +25,20 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,12 +47,21 @@ public class OrderServiceTest extends AbstractTestNGSpringContextTests {
     @Mock
     private OrderDao orderDao;
 
+    @Mock
+    private OrderItemDao orderItemDao;
+
+    @Mock
+    private OrderTotalDao orderTotalDao;
+
     @Mock
     private TimeService timeService;
 
     @Mock
     private ExchangeService exchangeService;
 
+    @Mock
+    private DailySalesService dailySalesService;
+
     @Autowired
     @InjectMocks
     private OrderService orderService;
@@ -100,6 +122,48 @@ public class OrderServiceTest extends AbstractTestNGSpringContextTests {
     public void cancel() {
         orderService.cancelOrder(orderReceived);
         Assert.assertEquals(orderReceived.getState(), OrderState.CANCELED);
+        verify(dailySalesService).orderRemoved(orderReceived);
+    }
+
+    @Test
+    public void shipMany() {
+        reset(orderDao);
+        Map<Long, OrderState> states = new HashMap<>();
+        states.put(1l, OrderState.RECEIVED);
+        states.put(2l, OrderState.SHIPPED);
+        when(orderDao.lockStates(Arrays.asList(1l, 2l, 3l))).thenReturn(states);
+
+        List<OrderTransitionResult> results = orderService.changeStates(Arrays.asList(1l, 2l, 3l, 1l), OrderState.SHIPPED);
+
+        Assert.assertEquals(results.size(), 3);
+        Assert.assertEquals(results.get(0).getOutcome(), OrderTransitionOutcome.CHANGED);
+        Assert.assertEquals(results.get(0).getState(), OrderState.SHIPPED);
+        Assert.assertEquals(results.get(1).getOutcome(), OrderTransitionOutcome.NOT_ALLOWED);
+        Assert.assertEquals(results.get(1).getState(), OrderState.SHIPPED);
+        Assert.assertEquals(results.get(2).getOutcome(), OrderTransitionOutcome.NOT_FOUND);
+        Assert.assertNull(results.get(2).getState());
+        verify(orderDao).updateStates(Collections.singletonList(1l), OrderState.RECEIVED, OrderState.SHIPPED);
+    }
+
+    @Test
+    public void cancelManyInChunks() {
+        reset(orderDao, dailySalesService);
+        List<Long> ids = new ArrayList<>();
+        Map<Long, OrderState> states = new HashMap<>();
+        for (long id = 1; id <= 2 * OrderService.BULK_CHUNK_SIZE + 1; id++) {
+            ids.add(id);
+            states.put(id, OrderState.RECEIVED);
+        }
+        when(orderDao.lockStates(anyCollection())).thenReturn(states);
+        when(orderDao.findByIds(anyCollection(), any())).thenReturn(Collections.singletonList(orderReceived));
+
+        List<OrderTransitionResult> results = orderService.changeStates(ids, OrderState.CANCELED);
+
+        Assert.assertEquals(results.size(), ids.size());
+        Assert.assertTrue(results.stream().allMatch(r -> r.getOutcome() == OrderTransitionOutcome.CHANGED));
+        verify(orderDao, times(3)).updateStates(anyCollection(), any(), any());
+        verify(orderDao, times(3)).findByIds(anyCollection(), any(OrderFetchPlan.class));
+        verify(dailySalesService, times(3)).ordersRemoved(Collections.singletonList(orderReceived));
     }
 
     @Test
@@ -108,7 +172,7 @@ public class OrderServiceTest extends AbstractTestNGSpringContextTests {
         order.setId(1l);
         order.addOrderItem(orderitem(2, 3, Currency.CZK));
         order.addOrderItem(orderitem(5, 7, Currency.EUR));
-        when(orderDao.findById(order.getId())).thenReturn(order);
+        when(orderDao.findById(order.getId(), true)).thenReturn(order);
         when(exchangeService.getCurrencyRate(Currency.EUR, Currency.CZK)).thenReturn(new BigDecimal(27));
         Price totalPrice = orderService.getTotalPrice(1l, Currency.CZK);
         Price expected = new Price();
@@ -117,6 +181,43 @@ public class OrderServiceTest extends AbstractTestNGSpringContextTests {
         Assert.assertEquals(totalPrice, expected, "order total price is wrong");
     }
 
+    @Test
+    public void createOrderStoresTotals() {
+        Order order = new Order();
+        order.setState(OrderState.RECEIVED);
+        order.addOrderItem(orderitem(2, 3, Currency.CZK));
+        order.addOrderItem(orderitem(5, 7, Currency.EUR));
+        order.addOrderItem(orderitem(1, 10, Currency.EUR));
+        when(exchangeService.getCurrencyRate(Currency.CZK, Currency.CZK)).thenReturn(BigDecimal.ONE);
+        when(exchangeService.getCurrencyRate(Currency.EUR, Currency.CZK)).thenReturn(new BigDecimal(27));
+        when(exchangeService.getCurrencyRate(Currency.CZK, Currency.EUR)).thenReturn(new BigDecimal("0.04"));
+        when(exchangeService.getCurrencyRate(Currency.EUR, Currency.EUR)).thenReturn(BigDecimal.ONE);
+        when(exchangeService.getCurrencyRate(Currency.CZK, Currency.USD)).thenReturn(new BigDecimal("0.04"));
+        when(exchangeService.getCurrencyRate(Currency.EUR, Currency.USD)).thenReturn(BigDecimal.ONE);
+
+        orderService.createOrder(order);
+
+        verify(orderDao).create(order);
+        Assert.assertEquals(order.getTotals().size(), Currency.values().length);
+        OrderTotal czk = order.getTotals().get(Currency.CZK);
+        Assert.assertEquals(czk.getTotal().compareTo(new BigDecimal(2 * 3 + (5 * 7 + 10) * 27)), 0);
+        Assert.assertEquals(czk.getRates().get(Currency.EUR), new BigDecimal(27));
+        Assert.assertEquals(czk.getRates().size(), 2);
+        Assert.assertEquals(order.getTotals().get(Currency.EUR).getTotal().compareTo(new BigDecimal("45.24")), 0);
+    }
+
+    @Test
+    public void getTotalPriceReadsStoredTotal() {
+        reset(orderDao);
+        when(orderTotalDao.findTotal(2l, Currency.EUR)).thenReturn(new BigDecimal("45.24"));
+
+        Price totalPrice = orderService.getTotalPrice(2l, Currency.EUR);
+
+        Assert.assertEquals(totalPrice.getValue(), new BigDecimal("45.24"));
+        Assert.assertEquals(totalPrice.getCurrency(), Currency.EUR);
+        verify(orderDao, never()).findById(any());
+    }
+
     private static OrderItem orderitem(int amount, int price, Currency currency) {
         OrderItem item = new OrderItem();
         item.setAmount(amount);
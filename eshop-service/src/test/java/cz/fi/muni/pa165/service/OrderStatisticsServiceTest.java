@@ -0,0 +1,64 @@
+package cz.fi.muni.pa165.service;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.dao.DailySalesDao;
+import cz.fi.muni.pa165.dao.OrderStatisticsDao;
+import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
+import cz.fi.muni.pa165.projection.OrderStateCount;
+
+public class OrderStatisticsServiceTest
+{
+    @Mock
+    private OrderStatisticsDao orderStatisticsDao;
+
+    @Mock
+    private DailySalesDao dailySalesDao;
+
+    @InjectMocks
+    private OrderStatisticsServiceImpl orderStatisticsService;
+
+    @BeforeMethod
+    public void setup() {
+        orderStatisticsService = new OrderStatisticsServiceImpl();
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void statesWithoutOrdersAreCountedAsZero() {
+        when(orderStatisticsDao.countOrdersByState()).thenReturn(Arrays.asList(
+                new OrderStateCount(OrderState.RECEIVED, 4l),
+                new OrderStateCount(OrderState.DONE, 1l)));
+
+        Map<OrderState, Long> counts = orderStatisticsService.countOrdersByState();
+
+        Assert.assertEquals(counts.size(), OrderState.values().length);
+        Assert.assertEquals(counts.get(OrderState.RECEIVED), Long.valueOf(4));
+        Assert.assertEquals(counts.get(OrderState.DONE), Long.valueOf(1));
+        Assert.assertEquals(counts.get(OrderState.SHIPPED), Long.valueOf(0));
+        Assert.assertEquals(counts.get(OrderState.CANCELED), Long.valueOf(0));
+    }
+
+    @Test(expectedExceptions = EshopServiceException.class)
+    public void emptyPeriodIsRejected() {
+        Date now = new Date();
+        try {
+            orderStatisticsService.getDailyRevenue(now, now);
+        } finally {
+            verifyNoInteractions(orderStatisticsDao, dailySalesDao);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package cz.fi.muni.pa165.service;
+
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.dao.ProductDao;
+import cz.fi.muni.pa165.dto.Color;
+import cz.fi.muni.pa165.entity.Category;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.projection.ProductSummary;
+
+public class ProductFacetServiceTest
+{
+    @Mock
+    private ProductDao productDao;
+
+    @Spy
+    private ExchangeService exchangeService = new ExchangeServiceImpl();
+
+    @InjectMocks
+    private ProductFacetServiceImpl productFacetService;
+
+    @BeforeMethod
+    public void setup() {
+        productFacetService = new ProductFacetServiceImpl();
+        MockitoAnnotations.initMocks(this);
+        when(productDao.findAllSummaries()).thenReturn(Arrays.asList(
+                summary(1l, Color.RED, 100, Currency.CZK, 1l),
+                summary(2l, Color.RED, 100, Currency.EUR, 2l),
+                summary(3l, Color.BLUE, 1000, Currency.CZK, 1l),
+                summary(4l, null, null, null, 1l, 2l)));
+    }
+
+    @Test
+    public void withoutFilter() {
+        ProductFacets facets = productFacetService.search(null, null, null, 10);
+
+        Assert.assertEquals(ids(facets), Arrays.asList(1l, 2l, 3l, 4l));
+        Assert.assertEquals(facets.getTotalCount(), 4);
+        Assert.assertEquals(facets.getColorCounts().get(Color.RED), Integer.valueOf(2));
+        Assert.assertEquals(facets.getColorCounts().get(Color.BLUE), Integer.valueOf(1));
+        Assert.assertEquals(facets.getColorCounts().get(Color.GREEN), Integer.valueOf(0));
+        Assert.assertEquals(facets.getCategoryCounts().get(1l), Integer.valueOf(3));
+        Assert.assertEquals(facets.getCategoryCounts().get(2l), Integer.valueOf(2));
+        Assert.assertEquals(facets.getPriceBandCounts(), new int[]{1, 1, 1, 0, 0});
+    }
+
+    @Test
+    public void facetIsCountedWithoutItsOwnSelection() {
+        ProductFacets facets = productFacetService.search(EnumSet.of(Color.RED), Collections.emptySet(), null, 10);
+
+        Assert.assertEquals(ids(facets), Arrays.asList(1l, 2l));
+        Assert.assertEquals(facets.getColorCounts().get(Color.RED), Integer.valueOf(2));
+        Assert.assertEquals(facets.getColorCounts().get(Color.BLUE), Integer.valueOf(1));
+        Assert.assertEquals(facets.getCategoryCounts().get(1l), Integer.valueOf(1));
+        Assert.assertEquals(facets.getCategoryCounts().get(2l), Integer.valueOf(1));
+        Assert.assertEquals(facets.getPriceBandCounts(), new int[]{1, 0, 1, 0, 0});
+    }
+
+    @Test
+    public void facetsAreCombined() {
+        ProductFacets facets = productFacetService.search(EnumSet.of(Color.RED, Color.BLUE),
+                Collections.singleton(1l), null, 10);
+        Assert.assertEquals(ids(facets), Arrays.asList(1l, 3l));
+        Assert.assertEquals(facets.getPriceBandCounts(), new int[]{1, 1, 0, 0, 0});
+
+        facets = productFacetService.search(null, Collections.singleton(1l), Collections.singleton(1), 10);
+        Assert.assertEquals(ids(facets), Arrays.asList(3l));
+        Assert.assertEquals(facets.getColorCounts().get(Color.BLUE), Integer.valueOf(1));
+        Assert.assertEquals(facets.getColorCounts().get(Color.RED), Integer.valueOf(0));
+    }
+
+    @Test
+    public void pricesAreConvertedToBandCurrency() {
+        ProductFacets facets = productFacetService.search(null, null, Collections.singleton(2), 10);
+
+        Assert.assertEquals(ids(facets), Arrays.asList(2l));
+    }
+
+    @Test
+    public void unknownValuesMatchNothing() {
+        Assert.assertEquals(productFacetService.search(null, Collections.singleton(99l), null, 10).getTotalCount(), 0);
+        Assert.assertEquals(productFacetService.search(null, null, Collections.singleton(99), 10).getTotalCount(), 0);
+    }
+
+    @Test
+    public void resultsAreLimitedButAllAreCounted() {
+        ProductFacets facets = productFacetService.search(null, null, null, 1);
+
+        Assert.assertEquals(ids(facets), Arrays.asList(1l));
+        Assert.assertEquals(facets.getTotalCount(), 4);
+    }
+
+    @Test
+    public void changedAndDeletedProducts() {
+        productFacetService.search(null, null, null, 10);
+        Product product = new Product(3l);
+        product.setName("p3");
+        product.setColor(Color.RED);
+        Category category = new Category(2l);
+        product.addCategory(category);
+        productFacetService.productChanged(product);
+        productFacetService.productDeleted(1l);
+
+        ProductFacets facets = productFacetService.search(EnumSet.of(Color.RED), null, null, 10);
+
+        Assert.assertEquals(ids(facets), Arrays.asList(2l, 3l));
+        Assert.assertEquals(facets.getCategoryCounts().get(1l), Integer.valueOf(0));
+        Assert.assertEquals(facets.getCategoryCounts().get(2l), Integer.valueOf(2));
+        Assert.assertEquals(facets.getPriceBandCounts(), new int[]{0, 0, 1, 0, 0});
+    }
+
+    @Test
+    public void matchesFilteringOfAllProducts() {
+        List<ProductSummary> summaries = new ArrayList<>();
+        Color[] colors = Color.values();
+        for (long id = 1; id <= 1000; id++) {
+            summaries.add(summary(id, colors[(int) (id % colors.length)], (int) (id * 37 % 60000), Currency.CZK,
+                    id % 7, id % 11));
+        }
+        when(productDao.findAllSummaries()).thenReturn(summaries);
+        Set<Color> selectedColors = EnumSet.of(Color.RED, Color.GRAY);
+        Set<Long> selectedCategories = Collections.singleton(3l);
+
+        ProductFacets facets = productFacetService.search(selectedColors, selectedCategories, null, 1000);
+
+        List<Long> expected = summaries.stream()
+                .filter(s -> selectedColors.contains(s.getColor()))
+                .filter(s -> s.getCategoryIds().contains(3l))
+                .map(ProductSummary::getId).collect(Collectors.toList());
+        Assert.assertEquals(ids(facets), expected);
+        Assert.assertEquals(facets.getTotalCount(), expected.size());
+        Assert.assertEquals(facets.getColorCounts().get(Color.RED).longValue(), summaries.stream()
+                .filter(s -> s.getColor() == Color.RED && s.getCategoryIds().contains(3l)).count());
+    }
+
+    private static ProductSummary summary(Long id, Color color, Integer price, Currency currency, Long... categoryIds) {
+        ProductSummary summary = new ProductSummary(id, "p" + id, color, null,
+                (price == null) ? null : new BigDecimal(price), currency, null);
+        for (Long categoryId : categoryIds) {
+            summary.addCategoryId(categoryId);
+        }
+        return summary;
+    }
+
+    private static List<Long> ids(ProductFacets facets) {
+        return facets.getProducts().stream().map(ProductSummary::getId).collect(Collectors.toList());
+    }
+}
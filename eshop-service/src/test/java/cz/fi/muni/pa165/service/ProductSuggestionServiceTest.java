@@ -0,0 +1,148 @@
+package cz.fi.muni.pa165.service;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.dao.OrderDao;
+import cz.fi.muni.pa165.dao.ProductDao;
+import cz.fi.muni.pa165.entity.Product;
+import cz.fi.muni.pa165.projection.ProductOrderCount;
+import cz.fi.muni.pa165.projection.ProductSummary;
+
+public class ProductSuggestionServiceTest
+{
+    @Mock
+    private ProductDao productDao;
+
+    @Mock
+    private OrderDao orderDao;
+
+    @InjectMocks
+    private ProductSuggestionServiceImpl productSuggestionService;
+
+    @BeforeMethod
+    public void setup() {
+        productSuggestionService = new ProductSuggestionServiceImpl();
+        MockitoAnnotations.initMocks(this);
+        when(productDao.findAllSummaries()).thenReturn(Arrays.asList(
+                summary(1l, "Raspberry PI"),
+                summary(2l, "Raspberry PI Zero"),
+                summary(3l, "Radio"),
+                summary(4l, "Arduino")));
+        when(orderDao.countOrdersByProduct()).thenReturn(Arrays.asList(
+                new ProductOrderCount(2l, 5l),
+                new ProductOrderCount(3l, 1l)));
+    }
+
+    @Test
+    public void mostOrderedFirst() {
+        Assert.assertEquals(names(productSuggestionService.suggest("ra", 10)),
+                Arrays.asList("Raspberry PI Zero", "Radio", "Raspberry PI"));
+        Assert.assertEquals(productSuggestionService.suggest("ra", 10).get(0).getOrderCount(), 5);
+    }
+
+    @Test
+    public void prefixIgnoresCase() {
+        Assert.assertEquals(names(productSuggestionService.suggest("RASPBERRY pi", 10)),
+                Arrays.asList("Raspberry PI Zero", "Raspberry PI"));
+        Assert.assertTrue(productSuggestionService.suggest("rb", 10).isEmpty());
+    }
+
+    @Test
+    public void resultsAreLimited() {
+        Assert.assertEquals(names(productSuggestionService.suggest("", 2)),
+                Arrays.asList("Raspberry PI Zero", "Radio"));
+        Assert.assertTrue(productSuggestionService.suggest("a", 0).isEmpty());
+    }
+
+    @Test
+    public void databaseIsReadOnce() {
+        productSuggestionService.suggest("r", 10);
+        productSuggestionService.suggest("ra", 10);
+        productSuggestionService.suggest("ras", 10);
+
+        verify(productDao, times(1)).findAllSummaries();
+        verify(orderDao, times(1)).countOrdersByProduct();
+    }
+
+    @Test
+    public void createdProductIsSuggested() {
+        productSuggestionService.suggest("r", 10);
+        Product product = new Product(5l);
+        product.setName("Raspberry PI 4");
+
+        productSuggestionService.productCreated(product);
+
+        Assert.assertEquals(names(productSuggestionService.suggest("raspberry", 10)),
+                Arrays.asList("Raspberry PI Zero", "Raspberry PI", "Raspberry PI 4"));
+    }
+
+    @Test
+    public void deletedProductIsNotSuggested() {
+        productSuggestionService.suggest("r", 10);
+
+        productSuggestionService.productDeleted(2l);
+
+        Assert.assertEquals(names(productSuggestionService.suggest("ra", 10)),
+                Arrays.asList("Radio", "Raspberry PI"));
+        Assert.assertEquals(names(productSuggestionService.suggest("raspberry pi", 10)),
+                Arrays.asList("Raspberry PI"));
+    }
+
+    @Test
+    public void deletedProductIsReplacedByNextBest() {
+        productSuggestionService.suggest("item", 10);
+        for (long id = 10; id < 25; id++) {
+            Product product = new Product(id);
+            product.setName("Item " + id);
+            productSuggestionService.productCreated(product);
+        }
+        Assert.assertEquals(productSuggestionService.suggest("item", 10).size(), 10);
+
+        productSuggestionService.productDeleted(10l);
+
+        List<String> names = names(productSuggestionService.suggest("item", 10));
+        Assert.assertEquals(names.size(), 10);
+        Assert.assertEquals(names.get(0), "Item 11");
+        Assert.assertEquals(names.get(9), "Item 20");
+    }
+
+    @Test
+    public void rebuildReadsOrderCountsAndKeepsChangesMadeMeanwhile() {
+        productSuggestionService.suggest("r", 10);
+        Product clock = new Product(5l);
+        clock.setName("Radio Clock");
+        List<ProductSummary> summaries = productDao.findAllSummaries();
+        when(orderDao.countOrdersByProduct()).thenReturn(Arrays.asList(new ProductOrderCount(1l, 9l)));
+        when(productDao.findAllSummaries()).thenAnswer(invocation -> {
+            productSuggestionService.productCreated(clock);
+            productSuggestionService.productDeleted(3l);
+            return summaries;
+        });
+
+        productSuggestionService.rebuild();
+
+        Assert.assertEquals(names(productSuggestionService.suggest("ra", 10)),
+                Arrays.asList("Raspberry PI", "Radio Clock", "Raspberry PI Zero"));
+    }
+
+    private static ProductSummary summary(Long id, String name) {
+        return new ProductSummary(id, name, null, null, null, null, null);
+    }
+
+    private static List<String> names(List<ProductSuggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggestion::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,77 @@
+package cz.fi.muni.pa165.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.dao.OrderDao;
+import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.enums.OrderTransitionOutcome;
+import cz.fi.muni.pa165.projection.IdRange;
+
+public class StaleOrderCancellationJobTest
+{
+    @Mock
+    private OrderDao orderDao;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private TimeService timeService;
+
+    @InjectMocks
+    private StaleOrderCancellationJob job;
+
+    private final Date now = new Date();
+
+    @BeforeMethod
+    public void setup() {
+        job = new StaleOrderCancellationJob();
+        MockitoAnnotations.initMocks(this);
+        when(timeService.getCurrentTime()).thenReturn(now);
+        job.setCancelAfterHours(24);
+    }
+
+    @Test
+    public void readsOrdersReceivedBeforeDeadline() {
+        IdRange range = new IdRange(3l, 40l);
+        when(orderDao.findIdRangeWithState(eq(OrderState.RECEIVED), any())).thenReturn(range);
+        when(orderDao.findIdsWithState(eq(OrderState.RECEIVED), any(), eq(3l), eq(40l), eq(10)))
+                .thenReturn(Arrays.asList(4l, 7l));
+
+        Assert.assertSame(job.findIdRange(), range);
+        Assert.assertEquals(job.read(3, 40, 10), Arrays.asList(4l, 7l));
+
+        ArgumentCaptor<Date> deadline = ArgumentCaptor.forClass(Date.class);
+        verify(orderDao).findIdRangeWithState(eq(OrderState.RECEIVED), deadline.capture());
+        Assert.assertEquals(deadline.getValue().getTime(), now.getTime() - TimeUnit.HOURS.toMillis(24));
+    }
+
+    @Test
+    public void countsOnlyCanceledOrders() {
+        List<Long> ids = Arrays.asList(4l, 7l, 9l);
+        when(orderService.changeStates(ids, OrderState.CANCELED)).thenReturn(Arrays.asList(
+                new OrderTransitionResult(4l, OrderTransitionOutcome.CHANGED, OrderState.CANCELED),
+                new OrderTransitionResult(7l, OrderTransitionOutcome.NOT_ALLOWED, OrderState.SHIPPED),
+                new OrderTransitionResult(9l, OrderTransitionOutcome.CHANGED, OrderState.CANCELED)));
+
+        Assert.assertEquals(job.write(ids), 2);
+        Assert.assertEquals(job.write(Collections.emptyList()), 0);
+    }
+}
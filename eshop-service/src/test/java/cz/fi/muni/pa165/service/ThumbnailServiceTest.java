@@ -0,0 +1,151 @@
+package cz.fi.muni.pa165.service;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import javax.imageio.ImageIO;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.entity.ProductImage;
+import cz.fi.muni.pa165.service.config.ServiceConfiguration;
+
+@ContextConfiguration(classes=ServiceConfiguration.class)
+public class ThumbnailServiceTest extends AbstractTestNGSpringContextTests
+{
+    @Mock
+    private ProductImageService productImageService;
+
+    @Autowired
+    @InjectMocks
+    private ThumbnailServiceImpl thumbnailService;
+
+    private Path cacheDirectory;
+
+    @BeforeClass
+    public void setup()
+    {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @BeforeMethod
+    public void createCacheDirectory() throws IOException {
+        cacheDirectory = Files.createTempDirectory("thumbnails");
+        thumbnailService.setCacheDirectory(cacheDirectory);
+        thumbnailService.setMaxCacheSize(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void variants() {
+        Assert.assertEquals(thumbnailService.variantFor(10), Integer.valueOf(64));
+        Assert.assertEquals(thumbnailService.variantFor(64), Integer.valueOf(64));
+        Assert.assertEquals(thumbnailService.variantFor(65), Integer.valueOf(256));
+        Assert.assertEquals(thumbnailService.variantFor(1024), Integer.valueOf(1024));
+        Assert.assertNull(thumbnailService.variantFor(1025));
+    }
+
+    @Test
+    public void imageIsScaledDownKeepingAspectRatio() throws IOException {
+        ProductImage image = mockImage(1l, "image/png", png(500, 250));
+
+        Path thumbnail = thumbnailService.getThumbnail(image, 256);
+
+        BufferedImage read = ImageIO.read(thumbnail.toFile());
+        Assert.assertEquals(read.getWidth(), 256);
+        Assert.assertEquals(read.getHeight(), 128);
+        Assert.assertEquals(thumbnailService.thumbnailMimeType(image), "image/png");
+    }
+
+    @Test
+    public void smallImageIsNotEnlarged() throws IOException {
+        ProductImage image = mockImage(2l, "image/jpeg", png(40, 20));
+
+        Path thumbnail = thumbnailService.getThumbnail(image, 64);
+
+        BufferedImage read = ImageIO.read(thumbnail.toFile());
+        Assert.assertEquals(read.getWidth(), 40);
+        Assert.assertEquals(read.getHeight(), 20);
+        Assert.assertEquals(thumbnailService.thumbnailMimeType(image), "image/jpeg");
+    }
+
+    @Test
+    public void thumbnailIsGeneratedOnlyOnce() throws IOException {
+        ProductImage image = mockImage(3l, "image/png", png(100, 100));
+
+        Path first = thumbnailService.getThumbnail(image, 64);
+        Path second = thumbnailService.getThumbnail(image, 64);
+
+        Assert.assertEquals(second, first);
+        verify(productImageService, times(1)).openImage(3l);
+    }
+
+    @Test
+    public void changedImageReplacesOldThumbnail() throws IOException {
+        ProductImage image = mockImage(4l, "image/png", png(100, 100));
+        Path old = thumbnailService.getThumbnail(image, 64);
+        when(image.getContentHash()).thenReturn("changed");
+
+        Path changed = thumbnailService.getThumbnail(image, 64);
+
+        Assert.assertNotEquals(changed, old);
+        Assert.assertTrue(Files.exists(changed));
+        Assert.assertFalse(Files.exists(old));
+    }
+
+    @Test
+    public void leastRecentlyUsedThumbnailIsEvicted() throws IOException {
+        Path first = thumbnailService.getThumbnail(mockImage(5l, "image/png", png(100, 100)), 64);
+        Path second = thumbnailService.getThumbnail(mockImage(6l, "image/png", png(100, 100)), 64);
+        Files.setLastModifiedTime(first, FileTime.fromMillis(System.currentTimeMillis() - 60000));
+        thumbnailService.setMaxCacheSize(Files.size(first) + Files.size(second));
+
+        Path third = thumbnailService.getThumbnail(mockImage(7l, "image/png", png(100, 100)), 64);
+
+        Assert.assertFalse(Files.exists(first));
+        Assert.assertTrue(Files.exists(second));
+        Assert.assertTrue(Files.exists(third));
+    }
+
+    @Test
+    public void undecodableImageHasNoThumbnail() {
+        ProductImage image = mockImage(8l, "image/png", new byte[]{1, 2, 3});
+
+        Assert.assertNull(thumbnailService.getThumbnail(image, 64));
+    }
+
+    private ProductImage mockImage(Long productId, String mimeType, byte[] data) {
+        ProductImage image = mock(ProductImage.class);
+        when(image.getId()).thenReturn(productId);
+        when(image.getMimeType()).thenReturn(mimeType);
+        when(image.getContentHash()).thenReturn("hash" + productId);
+        when(productImageService.openImage(productId))
+                .thenAnswer(invocation -> Channels.newChannel(new ByteArrayInputStream(data)));
+        return image;
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,43 @@
+package cz.fi.muni.pa165.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
+
+public class PageCursorsTest
+{
+    @Test
+    public void cursorIsDecodedBack() {
+        Tuple<Long, String> after = PageCursors.decode(PageCursors.encode(7, "Guitar: electric"));
+
+        Assert.assertEquals(after.x, Long.valueOf(7));
+        Assert.assertEquals(after.y, "Guitar: electric");
+        Assert.assertEquals(PageCursors.decodeLong(PageCursors.encode(8, "1000")), new Tuple<>(8l, 1000l));
+    }
+
+    @Test
+    public void firstPageHasNoCursor() {
+        Assert.assertNull(PageCursors.decode(null));
+        Assert.assertNull(PageCursors.decode(""));
+        Assert.assertNull(PageCursors.decodeLong(null));
+    }
+
+    @Test(expectedExceptions = EshopServiceException.class)
+    public void malformedCursorIsRejected() {
+        PageCursors.decode("not a cursor");
+    }
+
+    @Test(expectedExceptions = EshopServiceException.class)
+    public void cursorWithoutSeparatorIsRejected() {
+        PageCursors.decode(Base64.getUrlEncoder().encodeToString("7".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test(expectedExceptions = EshopServiceException.class)
+    public void cursorWithoutNumberIsRejected() {
+        PageCursors.decodeLong(PageCursors.encode(7, "Guitar"));
+    }
+}
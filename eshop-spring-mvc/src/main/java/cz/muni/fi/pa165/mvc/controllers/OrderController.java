@@ -2,26 +2,37 @@ package cz.muni.fi.pa165.mvc.controllers;
 
 import cz.fi.muni.pa165.dto.OrderDTO;
 import cz.fi.muni.pa165.dto.OrderItemDTO;
+import cz.fi.muni.pa165.dto.OrderPageDTO;
+import cz.fi.muni.pa165.dto.OrderSearchDTO;
 import cz.fi.muni.pa165.dto.OrderTotalPriceDTO;
+import cz.fi.muni.pa165.dto.OrderTransitionResultDTO;
 import cz.fi.muni.pa165.enums.Currency;
 import cz.fi.muni.pa165.enums.OrderState;
+import cz.fi.muni.pa165.enums.OrderTransitionOutcome;
 import cz.fi.muni.pa165.exceptions.EshopServiceException;
 import cz.fi.muni.pa165.facade.OrderFacade;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * SpringMVC Controller for handling orders.
@@ -41,41 +52,78 @@ public class OrderController {
     private MessageSource messageSource;
 
     /**
-     * Shows a list of orders, filtered by specified filter
+     * Number of orders shown on one page of the list.
+     */
+    private static final int PAGE_SIZE = 50;
+
+    /**
+     * Shows a page of orders, filtered by specified filter and the optional search conditions.
+     * All the conditions are evaluated by one query, which reads only the orders of the page.
      *
-     * @param filter selects which orders should be displayed
-     * @param model  data to display
+     * @param filter    selects the states of the orders which should be displayed
+     * @param from      first day the orders were created on
+     * @param to        last day the orders were created on
+     * @param productId id of a product the orders contain
+     * @param minTotal  the least total price of the orders in CZK
+     * @param cursor    cursor of the page from the next link of the previous page
+     * @param model     data to display
      * @return JSP page name
      */
     @RequestMapping(value = "/list/{filter}", method = RequestMethod.GET)
-    public String list(@PathVariable String filter, Model model) {
-        List<OrderDTO> orders;
+    public String list(@PathVariable String filter,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                       @RequestParam(required = false) Long productId,
+                       @RequestParam(required = false) BigDecimal minTotal,
+                       @RequestParam(required = false) String cursor,
+                       Model model) {
+        OrderSearchDTO search = new OrderSearchDTO();
         switch (filter) {
             case "all":
-                orders = orderFacade.getAllOrders();
                 break;
             case "received":
-                orders = orderFacade.getOrdersByState(OrderState.RECEIVED);
+                search.setStates(EnumSet.of(OrderState.RECEIVED));
                 break;
             case "shipped":
-                orders = orderFacade.getOrdersByState(OrderState.SHIPPED);
+                search.setStates(EnumSet.of(OrderState.SHIPPED));
                 break;
             case "canceled":
-                orders = orderFacade.getOrdersByState(OrderState.CANCELED);
+                search.setStates(EnumSet.of(OrderState.CANCELED));
                 break;
             case "done":
-                orders = orderFacade.getOrdersByState(OrderState.DONE);
+                search.setStates(EnumSet.of(OrderState.DONE));
                 break;
             case "unprocessed":
-                orders = new ArrayList<>();
-                orders.addAll(orderFacade.getOrdersByState(OrderState.RECEIVED));
-                orders.addAll(orderFacade.getOrdersByState(OrderState.SHIPPED));
+                search.setStates(EnumSet.of(OrderState.RECEIVED, OrderState.SHIPPED));
                 break;
             default:
-                orders = new ArrayList<>();
                 model.addAttribute("alert_danger", "Unknown filter " + filter);
+                model.addAttribute("orders", new ArrayList<OrderDTO>());
+                return "order/list";
         }
+        if (from != null) {
+            search.setCreatedFrom(Date.from(from.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        }
+        if (to != null) {
+            search.setCreatedTo(Date.from(to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        }
+        search.setProductId(productId);
+        search.setMinTotal(minTotal);
+        search.setTotalCurrency(Currency.CZK);
+        OrderPageDTO page;
+        try {
+            page = orderFacade.searchOrders(search, cursor, PAGE_SIZE);
+        } catch (EshopServiceException ex) {
+            log.warn("invalid order list cursor {}", cursor);
+            model.addAttribute("alert_danger", "The page of orders does not exist.");
+            model.addAttribute("orders", new ArrayList<OrderDTO>());
+            return "order/list";
+        }
+        List<OrderDTO> orders = page.getOrders();
         model.addAttribute("orders", orders);
+        model.addAttribute("next", page.getNext());
+        List<Long> ids = orders.stream().map(OrderDTO::getId).collect(Collectors.toList());
+        model.addAttribute("totals", orderFacade.getOrderTotalPrices(ids, Currency.CZK));
         return "order/list";
     }
 
@@ -124,6 +172,67 @@ public class OrderController {
         return "redirect:" + uriBuilder.path("/order/detail/{id}").buildAndExpand(id).encode().toUriString();
     }
 
+    /**
+     * Performs one action on all the orders selected in the list.
+     *
+     * @param ids    ids of the selected orders
+     * @param action one of ship, finish, cancel
+     * @param filter filter of the list to return to
+     * @return redirect to the list
+     */
+    @RequestMapping(value = "/bulk", method = RequestMethod.POST)
+    public String bulk(@RequestParam(value = "ids", required = false) List<Long> ids, @RequestParam String action,
+                       @RequestParam(defaultValue = "all") String filter,
+                       UriComponentsBuilder uriBuilder, RedirectAttributes redirectAttributes) {
+        String redirect = "redirect:" + uriBuilder.path("/order/list/{filter}").buildAndExpand(filter).encode().toUriString();
+        if (ids == null || ids.isEmpty()) {
+            redirectAttributes.addFlashAttribute("alert_warning", "No orders were selected.");
+            return redirect;
+        }
+        List<OrderTransitionResultDTO> results;
+        String done;
+        switch (action) {
+            case "ship":
+                results = orderFacade.shipOrders(ids);
+                done = "shipped";
+                break;
+            case "finish":
+                results = orderFacade.finishOrders(ids);
+                done = "finished";
+                break;
+            case "cancel":
+                results = orderFacade.cancelOrders(ids);
+                done = "canceled";
+                break;
+            default:
+                redirectAttributes.addFlashAttribute("alert_danger", "Unknown action " + action);
+                return redirect;
+        }
+        List<Long> changed = idsWithOutcome(results, OrderTransitionOutcome.CHANGED);
+        List<Long> notAllowed = idsWithOutcome(results, OrderTransitionOutcome.NOT_ALLOWED);
+        List<Long> notFound = idsWithOutcome(results, OrderTransitionOutcome.NOT_FOUND);
+        if (!changed.isEmpty()) {
+            redirectAttributes.addFlashAttribute("alert_success", changed.size() + " orders were " + done + ".");
+        }
+        if (!notAllowed.isEmpty() || !notFound.isEmpty()) {
+            log.warn("cannot {} orders {}, orders {} not found", action, notAllowed, notFound);
+            StringBuilder message = new StringBuilder();
+            if (!notAllowed.isEmpty()) {
+                message.append("Orders ").append(notAllowed).append(" cannot be ").append(done).append(". ");
+            }
+            if (!notFound.isEmpty()) {
+                message.append("Orders ").append(notFound).append(" do not exist.");
+            }
+            redirectAttributes.addFlashAttribute("alert_danger", message.toString().trim());
+        }
+        return redirect;
+    }
 
+    private static List<Long> idsWithOutcome(List<OrderTransitionResultDTO> results, OrderTransitionOutcome outcome) {
+        return results.stream()
+                .filter(r -> r.getOutcome() == outcome)
+                .map(OrderTransitionResultDTO::getOrderId)
+                .collect(Collectors.toList());
+    }
 
 }
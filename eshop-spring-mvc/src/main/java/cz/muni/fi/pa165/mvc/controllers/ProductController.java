@@ -4,7 +4,9 @@ import cz.fi.muni.pa165.dto.CategoryDTO;
 import cz.fi.muni.pa165.dto.Color;
 import cz.fi.muni.pa165.dto.ProductCreateDTO;
 import cz.fi.muni.pa165.dto.ProductDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryPageDTO;
 import cz.fi.muni.pa165.enums.Currency;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
 import cz.fi.muni.pa165.facade.CategoryFacade;
 import cz.fi.muni.pa165.facade.ProductFacade;
 import cz.muni.fi.pa165.mvc.forms.ProductCreateDTOValidator;
@@ -36,6 +38,8 @@ public class ProductController {
 
     private final static Logger log = LoggerFactory.getLogger(ProductController.class);
 
+    private final static int PAGE_SIZE = 50;
+
     @Autowired
     private ProductFacade productFacade;
 
@@ -43,14 +47,25 @@ public class ProductController {
     private CategoryFacade categoryFacade;
 
     /**
-     * Shows a list of products with the ability to add, delete or edit.
+     * Shows a page of products with the ability to add, delete or edit.
      *
+     * @param cursor cursor of the page, omitted for the first page
      * @param model data to display
-     * @return JSP page name
+     * @return JSP page name, or a redirect to the first page when the cursor is not valid
      */
     @RequestMapping(value = "/list", method = RequestMethod.GET)
-    public String list(Model model) {
-        model.addAttribute("products", productFacade.getAllProducts());
+    public String list(@RequestParam(required = false) String cursor, Model model, UriComponentsBuilder uriBuilder,
+                       RedirectAttributes redirectAttributes) {
+        ProductSummaryPageDTO page;
+        try {
+            page = productFacade.getProductSummaryPage(cursor, PAGE_SIZE);
+        } catch (EshopServiceException ex) {
+            log.warn("invalid cursor {}", cursor);
+            redirectAttributes.addFlashAttribute("alert_warning", "Invalid page, showing the first page.");
+            return "redirect:" + uriBuilder.path("/product/list").toUriString();
+        }
+        model.addAttribute("products", page.getProducts());
+        model.addAttribute("next", page.getNext());
         return "product/list";
     }
 
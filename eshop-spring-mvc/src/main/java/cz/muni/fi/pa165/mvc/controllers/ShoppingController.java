@@ -1,9 +1,12 @@
 package cz.muni.fi.pa165.mvc.controllers;
 
 import cz.fi.muni.pa165.dto.CategoryDTO;
-import cz.fi.muni.pa165.dto.ProductDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryPageDTO;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
 import cz.fi.muni.pa165.facade.CategoryFacade;
 import cz.fi.muni.pa165.facade.ProductFacade;
+import cz.fi.muni.pa165.utils.ProductImageResponses;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,11 +14,14 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.util.UriComponentsBuilder;
 
-import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +37,8 @@ public class ShoppingController {
 
     final static Logger log = LoggerFactory.getLogger(ShoppingController.class);
 
+    private static final int PAGE_SIZE = 48;
+
     @Autowired
     private CategoryFacade categoryFacade;
 
@@ -58,10 +66,18 @@ public class ShoppingController {
         List<CategoryDTO> allCategories = categoryFacade.getAllCategories();
         model.addAttribute("categories", allCategories);
 
-        //for each category, get products, remember that as a map from category ids to products
-        Map<Long, List<ProductDTO>> categoriesToProductsMap = new HashMap<>();
+        //get summaries of all products at once and group them into a map from category ids to products
+        Map<Long, List<ProductSummaryDTO>> categoriesToProductsMap = new HashMap<>();
         for (CategoryDTO categoryDTO : allCategories) {
-            categoriesToProductsMap.put(categoryDTO.getId(), productFacade.getProductsByCategory(categoryDTO.getName()));
+            categoriesToProductsMap.put(categoryDTO.getId(), new ArrayList<>());
+        }
+        for (ProductSummaryDTO product : productFacade.getAllProductSummaries()) {
+            for (Long categoryId : product.getCategoryIds()) {
+                List<ProductSummaryDTO> products = categoriesToProductsMap.get(categoryId);
+                if (products != null) {
+                    products.add(product);
+                }
+            }
         }
         model.addAttribute("cat2prods", categoriesToProductsMap);
 
@@ -70,24 +86,18 @@ public class ShoppingController {
     }
 
     /**
-     * Shows a product image.
+     * Shows a product image. The response can be cached by clients, who can revalidate it
+     * with its ETag or Last-Modified, and a single byte range can be requested.
      *
      * @param id       product id
+     * @param size     optional size in pixels, a thumbnail at least this large is shown instead of the original
      * @param response HTTP response
      * @throws IOException
      */
     @RequestMapping("/productImage/{id}")
-    public void productImage(@PathVariable long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
-        ProductDTO productDTO = productFacade.getProductWithId(id);
-        byte[] image = productDTO.getImage();
-        if(image==null) {
-            response.sendRedirect(request.getContextPath()+"/no-image.png");
-        } else {
-            response.setContentType(productDTO.getImageMimeType());
-            ServletOutputStream out = response.getOutputStream();
-            out.write(image);
-            out.flush();
-        }
+    public void productImage(@PathVariable long id, @RequestParam(required = false) Integer size,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ProductImageResponses.send(productFacade, id, size, request, response);
     }
 
     /**
@@ -105,18 +115,29 @@ public class ShoppingController {
     }
 
     /**
-     * Shows category detail.
+     * Shows category detail with a page of its products.
      *
      * @param id    category id
+     * @param cursor cursor of the page of products, omitted for the first page
      * @param model data to display
-     * @return JSP page name
+     * @return JSP page name, or a redirect to the first page when the cursor is not valid
      */
     @RequestMapping("/category/{id}")
-    public String category(@PathVariable long id, Model model) {
-        log.debug("category({})", id);
+    public String category(@PathVariable long id, @RequestParam(required = false) String cursor, Model model,
+                           UriComponentsBuilder uriBuilder, RedirectAttributes redirectAttributes) {
+        log.debug("category({}, {})", id, cursor);
         CategoryDTO categoryDTO = categoryFacade.getCategoryById(id);
+        ProductSummaryPageDTO page;
+        try {
+            page = productFacade.getProductSummaryPageByCategory(categoryDTO.getName(), cursor, PAGE_SIZE);
+        } catch (EshopServiceException ex) {
+            log.warn("invalid cursor {}", cursor);
+            redirectAttributes.addFlashAttribute("alert_warning", "Invalid page, showing the first page.");
+            return "redirect:" + uriBuilder.path("/shopping/category/{id}").buildAndExpand(id).toUriString();
+        }
         model.addAttribute("category", categoryDTO);
-        model.addAttribute("products", productFacade.getProductsByCategory(categoryDTO.getName()));
+        model.addAttribute("products", page.getProducts());
+        model.addAttribute("next", page.getNext());
         return "shopping/category";
     }
 }
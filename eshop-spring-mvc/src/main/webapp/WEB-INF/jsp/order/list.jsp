@@ -17,12 +17,29 @@
         <my:a href="/order/list/unprocessed" class="btn btn-default ${filter=='unprocessed'?'active':''}">Unprocessed</my:a>
     </div>
 
+    <c:url var="listUrl" value="/order/list/${filter}"/>
+    <form class="form-inline" method="get" action="<c:out value='${listUrl}'/>">
+        <label for="from">created from</label>
+        <input type="date" id="from" name="from" value="<c:out value="${param.from}"/>" class="form-control"/>
+        <label for="to">to</label>
+        <input type="date" id="to" name="to" value="<c:out value="${param.to}"/>" class="form-control"/>
+        <label for="productId">product id</label>
+        <input type="number" id="productId" name="productId" value="<c:out value="${param.productId}"/>" class="form-control"/>
+        <label for="minTotal">total at least (CZK)</label>
+        <input type="number" id="minTotal" name="minTotal" step="0.01" value="<c:out value="${param.minTotal}"/>" class="form-control"/>
+        <button type="submit" class="btn btn-default">Search</button>
+    </form>
+
+    <form method="post" action="${pageContext.request.contextPath}/order/bulk">
+    <input type="hidden" name="filter" value="${filter}"/>
     <table class="table">
         <thead>
         <tr>
+            <th></th>
             <th>id</th>
             <th>placed</th>
             <th>state</th>
+            <th>total (CZK)</th>
             <th>email</th>
             <th>customer name</th>
             <th>address</th>
@@ -32,9 +49,11 @@
         <tbody>
         <c:forEach items="${orders}" var="order">
             <tr>
+                <td><input type="checkbox" name="ids" value="${order.id}"/></td>
                 <td>${order.id}</td>
                 <td><fmt:formatDate value="${order.created}" pattern="yyyy-MM-dd"/></td>
                 <td>${order.state}</td>
+                <td><fmt:formatNumber value="${totals[order.id]}" minFractionDigits="2" maxFractionDigits="2"/></td>
                 <td><c:out value="${order.user.email}"/></td>
                 <td><c:out value="${order.user.givenName} ${order.user.surname}"/></td>
                 <td><c:out value="${order.user.phone}"/></td>
@@ -46,6 +65,23 @@
         </c:forEach>
         </tbody>
     </table>
+    <div class="btn-group" role="group" aria-label="selected orders">
+        <button type="submit" name="action" value="ship" class="btn btn-primary">Ship selected</button>
+        <button type="submit" name="action" value="finish" class="btn btn-primary">Finish selected</button>
+        <button type="submit" name="action" value="cancel" class="btn btn-primary">Cancel selected</button>
+    </div>
+    </form>
+
+    <c:if test="${not empty next}">
+        <c:url var="nextUrl" value="/order/list/${filter}">
+            <c:param name="from" value="${param.from}"/>
+            <c:param name="to" value="${param.to}"/>
+            <c:param name="productId" value="${param.productId}"/>
+            <c:param name="minTotal" value="${param.minTotal}"/>
+            <c:param name="cursor" value="${next}"/>
+        </c:url>
+        <a href="<c:out value='${nextUrl}'/>" class="btn btn-default">Next page</a>
+    </c:if>
 
 </jsp:attribute>
 </my:pagetemplate>
\ No newline at end of file
@@ -44,6 +44,10 @@
         </tbody>
     </table>
 
+    <c:if test="${not empty next}">
+        <my:a href="/product/list?cursor=${next}" class="btn btn-default">Next page</my:a>
+    </c:if>
+
 
 </jsp:attribute>
 </my:pagetemplate>
\ No newline at end of file
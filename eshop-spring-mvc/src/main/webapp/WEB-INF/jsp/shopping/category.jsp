@@ -14,7 +14,7 @@
                 <div class="col-xs-12 col-sm-4 col-md-3 col-lg-2"><!-- bootstrap responsive grid -->
                     <a href="${pageContext.request.contextPath}/shopping/product/${product.id}">
                         <div class="thumbnail">
-                            <img src="${pageContext.request.contextPath}/shopping/productImage/${product.id}"><br>
+                            <img src="${pageContext.request.contextPath}/shopping/productImage/${product.id}?size=256"><br>
 
                             <div class="caption">
                                 <h3><c:out value="${product.name}"/></h3>
@@ -28,5 +28,9 @@
             </c:forEach>
         </div>
 
+        <c:if test="${not empty next}">
+            <my:a href="/shopping/category/${category.id}?cursor=${next}" class="btn btn-default">Next page</my:a>
+        </c:if>
+
 </jsp:attribute>
 </my:pagetemplate>
\ No newline at end of file
@@ -23,7 +23,7 @@
                     <div class="col-xs-12 col-sm-4 col-md-3 col-lg-2"><!-- bootstrap responsive grid -->
                         <a href="${pageContext.request.contextPath}/shopping/product/${product.id}">
                         <div class="thumbnail">
-                        <img src="${pageContext.request.contextPath}/shopping/productImage/${product.id}"><br>
+                        <img src="${pageContext.request.contextPath}/shopping/productImage/${product.id}?size=256"><br>
                         <div class="caption">
                             <h3><c:out value="${product.name}"/></h3>
                             <span style="color: red; font-weight: bold;"><c:out value="${product.currentPrice.value}"/>&nbsp;<c:out value="${product.currentPrice.currency}"/></span>
@@ -2,6 +2,11 @@ package cz.muni.fi.pa165.mvc.controllers;
 
 import cz.fi.muni.pa165.dto.CategoryDTO;
 import cz.fi.muni.pa165.dto.ProductDTO;
+import cz.fi.muni.pa165.dto.ProductImageDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryDTO;
+import cz.fi.muni.pa165.dto.ProductSummaryPageDTO;
+import cz.fi.muni.pa165.exceptions.EshopServiceException;
+import cz.fi.muni.pa165.exceptions.ImageChangedException;
 import cz.fi.muni.pa165.facade.CategoryFacade;
 import cz.fi.muni.pa165.facade.ProductFacade;
 import org.mockito.Mock;
@@ -14,11 +19,24 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebAppConfiguration
@@ -68,21 +86,213 @@ public class ShoppingControllerTest {
 
     }
 
+    @Test
+    public void testList() throws Exception {
+        categoryDTO = new CategoryDTO();
+        categoryDTO.setId(10l);
+        categoryDTO.setName("cat1");
+        CategoryDTO emptyCategory = new CategoryDTO();
+        emptyCategory.setId(20l);
+        emptyCategory.setName("cat2");
+        ProductSummaryDTO summary = new ProductSummaryDTO();
+        summary.setId(1l);
+        summary.setName("AAA");
+        summary.getCategoryIds().add(10l);
+        when(categoryFacade.getAllCategories()).thenReturn(List.of(categoryDTO, emptyCategory));
+        when(productFacade.getAllProductSummaries()).thenReturn(Collections.singletonList(summary));
+
+        this.mockMvc.perform(get("/shopping/show")
+                .accept(MediaType.parseMediaType("text/html;charset=UTF-8")))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("cat2prods", Map.of(
+                        10l, Collections.singletonList(summary),
+                        20l, Collections.emptyList())))
+                .andExpect(forwardedUrl("shopping/show"))
+        ;
+    }
+
     @Test
     public void testCategory() throws Exception {
         categoryDTO = new CategoryDTO();
         categoryDTO.setId(10l);
         categoryDTO.setName("cat1");
-        List<ProductDTO> prods = Collections.singletonList(productDTO);
+        ProductSummaryDTO summary = new ProductSummaryDTO();
+        summary.setId(1l);
+        summary.setName("p1");
+        ProductSummaryPageDTO page = new ProductSummaryPageDTO();
+        page.setProducts(Collections.singletonList(summary));
+        page.setNext("next");
         when(categoryFacade.getCategoryById(categoryDTO.getId())).thenReturn(categoryDTO);
-        when(productFacade.getProductsByCategory(categoryDTO.getName())).thenReturn(prods);
+        when(productFacade.getProductSummaryPageByCategory(categoryDTO.getName(), null, 48)).thenReturn(page);
+        when(productFacade.getProductSummaryPageByCategory(categoryDTO.getName(), "next", 48)).thenReturn(new ProductSummaryPageDTO());
 
         this.mockMvc.perform(get("/shopping/category/10")
                 .accept(MediaType.parseMediaType("text/html;charset=UTF-8")))
                 .andExpect(status().isOk())
                 .andExpect(model().attribute("category", categoryDTO))
-                .andExpect(model().attribute("products", prods))
+                .andExpect(model().attribute("products", page.getProducts()))
+                .andExpect(model().attribute("next", "next"))
                 .andExpect(forwardedUrl("shopping/category"))
         ;
+        this.mockMvc.perform(get("/shopping/category/10").param("cursor", "next"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("next", (Object) null))
+        ;
+    }
+
+    @Test
+    public void testCategoryWithInvalidCursor() throws Exception {
+        categoryDTO = new CategoryDTO();
+        categoryDTO.setId(11l);
+        categoryDTO.setName("cat2");
+        when(categoryFacade.getCategoryById(categoryDTO.getId())).thenReturn(categoryDTO);
+        when(productFacade.getProductSummaryPageByCategory(categoryDTO.getName(), "broken", 48))
+                .thenThrow(new EshopServiceException("Invalid page cursor broken"));
+
+        this.mockMvc.perform(get("/shopping/category/11").param("cursor", "broken"))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("http://localhost/shopping/category/11"))
+                .andExpect(flash().attributeExists("alert_warning"))
+        ;
+    }
+
+    @Test
+    public void testProductImage() throws Exception {
+        mockImage(2l, new byte[]{1, 2, 3, 4, 5});
+
+        this.mockMvc.perform(get("/shopping/productImage/2"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(new byte[]{1, 2, 3, 4, 5}))
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(header().string("Cache-Control", "max-age=604800, public"))
+        ;
+    }
+
+    @Test
+    public void testProductImageNotModified() throws Exception {
+        mockImage(3l, new byte[]{1, 2, 3});
+
+        this.mockMvc.perform(get("/shopping/productImage/3").header("If-None-Match", "\"abc\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]))
+        ;
+    }
+
+    @Test
+    public void testProductImageRange() throws Exception {
+        mockImage(4l, new byte[]{1, 2, 3, 4, 5});
+
+        this.mockMvc.perform(get("/shopping/productImage/4").header("Range", "bytes=1-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 1-3/5"))
+                .andExpect(content().bytes(new byte[]{2, 3, 4}))
+        ;
+        this.mockMvc.perform(get("/shopping/productImage/4").header("Range", "bytes=7-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */5"))
+        ;
+    }
+
+    @Test
+    public void testProductImageHead() throws Exception {
+        mockImage(7l, new byte[]{1, 2, 3});
+
+        this.mockMvc.perform(head("/shopping/productImage/7"))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue("Content-Length", 3))
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(content().bytes(new byte[0]))
+        ;
+        verify(productFacade, never()).writeProductImage(eq(7l), any(), anyLong(), anyLong(), any(WritableByteChannel.class));
+    }
+
+    @Test
+    public void testEmptyProductImage() throws Exception {
+        mockImage(8l, new byte[0]);
+
+        this.mockMvc.perform(get("/shopping/productImage/8").header("Range", "bytes=0-"))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue("Content-Length", 0))
+                .andExpect(header().doesNotExist("Content-Range"))
+                .andExpect(content().bytes(new byte[0]))
+        ;
+        verify(productFacade, never()).writeProductImage(eq(8l), any(), anyLong(), anyLong(), any(WritableByteChannel.class));
+    }
+
+    @Test
+    public void testProductThumbnail() throws Exception {
+        ProductImageDTO thumbnail = new ProductImageDTO();
+        thumbnail.setProductId(6l);
+        thumbnail.setMimeType("image/jpeg");
+        thumbnail.setLength(2);
+        thumbnail.setContentHash("abc-256");
+        when(productFacade.getProductThumbnail(6l, 200)).thenReturn(thumbnail);
+        doAnswer(invocation -> {
+            WritableByteChannel target = invocation.getArgument(5);
+            target.write(ByteBuffer.wrap(new byte[]{8, 9}));
+            return null;
+        }).when(productFacade).writeProductThumbnail(eq(6l), eq(200), eq("abc-256"), eq(0l), eq(2l),
+                any(WritableByteChannel.class));
+
+        this.mockMvc.perform(get("/shopping/productImage/6").param("size", "200"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().bytes(new byte[]{8, 9}))
+                .andExpect(header().string("ETag", "\"abc-256\""))
+        ;
+    }
+
+    @Test
+    public void testMissingProductImage() throws Exception {
+        when(productFacade.getProductImage(5l)).thenReturn(null);
+
+        this.mockMvc.perform(get("/shopping/productImage/5"))
+                .andExpect(redirectedUrl("/no-image.png"))
+        ;
+    }
+
+    @Test
+    public void testChangedProductImageIsSentAgain() throws Exception {
+        ProductImageDTO old = image(9l, "old", 3);
+        ProductImageDTO changed = image(9l, "new", 2);
+        when(productFacade.getProductImage(9l)).thenReturn(old, changed);
+        doThrow(new ImageChangedException("changed")).when(productFacade)
+                .writeProductImage(eq(9l), eq("old"), anyLong(), anyLong(), any(WritableByteChannel.class));
+        mockWrite(9l, "new", new byte[]{6, 7});
+
+        this.mockMvc.perform(get("/shopping/productImage/9").header("Range", "bytes=1-2"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 1-1/2"))
+                .andExpect(header().string("ETag", "\"new\""))
+                .andExpect(content().bytes(new byte[]{7}))
+        ;
+    }
+
+    private static ProductImageDTO image(long productId, String contentHash, int length) {
+        ProductImageDTO image = new ProductImageDTO();
+        image.setProductId(productId);
+        image.setMimeType("image/png");
+        image.setLength(length);
+        image.setContentHash(contentHash);
+        image.setLastModified(new Date());
+        return image;
+    }
+
+    private void mockImage(long productId, byte[] data) {
+        when(productFacade.getProductImage(productId)).thenReturn(image(productId, "abc", data.length));
+        mockWrite(productId, "abc", data);
+    }
+
+    private void mockWrite(long productId, String contentHash, byte[] data) {
+        doAnswer(invocation -> {
+            int offset = ((Long) invocation.getArgument(2)).intValue();
+            int length = ((Long) invocation.getArgument(3)).intValue();
+            WritableByteChannel target = invocation.getArgument(4);
+            target.write(ByteBuffer.wrap(Arrays.copyOfRange(data, offset, offset + length)));
+            return null;
+        }).when(productFacade).writeProductImage(eq(productId), eq(contentHash), anyLong(), anyLong(),
+                any(WritableByteChannel.class));
     }
 }